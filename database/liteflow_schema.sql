@@ -57,6 +57,15 @@ CREATE TABLE UserRoles (
 );
 GO
 
+-- ROLE PATHS - Tiền tố đường dẫn được phép theo Role (bổ sung cho quyền mặc định của AuthenticationFilter)
+CREATE TABLE RolePaths (
+    RoleID UNIQUEIDENTIFIER NOT NULL,
+    PathPrefix NVARCHAR(200) NOT NULL,
+    PRIMARY KEY(RoleID, PathPrefix),
+    CONSTRAINT FK_RolePaths_Role FOREIGN KEY (RoleID) REFERENCES Roles(RoleID) ON DELETE CASCADE
+);
+GO
+
 -- USER SESSIONS
 CREATE TABLE UserSessions (
     SessionID UNIQUEIDENTIFIER PRIMARY KEY DEFAULT NEWID(),
@@ -302,7 +311,11 @@ CREATE TABLE TableSessions (
     CheckInTime DATETIME2 DEFAULT SYSDATETIME(),  -- Thời gian vào
     CheckOutTime DATETIME2 NULL,      -- Thời gian ra
     Status NVARCHAR(50) DEFAULT 'Active' CHECK (Status IN ('Active', 'Completed', 'Cancelled')),
+    SubTotal DECIMAL(10,2) DEFAULT 0.00,     -- Tổng tiền trước VAT (cộng dồn khi tạo/hủy order)
+    VAT DECIMAL(10,2) DEFAULT 0.00,          -- Tổng VAT (cộng dồn)
     TotalAmount DECIMAL(10,2) DEFAULT 0.00,  -- Tổng tiền của phiên
+    ItemCount INT NOT NULL DEFAULT 0,        -- Số dòng món của các order chưa hủy
+    Version INT NOT NULL DEFAULT 0,          -- Optimistic lock cho các cập nhật tổng tiền
     PaymentMethod NVARCHAR(50) NULL,  -- Phương thức thanh toán
     PaymentStatus NVARCHAR(50) DEFAULT 'Unpaid' CHECK (PaymentStatus IN ('Unpaid', 'Paid', 'Partial')),
     InvoiceName NVARCHAR(100) NULL,   -- Tên hóa đơn (vd: "Bàn 1 - HD 1")
@@ -335,6 +348,13 @@ CREATE TABLE Orders (
     CONSTRAINT FK_Orders_CreatedBy FOREIGN KEY (CreatedBy) REFERENCES Users(UserID) ON DELETE SET NULL
 );
 
+-- ORDER NUMBER BLOCKS - Bộ đếm hi/lo cấp số đơn hàng ORDyyyyMMddNNN theo ngày
+CREATE TABLE OrderNumberBlocks (
+    BusinessDate DATE PRIMARY KEY,
+    NextValue INT NOT NULL DEFAULT 1,     -- Số thứ tự đầu tiên chưa được cấp
+    UpdatedAt DATETIME2 DEFAULT SYSDATETIME()
+);
+
 -- ORDER DETAILS - Chi tiết món trong đơn hàng
 CREATE TABLE OrderDetails (
     OrderDetailID UNIQUEIDENTIFIER PRIMARY KEY DEFAULT NEWID(),
@@ -402,6 +422,37 @@ CREATE TABLE PaymentTransactions (
     CONSTRAINT FK_PaymentTransactions_ProcessedBy FOREIGN KEY (ProcessedBy) REFERENCES Users(UserID) ON DELETE SET NULL
 );
 
+-- =======================================================
+-- 6b. SALES ROLLUPS - Tổng hợp doanh thu cho báo cáo (dựng lại từ Orders/OrderDetails, xem SalesRollup)
+-- =======================================================
+CREATE TABLE SalesDailyRollup (
+    SalesDate DATE PRIMARY KEY,
+    Revenue DECIMAL(18,2) NOT NULL DEFAULT 0,   -- SUM(Orders.TotalAmount) của đơn đã thanh toán
+    OrderCount BIGINT NOT NULL DEFAULT 0,
+    UpdatedAt DATETIME2 DEFAULT SYSDATETIME()
+);
+
+CREATE TABLE SalesHourlyRollup (
+    BucketStart DATETIME2 PRIMARY KEY,          -- Đầu giờ, chỉ có dòng cho giờ có đơn
+    Revenue DECIMAL(18,2) NOT NULL DEFAULT 0,
+    OrderCount BIGINT NOT NULL DEFAULT 0
+);
+
+-- Không có khóa ngoại: dữ liệu dẫn xuất, dựng lại được bất cứ lúc nào
+CREATE TABLE SalesVariantDailyRollup (
+    SalesDate DATE NOT NULL,
+    ProductVariantID UNIQUEIDENTIFIER NOT NULL,
+    Quantity BIGINT NOT NULL DEFAULT 0,
+    Revenue DECIMAL(18,2) NOT NULL DEFAULT 0,   -- SUM(OrderDetails.TotalPrice)
+    PRIMARY KEY(SalesDate, ProductVariantID)
+);
+
+CREATE TABLE SalesDailySessions (
+    SalesDate DATE NOT NULL,
+    SessionID UNIQUEIDENTIFIER NOT NULL,        -- Phiên có đơn đã thanh toán trong ngày (đếm khách)
+    PRIMARY KEY(SalesDate, SessionID)
+);
+
 -- =======================================================
 -- 7. INDEXES
 -- =======================================================
@@ -418,9 +469,13 @@ CREATE INDEX IX_TableSessions_TableID ON TableSessions(TableID);
 CREATE INDEX IX_TableSessions_Status ON TableSessions(Status);
 CREATE INDEX IX_TableSessions_CheckInTime ON TableSessions(CheckInTime);
 CREATE INDEX IX_TableSessions_CheckOutTime ON TableSessions(CheckOutTime);
+-- Lịch sử thanh toán của thu ngân (keyset theo CheckOutTime, SessionID)
+CREATE INDEX IX_TableSessions_Paid_CheckOutTime ON TableSessions(CheckOutTime DESC, SessionID DESC)
+    INCLUDE (TableID, TotalAmount, ItemCount, PaymentMethod, InvoiceName)
+    WHERE Status = 'Completed' AND PaymentStatus = 'Paid';
 
 CREATE INDEX IX_Orders_SessionID ON Orders(SessionID);
-CREATE INDEX IX_Orders_OrderNumber ON Orders(OrderNumber);
+CREATE UNIQUE INDEX UX_Orders_OrderNumber ON Orders(OrderNumber);
 CREATE INDEX IX_Orders_OrderDate ON Orders(OrderDate);
 CREATE INDEX IX_Orders_Status ON Orders(Status);
 CREATE INDEX IX_Orders_PaymentStatus ON Orders(PaymentStatus);
@@ -0,0 +1,18 @@
+-- ============================================================
+-- NOTIFICATION HISTORY - DATABASE SCHEMA
+-- Index cho lịch sử thông báo của thu ngân (GET /api/cashier/notification/history, phân trang keyset)
+-- Chạy cho database đã tạo trước đây, liteflow_schema.sql đã có sẵn index này
+-- ============================================================
+
+USE LiteFlowDBO;
+GO
+
+-- Thông báo bếp dùng IX_Orders_OrderDate có sẵn (OrderID là khóa clustered nên đã nằm trong index)
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_TableSessions_Paid_CheckOutTime' AND object_id = OBJECT_ID('TableSessions'))
+    CREATE INDEX IX_TableSessions_Paid_CheckOutTime ON TableSessions(CheckOutTime DESC, SessionID DESC)
+        INCLUDE (TableID, TotalAmount, ItemCount, PaymentMethod, InvoiceName)
+        WHERE Status = 'Completed' AND PaymentStatus = 'Paid';
+GO
+
+PRINT 'Notification history index ready';
+GO
@@ -0,0 +1,39 @@
+-- ============================================================
+-- ORDER NUMBER BLOCKS - DATABASE SCHEMA
+-- Bộ đếm hi/lo cho OrderNumberAllocator (số đơn ORDyyyyMMddNNN) và unique index cho Orders.OrderNumber
+-- Chạy cho database đã tạo trước đây, liteflow_schema.sql đã có sẵn bảng này
+-- ============================================================
+
+USE LiteFlowDBO;
+GO
+
+IF OBJECT_ID('OrderNumberBlocks', 'U') IS NULL
+BEGIN
+    CREATE TABLE OrderNumberBlocks (
+        BusinessDate DATE PRIMARY KEY,
+        NextValue INT NOT NULL DEFAULT 1,     -- Số thứ tự đầu tiên chưa được cấp
+        UpdatedAt DATETIME2 DEFAULT SYSDATETIME()
+    );
+END
+GO
+
+-- Số đơn không được trùng (OrderNumberAllocator dựa vào index này để chặn số trùng)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UX_Orders_OrderNumber' AND object_id = OBJECT_ID('Orders'))
+BEGIN
+    IF EXISTS (SELECT OrderNumber FROM Orders GROUP BY OrderNumber HAVING COUNT(*) > 1)
+    BEGIN
+        SELECT OrderNumber, COUNT(*) AS Duplicates
+        FROM Orders GROUP BY OrderNumber HAVING COUNT(*) > 1;
+        RAISERROR('Orders có OrderNumber trùng (danh sách ở trên), sửa rồi chạy lại script để tạo UX_Orders_OrderNumber', 16, 1);
+    END
+    ELSE
+    BEGIN
+        IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Orders_OrderNumber' AND object_id = OBJECT_ID('Orders'))
+            DROP INDEX IX_Orders_OrderNumber ON Orders;
+        CREATE UNIQUE INDEX UX_Orders_OrderNumber ON Orders(OrderNumber);
+    END
+END
+GO
+
+PRINT 'OrderNumberBlocks table ready';
+GO
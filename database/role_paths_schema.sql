@@ -0,0 +1,23 @@
+-- ============================================================
+-- ROLE PATHS - DATABASE SCHEMA
+-- Quyền truy cập theo tiền tố đường dẫn cho từng Role, bổ sung cho quyền mặc định của AuthenticationFilter
+-- Sau khi sửa bảng: POST /admin/metrics?action=reloadAuthRules (hoặc RoleService.addRolePath / removeRolePath)
+-- Chạy cho database đã tạo trước đây, liteflow_schema.sql đã có sẵn bảng này
+-- ============================================================
+
+USE LiteFlowDBO;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'RolePaths')
+BEGIN
+    CREATE TABLE RolePaths (
+        RoleID UNIQUEIDENTIFIER NOT NULL,
+        PathPrefix NVARCHAR(200) NOT NULL,   -- vd. '/reports', so khớp không phân biệt hoa thường
+        PRIMARY KEY(RoleID, PathPrefix),
+        CONSTRAINT FK_RolePaths_Role FOREIGN KEY (RoleID) REFERENCES Roles(RoleID) ON DELETE CASCADE
+    );
+END
+GO
+
+PRINT 'Role paths table ready';
+GO
@@ -0,0 +1,56 @@
+-- ============================================================
+-- SALES ROLLUPS - DATABASE SCHEMA
+-- Bảng tổng hợp doanh thu theo ngày / giờ / biến thể sản phẩm / phiên cho báo cáo doanh thu
+-- Dữ liệu được SalesRollupBackfillJob dựng lại từ Orders/OrderDetails khi server khởi động,
+-- dựng lại toàn bộ: POST /admin/metrics?action=rebuildSalesRollup
+-- Chạy cho database đã tạo trước đây, liteflow_schema.sql đã có sẵn các bảng này
+-- ============================================================
+
+USE LiteFlowDBO;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'SalesDailyRollup')
+BEGIN
+    CREATE TABLE SalesDailyRollup (
+        SalesDate DATE PRIMARY KEY,
+        Revenue DECIMAL(18,2) NOT NULL DEFAULT 0,   -- SUM(Orders.TotalAmount) của đơn đã thanh toán
+        OrderCount BIGINT NOT NULL DEFAULT 0,
+        UpdatedAt DATETIME2 DEFAULT SYSDATETIME()
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'SalesHourlyRollup')
+BEGIN
+    CREATE TABLE SalesHourlyRollup (
+        BucketStart DATETIME2 PRIMARY KEY,          -- Đầu giờ, chỉ có dòng cho giờ có đơn
+        Revenue DECIMAL(18,2) NOT NULL DEFAULT 0,
+        OrderCount BIGINT NOT NULL DEFAULT 0
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'SalesVariantDailyRollup')
+BEGIN
+    CREATE TABLE SalesVariantDailyRollup (
+        SalesDate DATE NOT NULL,
+        ProductVariantID UNIQUEIDENTIFIER NOT NULL, -- Không có khóa ngoại: dữ liệu dẫn xuất
+        Quantity BIGINT NOT NULL DEFAULT 0,
+        Revenue DECIMAL(18,2) NOT NULL DEFAULT 0,   -- SUM(OrderDetails.TotalPrice)
+        PRIMARY KEY(SalesDate, ProductVariantID)
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'SalesDailySessions')
+BEGIN
+    CREATE TABLE SalesDailySessions (
+        SalesDate DATE NOT NULL,
+        SessionID UNIQUEIDENTIFIER NOT NULL,        -- Phiên có đơn đã thanh toán trong ngày (đếm khách)
+        PRIMARY KEY(SalesDate, SessionID)
+    );
+END
+GO
+
+PRINT 'Sales rollup tables ready';
+GO
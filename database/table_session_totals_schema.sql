@@ -0,0 +1,59 @@
+-- ============================================================
+-- TABLE SESSION RUNNING TOTALS - DATABASE SCHEMA
+-- Thêm cột tổng cộng dồn + Version cho TableSessions và tính lại cho các phiên cũ
+-- Chạy cho database đã tạo trước đây, liteflow_schema.sql đã có sẵn các cột này
+-- ============================================================
+
+USE LiteFlowDBO;
+GO
+
+IF COL_LENGTH('TableSessions', 'SubTotal') IS NULL
+    ALTER TABLE TableSessions ADD SubTotal DECIMAL(10,2) DEFAULT 0.00;
+IF COL_LENGTH('TableSessions', 'VAT') IS NULL
+    ALTER TABLE TableSessions ADD VAT DECIMAL(10,2) DEFAULT 0.00;
+IF COL_LENGTH('TableSessions', 'ItemCount') IS NULL
+    ALTER TABLE TableSessions ADD ItemCount INT NOT NULL DEFAULT 0;
+IF COL_LENGTH('TableSessions', 'Version') IS NULL
+    ALTER TABLE TableSessions ADD Version INT NOT NULL DEFAULT 0;
+GO
+
+-- Tính lại tổng cho các phiên đang mở (bỏ qua order đã hủy)
+UPDATE s SET
+    SubTotal = ISNULL(o.SubTotal, 0),
+    VAT = ISNULL(o.VAT, 0),
+    TotalAmount = ISNULL(o.TotalAmount, 0),
+    ItemCount = ISNULL(d.ItemCount, 0)
+FROM TableSessions s
+OUTER APPLY (
+    SELECT SUM(SubTotal) AS SubTotal, SUM(VAT) AS VAT, SUM(TotalAmount) AS TotalAmount
+    FROM Orders WHERE SessionID = s.SessionID AND Status <> 'Cancelled'
+) o
+OUTER APPLY (
+    SELECT COUNT(*) AS ItemCount
+    FROM OrderDetails od JOIN Orders ord ON od.OrderID = ord.OrderID
+    WHERE ord.SessionID = s.SessionID AND ord.Status <> 'Cancelled'
+) d
+WHERE s.Status = 'Active';
+GO
+
+-- Phiên đã đóng (Completed...): lịch sử thanh toán đọc ItemCount nên cũng phải tính lại,
+-- nhưng giữ nguyên TotalAmount là số tiền đã thanh toán thực tế
+UPDATE s SET
+    SubTotal = ISNULL(o.SubTotal, 0),
+    VAT = ISNULL(o.VAT, 0),
+    ItemCount = ISNULL(d.ItemCount, 0)
+FROM TableSessions s
+OUTER APPLY (
+    SELECT SUM(SubTotal) AS SubTotal, SUM(VAT) AS VAT
+    FROM Orders WHERE SessionID = s.SessionID AND Status <> 'Cancelled'
+) o
+OUTER APPLY (
+    SELECT COUNT(*) AS ItemCount
+    FROM OrderDetails od JOIN Orders ord ON od.OrderID = ord.OrderID
+    WHERE ord.SessionID = s.SessionID AND ord.Status <> 'Cancelled'
+) d
+WHERE s.Status <> 'Active';
+GO
+
+PRINT 'TableSessions running totals ready';
+GO
@@ -0,0 +1,125 @@
+package com.liteflow.controller.admin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.liteflow.controller.cashier.KitchenStreamServlet;
+import com.liteflow.dao.cache.SecondLevelCacheStats;
+import com.liteflow.dao.inventory.LiveOrderBoard;
+import com.liteflow.dao.pool.PooledConnectionProvider;
+import com.liteflow.dao.report.SalesRollup;
+import com.liteflow.job.JobScheduler;
+import com.liteflow.job.SalesRollupBackfillJob;
+import com.liteflow.job.SessionTotalsReconciliationJob;
+import com.liteflow.security.PathAuthorizer;
+import com.liteflow.security.PrincipalCache;
+import com.liteflow.security.TokenRevocationList;
+import com.liteflow.service.alert.AlertCoalescer;
+import com.liteflow.service.alert.AlertDeliveryPipeline;
+import com.liteflow.service.alert.ChannelUsageTracker;
+import com.liteflow.service.alert.NotificationHttpClient;
+import com.liteflow.service.alert.POAlertTracker;
+import com.liteflow.service.auth.AuditLogWriter;
+import com.liteflow.service.event.DomainEventBus;
+import com.liteflow.service.report.ReportCache;
+import com.liteflow.service.report.ReportFanOut;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admin metrics endpoint (chỉ Admin/Owner - AuthenticationFilter chặn /admin/*)
+ * URL: GET /admin/metrics
+ *      POST /admin/metrics?action=evictCache  - xóa toàn bộ second-level cache
+ *      POST /admin/metrics?action=reloadAuthRules  - đọc lại bảng RolePaths cho AuthenticationFilter
+ *      POST /admin/metrics?action=rebuildSalesRollup  - dựng lại toàn bộ bảng rollup doanh thu (và xóa cache báo cáo)
+ *      POST /admin/metrics?action=runJob&job=...  - chạy ngay một lượt job của JobScheduler
+ */
+@WebServlet(name = "SystemMetricsServlet", urlPatterns = {"/admin/metrics"})
+public class SystemMetricsServlet extends HttpServlet {
+
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("timestamp", LocalDateTime.now().toString());
+        metrics.put("connectionPool", PooledConnectionProvider.getPoolMetrics());
+        metrics.put("secondLevelCache", SecondLevelCacheStats.snapshot());
+        metrics.put("sessionTotals", SessionTotalsReconciliationJob.getMetrics());
+        metrics.put("salesRollup", SalesRollupBackfillJob.getMetrics());
+        metrics.put("reportQueries", ReportFanOut.getMetrics());
+        metrics.put("reportCache", ReportCache.getMetrics());
+        metrics.put("kitchenStream", KitchenStreamServlet.getMetrics());
+        metrics.put("orderBoard", LiveOrderBoard.getMetrics());
+        metrics.put("authCache", PrincipalCache.getMetrics());
+        metrics.put("authRules", PathAuthorizer.getMetrics());
+        metrics.put("jwtRevocation", TokenRevocationList.getMetrics());
+        AuditLogWriter auditWriter = AuditLogWriter.current();
+        metrics.put("auditLog", auditWriter != null ? auditWriter.getMetrics() : null);
+        AlertDeliveryPipeline alertPipeline = AlertDeliveryPipeline.current();
+        metrics.put("alertDelivery", alertPipeline != null ? alertPipeline.getMetrics() : null);
+        AlertCoalescer alertCoalescer = AlertCoalescer.current();
+        metrics.put("alertCoalescer", alertCoalescer != null ? alertCoalescer.getMetrics() : null);
+        Map<String, Object> notifications = new LinkedHashMap<>(ChannelUsageTracker.getMetrics());
+        notifications.put("http", NotificationHttpClient.getMetrics());
+        metrics.put("notifications", notifications);
+        JobScheduler jobScheduler = JobScheduler.current();
+        metrics.put("scheduler", jobScheduler != null ? jobScheduler.getMetrics() : null);
+        DomainEventBus eventBus = DomainEventBus.current();
+        metrics.put("domainEvents", eventBus != null ? eventBus.getMetrics() : null);
+        POAlertTracker poAlerts = POAlertTracker.current();
+        metrics.put("poDeadlines", poAlerts != null ? poAlerts.getMetrics() : null);
+
+        resp.getWriter().write(gson.toJson(metrics));
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        String action = req.getParameter("action");
+        if ("evictCache".equals(action)) {
+            SecondLevelCacheStats.evictAll();
+            resp.getWriter().write("{\"success\":true}");
+        } else if ("reloadAuthRules".equals(action)) {
+            try {
+                int databaseRules = PathAuthorizer.reload();
+                resp.getWriter().write("{\"success\":true,\"databaseRules\":" + databaseRules + "}");
+            } catch (Exception e) {
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                resp.getWriter().write(gson.toJson(Map.of("success", false, "error", String.valueOf(e.getMessage()))));
+            }
+        } else if ("rebuildSalesRollup".equals(action)) {
+            try {
+                Map<String, Object> run = SalesRollup.rebuildAll();
+                ReportCache.clear();
+                resp.getWriter().write(gson.toJson(Map.of("success", true, "run", run)));
+            } catch (Exception e) {
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                resp.getWriter().write(gson.toJson(Map.of("success", false, "error", String.valueOf(e.getMessage()))));
+            }
+        } else if ("runJob".equals(action)) {
+            JobScheduler jobScheduler = JobScheduler.current();
+            if (jobScheduler != null && jobScheduler.runNow(req.getParameter("job"))) {
+                resp.getWriter().write("{\"success\":true}");
+            } else {
+                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                resp.getWriter().write("{\"success\":false,\"error\":\"Unknown job\"}");
+            }
+        } else {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("{\"success\":false,\"error\":\"Unknown action\"}");
+        }
+    }
+}
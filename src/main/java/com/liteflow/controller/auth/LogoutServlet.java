@@ -1,6 +1,7 @@
 package com.liteflow.controller.auth;
 
 import com.liteflow.security.JwtUtil;
+import com.liteflow.security.PrincipalCache;
 import com.liteflow.service.auth.AuditService;
 import com.liteflow.service.auth.UserService;
 import com.liteflow.model.auth.User;
@@ -69,6 +70,7 @@ public class LogoutServlet extends HttpServlet {
 
         // Xoá session trong memory
         if (session != null) {
+            PrincipalCache.invalidate(PrincipalCache.sessionKey(session.getId()));
             session.invalidate();
         }
 
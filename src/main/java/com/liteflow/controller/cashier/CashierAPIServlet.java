@@ -1,9 +1,15 @@
 package com.liteflow.controller.cashier;
 
 import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.inventory.NotificationHistoryDAO;
+import com.liteflow.dao.report.SalesRollup;
+import com.liteflow.service.inventory.KitchenEventBus;
 import com.liteflow.service.inventory.OrderService;
+import com.liteflow.service.report.ReportCache;
+import com.liteflow.util.JsonStreamUtil;
 import com.liteflow.util.OrderDataUtil;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import jakarta.servlet.ServletException;
@@ -23,7 +29,7 @@ import java.util.*;
  * - POST /api/cashier/order/create - Create new order and notify kitchen
  * - POST /api/cashier/checkout - Process payment and close table session
  * - GET  /api/cashier/invoice/next-number - Get next invoice number for table
- * - GET  /api/cashier/notification/history - Get notification history
+ * - GET  /api/cashier/notification/history - Get notification history (keyset paging: ?limit=&cursor=)
  */
 @WebServlet("/api/cashier/*")
 public class CashierAPIServlet extends HttpServlet {
@@ -306,166 +312,36 @@ public class CashierAPIServlet extends HttpServlet {
         
         try {
             // Lấy số ngày lịch sử (mặc định 7 ngày)
-            String daysParam = request.getParameter("days");
-            int days = 7;
-            if (daysParam != null) {
-                try {
-                    days = Integer.parseInt(daysParam);
-                } catch (NumberFormatException e) {
-                    days = 7;
-                }
-            }
+            int days = parseIntParam(request.getParameter("days"), 7);
+            // Số dòng mỗi trang (mặc định 30, tối đa 100) và cursor của trang trước
+            int limit = parseIntParam(request.getParameter("limit"), NotificationHistoryDAO.DEFAULT_PAGE_SIZE);
+            String cursor = request.getParameter("cursor");
             
             LocalDateTime fromDate = LocalDateTime.now().minusDays(days);
-            EntityManager em = BaseDAO.emf.createEntityManager();
             
+            NotificationHistoryDAO.Page page;
             try {
-                List<Map<String, Object>> notifications = new ArrayList<>();
-                
-                // 1. Lấy lịch sử THÔNG BÁO BẾP
-                String kitchenQuery = "SELECT o FROM Order o " +
-                                     "WHERE o.orderDate >= :fromDate " +
-                                     "ORDER BY o.orderDate DESC";
-                
-                Query kitchenQueryObj = em.createQuery(kitchenQuery);
-                kitchenQueryObj.setParameter("fromDate", fromDate);
-                
-                
-                List<com.liteflow.model.inventory.Order> orders = kitchenQueryObj.getResultList();
-                
-                for (com.liteflow.model.inventory.Order order : orders) {
-                    Map<String, Object> notification = new HashMap<>();
-                    notification.put("type", "kitchen");
-                    notification.put("orderId", order.getOrderNumber()); // ✅ Trả về orderNumber thay vì UUID
-                    notification.put("orderIdUUID", order.getOrderId().toString()); // Giữ UUID cho reference
-                    notification.put("timestamp", order.getOrderDate().toString());
-                    notification.put("amount", order.getSubTotal() != null ? order.getSubTotal().doubleValue() : 0.0);
-                    
-                    // Get table info và invoice name
-                    String tableName = "Mang về / Giao hàng"; // Default cho bàn đặc biệt
-                    String tableId = "";
-                    String invoiceName = "";
-                    if (order.getSession() != null) {
-                        // ✅ Xử lý table với bàn đặc biệt (table = null)
-                        if (order.getSession().getTable() != null) {
-                            tableName = order.getSession().getTable().getTableName();
-                            tableId = order.getSession().getTable().getTableId().toString();
-                        }
-                        // ✅ Lấy invoice name từ session
-                        if (order.getSession().getInvoiceName() != null) {
-                            invoiceName = order.getSession().getInvoiceName();
-                        }
-                    }
-                    notification.put("tableName", tableName);
-                    notification.put("tableId", tableId);
-                    notification.put("invoiceName", invoiceName); // ✅ Thêm invoice name
-                    
-                    // Get item details
-                    List<Map<String, Object>> items = new ArrayList<>();
-                    int itemCount = 0;
-                    
-                    if (order.getOrderDetails() != null) {
-                        itemCount = order.getOrderDetails().size();
-                        for (com.liteflow.model.inventory.OrderDetail detail : order.getOrderDetails()) {
-                            Map<String, Object> item = new HashMap<>();
-                            if (detail.getProductVariant() != null && detail.getProductVariant().getProduct() != null) {
-                                item.put("name", detail.getProductVariant().getProduct().getName());
-                                item.put("size", detail.getProductVariant().getSize());
-                                item.put("quantity", detail.getQuantity());
-                                item.put("price", detail.getUnitPrice() != null ? detail.getUnitPrice().doubleValue() : 0.0);
-                                items.add(item);
-                            }
-                        }
-                    }
-                    
-                    notification.put("itemCount", itemCount);
-                    notification.put("items", items);
-                    
-                    // ✅ Thêm ghi chú đơn hàng nếu có
-                    String orderNote = order.getNotes();
-                    if (orderNote != null && !orderNote.trim().isEmpty()) {
-                        notification.put("orderNote", orderNote);
-                    }
-                    
-                    notifications.add(notification);
-                }
-                
-                // 2. Lấy lịch sử THANH TOÁN
-                String paymentQuery = "SELECT s FROM TableSession s " +
-                                     "WHERE s.status = 'Completed' " +
-                                     "AND s.paymentStatus = 'Paid' " +
-                                     "AND s.checkOutTime >= :fromDate " +
-                                     "ORDER BY s.checkOutTime DESC";
-                
-                Query paymentQueryObj = em.createQuery(paymentQuery);
-                paymentQueryObj.setParameter("fromDate", fromDate);
-                
-
-                List<com.liteflow.model.inventory.TableSession> sessions = paymentQueryObj.getResultList();
-                
-                for (com.liteflow.model.inventory.TableSession session : sessions) {
-                    Map<String, Object> notification = new HashMap<>();
-                    notification.put("type", "payment");
-                    notification.put("sessionId", session.getSessionId().toString());
-                    notification.put("timestamp", session.getCheckOutTime().toString());
-                    notification.put("amount", session.getTotalAmount() != null ? session.getTotalAmount().doubleValue() : 0.0);
-                    notification.put("discount", 0.0);
-                    notification.put("paymentMethod", session.getPaymentMethod() != null ? session.getPaymentMethod() : "cash");
-                    
-                    // Get table info và invoice name
-                    String tableName = "Mang về / Giao hàng"; // Default cho bàn đặc biệt
-                    String tableId = "";
-                    String invoiceName = "";
-                    // ✅ Xử lý table với bàn đặc biệt (table = null)
-                    if (session.getTable() != null) {
-                        tableName = session.getTable().getTableName();
-                        tableId = session.getTable().getTableId().toString();
-                    }
-                    // ✅ Lấy invoice name
-                    if (session.getInvoiceName() != null && !session.getInvoiceName().isEmpty()) {
-                        invoiceName = session.getInvoiceName();
-                    }
-                    notification.put("tableName", tableName);
-                    notification.put("tableId", tableId);
-                    notification.put("invoiceName", invoiceName); // ✅ Thêm invoice name
-                    notification.put("finalAmount", session.getTotalAmount() != null ? session.getTotalAmount().doubleValue() : 0.0);
-                    notification.put("hasVoucher", false);
-                    
-                    // Lấy số lượng món
-                    int itemCount = 0;
-                    if (session.getOrders() != null) {
-                        for (com.liteflow.model.inventory.Order order : session.getOrders()) {
-                            if (order.getOrderDetails() != null) {
-                                itemCount += order.getOrderDetails().size();
-                            }
-                        }
-                    }
-                    notification.put("itemCount", itemCount);
-                    notifications.add(notification);
-                }
-                
-                // Sắp xếp theo thời gian
-                notifications.sort((a, b) -> {
-                    String timeA = (String) a.get("timestamp");
-                    String timeB = (String) b.get("timestamp");
-                    return timeB.compareTo(timeA);
-                });
-                
-                // Trả về response
-                Map<String, Object> responseData = new HashMap<>();
-                responseData.put("success", true);
-                responseData.put("notifications", notifications);
-                responseData.put("total", notifications.size());
-                
-                response.setStatus(HttpServletResponse.SC_OK);
-                out.print(gson.toJson(responseData));
-                
-                System.out.println("✅ Đã lấy " + notifications.size() + " thông báo lịch sử");
-                
-            } finally {
-                em.close();
+                page = new NotificationHistoryDAO().getPage(fromDate, cursor, limit);
+            } catch (IllegalArgumentException e) {
+                sendErrorResponse(response, 400, e.getMessage());
+                return;
             }
             
+            // Trả về response (ghi thẳng các record ra response)
+            response.setStatus(HttpServletResponse.SC_OK);
+            JsonWriter json = JsonStreamUtil.open(out);
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("notifications");
+            JsonStreamUtil.writeArray(json, page.notifications());
+            json.name("total").value(page.notifications().size());
+            json.name("hasMore").value(page.hasMore());
+            json.name("nextCursor").value(page.nextCursor());
+            json.endObject();
+            json.flush();
+            
+            System.out.println("✅ Đã lấy " + page.notifications().size() + " thông báo lịch sử" + (cursor != null ? " (trang tiếp)" : ""));
+            
         } catch (Exception e) {
             System.err.println("❌ Lỗi khi lấy notification history: " + e.getMessage());
             e.printStackTrace();
@@ -475,6 +351,17 @@ public class CashierAPIServlet extends HttpServlet {
         }
     }
     
+    private int parseIntParam(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
     // =============================================
     // HANDLER: Checkout (POST /api/cashier/checkout)
     // =============================================
@@ -635,30 +522,10 @@ public class CashierAPIServlet extends HttpServlet {
                     session.setPaymentMethod(paymentMethod);
                 }
                 
-                // Set totalAmount nếu có từ request hoặc giữ nguyên nếu đã có
+                // Set totalAmount nếu có từ request, nếu không thì dùng tổng đã cộng dồn khi tạo/hủy order
                 if (totalAmountFromRequest != null && totalAmountFromRequest > 0) {
                     session.setTotalAmount(java.math.BigDecimal.valueOf(totalAmountFromRequest));
                     System.out.println("💰 Set total amount from request: " + totalAmountFromRequest);
-                } else if (session.getTotalAmount() == null || session.getTotalAmount().doubleValue() == 0) {
-                    // Tính từ orders nếu có
-                    String ordersQuery = "SELECT o FROM Order o WHERE o.session.sessionId = :sessionId";
-                    Query ordersQueryObj = em.createQuery(ordersQuery);
-                    ordersQueryObj.setParameter("sessionId", session.getSessionId());
-                    
-    
-                    List<com.liteflow.model.inventory.Order> ordersForTotal = ordersQueryObj.getResultList();
-                    
-                    double calculatedTotal = 0;
-                    for (com.liteflow.model.inventory.Order order : ordersForTotal) {
-                        if (order.getTotalAmount() != null) {
-                            calculatedTotal += order.getTotalAmount().doubleValue();
-                        }
-                    }
-                    
-                    if (calculatedTotal > 0) {
-                        session.setTotalAmount(java.math.BigDecimal.valueOf(calculatedTotal));
-                        System.out.println("💰 Calculated total from orders: " + calculatedTotal);
-                    }
                 }
                 
                 em.merge(session);
@@ -684,12 +551,18 @@ public class CashierAPIServlet extends HttpServlet {
                 }
                 
                 // 4. Cập nhật tất cả orders thành Served và lưu paymentMethod
+                // (các order còn trên màn hình bếp được báo Served sau khi commit)
+                List<UUID> kitchenOrderIds = em.createQuery(
+                        "SELECT o.orderId FROM Order o WHERE o.session.sessionId = :sessionId " +
+                        "AND o.status IN ('Pending', 'Preparing', 'Ready')", UUID.class)
+                    .setParameter("sessionId", session.getSessionId())
+                    .getResultList();
                 String updateOrdersQuery = "UPDATE Order o SET o.status = 'Served', o.paymentStatus = 'Paid'";
                 if (paymentMethod != null && !paymentMethod.isEmpty()) {
                     // ✅ Cập nhật paymentMethod cho tất cả orders trong session
                     updateOrdersQuery += ", o.paymentMethod = :paymentMethod";
                 }
-                updateOrdersQuery += " WHERE o.session.sessionId = :sessionId";
+                updateOrdersQuery += " WHERE o.session.sessionId = :sessionId AND o.status <> 'Cancelled'";
                 Query updateQuery = em.createQuery(updateOrdersQuery);
                 if (paymentMethod != null && !paymentMethod.isEmpty()) {
                     updateQuery.setParameter("paymentMethod", paymentMethod);
@@ -698,18 +571,20 @@ public class CashierAPIServlet extends HttpServlet {
                 updateQuery.executeUpdate();
                 System.out.println("✅ Đã cập nhật paymentMethod '" + paymentMethod + "' cho tất cả orders trong session");
                 
-                // 5. Trừ số lượng sản phẩm trong kho sau khi thanh toán
+                // 5. Trừ số lượng sản phẩm trong kho sau khi thanh toán (cả hóa đơn trong một lần)
                 // ✅ Nhận orderItems trực tiếp từ request hoặc lấy từ orders trong session
 
                 List<Map<String, Object>> orderItemsFromRequest = (List<Map<String, Object>>) requestData.get("orderItems");
+                Map<UUID, Integer> quantitiesToDeduct;
                 
                 if (orderItemsFromRequest != null && !orderItemsFromRequest.isEmpty()) {
                     // ✅ Trừ stock trực tiếp từ orderItems (giống cơ chế kitchen)
                     System.out.println("📦 Trừ stock từ orderItems trực tiếp: " + orderItemsFromRequest.size() + " món");
-                    deductStockFromItems(em, orderItemsFromRequest);
+                    quantitiesToDeduct = collectQuantitiesFromItems(orderItemsFromRequest);
                 } else {
-                    // ✅ Fallback: Trừ stock từ orders trong session (nếu có)
-                    String ordersQuery = "SELECT o FROM Order o WHERE o.session.sessionId = :sessionId";
+                    // ✅ Fallback: Trừ stock từ các order chưa hủy trong session (nếu có)
+                    String ordersQuery = "SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderDetails " +
+                                         "WHERE o.session.sessionId = :sessionId AND o.status <> 'Cancelled'";
                     Query ordersQueryObj = em.createQuery(ordersQuery);
                     ordersQueryObj.setParameter("sessionId", session.getSessionId());
                     
@@ -721,42 +596,26 @@ public class CashierAPIServlet extends HttpServlet {
                         System.out.println("   Stock sẽ không được cập nhật.");
                     } else {
                         System.out.println("📋 Tìm thấy " + orders.size() + " orders trong session để trừ stock");
-                        deductStockFromOrders(em, orders);
                     }
+                    quantitiesToDeduct = collectQuantitiesFromOrders(orders);
                 }
                 
+                com.liteflow.dao.inventory.StockDeductionResult stockResult =
+                    new com.liteflow.dao.inventory.ProductStockDAO().deductForSale(em, quantitiesToDeduct);
+                
                 em.getTransaction().commit();
+                com.liteflow.dao.inventory.LiveOrderBoard.sessionClosed(session.getSessionId());
+                KitchenEventBus.publishStatus(kitchenOrderIds, "Served");
+                ReportCache.daysChanged(SalesRollup.sessionPaid(session.getSessionId()));
                 
-                // 6. Check stock alerts và gửi Telegram notifications (async)
+                // 6. Check stock alerts và gửi Telegram notifications (async), dùng luôn tồn kho vừa tính
                 try {
-    
-                    List<Map<String, Object>> orderItemsForAlert = (List<Map<String, Object>>) requestData.get("orderItems");
-                    if (orderItemsForAlert == null || orderItemsForAlert.isEmpty()) {
-                        // Fallback: Get from orders in session
-                        String ordersQuery = "SELECT o FROM Order o WHERE o.session.sessionId = :sessionId";
-                        Query ordersQueryObj = em.createQuery(ordersQuery);
-                        ordersQueryObj.setParameter("sessionId", session.getSessionId());
-        
-                        List<com.liteflow.model.inventory.Order> ordersForAlert = ordersQueryObj.getResultList();
-                        
-                        if (!ordersForAlert.isEmpty()) {
-                            orderItemsForAlert = new java.util.ArrayList<>();
-                            for (com.liteflow.model.inventory.Order order : ordersForAlert) {
-                                for (com.liteflow.model.inventory.OrderDetail detail : order.getOrderDetails()) {
-                                    Map<String, Object> item = new java.util.HashMap<>();
-                                    item.put("variantId", detail.getProductVariant().getProductVariantId().toString());
-                                    item.put("quantity", detail.getQuantity());
-                                    orderItemsForAlert.add(item);
-                                }
-                            }
-                        }
-                    }
-                    
-                    if (orderItemsForAlert != null && !orderItemsForAlert.isEmpty()) {
+                    Map<UUID, Integer> stockLevels = stockResult.getNewLevels();
+                    if (!stockLevels.isEmpty()) {
                         com.liteflow.service.inventory.StockAlertService stockAlertService = 
                             new com.liteflow.service.inventory.StockAlertService();
-                        stockAlertService.checkAndSendAlertsAfterPayment(orderItemsForAlert, userId);
-                        System.out.println("🔔 Stock alert check initiated for " + orderItemsForAlert.size() + " items");
+                        stockAlertService.checkAndSendAlertsAfterPayment(stockLevels, userId);
+                        System.out.println("🔔 Stock alert check initiated for " + stockLevels.size() + " items");
                     }
                 } catch (Exception e) {
                     // Don't fail payment if alert check fails
@@ -811,11 +670,12 @@ public class CashierAPIServlet extends HttpServlet {
     // =============================================
     
     /**
-     * Trừ stock từ danh sách items (variantId, quantity) - giống cơ chế kitchen
-     * @param em EntityManager
+     * Gộp số lượng cần trừ theo variant từ danh sách items (variantId, quantity) - giống cơ chế kitchen
      * @param items Danh sách items với variantId và quantity
+     * @return variantId -> tổng số lượng
      */
-    private void deductStockFromItems(EntityManager em, List<Map<String, Object>> items) {
+    private Map<UUID, Integer> collectQuantitiesFromItems(List<Map<String, Object>> items) {
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
         for (Map<String, Object> item : items) {
             try {
                 String variantIdStr = (String) item.get("variantId");
@@ -837,111 +697,32 @@ public class CashierAPIServlet extends HttpServlet {
                     continue;
                 }
                 
-                // Find ProductStock by ProductVariant
-                String stockQuery = "SELECT ps FROM ProductStock ps WHERE ps.productVariant.productVariantId = :variantId";
-                Query stockQueryObj = em.createQuery(stockQuery);
-                stockQueryObj.setParameter("variantId", productVariantId);
-                
-
-                List<com.liteflow.model.inventory.ProductStock> productStocks = stockQueryObj.getResultList();
-                
-                if (!productStocks.isEmpty()) {
-                    // Update the first stock record (should be unique per variant)
-                    com.liteflow.model.inventory.ProductStock productStock = productStocks.get(0);
-                    int currentAmount = productStock.getAmount() != null ? productStock.getAmount() : 0;
-                    int newAmount = Math.max(0, currentAmount - quantityToDeduct);
-                    
-                    System.out.println("📦 Deducting stock for ProductVariant: " + productVariantId);
-                    System.out.println("   Current amount: " + currentAmount);
-                    System.out.println("   Quantity to deduct: " + quantityToDeduct);
-                    System.out.println("   New amount: " + newAmount);
-                    
-                    productStock.setAmount(newAmount);
-                    em.merge(productStock);
-                    
-                    // Create inventory log for tracking
-                    com.liteflow.model.inventory.ProductVariant productVariant = productStock.getProductVariant();
-                    com.liteflow.model.inventory.InventoryLog inventoryLog = new com.liteflow.model.inventory.InventoryLog();
-                    inventoryLog.setProductVariant(productVariant);
-                    inventoryLog.setActionType("Sale");
-                    inventoryLog.setQuantityChanged(-quantityToDeduct); // Negative for sale
-                    inventoryLog.setActionDate(LocalDateTime.now());
-                    inventoryLog.setStoreLocation(productStock.getInventory().getStoreLocation());
-                    
-                    em.persist(inventoryLog);
-                    
-                    System.out.println("✅ Stock updated successfully");
-                } else {
-                    System.out.println("⚠️ No ProductStock found for ProductVariant: " + productVariantId);
-                }
+                quantities.merge(productVariantId, quantityToDeduct, Integer::sum);
             } catch (Exception e) {
-                System.err.println("❌ Lỗi khi trừ stock cho item: " + e.getMessage());
-                e.printStackTrace();
+                System.err.println("❌ Lỗi khi đọc item để trừ stock: " + e.getMessage());
                 // Continue với item tiếp theo
             }
         }
+        return quantities;
     }
     
     /**
-     * Trừ stock từ danh sách orders (fallback method)
-     * @param em EntityManager
-     * @param orders Danh sách orders
+     * Gộp số lượng cần trừ theo variant từ danh sách orders (fallback method)
+     * @param orders Danh sách orders (đã fetch orderDetails)
+     * @return variantId -> tổng số lượng
      */
-    private void deductStockFromOrders(EntityManager em, List<com.liteflow.model.inventory.Order> orders) {
+    private Map<UUID, Integer> collectQuantitiesFromOrders(List<com.liteflow.model.inventory.Order> orders) {
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
         for (com.liteflow.model.inventory.Order order : orders) {
-            // Fetch order details to avoid LazyInitializationException
-            order.getOrderDetails().size(); // This triggers lazy loading
-            
             for (com.liteflow.model.inventory.OrderDetail orderDetail : order.getOrderDetails()) {
-                // Fetch product variant to avoid LazyInitializationException
-                orderDetail.getProductVariant();
-                
-                // Get the product variant ID and quantity
-                UUID productVariantId = orderDetail.getProductVariant().getProductVariantId();
                 Integer quantityToDeduct = orderDetail.getQuantity();
-                
-                if (quantityToDeduct == null || quantityToDeduct <= 0) {
+                if (orderDetail.getProductVariant() == null || quantityToDeduct == null || quantityToDeduct <= 0) {
                     continue;
                 }
-                
-                // Find ProductStock by ProductVariant
-                String stockQuery = "SELECT ps FROM ProductStock ps WHERE ps.productVariant.productVariantId = :variantId";
-                Query stockQueryObj = em.createQuery(stockQuery);
-                stockQueryObj.setParameter("variantId", productVariantId);
-                
-
-                List<com.liteflow.model.inventory.ProductStock> productStocks = stockQueryObj.getResultList();
-                
-                if (!productStocks.isEmpty()) {
-                    // Update the first stock record (should be unique per variant)
-                    com.liteflow.model.inventory.ProductStock productStock = productStocks.get(0);
-                    int currentAmount = productStock.getAmount() != null ? productStock.getAmount() : 0;
-                    int newAmount = Math.max(0, currentAmount - quantityToDeduct);
-                    
-                    System.out.println("📦 Deducting stock for ProductVariant: " + productVariantId);
-                    System.out.println("   Current amount: " + currentAmount);
-                    System.out.println("   Quantity to deduct: " + quantityToDeduct);
-                    System.out.println("   New amount: " + newAmount);
-                    
-                    productStock.setAmount(newAmount);
-                    em.merge(productStock);
-                    
-                    // Create inventory log for tracking
-                    com.liteflow.model.inventory.InventoryLog inventoryLog = new com.liteflow.model.inventory.InventoryLog();
-                    inventoryLog.setProductVariant(orderDetail.getProductVariant());
-                    inventoryLog.setActionType("Sale");
-                    inventoryLog.setQuantityChanged(-quantityToDeduct); // Negative for sale
-                    inventoryLog.setActionDate(LocalDateTime.now());
-                    inventoryLog.setStoreLocation(productStock.getInventory().getStoreLocation());
-                    
-                    em.persist(inventoryLog);
-                    
-                    System.out.println("✅ Stock updated successfully");
-                } else {
-                    System.out.println("⚠️ No ProductStock found for ProductVariant: " + productVariantId);
-                }
+                quantities.merge(orderDetail.getProductVariant().getProductVariantId(), quantityToDeduct, Integer::sum);
             }
         }
+        return quantities;
     }
     
     private void sendErrorResponse(HttpServletResponse response, int statusCode, String message)
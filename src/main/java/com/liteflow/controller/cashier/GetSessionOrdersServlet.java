@@ -1,7 +1,10 @@
 package com.liteflow.controller.cashier;
 
+import com.liteflow.dao.inventory.OrderReadModel.CashierItem;
 import com.liteflow.service.inventory.OrderService;
+import com.liteflow.util.JsonStreamUtil;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -52,16 +55,18 @@ public class GetSessionOrdersServlet extends HttpServlet {
             }
             
             // Lấy orders của bàn
-            List<Map<String, Object>> orders = orderService.getOrdersByTable(tableId);
-            
-            // Trả về response
-            Map<String, Object> responseData = new HashMap<>();
-            responseData.put("success", true);
-            responseData.put("tableId", tableIdStr);
-            responseData.put("orders", orders);
+            List<CashierItem> orders = orderService.getOrdersByTable(tableId);
             
+            // Trả về response (ghi thẳng các món ra response)
             response.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(responseData));
+            JsonWriter json = JsonStreamUtil.open(out);
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("tableId").value(tableIdStr);
+            json.name("orders");
+            JsonStreamUtil.writeArray(json, orders);
+            json.endObject();
+            json.flush();
             
             System.out.println("✅ Đã lấy " + orders.size() + " items cho bàn " + tableId);
             
@@ -1,9 +1,17 @@
 package com.liteflow.controller.cashier;
 
+import com.liteflow.dao.inventory.OrderReadModel.KitchenOrder;
+import com.liteflow.service.inventory.KitchenEventBus;
 import com.liteflow.service.inventory.OrderService;
 import com.liteflow.dao.BaseDAO;
+import com.liteflow.util.JsonStreamUtil;
+import com.liteflow.util.JsonStreamUtil.JsonWritable;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -21,7 +29,7 @@ import java.util.*;
 /**
  * Kitchen Servlet - Unified controller cho tất cả kitchen endpoints
  * - /kitchen - Load trang kitchen với initial data
- * - /api/kitchen/orders - API lấy danh sách orders (JSON)
+ * - /api/kitchen/orders - API lấy danh sách orders (JSON), màn hình bếp dùng /api/kitchen/stream để nhận thay đổi
  * - /api/kitchen/notifications - API lấy/lưu lịch sử thông báo (JSON)
  */
 @WebServlet(urlPatterns = {"/kitchen", "/api/kitchen/orders", "/api/kitchen/notifications"})
@@ -97,11 +105,15 @@ public class KitchenServlet extends HttpServlet {
     private void handleKitchenPage(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         
+        // Lấy seq trước khi query để /api/kitchen/stream gửi tiếp từ đây, không cần snapshot lần nữa
+        String streamEventId = KitchenEventBus.currentEventId();
+        
         // Lấy danh sách orders đang pending, preparing, và ready
-        List<Map<String, Object>> pendingOrders = orderService.getPendingOrders();
+        List<KitchenOrder> pendingOrders = orderService.getPendingOrders();
         
         // Convert to JSON for JavaScript
-        request.setAttribute("ordersJson", gson.toJson(pendingOrders));
+        request.setAttribute("ordersJson", JsonStreamUtil.toJsonArray(pendingOrders));
+        request.setAttribute("streamEventId", streamEventId);
         
         // Forward to JSP
         request.getRequestDispatcher("/kitchen/kitchen.jsp").forward(request, response);
@@ -122,16 +134,18 @@ public class KitchenServlet extends HttpServlet {
         
         try {
             // Lấy danh sách orders đang pending, preparing, và ready
-            List<Map<String, Object>> pendingOrders = orderService.getPendingOrders();
-            
-            // Trả về JSON response
-            Map<String, Object> responseData = new HashMap<>();
-            responseData.put("success", true);
-            responseData.put("orders", pendingOrders);
-            responseData.put("count", pendingOrders.size());
+            List<KitchenOrder> pendingOrders = orderService.getPendingOrders();
             
+            // Trả về JSON response (ghi thẳng các record ra response)
             response.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(responseData));
+            JsonWriter json = JsonStreamUtil.open(out);
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("orders");
+            JsonStreamUtil.writeArray(json, pendingOrders);
+            json.name("count").value(pendingOrders.size());
+            json.endObject();
+            json.flush();
             
             System.out.println("✅ API: Đã gửi " + pendingOrders.size() + " orders cho kitchen");
             
@@ -180,16 +194,18 @@ public class KitchenServlet extends HttpServlet {
             }
             
             // Lấy notifications từ database
-            List<Map<String, Object>> notifications = getOrderStatusHistory(limit);
+            List<StatusChange> notifications = getOrderStatusHistory(limit);
             
             // Trả về response
-            Map<String, Object> responseData = new HashMap<>();
-            responseData.put("success", true);
-            responseData.put("notifications", notifications);
-            responseData.put("count", notifications.size());
-            
             response.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(responseData));
+            JsonWriter json = JsonStreamUtil.open(out);
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("notifications");
+            JsonStreamUtil.writeArray(json, notifications);
+            json.name("count").value(notifications.size());
+            json.endObject();
+            json.flush();
             
             System.out.println("✅ Trả về " + notifications.size() + " notifications cho kitchen");
             
@@ -259,9 +275,9 @@ public class KitchenServlet extends HttpServlet {
     /**
      * Lấy lịch sử cập nhật trạng thái đơn hàng từ database (OrderStatusHistory)
      */
-    private List<Map<String, Object>> getOrderStatusHistory(int limit) {
+    private List<StatusChange> getOrderStatusHistory(int limit) {
         EntityManager em = BaseDAO.emf.createEntityManager();
-        List<Map<String, Object>> notifications = new ArrayList<>();
+        List<StatusChange> notifications = new ArrayList<>();
         
         try {
             // Query từ OrderStatusHistory table - lưu mọi lần thay đổi trạng thái
@@ -304,15 +320,14 @@ public class KitchenServlet extends HttpServlet {
                     Object changedAt = row[6];
                     String orderDetailsJson = row[7] != null ? row[7].toString() : "[]";
                     String changedByName = row[8] != null ? row[8].toString() : "System";
-                    Object totalAmount = row[9];
+                    Number totalAmount = (Number) row[9];
                     
-                    // Parse OrderDetailsSnapshot JSON
-                    List<Map<String, Object>> items = new ArrayList<>();
+                    // OrderDetailsSnapshot là JSON array - giữ nguyên dạng cây JSON để ghi ra, không chuyển sang Map
+                    JsonElement items = new JsonArray();
                     try {
                         if (orderDetailsJson != null && !orderDetailsJson.isEmpty() && !orderDetailsJson.equals("null")) {
-                            @SuppressWarnings("unchecked")
-                            List<Map<String, Object>> parsedItems = gson.fromJson(orderDetailsJson, List.class);
-                            if (parsedItems != null) {
+                            JsonElement parsedItems = JsonParser.parseString(orderDetailsJson);
+                            if (parsedItems.isJsonArray()) {
                                 items = parsedItems;
                             }
                         }
@@ -335,22 +350,8 @@ public class KitchenServlet extends HttpServlet {
                     // Tạo title dựa trên status change
                     String title = generateNotificationTitle(oldStatus, newStatus);
                     
-                    // Tạo notification object
-                    Map<String, Object> notification = new HashMap<>();
-                    notification.put("type", "status-change");
-                    notification.put("title", title);
-                    notification.put("historyId", historyId);
-                    notification.put("orderId", orderId);
-                    notification.put("orderNumber", orderNumber);
-                    notification.put("tableName", tableName);
-                    notification.put("oldStatus", oldStatus);
-                    notification.put("newStatus", newStatus);
-                    notification.put("timestamp", timestamp);
-                    notification.put("items", items);
-                    notification.put("changedByName", changedByName);
-                    notification.put("totalAmount", totalAmount);
-                    
-                    notifications.add(notification);
+                    notifications.add(new StatusChange(title, historyId, orderId, orderNumber, tableName,
+                            oldStatus, newStatus, timestamp, items, changedByName, totalAmount));
                     
                 } catch (Exception e) {
                     System.err.println("⚠️ Lỗi khi parse row: " + e.getMessage());
@@ -393,6 +394,33 @@ public class KitchenServlet extends HttpServlet {
         }
     }
     
+    /**
+     * Một lần đổi trạng thái order (lịch sử thông báo của bếp)
+     */
+    private record StatusChange(String title, String historyId, String orderId, String orderNumber, String tableName,
+                                String oldStatus, String newStatus, String timestamp, JsonElement items,
+                                String changedByName, Number totalAmount) implements JsonWritable {
+
+        @Override
+        public void writeJson(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name("type").value("status-change");
+            out.name("title").value(title);
+            out.name("historyId").value(historyId);
+            out.name("orderId").value(orderId);
+            out.name("orderNumber").value(orderNumber);
+            out.name("tableName").value(tableName);
+            out.name("oldStatus").value(oldStatus);
+            out.name("newStatus").value(newStatus);
+            out.name("timestamp").value(timestamp);
+            out.name("items");
+            JsonStreamUtil.writeElement(out, items);
+            out.name("changedByName").value(changedByName);
+            out.name("totalAmount").value(totalAmount);
+            out.endObject();
+        }
+    }
+    
     /**
      * Gửi error response
      */
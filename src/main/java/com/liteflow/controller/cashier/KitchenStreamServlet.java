@@ -0,0 +1,262 @@
+package com.liteflow.controller.cashier;
+
+import com.google.gson.stream.JsonWriter;
+import com.liteflow.dao.inventory.OrderReadModel.KitchenOrder;
+import com.liteflow.service.inventory.KitchenEventBus;
+import com.liteflow.service.inventory.OrderService;
+import com.liteflow.util.EnvConfigUtil;
+import com.liteflow.util.JsonStreamUtil;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Kitchen Stream - đẩy thay đổi order đến màn hình bếp bằng Server-Sent Events thay cho polling /api/kitchen/orders
+ * URL: GET /api/kitchen/stream  (header Last-Event-ID hoặc ?lastEventId=... để nhận tiếp sau khi mất kết nối)
+ *
+ * Events:
+ * - snapshot: {seq, orders} - toàn bộ order đang chờ, gửi khi mới kết nối hoặc không resume được
+ * - order:    {seq, type: created|status, orderId, status, order?} - một thay đổi
+ *
+ * Mọi lần ghi xuống client chạy trên một thread riêng theo đúng thứ tự seq, request tạo/cập nhật order không bị chặn.
+ */
+@WebServlet(urlPatterns = {"/api/kitchen/stream"}, asyncSupported = true)
+public class KitchenStreamServlet extends HttpServlet {
+
+    private static final long HEARTBEAT_SECONDS = Math.max(5, EnvConfigUtil.getLong("LITEFLOW_KITCHEN_STREAM_HEARTBEAT_SECONDS", 25L));
+    private static final long RETRY_MILLIS = 3000;
+
+    private static final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    private OrderService orderService;
+    private ScheduledExecutorService sender;
+    private Consumer<KitchenEventBus.Event> listener;
+
+    @Override
+    public void init() throws ServletException {
+        orderService = new OrderService();
+        sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kitchen-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        sender.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        listener = event -> sender.execute(() -> broadcast(event));
+        KitchenEventBus.subscribe(listener);
+    }
+
+    @Override
+    public void destroy() {
+        KitchenEventBus.unsubscribe(listener);
+        if (sender != null) {
+            sender.shutdownNow();
+        }
+        for (Client client : clients) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        String lastEventId = request.getHeader("Last-Event-ID");
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            lastEventId = request.getParameter("lastEventId");
+        }
+        long resumeFrom = KitchenEventBus.parseSeq(lastEventId);
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        Client client = new Client(asyncContext, response.getWriter());
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                clients.remove(client);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                client.close();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                client.close();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        client.writeRaw("retry: " + RETRY_MILLIS + "\n\n");
+        sender.execute(() -> connect(client, resumeFrom));
+    }
+
+    /**
+     * Chạy trên thread sender: gửi các event bị lỡ (hoặc snapshot) rồi mới nhận event mới,
+     * nên client luôn nhận event theo đúng thứ tự
+     */
+    private void connect(Client client, long resumeFrom) {
+        List<KitchenEventBus.Event> missed = KitchenEventBus.eventsSince(resumeFrom);
+        if (missed != null) {
+            for (KitchenEventBus.Event event : missed) {
+                client.send(event.getId(), "order", toPayload(event), event.getSeq());
+            }
+            System.out.println("🔁 Kitchen stream resumed from seq " + resumeFrom + " (" + missed.size() + " events)");
+        } else {
+            // Lấy seq trước khi query: event xảy ra trong lúc query sẽ được gửi lại sau snapshot (áp dụng lại không sao)
+            long seq = KitchenEventBus.currentSeq();
+            List<KitchenOrder> orders = orderService.getPendingOrders();
+            client.send(KitchenEventBus.eventId(seq), "snapshot", toSnapshotPayload(seq, orders), seq);
+            System.out.println("📡 Kitchen stream connected, snapshot " + orders.size() + " orders at seq " + seq);
+        }
+        if (client.isOpen()) {
+            clients.add(client);
+        }
+    }
+
+    private void broadcast(KitchenEventBus.Event event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        String payload = toPayload(event);
+        for (Client client : clients) {
+            client.send(event.getId(), "order", payload, event.getSeq());
+        }
+    }
+
+    private void heartbeat() {
+        for (Client client : clients) {
+            client.writeRaw(": ping\n\n");
+        }
+    }
+
+    private String toSnapshotPayload(long seq, List<KitchenOrder> orders) {
+        StringWriter buffer = new StringWriter();
+        try {
+            JsonWriter out = JsonStreamUtil.open(buffer);
+            out.beginObject();
+            out.name("seq").value(seq);
+            out.name("orders");
+            JsonStreamUtil.writeArray(out, orders);
+            out.endObject();
+            out.flush();
+        } catch (IOException e) {
+            // StringWriter không ném IOException
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+
+    private String toPayload(KitchenEventBus.Event event) {
+        StringWriter buffer = new StringWriter();
+        try {
+            JsonWriter out = JsonStreamUtil.open(buffer);
+            out.beginObject();
+            out.name("seq").value(event.getSeq());
+            out.name("type").value(event.getType());
+            out.name("orderId").value(event.getOrderId());
+            out.name("status").value(event.getStatus());
+            if (event.getOrder() != null) {
+                out.name("order");
+                event.getOrder().writeJson(out);
+            }
+            out.endObject();
+            out.flush();
+        } catch (IOException e) {
+            // StringWriter không ném IOException
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("connectedScreens", clients.size());
+        metrics.put("lastSeq", KitchenEventBus.currentSeq());
+        metrics.put("bufferCapacity", KitchenEventBus.getBufferCapacity());
+        return metrics;
+    }
+
+    /**
+     * Một màn hình bếp đang kết nối
+     */
+    private static final class Client {
+
+        private final AsyncContext asyncContext;
+        private final PrintWriter writer;
+        private long lastSentSeq = -1;
+        private volatile boolean open = true;
+
+        Client(AsyncContext asyncContext, PrintWriter writer) {
+            this.asyncContext = asyncContext;
+            this.writer = writer;
+        }
+
+        boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Bỏ qua event đã gửi (trùng giữa phần resume và broadcast)
+         */
+        synchronized void send(String id, String eventName, String json, long seq) {
+            if (seq <= lastSentSeq && !"snapshot".equals(eventName)) {
+                return;
+            }
+            lastSentSeq = Math.max(lastSentSeq, seq);
+            writeRaw("id: " + id + "\nevent: " + eventName + "\ndata: " + json + "\n\n");
+        }
+
+        synchronized void writeRaw(String text) {
+            if (!open) {
+                return;
+            }
+            writer.write(text);
+            writer.flush();
+            if (writer.checkError()) {
+                // Màn hình đã đóng kết nối
+                close();
+            }
+        }
+
+        void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            clients.remove(this);
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException ignore) {
+                // Đã complete
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.inventory.TableSession;
 import com.liteflow.model.inventory.Order;
 import com.liteflow.model.inventory.OrderDetail;
+import com.liteflow.service.report.ReportCache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import jakarta.servlet.ServletException;
@@ -94,74 +95,88 @@ public class DailyReportServlet extends HttpServlet {
             }
             
             LocalDate reportDate = LocalDate.parse(dateStr);
-            LocalDateTime startOfDay = reportDate.atStartOfDay();
-            LocalDateTime endOfDay = reportDate.atTime(23, 59, 59);
             
             System.out.println("📊 Getting report summary for: " + dateStr + ", type: " + type);
             
-            EntityManager em = BaseDAO.emf.createEntityManager();
+            // Ngày đã qua không còn thay đổi: lấy từ ReportCache; hôm nay (còn thanh toán / hủy phiên) luôn tính lại
+            Map<String, Object> summary = reportDate.isBefore(LocalDate.now()) ?
+                ReportCache.get("dailySummary", reportDate, reportDate, String.valueOf(type),
+                    () -> loadDailySummary(reportDate, type)) :
+                loadDailySummary(reportDate, type);
             
-            try {
-                // Build query based on type
-                String jpql = "SELECT s FROM TableSession s " +
-                             "WHERE s.checkOutTime >= :startDate " +
-                             "AND s.checkOutTime <= :endDate ";
-                
-                if ("completed".equals(type)) {
-                    jpql += "AND s.status = 'Completed' AND s.paymentStatus = 'Paid' ";
-                } else if ("cancelled".equals(type)) {
-                    jpql += "AND s.status = 'Cancelled' ";
+            out.print(gson.toJson(summary));
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error in handleDailySummary: " + e.getMessage());
+            e.printStackTrace();
+            sendErrorResponse(response, 500, "Lỗi khi tạo báo cáo: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Tổng hợp số hóa đơn, doanh thu, số món của các phiên checkout trong ngày
+     */
+    private Map<String, Object> loadDailySummary(LocalDate reportDate, String type) {
+        LocalDateTime startOfDay = reportDate.atStartOfDay();
+        LocalDateTime endOfDay = reportDate.atTime(23, 59, 59);
+        
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        
+        try {
+            // Build query based on type
+            String jpql = "SELECT s FROM TableSession s " +
+                         "WHERE s.checkOutTime >= :startDate " +
+                         "AND s.checkOutTime <= :endDate ";
+            
+            if ("completed".equals(type)) {
+                jpql += "AND s.status = 'Completed' AND s.paymentStatus = 'Paid' ";
+            } else if ("cancelled".equals(type)) {
+                jpql += "AND s.status = 'Cancelled' ";
+            }
+            
+            jpql += "ORDER BY s.checkOutTime DESC";
+            
+            Query query = em.createQuery(jpql);
+            query.setParameter("startDate", startOfDay);
+            query.setParameter("endDate", endOfDay);
+            
+            
+            List<TableSession> sessions = query.getResultList();
+            
+            // Calculate summary
+            int totalInvoices = sessions.size();
+            BigDecimal totalRevenue = BigDecimal.ZERO;
+            int totalItems = 0;
+            
+            for (TableSession session : sessions) {
+                if (session.getTotalAmount() != null) {
+                    totalRevenue = totalRevenue.add(session.getTotalAmount());
                 }
                 
-                jpql += "ORDER BY s.checkOutTime DESC";
-                
-                Query query = em.createQuery(jpql);
-                query.setParameter("startDate", startOfDay);
-                query.setParameter("endDate", endOfDay);
-                
-                
-                List<TableSession> sessions = query.getResultList();
-                
-                // Calculate summary
-                int totalInvoices = sessions.size();
-                BigDecimal totalRevenue = BigDecimal.ZERO;
-                int totalItems = 0;
-                
-                for (TableSession session : sessions) {
-                    if (session.getTotalAmount() != null) {
-                        totalRevenue = totalRevenue.add(session.getTotalAmount());
-                    }
-                    
-                    // Count items from orders
-                    if (session.getOrders() != null) {
-                        for (Order order : session.getOrders()) {
-                            if (order.getOrderDetails() != null) {
-                                totalItems += order.getOrderDetails().size();
-                            }
+                // Count items from orders
+                if (session.getOrders() != null) {
+                    for (Order order : session.getOrders()) {
+                        if (order.getOrderDetails() != null) {
+                            totalItems += order.getOrderDetails().size();
                         }
                     }
                 }
-                
-                Map<String, Object> summary = new HashMap<>();
-                summary.put("totalInvoices", totalInvoices);
-                summary.put("totalRevenue", totalRevenue.doubleValue());
-                summary.put("totalItems", totalItems);
-                summary.put("date", dateStr);
-                summary.put("type", type);
-                
-                System.out.println("✅ Summary: " + totalInvoices + " invoices, " + 
-                                 totalRevenue + " revenue, " + totalItems + " items");
-                
-                out.print(gson.toJson(summary));
-                
-            } finally {
-                em.close();
             }
             
-        } catch (Exception e) {
-            System.err.println("❌ Error in handleDailySummary: " + e.getMessage());
-            e.printStackTrace();
-            sendErrorResponse(response, 500, "Lỗi khi tạo báo cáo: " + e.getMessage());
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("totalInvoices", totalInvoices);
+            summary.put("totalRevenue", totalRevenue.doubleValue());
+            summary.put("totalItems", totalItems);
+            summary.put("date", reportDate.toString());
+            summary.put("type", type);
+            
+            System.out.println("✅ Summary: " + totalInvoices + " invoices, " + 
+                             totalRevenue + " revenue, " + totalItems + " items");
+            
+            return summary;
+            
+        } finally {
+            em.close();
         }
     }
     
@@ -121,6 +121,9 @@ public class RoomTableServlet extends HttpServlet {
             } else if ("importExcel".equals(action)) {
                 response.setContentType("application/json");
                 importExcel(request, response);
+            } else if ("importProgress".equals(action)) {
+                response.setContentType("application/json");
+                importProgress(request, response);
             } else if ("checkExcel".equals(action)) {
                 response.setContentType("application/json");
                 checkExcel(request, response);
@@ -1331,6 +1334,14 @@ public class RoomTableServlet extends HttpServlet {
             boolean skipDuplicates = "true".equals(request.getParameter("skipDuplicates"));
             boolean validateData = "true".equals(request.getParameter("validateData"));
             boolean createMissingRooms = "true".equals(request.getParameter("createMissingRooms"));
+            // Chỉ báo cáo sẽ thêm / bỏ qua / lỗi bao nhiêu dòng, không ghi DB
+            boolean dryRun = "true".equals(request.getParameter("dryRun"));
+            
+            // Id do client sinh để hỏi tiến độ (action=importProgress) trong lúc import
+            String importId = request.getParameter("importId");
+            if (importId != null && (importId.isBlank() || importId.length() > 64)) {
+                importId = null;
+            }
             
             System.out.println("Options - skipDuplicates: " + skipDuplicates + 
                              ", validateData: " + validateData + 
@@ -1339,7 +1350,7 @@ public class RoomTableServlet extends HttpServlet {
             // Process file
             try (InputStream inputStream = filePart.getInputStream()) {
                 Map<String, Object> result = excelService.importFromExcel(
-                    inputStream, fileName, skipDuplicates, validateData, createMissingRooms);
+                    inputStream, fileName, skipDuplicates, validateData, createMissingRooms, dryRun, importId);
                 
                 // Convert result to JSON
                 JSONObject jsonResult = new JSONObject(result);
@@ -1353,6 +1364,21 @@ public class RoomTableServlet extends HttpServlet {
         }
     }
     
+    /**
+     * Tiến độ của lượt import đang chạy
+     */
+    private void importProgress(HttpServletRequest request, HttpServletResponse response) 
+            throws IOException {
+        Map<String, Object> progress = ExcelService.getImportProgress(request.getParameter("importId"));
+        if (progress == null) {
+            response.getWriter().write("{\"success\": false, \"message\": \"Không có lượt import đang chạy\"}");
+            return;
+        }
+        JSONObject json = new JSONObject(progress);
+        json.put("success", true);
+        response.getWriter().write(json.toString());
+    }
+    
     /**
      * Export to Excel
      */
@@ -1361,31 +1387,25 @@ public class RoomTableServlet extends HttpServlet {
         try {
             System.out.println("=== DEBUG: Export Excel ===");
             
-            // Generate Excel file
-            byte[] excelData = excelService.exportToExcel();
-            
-            if (excelData.length == 0) {
-                response.getWriter().write("{\"success\": false, \"message\": \"Không có dữ liệu để xuất\"}");
-                return;
-            }
-            
-            // Set response headers
+            // Set response headers (không biết trước độ dài, file được ghi thẳng ra response)
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", "attachment; filename=\"roomtable_data.xlsx\"");
-            response.setContentLength(excelData.length);
             
-            // Write Excel data to response
-            try (OutputStream outputStream = response.getOutputStream()) {
-                outputStream.write(excelData);
-                outputStream.flush();
-            }
+            // Stream Excel data to response
+            excelService.exportToExcel(response.getOutputStream());
             
             System.out.println("✅ Excel export completed successfully");
             
         } catch (Exception e) {
             System.err.println("❌ Lỗi khi export Excel: " + e.getMessage());
             e.printStackTrace();
-            response.getWriter().write("{\"success\": false, \"message\": \"Lỗi khi xuất file: " + e.getMessage() + "\"}");
+            // Lỗi trước khi ghi file thì còn trả JSON được
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setCharacterEncoding("UTF-8");
+                response.setContentType("application/json");
+                response.getWriter().write("{\"success\": false, \"message\": \"Lỗi khi xuất file: " + e.getMessage() + "\"}");
+            }
         }
     }
     
@@ -1428,6 +1448,8 @@ public class RoomTableServlet extends HttpServlet {
             jsonResponse.append("\"success\": ").append(checkResult.get("success"));
             jsonResponse.append(", \"totalRooms\": ").append(checkResult.get("totalRooms"));
             jsonResponse.append(", \"totalTables\": ").append(checkResult.get("totalTables"));
+            jsonResponse.append(", \"skipped\": ").append(checkResult.getOrDefault("skipped", 0));
+            jsonResponse.append(", \"roomsToCreate\": ").append(checkResult.getOrDefault("roomsToCreate", 0));
             jsonResponse.append(", \"errors\": [");
             
         
@@ -0,0 +1,97 @@
+package com.liteflow.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kết quả của insertAll / updateAll / deleteAllById trong GenericDAO.
+ * Lỗi được ghi theo từng dòng (index trong list đầu vào) nên một dòng lỗi không làm hỏng cả batch.
+ */
+public class BatchResult {
+
+    private final String operation;
+    private final int total;
+    private int succeeded;
+    private int chunks;
+    private final List<RowFailure> failures = new ArrayList<>();
+
+    public BatchResult(String operation, int total) {
+        this.operation = operation;
+        this.total = total;
+    }
+
+    void addSucceeded(int count) {
+        succeeded += count;
+    }
+
+    void addChunk() {
+        chunks++;
+    }
+
+    void addFailure(int index, Object item, String message) {
+        failures.add(new RowFailure(index, item, message));
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public boolean isAllSucceeded() {
+        return failures.isEmpty() && succeeded == total;
+    }
+
+    public List<RowFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    @Override
+    public String toString() {
+        return operation + ": " + succeeded + "/" + total + " thành công, "
+                + failures.size() + " lỗi, " + chunks + " chunk";
+    }
+
+    /**
+     * Một dòng bị lỗi: vị trí trong list đầu vào, entity (hoặc ID khi xóa) và lý do
+     */
+    public static class RowFailure {
+
+        private final int index;
+        private final Object item;
+        private final String message;
+
+        public RowFailure(int index, Object item, String message) {
+            this.index = index;
+            this.item = item;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Object getItem() {
+            return item;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
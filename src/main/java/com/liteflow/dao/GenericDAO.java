@@ -1,15 +1,40 @@
 package com.liteflow.dao;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.PersistenceException;
+import jakarta.persistence.metamodel.SingularAttribute;
+import com.liteflow.util.EnvConfigUtil;
 import com.liteflow.util.Utils;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class GenericDAO<T, ID> extends BaseDAO<T, ID> {
 
+    /**
+     * Số dòng mỗi transaction của insertAll/updateAll/deleteAllById
+     */
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = EnvConfigUtil.getInt("LITEFLOW_DB_BATCH_CHUNK_SIZE", 500);
+
+    /**
+     * Flush + clear persistence context sau mỗi N dòng, nên bằng hibernate.jdbc.batch_size
+     */
+    public static final int DEFAULT_BATCH_FLUSH_INTERVAL = EnvConfigUtil.getInt("LITEFLOW_DB_BATCH_FLUSH_INTERVAL", 50);
+
+    /**
+     * Số giá trị tối đa trong một mệnh đề IN (SQL Server giới hạn 2100 tham số mỗi câu lệnh)
+     */
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
     private final Class<T> entityClass;
 
     public GenericDAO(Class<T> entityClass, Class<ID> idClass) {
@@ -132,6 +157,181 @@ public class GenericDAO<T, ID> extends BaseDAO<T, ID> {
         }
     }
 
+    /**
+     * Insert nhiều entity, mỗi chunk một transaction, dùng JDBC batching
+     * (hibernate.jdbc.batch_size + order_inserts trong persistence.xml).
+     * Entity có ID kiểu IDENTITY không batch được ở mức JDBC nhưng vẫn chạy theo chunk.
+     */
+    public BatchResult insertAll(List<T> entities) {
+        return insertAll(entities, DEFAULT_BATCH_CHUNK_SIZE, DEFAULT_BATCH_FLUSH_INTERVAL);
+    }
+
+    public BatchResult insertAll(List<T> entities, int chunkSize, int flushInterval) {
+        // Ghi nhớ entity chưa có ID để reset khi chạy lại từng dòng (tránh "detached entity passed to persist")
+        Set<T> newEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (entities != null) {
+            for (T entity : entities) {
+                if (entity != null && emf.getPersistenceUnitUtil().getIdentifier(entity) == null) {
+                    newEntities.add(entity);
+                }
+            }
+        }
+        return executeBatch("insertAll", entities, chunkSize, flushInterval,
+                (em, entity) -> em.persist(entity),
+                entity -> {
+                    if (newEntities.contains(entity)) {
+                        resetIdentifier(entity);
+                    }
+                });
+    }
+
+    /**
+     * Update (merge) nhiều entity, mỗi chunk một transaction, dùng JDBC batching + order_updates
+     */
+    public BatchResult updateAll(List<T> entities) {
+        return updateAll(entities, DEFAULT_BATCH_CHUNK_SIZE, DEFAULT_BATCH_FLUSH_INTERVAL);
+    }
+
+    public BatchResult updateAll(List<T> entities, int chunkSize, int flushInterval) {
+        return executeBatch("updateAll", entities, chunkSize, flushInterval,
+                (em, entity) -> em.merge(entity), null);
+    }
+
+    /**
+     * Xóa nhiều entity theo ID, mỗi chunk một transaction. ID không tồn tại được ghi là lỗi của dòng đó.
+     */
+    public BatchResult deleteAllById(List<ID> ids) {
+        return deleteAllById(ids, DEFAULT_BATCH_CHUNK_SIZE, DEFAULT_BATCH_FLUSH_INTERVAL);
+    }
+
+    public BatchResult deleteAllById(List<ID> ids, int chunkSize, int flushInterval) {
+        return executeBatch("deleteAllById", ids, chunkSize, flushInterval,
+                (em, id) -> {
+                    T entity = em.find(entityClass, id);
+                    if (entity == null) {
+                        throw new EntityNotFoundException("Không tìm thấy " + entityClass.getSimpleName() + " với ID: " + id);
+                    }
+                    em.remove(entity);
+                }, null);
+    }
+
+    @FunctionalInterface
+    private interface BatchOperation<E> {
+        void apply(EntityManager em, E item);
+    }
+
+    /**
+     * Chạy operation theo từng chunk. Nếu chunk lỗi thì rollback và chạy lại từng dòng của chunk đó
+     * trong transaction riêng để tách đúng dòng lỗi, các dòng còn lại vẫn được ghi.
+     */
+    private <E> BatchResult executeBatch(String operation, List<E> items, int chunkSize, int flushInterval,
+                                         BatchOperation<E> op, Consumer<E> beforeRetry) {
+        String name = operation + " " + entityClass.getSimpleName();
+        if (items == null || items.isEmpty()) {
+            return new BatchResult(name, 0);
+        }
+        BatchResult result = new BatchResult(name, items.size());
+        int chunk = chunkSize > 0 ? chunkSize : DEFAULT_BATCH_CHUNK_SIZE;
+        int flushEvery = flushInterval > 0 ? flushInterval : DEFAULT_BATCH_FLUSH_INTERVAL;
+        long start = System.currentTimeMillis();
+
+        for (int from = 0; from < items.size(); from += chunk) {
+            int to = Math.min(from + chunk, items.size());
+            result.addChunk();
+
+            // Dòng null không gửi xuống DB
+            boolean hasNull = false;
+            for (int i = from; i < to; i++) {
+                if (items.get(i) == null) {
+                    hasNull = true;
+                    break;
+                }
+            }
+
+            if (!hasNull) {
+                try {
+                    writeChunk(items.subList(from, to), flushEvery, op);
+                    result.addSucceeded(to - from);
+                    continue;
+                } catch (Exception e) {
+                    System.err.println("⚠️ [GenericDAO] " + name + " chunk " + from + "-" + (to - 1)
+                            + " failed, retrying row by row: " + rootMessage(e));
+                }
+            }
+
+            for (int i = from; i < to; i++) {
+                E item = items.get(i);
+                if (item == null) {
+                    result.addFailure(i, null, "Dòng null");
+                    continue;
+                }
+                if (beforeRetry != null) {
+                    beforeRetry.accept(item);
+                }
+                try {
+                    writeChunk(Collections.singletonList(item), flushEvery, op);
+                    result.addSucceeded(1);
+                } catch (Exception e) {
+                    result.addFailure(i, item, rootMessage(e));
+                }
+            }
+        }
+
+        System.out.println((result.getFailed() == 0 ? "✅" : "⚠️") + " [GenericDAO] " + result
+                + " (" + (System.currentTimeMillis() - start) + "ms)");
+        return result;
+    }
+
+    private <E> void writeChunk(List<E> chunk, int flushInterval, BatchOperation<E> op) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            int count = 0;
+            for (E item : chunk) {
+                op.apply(em, item);
+                if (++count % flushInterval == 0) {
+                    // Đẩy batch xuống DB và giải phóng persistence context
+                    em.flush();
+                    em.clear();
+                }
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Đưa ID về null (entity dùng @GeneratedValue/@PrePersist sẽ sinh lại khi persist)
+     */
+    private void resetIdentifier(T entity) {
+        try {
+            for (SingularAttribute<? super T, ?> attribute : emf.getMetamodel().entity(entityClass).getSingularAttributes()) {
+                if (attribute.isId() && attribute.getJavaMember() instanceof Field) {
+                    Field field = (Field) attribute.getJavaMember();
+                    field.setAccessible(true);
+                    field.set(entity, null);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Cannot reset ID of " + entityClass.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
     @Override
     public T findById(ID id) {
         EntityManager em = emf.createEntityManager();
@@ -307,4 +507,34 @@ public class GenericDAO<T, ID> extends BaseDAO<T, ID> {
             em.close();
         }
     }
+
+    /**
+     * Tìm các bản ghi có field String nằm trong danh sách giá trị (so khớp case-insensitive),
+     * mỗi IN_CLAUSE_CHUNK_SIZE giá trị một query thay vì một query cho mỗi giá trị.
+     */
+    public List<T> findAllByFieldInIgnoreCase(String fieldName, Collection<String> values) {
+        if (fieldName == null || values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        for (String value : new LinkedHashSet<>(values)) {
+            if (value != null && !value.isBlank()) {
+                keys.add(value.toLowerCase());
+            }
+        }
+        List<T> result = new ArrayList<>();
+        EntityManager em = emf.createEntityManager();
+        try {
+            String jpql = "SELECT e FROM " + entityClass.getSimpleName()
+                    + " e WHERE LOWER(e." + fieldName + ") IN :vals";
+            for (int from = 0; from < keys.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                result.addAll(em.createQuery(jpql, entityClass)
+                        .setParameter("vals", keys.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, keys.size())))
+                        .getResultList());
+            }
+            return result;
+        } finally {
+            em.close();
+        }
+    }
 }
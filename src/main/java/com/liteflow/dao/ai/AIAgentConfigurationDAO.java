@@ -1,10 +1,10 @@
 package com.liteflow.dao.ai;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.ai.AIAgentConfiguration;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,13 +15,11 @@ import java.util.UUID;
  */
 public class AIAgentConfigurationDAO {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Get all configurations
      */
     public List<AIAgentConfiguration> findAll() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AIAgentConfiguration> query = em.createQuery(
                 "SELECT c FROM AIAgentConfiguration c WHERE c.isActive = true ORDER BY c.category, c.configKey",
@@ -37,7 +35,7 @@ public class AIAgentConfigurationDAO {
      * Get configurations by category
      */
     public List<AIAgentConfiguration> findByCategory(String category) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AIAgentConfiguration> query = em.createQuery(
                 "SELECT c FROM AIAgentConfiguration c WHERE c.category = :category AND c.isActive = true ORDER BY c.configKey",
@@ -54,13 +52,15 @@ public class AIAgentConfigurationDAO {
      * Get configuration by key
      */
     public AIAgentConfiguration findByKey(String configKey) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AIAgentConfiguration> query = em.createQuery(
                 "SELECT c FROM AIAgentConfiguration c WHERE c.configKey = :configKey",
                 AIAgentConfiguration.class
             );
             query.setParameter("configKey", configKey);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            query.setHint(HibernateHints.HINT_CACHE_REGION, "query.config");
             List<AIAgentConfiguration> results = query.getResultList();
             return results.isEmpty() ? null : results.get(0);
         } finally {
@@ -72,7 +72,7 @@ public class AIAgentConfigurationDAO {
      * Save or update configuration
      */
     public boolean save(AIAgentConfiguration config) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             config.setUpdatedAt(LocalDateTime.now());
@@ -100,7 +100,7 @@ public class AIAgentConfigurationDAO {
      * Save multiple configurations
      */
     public boolean saveAll(List<AIAgentConfiguration> configs) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             for (AIAgentConfiguration config : configs) {
@@ -130,7 +130,7 @@ public class AIAgentConfigurationDAO {
      * Update configuration value
      */
     public boolean updateValue(String configKey, String configValue, UUID updatedBy) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AIAgentConfiguration config = findByKey(configKey);
@@ -162,7 +162,7 @@ public class AIAgentConfigurationDAO {
      * Reset configuration to default value
      */
     public boolean resetToDefault(String configKey) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AIAgentConfiguration config = em.createQuery(
@@ -193,7 +193,7 @@ public class AIAgentConfigurationDAO {
      * Reset all configurations in a category to default
      */
     public boolean resetCategoryToDefault(String category) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             List<AIAgentConfiguration> configs = em.createQuery(
@@ -276,7 +276,7 @@ public class AIAgentConfigurationDAO {
      * Get count of configurations
      */
     public long getCount() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(c) FROM AIAgentConfiguration c",
@@ -292,7 +292,7 @@ public class AIAgentConfigurationDAO {
      * Get count by category
      */
     public long getCountByCategory(String category) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(c) FROM AIAgentConfiguration c WHERE c.category = :category",
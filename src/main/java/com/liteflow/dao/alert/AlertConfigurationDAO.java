@@ -1,9 +1,8 @@
 package com.liteflow.dao.alert;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.alert.AlertConfiguration;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.time.LocalDateTime;
@@ -15,13 +14,11 @@ import java.util.UUID;
  */
 public class AlertConfigurationDAO {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Get all alert configurations
      */
     public List<AlertConfiguration> getAll() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertConfiguration> query = em.createQuery(
                 "SELECT ac FROM AlertConfiguration ac ORDER BY ac.priority DESC, ac.createdAt DESC",
@@ -37,7 +34,7 @@ public class AlertConfigurationDAO {
      * Get alert configuration by ID
      */
     public AlertConfiguration getById(UUID alertID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             return em.find(AlertConfiguration.class, alertID);
         } finally {
@@ -49,7 +46,7 @@ public class AlertConfigurationDAO {
      * Get all enabled alert configurations
      */
     public List<AlertConfiguration> getAllEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertConfiguration> query = em.createQuery(
                 "SELECT ac FROM AlertConfiguration ac WHERE ac.isEnabled = true " +
@@ -66,7 +63,7 @@ public class AlertConfigurationDAO {
      * Get alert configurations by type
      */
     public List<AlertConfiguration> getByType(String alertType) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertConfiguration> query = em.createQuery(
                 "SELECT ac FROM AlertConfiguration ac WHERE ac.alertType = :alertType " +
@@ -84,7 +81,7 @@ public class AlertConfigurationDAO {
      * Get scheduled alerts that should run now
      */
     public List<AlertConfiguration> getScheduledAlertsToRun() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertConfiguration> query = em.createQuery(
                 "SELECT ac FROM AlertConfiguration ac " +
@@ -105,7 +102,7 @@ public class AlertConfigurationDAO {
      * Get alerts by priority
      */
     public List<AlertConfiguration> getByPriority(String priority) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertConfiguration> query = em.createQuery(
                 "SELECT ac FROM AlertConfiguration ac " +
@@ -124,7 +121,7 @@ public class AlertConfigurationDAO {
      * Get alerts that use GPT
      */
     public List<AlertConfiguration> getGPTEnabledAlerts() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertConfiguration> query = em.createQuery(
                 "SELECT ac FROM AlertConfiguration ac " +
@@ -141,7 +138,7 @@ public class AlertConfigurationDAO {
      * Insert new alert configuration
      */
     public boolean insert(AlertConfiguration alertConfig) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(alertConfig);
@@ -164,7 +161,7 @@ public class AlertConfigurationDAO {
      * Update alert configuration
      */
     public boolean update(AlertConfiguration alertConfig) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             alertConfig.setUpdatedAt(LocalDateTime.now());
@@ -188,7 +185,7 @@ public class AlertConfigurationDAO {
      * Update last triggered timestamp
      */
     public boolean updateLastTriggered(UUID alertID, UUID triggeredBy) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertConfiguration config = em.find(AlertConfiguration.class, alertID);
@@ -215,7 +212,7 @@ public class AlertConfigurationDAO {
      * Update next scheduled run time
      */
     public boolean updateNextScheduledRun(UUID alertID, LocalDateTime nextRun) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertConfiguration config = em.find(AlertConfiguration.class, alertID);
@@ -240,7 +237,7 @@ public class AlertConfigurationDAO {
      * Enable/disable alert configuration
      */
     public boolean setEnabled(UUID alertID, boolean enabled) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertConfiguration config = em.find(AlertConfiguration.class, alertID);
@@ -267,7 +264,7 @@ public class AlertConfigurationDAO {
      * Delete alert configuration
      */
     public boolean delete(UUID alertID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertConfiguration config = em.find(AlertConfiguration.class, alertID);
@@ -293,7 +290,7 @@ public class AlertConfigurationDAO {
      * Get statistics
      */
     public long getCount() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(ac) FROM AlertConfiguration ac",
@@ -309,7 +306,7 @@ public class AlertConfigurationDAO {
      * Get enabled count
      */
     public long getEnabledCount() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(ac) FROM AlertConfiguration ac WHERE ac.isEnabled = true",
@@ -1,9 +1,8 @@
 package com.liteflow.dao.alert;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.alert.AlertHistory;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.time.LocalDateTime;
@@ -15,13 +14,11 @@ import java.util.UUID;
  */
 public class AlertHistoryDAO {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Get all alert history
      */
     public List<AlertHistory> getAll() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah ORDER BY ah.triggeredAt DESC",
@@ -37,7 +34,7 @@ public class AlertHistoryDAO {
      * Get alert history by ID
      */
     public AlertHistory getById(UUID historyID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             return em.find(AlertHistory.class, historyID);
         } finally {
@@ -49,12 +46,12 @@ public class AlertHistoryDAO {
      * Get unread alerts (for notification bell)
      */
     public List<AlertHistory> getUnreadAlerts(int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
                 "WHERE ah.isRead = false AND ah.isDismissed = false " +
-                "AND ah.deliveryStatus IN ('SENT', 'PARTIAL') " +
+                "AND ah.sentInApp = true " +
                 "AND (ah.expiresAt IS NULL OR ah.expiresAt > :now) " +
                 "ORDER BY ah.priority DESC, ah.triggeredAt DESC",
                 AlertHistory.class
@@ -71,12 +68,12 @@ public class AlertHistoryDAO {
      * Get unread count
      */
     public long getUnreadCount() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(ah) FROM AlertHistory ah " +
                 "WHERE ah.isRead = false AND ah.isDismissed = false " +
-                "AND ah.deliveryStatus IN ('SENT', 'PARTIAL') " +
+                "AND ah.sentInApp = true " +
                 "AND (ah.expiresAt IS NULL OR ah.expiresAt > :now)",
                 Long.class
             );
@@ -91,13 +88,13 @@ public class AlertHistoryDAO {
      * Get active alerts (not read, not dismissed, not expired)
      */
     public List<AlertHistory> getActiveAlerts(int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
                 "WHERE ah.isDismissed = false " +
                 "AND (ah.expiresAt IS NULL OR ah.expiresAt > :now) " +
-                "AND ah.deliveryStatus IN ('SENT', 'PARTIAL') " +
+                "AND ah.sentInApp = true " +
                 "ORDER BY ah.priority DESC, ah.triggeredAt DESC",
                 AlertHistory.class
             );
@@ -113,7 +110,7 @@ public class AlertHistoryDAO {
      * Get alerts by type
      */
     public List<AlertHistory> getByType(String alertType, int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
@@ -133,7 +130,7 @@ public class AlertHistoryDAO {
      * Get alerts by priority
      */
     public List<AlertHistory> getByPriority(String priority, int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
@@ -153,7 +150,7 @@ public class AlertHistoryDAO {
      * Get alerts by date range
      */
     public List<AlertHistory> getByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
@@ -173,7 +170,7 @@ public class AlertHistoryDAO {
      * Get alerts with GPT summary
      */
     public List<AlertHistory> getAlertsWithGPT(int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
@@ -192,7 +189,7 @@ public class AlertHistoryDAO {
      * Get recent alerts (last 24 hours)
      */
     public List<AlertHistory> getRecentAlerts(int hours, int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
@@ -215,7 +212,7 @@ public class AlertHistoryDAO {
      * @return List of alerts
      */
     public List<AlertHistory> findByAlertTypeSince(String alertType, LocalDateTime since) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<AlertHistory> query = em.createQuery(
                 "SELECT ah FROM AlertHistory ah " +
@@ -236,7 +233,7 @@ public class AlertHistoryDAO {
      * Insert new alert history
      */
     public boolean insert(AlertHistory alertHistory) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(alertHistory);
@@ -259,7 +256,7 @@ public class AlertHistoryDAO {
      * Update alert history
      */
     public boolean update(AlertHistory alertHistory) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.merge(alertHistory);
@@ -283,7 +280,7 @@ public class AlertHistoryDAO {
      * For LOW_INVENTORY and DAILY_SUMMARY alerts, delete the alert instead of just marking as read
      */
     public boolean markAsRead(UUID historyID, UUID userId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertHistory alert = em.find(AlertHistory.class, historyID);
@@ -320,7 +317,7 @@ public class AlertHistoryDAO {
      * It does NOT delete alerts from the database.
      */
     public int markAllAsRead(UUID userId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             
@@ -374,7 +371,7 @@ public class AlertHistoryDAO {
      * Dismiss alert
      */
     public boolean dismiss(UUID historyID, UUID userId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertHistory alert = em.find(AlertHistory.class, historyID);
@@ -400,7 +397,7 @@ public class AlertHistoryDAO {
      * Record action taken
      */
     public boolean recordAction(UUID historyID, String action, UUID userId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             AlertHistory alert = em.find(AlertHistory.class, historyID);
@@ -426,7 +423,7 @@ public class AlertHistoryDAO {
      * Delete old alerts (cleanup)
      */
     public int deleteOldAlerts(int daysOld) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             int count = em.createQuery(
@@ -454,7 +451,7 @@ public class AlertHistoryDAO {
      * Get statistics
      */
     public long getTotalCount() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(ah) FROM AlertHistory ah",
@@ -470,7 +467,7 @@ public class AlertHistoryDAO {
      * Get count by delivery status
      */
     public long getCountByStatus(String deliveryStatus) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(ah) FROM AlertHistory ah WHERE ah.deliveryStatus = :status",
@@ -490,7 +487,7 @@ public class AlertHistoryDAO {
      * @return Number of alerts expired
      */
     public int expireOldAlertsByType(String alertType) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             
@@ -523,6 +520,125 @@ public class AlertHistoryDAO {
             em.close();
         }
     }
+    
+    /**
+     * Lưu GPT summary (và message đã bổ sung) sau bước enrichment của AlertDeliveryPipeline
+     */
+    public boolean updateGptSummary(UUID historyID, String gptSummary, String message) {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int count = em.createQuery(
+                "UPDATE AlertHistory ah " +
+                "SET ah.gptSummary = :summary, ah.message = :message " +
+                "WHERE ah.historyID = :id"
+            )
+            .setParameter("summary", gptSummary)
+            .setParameter("message", message)
+            .setParameter("id", historyID)
+            .executeUpdate();
+            em.getTransaction().commit();
+            return count > 0;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            System.err.println("❌ Failed to update GPT summary: " + e.getMessage());
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+    
+    /**
+     * Ghi kết quả gửi Slack/Telegram của một alert.
+     * Chỉ cập nhật các cột delivery (không merge cả entity) để không ghi đè isRead/isDismissed
+     * mà người dùng có thể đã đổi trong lúc alert còn trong hàng đợi.
+     */
+    public boolean updateDeliveryResult(UUID historyID, boolean sentToSlack, boolean sentToTelegram,
+                                        String deliveryStatus, String errorMessage, LocalDateTime sentAt) {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int count = em.createQuery(
+                "UPDATE AlertHistory ah " +
+                "SET ah.sentToSlack = :slack, ah.sentToTelegram = :telegram, " +
+                "ah.deliveryStatus = :status, ah.errorMessage = :error, ah.sentAt = :sentAt " +
+                "WHERE ah.historyID = :id"
+            )
+            .setParameter("slack", sentToSlack)
+            .setParameter("telegram", sentToTelegram)
+            .setParameter("status", deliveryStatus)
+            .setParameter("error", errorMessage)
+            .setParameter("sentAt", sentAt)
+            .setParameter("id", historyID)
+            .executeUpdate();
+            em.getTransaction().commit();
+            return count > 0;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            System.err.println("❌ Failed to update alert delivery result: " + e.getMessage());
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+    
+    /**
+     * Đánh dấu đã gửi Slack ngay khi kênh này thành công (alert vẫn PENDING tới khi các kênh khác xong)
+     */
+    public boolean markSentToSlack(UUID historyID) {
+        return markSent(historyID, "sentToSlack");
+    }
+
+    /**
+     * Đánh dấu đã gửi Telegram ngay khi kênh này thành công (alert vẫn PENDING tới khi các kênh khác xong)
+     */
+    public boolean markSentToTelegram(UUID historyID) {
+        return markSent(historyID, "sentToTelegram");
+    }
+
+    private boolean markSent(UUID historyID, String attribute) {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int count = em.createQuery("UPDATE AlertHistory ah SET ah." + attribute + " = true WHERE ah.historyID = :id")
+                .setParameter("id", historyID)
+                .executeUpdate();
+            em.getTransaction().commit();
+            return count > 0;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            System.err.println("❌ Failed to mark alert channel as sent: " + e.getMessage());
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+    
+    /**
+     * Alert còn PENDING (chưa gửi xong Slack/Telegram) từ thời điểm since,
+     * dùng để đưa lại vào AlertDeliveryPipeline khi khởi động
+     */
+    public List<AlertHistory> getPendingDeliveries(LocalDateTime since) {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            TypedQuery<AlertHistory> query = em.createQuery(
+                "SELECT ah FROM AlertHistory ah " +
+                "WHERE ah.deliveryStatus = 'PENDING' AND ah.triggeredAt >= :since " +
+                "ORDER BY ah.triggeredAt",
+                AlertHistory.class
+            );
+            query.setParameter("since", since);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
 }
 
 
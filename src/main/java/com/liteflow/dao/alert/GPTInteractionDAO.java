@@ -1,9 +1,8 @@
 package com.liteflow.dao.alert;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.alert.GPTInteraction;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.math.BigDecimal;
@@ -16,13 +15,11 @@ import java.util.UUID;
  */
 public class GPTInteractionDAO {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Get all GPT interactions
      */
     public List<GPTInteraction> getAll() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GPTInteraction> query = em.createQuery(
                 "SELECT gi FROM GPTInteraction gi ORDER BY gi.createdAt DESC",
@@ -38,7 +35,7 @@ public class GPTInteractionDAO {
      * Get GPT interaction by ID
      */
     public GPTInteraction getById(UUID interactionID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             return em.find(GPTInteraction.class, interactionID);
         } finally {
@@ -50,7 +47,7 @@ public class GPTInteractionDAO {
      * Get interactions by purpose
      */
     public List<GPTInteraction> getByPurpose(String purpose, int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GPTInteraction> query = em.createQuery(
                 "SELECT gi FROM GPTInteraction gi " +
@@ -70,7 +67,7 @@ public class GPTInteractionDAO {
      * Get successful interactions
      */
     public List<GPTInteraction> getSuccessfulInteractions(int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GPTInteraction> query = em.createQuery(
                 "SELECT gi FROM GPTInteraction gi " +
@@ -89,7 +86,7 @@ public class GPTInteractionDAO {
      * Get failed interactions
      */
     public List<GPTInteraction> getFailedInteractions(int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GPTInteraction> query = em.createQuery(
                 "SELECT gi FROM GPTInteraction gi " +
@@ -108,7 +105,7 @@ public class GPTInteractionDAO {
      * Get interactions by date range
      */
     public List<GPTInteraction> getByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GPTInteraction> query = em.createQuery(
                 "SELECT gi FROM GPTInteraction gi " +
@@ -128,7 +125,7 @@ public class GPTInteractionDAO {
      * Insert new GPT interaction
      */
     public boolean insert(GPTInteraction interaction) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(interaction);
@@ -152,7 +149,7 @@ public class GPTInteractionDAO {
      * Update GPT interaction
      */
     public boolean update(GPTInteraction interaction) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.merge(interaction);
@@ -174,7 +171,7 @@ public class GPTInteractionDAO {
      * Record feedback
      */
     public boolean recordFeedback(UUID interactionID, boolean wasHelpful, String notes) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             GPTInteraction interaction = em.find(GPTInteraction.class, interactionID);
@@ -201,7 +198,7 @@ public class GPTInteractionDAO {
      * Get total cost (USD)
      */
     public BigDecimal getTotalCostUSD() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<BigDecimal> query = em.createQuery(
                 "SELECT COALESCE(SUM(gi.estimatedCostUSD), 0) FROM GPTInteraction gi " +
@@ -218,7 +215,7 @@ public class GPTInteractionDAO {
      * Get total cost (VND)
      */
     public BigDecimal getTotalCostVND() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<BigDecimal> query = em.createQuery(
                 "SELECT COALESCE(SUM(gi.estimatedCostVND), 0) FROM GPTInteraction gi " +
@@ -235,7 +232,7 @@ public class GPTInteractionDAO {
      * Get total tokens used
      */
     public Long getTotalTokens() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COALESCE(SUM(gi.totalTokens), 0) FROM GPTInteraction gi " +
@@ -252,7 +249,7 @@ public class GPTInteractionDAO {
      * Get average response time
      */
     public Double getAverageResponseTime() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Double> query = em.createQuery(
                 "SELECT AVG(CAST(gi.responseTimeMs AS double)) FROM GPTInteraction gi " +
@@ -270,7 +267,7 @@ public class GPTInteractionDAO {
      * Get success rate
      */
     public double getSuccessRate() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             Long total = em.createQuery("SELECT COUNT(gi) FROM GPTInteraction gi", Long.class)
                           .getSingleResult();
@@ -291,7 +288,7 @@ public class GPTInteractionDAO {
      * Get statistics by model
      */
     public List<Object[]> getStatsByModel() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Object[]> query = em.createQuery(
                 "SELECT gi.model, COUNT(gi), SUM(gi.totalTokens), SUM(gi.estimatedCostVND) " +
@@ -310,7 +307,7 @@ public class GPTInteractionDAO {
      * Get statistics by purpose
      */
     public List<Object[]> getStatsByPurpose() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Object[]> query = em.createQuery(
                 "SELECT gi.purpose, COUNT(gi), SUM(gi.totalTokens), SUM(gi.estimatedCostVND) " +
@@ -330,7 +327,7 @@ public class GPTInteractionDAO {
      * Delete old interactions (cleanup)
      */
     public int deleteOldInteractions(int daysOld) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             int count = em.createQuery(
@@ -1,9 +1,8 @@
 package com.liteflow.dao.alert;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.alert.NotificationChannel;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.time.LocalDateTime;
@@ -15,13 +14,11 @@ import java.util.UUID;
  */
 public class NotificationChannelDAO {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Get all notification channels
      */
     public List<NotificationChannel> getAll() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<NotificationChannel> query = em.createQuery(
                 "SELECT nc FROM NotificationChannel nc ORDER BY nc.channelType, nc.name",
@@ -37,7 +34,7 @@ public class NotificationChannelDAO {
      * Get notification channel by ID
      */
     public NotificationChannel getById(UUID channelID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             return em.find(NotificationChannel.class, channelID);
         } finally {
@@ -49,7 +46,7 @@ public class NotificationChannelDAO {
      * Get all active notification channels
      */
     public List<NotificationChannel> getAllActive() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<NotificationChannel> query = em.createQuery(
                 "SELECT nc FROM NotificationChannel nc WHERE nc.isActive = true " +
@@ -66,7 +63,7 @@ public class NotificationChannelDAO {
      * Get channels by type
      */
     public List<NotificationChannel> getByType(String channelType) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<NotificationChannel> query = em.createQuery(
                 "SELECT nc FROM NotificationChannel nc " +
@@ -84,7 +81,7 @@ public class NotificationChannelDAO {
      * Get default Slack channel
      */
     public NotificationChannel getDefaultSlackChannel() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<NotificationChannel> query = em.createQuery(
                 "SELECT nc FROM NotificationChannel nc " +
@@ -104,7 +101,7 @@ public class NotificationChannelDAO {
      * Get default Telegram channel
      */
     public NotificationChannel getDefaultTelegramChannel() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<NotificationChannel> query = em.createQuery(
                 "SELECT nc FROM NotificationChannel nc " +
@@ -124,7 +121,7 @@ public class NotificationChannelDAO {
      * Insert new notification channel
      */
     public boolean insert(NotificationChannel channel) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(channel);
@@ -147,7 +144,7 @@ public class NotificationChannelDAO {
      * Update notification channel
      */
     public boolean update(NotificationChannel channel) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             channel.setUpdatedAt(LocalDateTime.now());
@@ -171,7 +168,7 @@ public class NotificationChannelDAO {
      * Record channel usage
      */
     public boolean recordUsage(UUID channelID, boolean success, String errorMessage) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             NotificationChannel channel = em.find(NotificationChannel.class, channelID);
@@ -196,11 +193,35 @@ public class NotificationChannelDAO {
         }
     }
     
+    /**
+     * Ghi usage cộng dồn của một kênh (số tin thành công, lần dùng cuối, lỗi cuối) trong một transaction
+     */
+    public boolean flushUsage(UUID channelID, int requests, LocalDateTime lastUsed, String lastError) {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            NotificationChannel channel = em.find(NotificationChannel.class, channelID);
+            if (channel != null) {
+                channel.applyUsage(requests, lastUsed, lastError);
+            }
+            em.getTransaction().commit();
+            return true;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            System.err.println("❌ Failed to flush usage: " + e.getMessage());
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+    
     /**
      * Increment request count
      */
     public boolean incrementRequestCount(UUID channelID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             NotificationChannel channel = em.find(NotificationChannel.class, channelID);
@@ -225,7 +246,7 @@ public class NotificationChannelDAO {
      * Enable/disable notification channel
      */
     public boolean setActive(UUID channelID, boolean active) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             NotificationChannel channel = em.find(NotificationChannel.class, channelID);
@@ -252,7 +273,7 @@ public class NotificationChannelDAO {
      * Delete notification channel
      */
     public boolean delete(UUID channelID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             NotificationChannel channel = em.find(NotificationChannel.class, channelID);
@@ -278,7 +299,7 @@ public class NotificationChannelDAO {
      * Get count by type
      */
     public long getCountByType(String channelType) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(nc) FROM NotificationChannel nc " +
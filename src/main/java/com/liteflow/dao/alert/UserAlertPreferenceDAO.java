@@ -1,9 +1,8 @@
 package com.liteflow.dao.alert;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.alert.UserAlertPreference;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.time.LocalDateTime;
@@ -15,13 +14,11 @@ import java.util.UUID;
  */
 public class UserAlertPreferenceDAO {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Get all user preferences
      */
     public List<UserAlertPreference> getAll() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap ORDER BY uap.createdAt DESC",
@@ -37,7 +34,7 @@ public class UserAlertPreferenceDAO {
      * Get preference by ID
      */
     public UserAlertPreference getById(UUID preferenceID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             return em.find(UserAlertPreference.class, preferenceID);
         } finally {
@@ -49,7 +46,7 @@ public class UserAlertPreferenceDAO {
      * Get preference by user ID
      */
     public UserAlertPreference getByUserId(UUID userID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap WHERE uap.userID = :userID",
@@ -80,7 +77,7 @@ public class UserAlertPreferenceDAO {
      * Get users with notifications enabled
      */
     public List<UserAlertPreference> getUsersWithNotificationsEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap WHERE uap.enableNotifications = true",
@@ -96,7 +93,7 @@ public class UserAlertPreferenceDAO {
      * Get users with Slack enabled
      */
     public List<UserAlertPreference> getUsersWithSlackEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap " +
@@ -113,7 +110,7 @@ public class UserAlertPreferenceDAO {
      * Get users with Telegram enabled
      */
     public List<UserAlertPreference> getUsersWithTelegramEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap " +
@@ -130,7 +127,7 @@ public class UserAlertPreferenceDAO {
      * Get users with Email enabled
      */
     public List<UserAlertPreference> getUsersWithEmailEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap " +
@@ -147,7 +144,7 @@ public class UserAlertPreferenceDAO {
      * Get users with quiet hours enabled
      */
     public List<UserAlertPreference> getUsersWithQuietHoursEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<UserAlertPreference> query = em.createQuery(
                 "SELECT uap FROM UserAlertPreference uap WHERE uap.quietHoursEnabled = true",
@@ -163,7 +160,7 @@ public class UserAlertPreferenceDAO {
      * Insert new preference
      */
     public boolean insert(UserAlertPreference preference) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(preference);
@@ -186,7 +183,7 @@ public class UserAlertPreferenceDAO {
      * Update preference
      */
     public boolean update(UserAlertPreference preference) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             preference.setUpdatedAt(LocalDateTime.now());
@@ -210,7 +207,7 @@ public class UserAlertPreferenceDAO {
      * Enable/disable notifications for user
      */
     public boolean setNotificationsEnabled(UUID userID, boolean enabled) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             UserAlertPreference preference = getByUserId(userID);
@@ -239,7 +236,7 @@ public class UserAlertPreferenceDAO {
      * Update channel settings
      */
     public boolean updateChannelSettings(UUID userID, boolean slack, boolean telegram, boolean email, boolean inApp) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             UserAlertPreference preference = getByUserId(userID);
@@ -271,7 +268,7 @@ public class UserAlertPreferenceDAO {
      * Link Telegram account
      */
     public boolean linkTelegramAccount(UUID userID, String telegramUserID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             UserAlertPreference preference = getOrCreateForUser(userID);
@@ -297,7 +294,7 @@ public class UserAlertPreferenceDAO {
      * Link Slack account
      */
     public boolean linkSlackAccount(UUID userID, String slackUserID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             UserAlertPreference preference = getOrCreateForUser(userID);
@@ -323,7 +320,7 @@ public class UserAlertPreferenceDAO {
      * Delete preference
      */
     public boolean delete(UUID preferenceID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             UserAlertPreference preference = em.find(UserAlertPreference.class, preferenceID);
@@ -348,7 +345,7 @@ public class UserAlertPreferenceDAO {
      * Get count of users with notifications enabled
      */
     public long getCountWithNotificationsEnabled() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
                 "SELECT COUNT(uap) FROM UserAlertPreference uap WHERE uap.enableNotifications = true",
@@ -1,8 +1,7 @@
 package com.liteflow.dao.analytics;
 
+import com.liteflow.dao.BaseDAO;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.time.LocalDate;
@@ -16,17 +15,6 @@ import java.util.*;
  */
 public class DemandForecastDAO {
     
-    protected static EntityManagerFactory emf;
-    
-    static {
-        try {
-            emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-        } catch (Throwable e) {
-            System.err.println("❌ Failed to create EntityManagerFactory: " + e.getMessage());
-            e.printStackTrace();
-            emf = null;
-        }
-    }
 
     /**
      * Get sales history for products
@@ -34,7 +22,7 @@ public class DemandForecastDAO {
      * @return List of [ProductVariantID, ProductName, Size, TotalSold, TotalRevenue, DaysWithSales]
      */
     public List<Object[]> getSalesHistory(int days) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             LocalDateTime startDate = LocalDate.now().minusDays(days).atStartOfDay();
             LocalDateTime endDate = LocalDate.now().atTime(LocalTime.MAX);
@@ -76,7 +64,7 @@ public class DemandForecastDAO {
      * @return List of [ProductVariantID, ProductName, Size, CurrentStock]
      */
     public List<Object[]> getCurrentStockLevels() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             System.out.println("📦 Getting current stock levels...");
             
@@ -110,7 +98,7 @@ public class DemandForecastDAO {
      * @return List of [POID, CreateDate, ExpectedDelivery, Status]
      */
     public List<Object[]> getRecentPurchaseOrders(int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             System.out.println("🚚 Getting recent purchase orders...");
             
@@ -144,7 +132,7 @@ public class DemandForecastDAO {
      * @return List of [ProductVariantID, ProductName, Size, Revenue, QuantitySold]
      */
     public List<Object[]> getTopRevenueProducts(int days, int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             LocalDateTime startDate = LocalDate.now().minusDays(days).atStartOfDay();
             LocalDateTime endDate = LocalDate.now().atTime(LocalTime.MAX);
@@ -188,7 +176,7 @@ public class DemandForecastDAO {
      * @return List of [WeekNumber, Year, TotalSold]
      */
     public List<Object[]> getWeeklySalesTrend(int weeks, UUID productVariantId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             LocalDateTime startDate = LocalDate.now().minusWeeks(weeks).atStartOfDay();
             LocalDateTime endDate = LocalDate.now().atTime(LocalTime.MAX);
@@ -244,7 +232,7 @@ public class DemandForecastDAO {
      * @return List of [ProductVariantID, ProductName, Size, CurrentStock, Price]
      */
     public List<Object[]> getLowStockProducts(int threshold) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             System.out.println("⚠️ Getting low stock products (threshold: " + threshold + ")...");
             
@@ -0,0 +1,90 @@
+package com.liteflow.dao.cache;
+
+import com.liteflow.dao.BaseDAO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thống kê hit/miss của Hibernate second-level cache theo từng region (xem ehcache.xml)
+ */
+public final class SecondLevelCacheStats {
+
+    private SecondLevelCacheStats() {
+    }
+
+    /**
+     * Hit/miss/put theo region, cộng thêm tổng của query cache
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Statistics stats = statistics();
+        if (stats == null || !stats.isStatisticsEnabled()) {
+            result.put("enabled", false);
+            return result;
+        }
+
+        result.put("enabled", true);
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = stats.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, toMap(region));
+            }
+        }
+        result.put("regions", regions);
+
+        Map<String, Object> queryCache = new LinkedHashMap<>();
+        queryCache.put("hits", stats.getQueryCacheHitCount());
+        queryCache.put("misses", stats.getQueryCacheMissCount());
+        queryCache.put("puts", stats.getQueryCachePutCount());
+        queryCache.put("hitRatio", ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()));
+        result.put("queryCache", queryCache);
+        return result;
+    }
+
+    /**
+     * Xóa toàn bộ entity + query cache (dùng khi sửa dữ liệu trực tiếp dưới DB)
+     */
+    public static void evictAll() {
+        if (BaseDAO.emf == null) {
+            return;
+        }
+        BaseDAO.emf.getCache().evictAll();
+        BaseDAO.emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        System.out.println("✅ [SecondLevelCache] All entity and query regions evicted");
+    }
+
+    private static Map<String, Object> toMap(CacheRegionStatistics region) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", region.getHitCount());
+        map.put("misses", region.getMissCount());
+        map.put("puts", region.getPutCount());
+        map.put("hitRatio", ratio(region.getHitCount(), region.getMissCount()));
+        // JCache không báo số phần tử (trả về giá trị âm) -> bỏ qua
+        if (region.getElementCountInMemory() >= 0) {
+            map.put("elementsInMemory", region.getElementCountInMemory());
+        }
+        return map;
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private static Statistics statistics() {
+        if (BaseDAO.emf == null) {
+            return null;
+        }
+        try {
+            return BaseDAO.emf.unwrap(SessionFactory.class).getStatistics();
+        } catch (Exception e) {
+            System.err.println("❌ [SecondLevelCache] Cannot read statistics: " + e.getMessage());
+            return null;
+        }
+    }
+}
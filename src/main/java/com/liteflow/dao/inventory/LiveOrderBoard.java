@@ -0,0 +1,427 @@
+package com.liteflow.dao.inventory;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.inventory.OrderReadModel.CashierItem;
+import com.liteflow.dao.inventory.OrderReadModel.KitchenOrder;
+import com.liteflow.dao.inventory.OrderReadModel.OrderLine;
+import com.liteflow.model.inventory.Order;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bảng order đang hoạt động trong bộ nhớ cho màn hình bếp và cashier.
+ *
+ * Giữ snapshot bất biến của các order chưa hủy thuộc phiên Active, cùng các order còn Pending/Preparing/Ready,
+ * theo session và theo order. Dữ liệu trả về cho API (record KitchenOrder / CashierItem của OrderReadModel) được
+ * dựng sẵn một lần khi order thay đổi, nên đọc không cần lock và không tạo lại object.
+ *
+ * Nạp toàn bộ khi khởi động (LiveOrderBoardListener), sau đó OrderDAO / checkout cập nhật sau mỗi commit.
+ * Khi chưa nạp xong hoặc không tìm thấy bàn, OrderDAO đọc từ DB như trước. verifyAgainstDatabase() chạy
+ * định kỳ để phát hiện lệch (ví dụ thay đổi từ server khác hoặc sửa trực tiếp trong DB) và nạp lại.
+ */
+public final class LiveOrderBoard {
+
+    private static final Set<String> KITCHEN_STATUSES = Set.of("Pending", "Preparing", "Ready");
+    private static final Comparator<OrderSnapshot> BY_ORDER_DATE =
+            Comparator.comparing(OrderSnapshot::getOrderDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static final String LOAD_WHERE =
+            "WHERE (s.status = 'Active' AND o.status <> 'Cancelled') " +
+            "   OR o.status IN ('Pending', 'Preparing', 'Ready')";
+
+    private static final Object writeLock = new Object();
+
+    private static final ConcurrentHashMap<UUID, OrderSnapshot> ordersById = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<UUID, SessionSnapshot> sessionsById = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<UUID, UUID> activeSessionByTable = new ConcurrentHashMap<>();
+    private static volatile List<KitchenOrder> kitchenView = Collections.emptyList();
+    private static volatile boolean loaded;
+    private static long writeVersion; // guarded by writeLock
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static volatile Map<String, Object> lastVerify;
+
+    private LiveOrderBoard() {
+    }
+
+    // ========== READ (không lock) ==========
+
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Các món của phiên Active của bàn (định dạng OrderDAO.getOrdersByTable), null nếu không có trong board
+     */
+    public static List<CashierItem> getCashierItems(UUID tableId) {
+        if (!loaded || tableId == null) {
+            return null;
+        }
+        UUID sessionId = activeSessionByTable.get(tableId);
+        SessionSnapshot session = sessionId != null ? sessionsById.get(sessionId) : null;
+        if (session == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return session.cashierItems;
+    }
+
+    /**
+     * Các order Pending/Preparing/Ready theo thứ tự thời gian (định dạng OrderDAO.getPendingOrders), null nếu chưa nạp
+     */
+    public static List<KitchenOrder> getKitchenOrders() {
+        if (!loaded) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return kitchenView;
+    }
+
+    /**
+     * Một order theo định dạng màn hình bếp, null nếu không có trong board
+     */
+    public static KitchenOrder getKitchenOrder(UUID orderId) {
+        OrderSnapshot order = orderId != null ? ordersById.get(orderId) : null;
+        return order != null ? order.kitchenOrder : null;
+    }
+
+    // ========== WRITE (gọi sau khi commit) ==========
+
+    /**
+     * Order vừa được tạo / đổi trạng thái. Order phải còn managed (details, variant, product, session, table load được).
+     */
+    public static void orderSaved(Order order) {
+        OrderSnapshot snapshot;
+        try {
+            snapshot = OrderSnapshot.of(OrderReadModel.linesOf(order));
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ [LiveOrderBoard] Không dựng được snapshot cho order " + order.getOrderId() + ": " + e.getMessage());
+            return;
+        }
+        synchronized (writeLock) {
+            applyLocked(snapshot);
+            rebuildKitchenViewLocked();
+            writeVersion++;
+        }
+    }
+
+    /**
+     * Các order (dòng projection của OrderReadModel) của phiên mà OrderDAO phải đọc từ DB vì board không có
+     */
+    public static void sessionLoaded(List<OrderLine> lines) {
+        List<OrderSnapshot> snapshots = new ArrayList<>();
+        for (List<OrderLine> orderLines : OrderReadModel.groupByOrder(lines)) {
+            snapshots.add(OrderSnapshot.of(orderLines));
+        }
+        synchronized (writeLock) {
+            for (OrderSnapshot snapshot : snapshots) {
+                applyLocked(snapshot);
+            }
+            rebuildKitchenViewLocked();
+            writeVersion++;
+        }
+    }
+
+    /**
+     * Phiên đã thanh toán (Completed) - bỏ toàn bộ order của phiên khỏi board
+     */
+    public static void sessionClosed(UUID sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            SessionSnapshot session = sessionsById.remove(sessionId);
+            if (session != null) {
+                for (OrderSnapshot order : session.orders) {
+                    ordersById.remove(order.orderId);
+                }
+                if (session.tableId != null) {
+                    activeSessionByTable.remove(session.tableId, sessionId);
+                }
+            }
+            rebuildKitchenViewLocked();
+            writeVersion++;
+        }
+    }
+
+    // ========== LOAD / VERIFY ==========
+
+    /**
+     * Nạp lại toàn bộ từ DB. Giữ lock trong lúc query nên các thay đổi commit song song sẽ được áp dụng sau đó.
+     */
+    public static void reload() {
+        synchronized (writeLock) {
+            List<OrderSnapshot> snapshots = loadFromDatabase();
+            ordersById.clear();
+            sessionsById.clear();
+            activeSessionByTable.clear();
+            for (OrderSnapshot snapshot : snapshots) {
+                applyLocked(snapshot);
+            }
+            rebuildKitchenViewLocked();
+            writeVersion++;
+            loaded = true;
+            System.out.println("✅ [LiveOrderBoard] Loaded " + ordersById.size() + " orders, " + sessionsById.size() + " sessions");
+        }
+    }
+
+    /**
+     * So sánh board với DB; nếu lệch và không có thay đổi nào xen vào trong lúc đọc DB thì nạp lại.
+     *
+     * @return checked, missing, extra, stale, repaired, skipped
+     */
+    public static Map<String, Object> verifyAgainstDatabase() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("verifiedAt", LocalDateTime.now().toString());
+        if (!loaded) {
+            reload();
+            result.put("reloaded", true);
+            lastVerify = result;
+            return result;
+        }
+
+        long versionBefore;
+        synchronized (writeLock) {
+            versionBefore = writeVersion;
+        }
+        Map<UUID, OrderSnapshot> fromDb = new HashMap<>();
+        for (OrderSnapshot snapshot : loadFromDatabase()) {
+            fromDb.put(snapshot.orderId, snapshot);
+        }
+
+        synchronized (writeLock) {
+            int missing = 0;
+            int stale = 0;
+            for (OrderSnapshot dbOrder : fromDb.values()) {
+                OrderSnapshot boardOrder = ordersById.get(dbOrder.orderId);
+                if (boardOrder == null) {
+                    missing++;
+                } else if (!boardOrder.sameContent(dbOrder)) {
+                    stale++;
+                }
+            }
+            int extra = 0;
+            for (UUID orderId : ordersById.keySet()) {
+                if (!fromDb.containsKey(orderId)) {
+                    extra++;
+                }
+            }
+            boolean drifted = missing + stale + extra > 0;
+            boolean concurrentWrites = writeVersion != versionBefore;
+
+            result.put("checked", fromDb.size());
+            result.put("missing", missing);
+            result.put("extra", extra);
+            result.put("stale", stale);
+            if (drifted && !concurrentWrites) {
+                ordersById.clear();
+                sessionsById.clear();
+                activeSessionByTable.clear();
+                for (OrderSnapshot snapshot : fromDb.values()) {
+                    applyLocked(snapshot);
+                }
+                rebuildKitchenViewLocked();
+                writeVersion++;
+                System.out.println("⚠️ [LiveOrderBoard] Lệch với DB (missing=" + missing + ", extra=" + extra
+                        + ", stale=" + stale + ") - đã nạp lại");
+            }
+            result.put("repaired", drifted && !concurrentWrites);
+            // Có order thay đổi trong lúc đọc DB: không ghi đè, lần kiểm tra sau sẽ xem lại
+            result.put("skipped", drifted && concurrentWrites);
+        }
+        lastVerify = result;
+        return result;
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", loaded);
+        metrics.put("orders", ordersById.size());
+        metrics.put("sessions", sessionsById.size());
+        metrics.put("kitchenOrders", kitchenView.size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("lastVerify", lastVerify);
+        return metrics;
+    }
+
+    private static List<OrderSnapshot> loadFromDatabase() {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            List<OrderLine> lines = OrderReadModel.queryLines(em, LOAD_WHERE, Collections.emptyMap());
+            List<OrderSnapshot> snapshots = new ArrayList<>();
+            for (List<OrderLine> orderLines : OrderReadModel.groupByOrder(lines)) {
+                snapshots.add(OrderSnapshot.of(orderLines));
+            }
+            return snapshots;
+        } finally {
+            em.close();
+        }
+    }
+
+    // ========== INTERNAL (gọi trong writeLock) ==========
+
+    private static void applyLocked(OrderSnapshot snapshot) {
+        OrderSnapshot previous = ordersById.get(snapshot.orderId);
+        boolean keep = snapshot.isKitchenActive() || (snapshot.sessionActive && !"Cancelled".equals(snapshot.status));
+
+        if (keep) {
+            ordersById.put(snapshot.orderId, snapshot);
+        } else {
+            ordersById.remove(snapshot.orderId);
+        }
+
+        UUID previousSession = previous != null ? previous.sessionId : null;
+        if (previousSession != null && !previousSession.equals(snapshot.sessionId)) {
+            replaceInSessionLocked(previousSession, snapshot.orderId, null, previous.tableId, false);
+        }
+        if (snapshot.sessionId != null) {
+            replaceInSessionLocked(snapshot.sessionId, snapshot.orderId, keep ? snapshot : null,
+                    snapshot.tableId, snapshot.sessionActive);
+        }
+    }
+
+    private static void replaceInSessionLocked(UUID sessionId, UUID orderId, OrderSnapshot replacement,
+                                               UUID tableId, boolean sessionActive) {
+        SessionSnapshot current = sessionsById.get(sessionId);
+        List<OrderSnapshot> orders = new ArrayList<>();
+        if (current != null) {
+            for (OrderSnapshot order : current.orders) {
+                if (!order.orderId.equals(orderId)) {
+                    orders.add(order);
+                }
+            }
+        }
+        if (replacement != null) {
+            orders.add(replacement);
+        }
+
+        if (orders.isEmpty()) {
+            sessionsById.remove(sessionId);
+            if (tableId != null) {
+                activeSessionByTable.remove(tableId, sessionId);
+            }
+            return;
+        }
+
+        orders.sort(BY_ORDER_DATE);
+        boolean active = replacement != null ? sessionActive : current != null && current.active;
+        SessionSnapshot updated = new SessionSnapshot(sessionId, tableId, active, orders);
+        sessionsById.put(sessionId, updated);
+        if (tableId != null) {
+            if (active) {
+                activeSessionByTable.put(tableId, sessionId);
+            } else {
+                activeSessionByTable.remove(tableId, sessionId);
+            }
+        }
+    }
+
+    private static void rebuildKitchenViewLocked() {
+        List<OrderSnapshot> active = new ArrayList<>();
+        for (OrderSnapshot order : ordersById.values()) {
+            if (order.isKitchenActive()) {
+                active.add(order);
+            }
+        }
+        active.sort(BY_ORDER_DATE);
+        List<KitchenOrder> view = new ArrayList<>(active.size());
+        for (OrderSnapshot order : active) {
+            view.add(order.kitchenOrder);
+        }
+        kitchenView = Collections.unmodifiableList(view);
+    }
+
+    // ========== SNAPSHOTS ==========
+
+    /**
+     * Các order còn hiển thị của một phiên, kèm danh sách món cho cashier dựng sẵn
+     */
+    private static final class SessionSnapshot {
+
+        final UUID sessionId;
+        final UUID tableId;
+        final boolean active;
+        final List<OrderSnapshot> orders;
+        final List<CashierItem> cashierItems;
+
+        SessionSnapshot(UUID sessionId, UUID tableId, boolean active, List<OrderSnapshot> orders) {
+            this.sessionId = sessionId;
+            this.tableId = tableId;
+            this.active = active;
+            this.orders = Collections.unmodifiableList(orders);
+            List<CashierItem> items = new ArrayList<>();
+            for (OrderSnapshot order : orders) {
+                items.addAll(order.cashierItems);
+            }
+            this.cashierItems = Collections.unmodifiableList(items);
+        }
+    }
+
+    /**
+     * Snapshot bất biến của một order
+     */
+    static final class OrderSnapshot {
+
+        final UUID orderId;
+        final UUID sessionId;
+        final UUID tableId;
+        final boolean sessionActive;
+        final String status;
+        final LocalDateTime orderDate;
+        final KitchenOrder kitchenOrder;
+        final List<CashierItem> cashierItems;
+
+        private OrderSnapshot(UUID orderId, UUID sessionId, UUID tableId, boolean sessionActive, String status,
+                              LocalDateTime orderDate, KitchenOrder kitchenOrder, List<CashierItem> cashierItems) {
+            this.orderId = orderId;
+            this.sessionId = sessionId;
+            this.tableId = tableId;
+            this.sessionActive = sessionActive;
+            this.status = status;
+            this.orderDate = orderDate;
+            this.kitchenOrder = kitchenOrder;
+            this.cashierItems = cashierItems;
+        }
+
+        /**
+         * Các dòng projection của một order (OrderReadModel.groupByOrder)
+         */
+        static OrderSnapshot of(List<OrderLine> orderLines) {
+            OrderLine first = orderLines.get(0);
+            return new OrderSnapshot(first.orderId(), first.sessionId(), first.tableId(),
+                    "Active".equals(first.sessionStatus()), first.orderStatus(), first.orderDate(),
+                    OrderReadModel.toKitchenOrder(orderLines), OrderReadModel.toCashierItems(orderLines));
+        }
+
+        LocalDateTime getOrderDate() {
+            return orderDate;
+        }
+
+        boolean isKitchenActive() {
+            return KITCHEN_STATUSES.contains(status);
+        }
+
+        boolean sameContent(OrderSnapshot other) {
+            return Objects.equals(status, other.status)
+                    && Objects.equals(sessionId, other.sessionId)
+                    && sessionActive == other.sessionActive
+                    && new HashSet<>(cashierItems).equals(new HashSet<>(other.cashierItems));
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.liteflow.dao.inventory;
+
+import com.google.gson.stream.JsonWriter;
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.util.JsonStreamUtil;
+import com.liteflow.util.JsonStreamUtil.JsonWritable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Lịch sử thông báo của thu ngân (thông báo bếp + thanh toán), phân trang theo keyset.
+ *
+ * Hai nguồn (Orders theo OrderDate, TableSessions đã thanh toán theo CheckOutTime) được gộp bằng một
+ * câu UNION ALL chỉ lấy các cột màn hình cần, sắp xếp (thời gian DESC, loại, ID DESC) và cắt trang ngay trong DB.
+ * Kết quả là các record Notification tự ghi JSON (JsonStreamUtil), servlet ghi thẳng ra response.
+ * Cursor là vị trí của dòng cuối trang trước, nên trang sau đi thẳng vào index IX_Orders_OrderDate /
+ * IX_TableSessions_CheckOutTime thay vì đọc lại từ đầu.
+ */
+public class NotificationHistoryDAO {
+
+    public static final int DEFAULT_PAGE_SIZE = 30;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static final String TYPE_KITCHEN = "kitchen";
+    public static final String TYPE_PAYMENT = "payment";
+
+    private static final String DEFAULT_TABLE_NAME = "Mang về / Giao hàng";
+
+    // Thứ tự cột giống nhau ở cả hai nhánh: type, id, timestamp, orderNumber, amount, tableId, tableName,
+    // invoiceName, paymentMethod, itemCount, notes
+    private static final String KITCHEN_SELECT =
+            "SELECT 'kitchen' AS type, o.orderId AS id, o.orderDate AS ts, o.orderNumber, o.subTotal, "
+            + "t.tableId, t.tableName, s.invoiceName, CAST(NULL AS String), CAST(NULL AS Integer), o.notes "
+            + "FROM Order o LEFT JOIN o.session s LEFT JOIN s.table t "
+            + "WHERE o.orderDate >= :fromDate";
+
+    private static final String PAYMENT_SELECT =
+            "SELECT 'payment' AS type, s.sessionId AS id, s.checkOutTime AS ts, CAST(NULL AS String), s.totalAmount, "
+            + "t.tableId, t.tableName, s.invoiceName, s.paymentMethod, s.itemCount, CAST(NULL AS String) "
+            + "FROM TableSession s LEFT JOIN s.table t "
+            + "WHERE s.status = 'Completed' AND s.paymentStatus = 'Paid' AND s.checkOutTime >= :fromDate";
+
+    /**
+     * Một trang lịch sử mới nhất trước.
+     *
+     * @param fromDate chỉ lấy thông báo từ thời điểm này
+     * @param cursor   nextCursor của trang trước, null cho trang đầu
+     * @param limit    số dòng (giới hạn trong 1..MAX_PAGE_SIZE)
+     * @return trang kết quả, nextCursor null nếu hết
+     * @throws IllegalArgumentException nếu cursor không hợp lệ
+     */
+    public Page getPage(LocalDateTime fromDate, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Cursor after = Cursor.decode(cursor);
+
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            // Ngoặc để ORDER BY áp dụng cho cả UNION chứ không chỉ nhánh thứ hai
+            String jpql = "(" + KITCHEN_SELECT + keysetCondition(after, TYPE_KITCHEN, "o.orderDate", "o.orderId")
+                    + " UNION ALL "
+                    + PAYMENT_SELECT + keysetCondition(after, TYPE_PAYMENT, "s.checkOutTime", "s.sessionId")
+                    + ") ORDER BY ts DESC, type, id DESC";
+
+            TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class);
+            query.setParameter("fromDate", fromDate);
+            if (after != null) {
+                query.setParameter("cursorTime", after.timestamp);
+                query.setParameter("cursorId", after.id);
+            }
+            // Lấy dư một dòng để biết còn trang sau hay không
+            query.setMaxResults(pageSize + 1);
+            List<Object[]> rows = query.getResultList();
+
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+
+            List<UUID> orderIds = new ArrayList<>();
+            for (Object[] row : rows) {
+                if (TYPE_KITCHEN.equals(row[0])) {
+                    orderIds.add((UUID) row[1]);
+                }
+            }
+            Map<UUID, List<Item>> itemsByOrder = new HashMap<>();
+            Map<UUID, Integer> detailCountByOrder = new HashMap<>();
+            loadOrderItems(em, orderIds, itemsByOrder, detailCountByOrder);
+
+            List<Notification> notifications = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                notifications.add(toNotification(row, itemsByOrder, detailCountByOrder));
+            }
+
+            String nextCursor = hasMore && !rows.isEmpty() ? Cursor.of(rows.get(rows.size() - 1)).encode() : null;
+            return new Page(notifications, hasMore, nextCursor);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Điều kiện "đứng sau cursor" theo thứ tự (ts DESC, type ASC, id DESC) cho một nhánh.
+     * Mỗi nhánh chỉ có một loại nên phần so sánh type được quyết định sẵn ở đây.
+     */
+    private String keysetCondition(Cursor after, String branchType, String timeColumn, String idColumn) {
+        if (after == null) {
+            return "";
+        }
+        int typeOrder = branchType.compareTo(after.type);
+        if (typeOrder == 0) {
+            return " AND (" + timeColumn + " < :cursorTime OR (" + timeColumn + " = :cursorTime AND " + idColumn + " < :cursorId))";
+        }
+        if (typeOrder > 0) {
+            // Nhánh đứng sau loại của cursor khi cùng thời điểm
+            return " AND " + timeColumn + " <= :cursorTime";
+        }
+        return " AND " + timeColumn + " < :cursorTime";
+    }
+
+    /**
+     * Món của các order trong trang (một query, tối đa một trang order)
+     */
+    private void loadOrderItems(EntityManager em, List<UUID> orderIds,
+            Map<UUID, List<Item>> itemsByOrder, Map<UUID, Integer> detailCountByOrder) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> details = em.createQuery(
+                "SELECT d.order.orderId, p.name, v.size, d.quantity, d.unitPrice "
+                + "FROM OrderDetail d LEFT JOIN d.productVariant v LEFT JOIN v.product p "
+                + "WHERE d.order.orderId IN :orderIds", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        for (Object[] detail : details) {
+            UUID orderId = (UUID) detail[0];
+            detailCountByOrder.merge(orderId, 1, Integer::sum);
+            if (detail[1] == null) {
+                continue;
+            }
+            Item item = new Item((String) detail[1], (String) detail[2], (Integer) detail[3],
+                    detail[4] != null ? ((BigDecimal) detail[4]).doubleValue() : 0.0);
+            itemsByOrder.computeIfAbsent(orderId, k -> new ArrayList<>()).add(item);
+        }
+    }
+
+    private Notification toNotification(Object[] row,
+            Map<UUID, List<Item>> itemsByOrder, Map<UUID, Integer> detailCountByOrder) {
+        String type = (String) row[0];
+        UUID id = (UUID) row[1];
+        double amount = row[4] != null ? ((BigDecimal) row[4]).doubleValue() : 0.0;
+        String tableName = row[6] != null ? (String) row[6] : DEFAULT_TABLE_NAME;
+        String tableId = row[5] != null ? row[5].toString() : "";
+        String invoiceName = row[7] != null ? (String) row[7] : "";
+
+        if (TYPE_KITCHEN.equals(type)) {
+            String orderNote = (String) row[10];
+            return new Notification(type, id, row[2].toString(), amount, tableName, tableId, invoiceName,
+                    (String) row[3], detailCountByOrder.getOrDefault(id, 0),
+                    itemsByOrder.getOrDefault(id, Collections.emptyList()),
+                    orderNote != null && !orderNote.trim().isEmpty() ? orderNote : null, null);
+        }
+        return new Notification(type, id, row[2].toString(), amount, tableName, tableId, invoiceName,
+                null, row[9] != null ? (Integer) row[9] : 0, Collections.emptyList(), null,
+                row[8] != null ? (String) row[8] : "cash");
+    }
+
+    /**
+     * Một trang lịch sử
+     */
+    public record Page(List<Notification> notifications, boolean hasMore, String nextCursor) {
+    }
+
+    /**
+     * Một thông báo: bếp (orderNumber, items, orderNote) hoặc thanh toán (paymentMethod)
+     */
+    public record Notification(String type, UUID id, String timestamp, double amount, String tableName,
+                               String tableId, String invoiceName, String orderNumber, int itemCount,
+                               List<Item> items, String orderNote, String paymentMethod) implements JsonWritable {
+
+        @Override
+        public void writeJson(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name("type").value(type);
+            out.name("timestamp").value(timestamp);
+            out.name("amount").value(amount);
+            out.name("tableName").value(tableName);
+            out.name("tableId").value(tableId);
+            out.name("invoiceName").value(invoiceName);
+            out.name("itemCount").value(itemCount);
+            if (TYPE_KITCHEN.equals(type)) {
+                out.name("orderId").value(orderNumber); // orderNumber để hiển thị
+                out.name("orderIdUUID").value(id.toString());
+                out.name("items");
+                JsonStreamUtil.writeArray(out, items);
+                out.name("orderNote").value(orderNote);
+            } else {
+                out.name("sessionId").value(id.toString());
+                out.name("discount").value(0.0);
+                out.name("paymentMethod").value(paymentMethod);
+                out.name("finalAmount").value(amount);
+                out.name("hasVoucher").value(false);
+            }
+            out.endObject();
+        }
+    }
+
+    public record Item(String name, String size, Integer quantity, double price) implements JsonWritable {
+
+        @Override
+        public void writeJson(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name("name").value(name);
+            out.name("size").value(size);
+            out.name("quantity").value(quantity);
+            out.name("price").value(price);
+            out.endObject();
+        }
+    }
+
+    /**
+     * Vị trí (timestamp, type, id) của dòng cuối trang, mã hóa base64url để client gửi lại nguyên vẹn
+     */
+    private static final class Cursor {
+
+        private final LocalDateTime timestamp;
+        private final String type;
+        private final UUID id;
+
+        private Cursor(LocalDateTime timestamp, String type, UUID id) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.id = id;
+        }
+
+        static Cursor of(Object[] row) {
+            return new Cursor((LocalDateTime) row[2], (String) row[0], (UUID) row[1]);
+        }
+
+        String encode() {
+            String raw = timestamp + "|" + type + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                if (parts.length != 3 || !(TYPE_KITCHEN.equals(parts[1]) || TYPE_PAYMENT.equals(parts[1]))) {
+                    throw new IllegalArgumentException("Sai định dạng");
+                }
+                return new Cursor(LocalDateTime.parse(parts[0]), parts[1], UUID.fromString(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor không hợp lệ", e);
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.liteflow.dao.inventory;
 
 import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.inventory.OrderReadModel.CashierItem;
+import com.liteflow.dao.inventory.OrderReadModel.KitchenOrder;
+import com.liteflow.dao.inventory.OrderReadModel.OrderLine;
 import com.liteflow.model.inventory.*;
 import com.liteflow.model.auth.User;
 import jakarta.persistence.EntityManager;
@@ -11,6 +14,9 @@ import java.util.*;
 
 public class OrderDAO {
     
+    // Số lần thử lại khi TableSession bị ghi đồng thời (optimistic lock)
+    private static final int MAX_SESSION_WRITE_ATTEMPTS = 3;
+    
     /**
      * Tạo order mới với danh sách items
      * @param tableId ID của bàn
@@ -21,6 +27,10 @@ public class OrderDAO {
      * @return UUID của order được tạo
      */
     public Map<String, Object> createOrder(UUID tableId, List<Map<String, Object>> items, UUID userId, String invoiceName, String orderNote) {
+        return withSessionRetry(() -> createOrderOnce(tableId, items, userId, invoiceName, orderNote));
+    }
+    
+    private Map<String, Object> createOrderOnce(UUID tableId, List<Map<String, Object>> items, UUID userId, String invoiceName, String orderNote) {
         EntityManager em = BaseDAO.emf.createEntityManager();
         
         try {
@@ -29,8 +39,8 @@ public class OrderDAO {
             // 1. Kiểm tra xem bàn có session đang active không
             TableSession session = findOrCreateActiveSession(em, tableId, userId, invoiceName);
             
-            // 2. Tạo order number
-            String orderNumber = generateOrderNumber(em);
+            // 2. Tạo order number (cấp từ block trong bộ nhớ, không query thêm)
+            String orderNumber = OrderNumberAllocator.nextOrderNumber();
             
             // 3. Tạo Order entity
             Order order = new Order();
@@ -130,10 +140,11 @@ public class OrderDAO {
             // 6. Persist order (cascade sẽ persist orderDetails)
             em.persist(order);
             
-            // 7. Update session total
-            updateSessionTotal(em, session);
+            // 7. Cộng dồn tổng tiền vào session (không cần SUM lại toàn bộ orders)
+            session.addOrderTotals(order);
             
             em.getTransaction().commit();
+            LiveOrderBoard.orderSaved(order);
             
             System.out.println("✅ Đã tạo order: " + orderNumber + " với " + orderDetails.size() + " món");
             
@@ -246,96 +257,60 @@ public class OrderDAO {
     }
     
     /**
-     * Tạo order number tự động
+     * Chạy lại thao tác nếu TableSession vừa bị transaction khác cập nhật (version không khớp)
      */
-    private String generateOrderNumber(EntityManager em) {
-        // Lấy order count trong ngày (SQL Server compatible)
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59).withNano(999999999);
-        
-        Query query = em.createQuery(
-            "SELECT COUNT(o) FROM Order o WHERE o.orderDate >= :startOfDay AND o.orderDate <= :endOfDay"
-        );
-        query.setParameter("startOfDay", startOfDay);
-        query.setParameter("endOfDay", endOfDay);
-        
-        Long count = (Long) query.getSingleResult();
-        
-        String date = LocalDateTime.now().toString().substring(0, 10).replace("-", "");
-        return "ORD" + date + String.format("%03d", count + 1);
+    private <R> R withSessionRetry(java.util.function.Supplier<R> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_SESSION_WRITE_ATTEMPTS || !isConcurrentSessionUpdate(e)) {
+                    throw e;
+                }
+                System.out.println("⚠️ Phiên bàn vừa được cập nhật đồng thời, thử lại (lần " + (attempt + 1) + ")");
+            }
+        }
     }
     
-    /**
-     * Cập nhật tổng tiền của session
-     */
-    private void updateSessionTotal(EntityManager em, TableSession session) {
-        Query query = em.createQuery(
-            "SELECT SUM(o.totalAmount) FROM Order o WHERE o.session.sessionId = :sessionId"
-        );
-        query.setParameter("sessionId", session.getSessionId());
-        BigDecimal total = (BigDecimal) query.getSingleResult();
-        
-        if (total == null) {
-            total = BigDecimal.ZERO;
+    private static boolean isConcurrentSessionUpdate(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof jakarta.persistence.OptimisticLockException
+                    || t instanceof org.hibernate.StaleStateException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
         }
-        
-        session.setTotalAmount(total);
-        em.merge(session);
+        return false;
     }
     
     /**
-     * Lấy orders của bàn/session hiện tại (cho cashier)
+     * Lấy orders của bàn/session hiện tại (cho cashier) - đọc từ LiveOrderBoard, DB (projection) khi board không có
      */
-    public List<Map<String, Object>> getOrdersByTable(UUID tableId) {
+    public List<CashierItem> getOrdersByTable(UUID tableId) {
+        List<CashierItem> live = LiveOrderBoard.getCashierItems(tableId);
+        if (live != null) {
+            return live;
+        }
+        
         EntityManager em = BaseDAO.emf.createEntityManager();
-        List<Map<String, Object>> result = new ArrayList<>();
+        List<CashierItem> result = new ArrayList<>();
         
         try {
-            // Tìm session active của bàn
-            String sessionQuery = "SELECT s FROM TableSession s WHERE s.table.tableId = :tableId AND s.status = 'Active'";
-            Query query = em.createQuery(sessionQuery);
-            query.setParameter("tableId", tableId);
-            
-            @SuppressWarnings("unchecked")
-            List<TableSession> sessions = query.getResultList();
+            // Tất cả orders của session active của bàn (trừ Cancelled)
+            // GIỮ LẠI cả Served để cashier vẫn hiển thị
+            List<OrderLine> lines = OrderReadModel.queryLines(em,
+                    "WHERE t.tableId = :tableId AND s.status = 'Active' AND o.status <> 'Cancelled'",
+                    Map.of("tableId", tableId));
             
-            if (sessions.isEmpty()) {
-                return result; // Không có session active
+            // Board chưa có phiên này (vd. tạo từ server khác) - bổ sung để lần sau đọc từ bộ nhớ
+            if (!lines.isEmpty() && LiveOrderBoard.isLoaded()) {
+                LiveOrderBoard.sessionLoaded(lines);
             }
             
-            TableSession session = sessions.get(0);
-            
-            // Lấy tất cả orders của session (trừ Cancelled)
-            // GIỮ LẠI cả Served để cashier vẫn hiển thị
-            String jpql = "SELECT o FROM Order o " +
-                         "LEFT JOIN FETCH o.orderDetails od " +
-                         "LEFT JOIN FETCH od.productVariant pv " +
-                         "LEFT JOIN FETCH pv.product p " +
-                         "WHERE o.session.sessionId = :sessionId " +
-                         "AND o.status != 'Cancelled' " +
-                         "ORDER BY o.orderDate ASC";
-            
-            Query orderQuery = em.createQuery(jpql);
-            orderQuery.setParameter("sessionId", session.getSessionId());
-            
-            @SuppressWarnings("unchecked")
-            List<Order> orders = orderQuery.getResultList();
-            
-            for (Order order : orders) {
-                for (OrderDetail detail : order.getOrderDetails()) {
-                    Map<String, Object> itemMap = new HashMap<>();
-                    itemMap.put("orderId", order.getOrderId().toString());
-                    itemMap.put("orderDetailId", detail.getOrderDetailId().toString());
-                    itemMap.put("variantId", detail.getProductVariant().getProductVariantId().toString());
-                    itemMap.put("productId", detail.getProductVariant().getProduct().getProductId().toString());
-                    itemMap.put("name", detail.getProductVariant().getProduct().getName());
-                    itemMap.put("size", detail.getProductVariant().getSize());
-                    itemMap.put("price", detail.getUnitPrice().doubleValue());
-                    itemMap.put("quantity", detail.getQuantity());
-                    itemMap.put("status", detail.getStatus());
-                    itemMap.put("note", detail.getSpecialInstructions()); // Ghi chú
-                    result.add(itemMap);
-                }
+            for (List<OrderLine> orderLines : OrderReadModel.groupByOrder(lines)) {
+                result.addAll(OrderReadModel.toCashierItems(orderLines));
             }
             
         } catch (Exception e) {
@@ -349,59 +324,23 @@ public class OrderDAO {
     }
     
     /**
-     * Lấy danh sách orders đang pending (cho màn hình bếp)
+     * Lấy danh sách orders đang pending (cho màn hình bếp) - đọc từ LiveOrderBoard, DB (projection) khi board chưa nạp
      */
-    public List<Map<String, Object>> getPendingOrders() {
+    public List<KitchenOrder> getPendingOrders() {
+        List<KitchenOrder> live = LiveOrderBoard.getKitchenOrders();
+        if (live != null) {
+            return live;
+        }
+        
         EntityManager em = BaseDAO.emf.createEntityManager();
-        List<Map<String, Object>> result = new ArrayList<>();
+        List<KitchenOrder> result = new ArrayList<>();
         
         try {
-            String jpql = "SELECT o FROM Order o " +
-                         "LEFT JOIN FETCH o.orderDetails od " +
-                         "LEFT JOIN FETCH od.productVariant pv " +
-                         "LEFT JOIN FETCH pv.product p " +
-                         "WHERE o.status IN ('Pending', 'Preparing', 'Ready') " +
-                         "ORDER BY o.orderDate ASC";
-            
-            Query query = em.createQuery(jpql);
-            @SuppressWarnings("unchecked")
-            List<Order> orders = query.getResultList();
-            
-            for (Order order : orders) {
-                Map<String, Object> orderMap = new HashMap<>();
-                orderMap.put("orderId", order.getOrderId().toString());
-                orderMap.put("orderNumber", order.getOrderNumber());
-                orderMap.put("orderDate", order.getOrderDate().toString());
-                orderMap.put("status", order.getStatus());
-                
-                // ✅ Xử lý tableName với bàn đặc biệt (table = null)
-                String tableName = "Mang về / Giao hàng"; // Default cho bàn đặc biệt
-                Table table = order.getSession().getTable();
-                if (table != null) {
-                    tableName = table.getTableNumber();
-                }
-                orderMap.put("tableName", tableName);
-                
-                List<Map<String, Object>> items = new ArrayList<>();
-                for (OrderDetail detail : order.getOrderDetails()) {
-                    Map<String, Object> itemMap = new HashMap<>();
-                    String productName = detail.getProductVariant().getProduct().getName();
-                    String size = detail.getProductVariant().getSize();
-                    
-                    // Thêm size vào tên nếu có
-                    if (size != null && !size.isEmpty()) {
-                        productName = productName + " (" + size + ")";
-                    }
-                    
-                    itemMap.put("productName", productName);
-                    itemMap.put("quantity", detail.getQuantity());
-                    itemMap.put("status", detail.getStatus());
-                    itemMap.put("note", detail.getSpecialInstructions()); // Ghi chú
-                    items.add(itemMap);
-                }
-                orderMap.put("items", items);
-                
-                result.add(orderMap);
+            List<OrderLine> lines = OrderReadModel.queryLines(em,
+                    "WHERE o.status IN ('Pending', 'Preparing', 'Ready')", Collections.emptyMap());
+            
+            for (List<OrderLine> orderLines : OrderReadModel.groupByOrder(lines)) {
+                result.add(OrderReadModel.toKitchenOrder(orderLines));
             }
             
         } catch (Exception e) {
@@ -414,10 +353,43 @@ public class OrderDAO {
         return result;
     }
     
+    /**
+     * Lấy một order theo định dạng màn hình bếp (dùng cho event "created" của KitchenEventBus)
+     * @return null nếu không tìm thấy
+     */
+    public KitchenOrder getKitchenOrder(UUID orderId) {
+        KitchenOrder live = LiveOrderBoard.getKitchenOrder(orderId);
+        if (live != null) {
+            return live;
+        }
+        
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        
+        try {
+            List<OrderLine> lines = OrderReadModel.queryLines(em, "WHERE o.orderId = :orderId", Map.of("orderId", orderId));
+            return lines.isEmpty() ? null : OrderReadModel.toKitchenOrder(lines);
+        } catch (Exception e) {
+            System.err.println("❌ Lỗi khi lấy order cho bếp: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            em.close();
+        }
+    }
+    
     /**
      * Cập nhật trạng thái order
      */
     public boolean updateOrderStatus(UUID orderId, String status) {
+        try {
+            return withSessionRetry(() -> updateOrderStatusOnce(orderId, status));
+        } catch (RuntimeException e) {
+            System.err.println("❌ Lỗi khi cập nhật trạng thái order: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private boolean updateOrderStatusOnce(UUID orderId, String status) {
         EntityManager em = BaseDAO.emf.createEntityManager();
         
         try {
@@ -428,6 +400,7 @@ public class OrderDAO {
                 return false;
             }
             
+            String oldStatus = order.getStatus();
             order.setStatus(status);
             
             // Cập nhật trạng thái của tất cả order details
@@ -437,9 +410,21 @@ public class OrderDAO {
                 detail.setStatus(status);
             }
             
+            // Hủy / khôi phục order thì cập nhật tổng cộng dồn của session trong cùng transaction
+            boolean wasCancelled = "Cancelled".equals(oldStatus);
+            boolean isCancelled = "Cancelled".equals(status);
+            if (wasCancelled != isCancelled && order.getSession() != null) {
+                if (isCancelled) {
+                    order.getSession().subtractOrderTotals(order);
+                } else {
+                    order.getSession().addOrderTotals(order);
+                }
+            }
+            
             em.merge(order);
             em.flush(); // ✅ Flush để đảm bảo changes được persist
             em.getTransaction().commit();
+            LiveOrderBoard.orderSaved(order);
             
             System.out.println("✅ Đã cập nhật trạng thái order " + order.getOrderNumber() + " thành " + status);
             return true;
@@ -448,6 +433,9 @@ public class OrderDAO {
             if (em.getTransaction().isActive()) {
                 em.getTransaction().rollback();
             }
+            if (e instanceof RuntimeException && isConcurrentSessionUpdate(e)) {
+                throw (RuntimeException) e; // để withSessionRetry chạy lại
+            }
             System.err.println("❌ Lỗi khi cập nhật trạng thái order: " + e.getMessage());
             e.printStackTrace();
             return false;
@@ -0,0 +1,115 @@
+package com.liteflow.dao.inventory;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.model.inventory.OrderNumberBlock;
+import com.liteflow.util.EnvConfigUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Cấp số đơn hàng dạng ORDyyyyMMddNNN theo kiểu hi/lo.
+ *
+ * Mỗi JVM giữ trước một block số (LITEFLOW_ORDER_NUMBER_BLOCK_SIZE, mặc định 20) trong bảng
+ * OrderNumberBlocks bằng một transaction riêng có khóa dòng, sau đó cấp số trong bộ nhớ nên việc
+ * tạo order không cần query thêm. Sang ngày mới (giờ local) thì tự xin block của ngày mới, bắt đầu lại từ 001.
+ * Số đã giữ nhưng chưa dùng khi restart sẽ bị bỏ qua (có thể nhảy số), nhưng không bao giờ trùng.
+ */
+public final class OrderNumberAllocator {
+
+    private static final String PREFIX = "ORD";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int BLOCK_SIZE = Math.max(1, EnvConfigUtil.getInt("LITEFLOW_ORDER_NUMBER_BLOCK_SIZE", 20));
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static LocalDate currentDate;
+    private static String currentPrefix;
+    private static int nextValue;
+    private static int blockEnd; // exclusive
+
+    private OrderNumberAllocator() {
+    }
+
+    /**
+     * Số đơn hàng tiếp theo của ngày hôm nay, ví dụ ORD20250115007
+     */
+    public static synchronized String nextOrderNumber() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(currentDate) || nextValue >= blockEnd) {
+            reserveBlock(today);
+        }
+        return format(currentPrefix, nextValue++);
+    }
+
+    static String format(String prefix, int sequence) {
+        StringBuilder sb = new StringBuilder(prefix.length() + 4).append(prefix);
+        if (sequence < 100) {
+            sb.append('0');
+        }
+        if (sequence < 10) {
+            sb.append('0');
+        }
+        return sb.append(sequence).toString();
+    }
+
+    private static void reserveBlock(LocalDate date) {
+        RuntimeException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            EntityManager em = BaseDAO.emf.createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                OrderNumberBlock block = em.find(OrderNumberBlock.class, date, LockModeType.PESSIMISTIC_WRITE);
+                int start;
+                if (block == null) {
+                    // Dòng đầu tiên của ngày: nối tiếp số lớn nhất đã dùng (đơn bị xóa làm COUNT nhỏ hơn số đã cấp)
+                    start = highestSequence(em, PREFIX + date.format(DATE_FORMAT)) + 1;
+                    em.persist(new OrderNumberBlock(date, start + BLOCK_SIZE));
+                } else {
+                    start = block.getNextValue();
+                    block.setNextValue(start + BLOCK_SIZE);
+                }
+                tx.commit();
+
+                currentDate = date;
+                currentPrefix = PREFIX + date.format(DATE_FORMAT);
+                nextValue = start;
+                blockEnd = start + BLOCK_SIZE;
+                System.out.println("✅ [OrderNumber] Reserved block " + currentPrefix + " " + start + "-" + (blockEnd - 1));
+                return;
+            } catch (RuntimeException e) {
+                // Hai JVM cùng tạo dòng của ngày mới -> một bên lỗi khóa chính, thử lại sẽ thấy dòng đó
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                lastError = e;
+                System.err.println("⚠️ [OrderNumber] Reserve block failed (attempt " + attempt + "): " + e.getMessage());
+            } finally {
+                em.close();
+            }
+        }
+        throw new IllegalStateException("Không thể cấp số đơn hàng cho ngày " + date, lastError);
+    }
+
+    /**
+     * Số thứ tự lớn nhất trong các OrderNumber dạng prefix + NNN (bỏ qua số không đúng định dạng), 0 nếu chưa có
+     */
+    private static int highestSequence(EntityManager em, String prefix) {
+        List<String> numbers = em.createQuery(
+                "SELECT o.orderNumber FROM Order o WHERE o.orderNumber LIKE :pattern", String.class)
+                .setParameter("pattern", prefix + "%")
+                .getResultList();
+        int highest = 0;
+        for (String number : numbers) {
+            String suffix = number.substring(prefix.length());
+            if (suffix.isEmpty() || suffix.length() > 9 || !suffix.chars().allMatch(Character::isDigit)) {
+                continue;
+            }
+            highest = Math.max(highest, Integer.parseInt(suffix));
+        }
+        return highest;
+    }
+}
@@ -0,0 +1,211 @@
+package com.liteflow.dao.inventory;
+
+import com.google.gson.stream.JsonWriter;
+import com.liteflow.model.inventory.Order;
+import com.liteflow.model.inventory.OrderDetail;
+import com.liteflow.model.inventory.TableSession;
+import com.liteflow.util.JsonStreamUtil;
+import com.liteflow.util.JsonStreamUtil.JsonWritable;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read model cho màn hình bếp và cashier.
+ *
+ * Thay vì load cả đồ thị Order / OrderDetail / ProductVariant / Product / TableSession / Table rồi chép sang Map,
+ * các query chỉ chọn đúng những cột màn hình cần vào OrderLine (một dòng = order + một món), sau đó gom thành
+ * các record KitchenOrder / CashierItem. Các record tự ghi JSON (JsonStreamUtil) nên servlet ghi thẳng ra response.
+ */
+public final class OrderReadModel {
+
+    static final String SPECIAL_TABLE_NAME = "Mang về / Giao hàng";
+
+    /**
+     * Projection của một order kèm một món (các cột món null nếu order chưa có món).
+     * Điều kiện WHERE được nối vào sau, alias: o (Order), s (TableSession), t (Table), d (OrderDetail)
+     */
+    static final String LINE_QUERY =
+            "SELECT NEW com.liteflow.dao.inventory.OrderReadModel$OrderLine("
+            + "o.orderId, o.orderNumber, o.orderDate, o.status, s.sessionId, s.status, t.tableId, t.tableNumber, "
+            + "d.orderDetailId, v.productVariantId, p.productId, p.name, v.size, d.unitPrice, d.quantity, "
+            + "d.status, d.specialInstructions) "
+            + "FROM Order o JOIN o.session s LEFT JOIN s.table t "
+            + "LEFT JOIN o.orderDetails d LEFT JOIN d.productVariant v LEFT JOIN v.product p ";
+
+    private static final String LINE_ORDER = " ORDER BY o.orderDate ASC, o.orderId, d.createdAt";
+
+    private OrderReadModel() {
+    }
+
+    /**
+     * Chạy LINE_QUERY với điều kiện where (vd. "WHERE o.status IN ('Pending')"), sắp xếp theo thời gian order
+     */
+    static List<OrderLine> queryLines(EntityManager em, String where, Map<String, Object> params) {
+        TypedQuery<OrderLine> query = em.createQuery(LINE_QUERY + where + LINE_ORDER, OrderLine.class);
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            query.setParameter(param.getKey(), param.getValue());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Các dòng của order đang managed (sau khi commit, details / variant / product / session / table load được)
+     */
+    static List<OrderLine> linesOf(Order order) {
+        TableSession session = order.getSession();
+        UUID sessionId = session != null ? session.getSessionId() : null;
+        String sessionStatus = session != null ? session.getStatus() : null;
+        UUID tableId = session != null && session.getTable() != null ? session.getTable().getTableId() : null;
+        String tableNumber = session != null && session.getTable() != null ? session.getTable().getTableNumber() : null;
+
+        List<OrderLine> lines = new ArrayList<>();
+        for (OrderDetail detail : order.getOrderDetails()) {
+            lines.add(new OrderLine(order.getOrderId(), order.getOrderNumber(), order.getOrderDate(), order.getStatus(),
+                    sessionId, sessionStatus, tableId, tableNumber,
+                    detail.getOrderDetailId(), detail.getProductVariant().getProductVariantId(),
+                    detail.getProductVariant().getProduct().getProductId(), detail.getProductVariant().getProduct().getName(),
+                    detail.getProductVariant().getSize(), detail.getUnitPrice(), detail.getQuantity(),
+                    detail.getStatus(), detail.getSpecialInstructions()));
+        }
+        if (lines.isEmpty()) {
+            lines.add(new OrderLine(order.getOrderId(), order.getOrderNumber(), order.getOrderDate(), order.getStatus(),
+                    sessionId, sessionStatus, tableId, tableNumber,
+                    null, null, null, null, null, null, null, null, null));
+        }
+        return lines;
+    }
+
+    /**
+     * Gom các dòng liên tiếp theo order, giữ thứ tự của query
+     */
+    static List<List<OrderLine>> groupByOrder(List<OrderLine> lines) {
+        Map<UUID, List<OrderLine>> byOrder = new LinkedHashMap<>();
+        for (OrderLine line : lines) {
+            byOrder.computeIfAbsent(line.orderId(), k -> new ArrayList<>()).add(line);
+        }
+        return new ArrayList<>(byOrder.values());
+    }
+
+    /**
+     * Các dòng của một order -> order cho màn hình bếp
+     */
+    static KitchenOrder toKitchenOrder(List<OrderLine> orderLines) {
+        OrderLine first = orderLines.get(0);
+        List<KitchenItem> items = new ArrayList<>();
+        for (OrderLine line : orderLines) {
+            if (!line.hasItem()) {
+                continue;
+            }
+            String productName = line.productName();
+            // Thêm size vào tên nếu có
+            if (line.size() != null && !line.size().isEmpty()) {
+                productName = productName + " (" + line.size() + ")";
+            }
+            items.add(new KitchenItem(productName, line.quantity(), line.itemStatus(), line.note()));
+        }
+        // ✅ Bàn đặc biệt (table = null): Mang về / Giao hàng
+        String tableName = first.tableNumber() != null ? first.tableNumber() : SPECIAL_TABLE_NAME;
+        return new KitchenOrder(first.orderId().toString(), first.orderNumber(),
+                first.orderDate() != null ? first.orderDate().toString() : null,
+                first.orderStatus(), tableName, Collections.unmodifiableList(items));
+    }
+
+    /**
+     * Các dòng của một order -> các món cho cashier
+     */
+    static List<CashierItem> toCashierItems(List<OrderLine> orderLines) {
+        List<CashierItem> items = new ArrayList<>();
+        for (OrderLine line : orderLines) {
+            if (!line.hasItem()) {
+                continue;
+            }
+            items.add(new CashierItem(line.orderId().toString(), line.orderDetailId().toString(),
+                    line.variantId().toString(), line.productId().toString(), line.productName(), line.size(),
+                    line.unitPrice() != null ? line.unitPrice().doubleValue() : 0.0,
+                    line.quantity(), line.itemStatus(), line.note()));
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    // ========== RECORDS ==========
+
+    /**
+     * Một dòng projection (order + món)
+     */
+    public record OrderLine(UUID orderId, String orderNumber, LocalDateTime orderDate, String orderStatus,
+                            UUID sessionId, String sessionStatus, UUID tableId, String tableNumber,
+                            UUID orderDetailId, UUID variantId, UUID productId, String productName, String size,
+                            BigDecimal unitPrice, Integer quantity, String itemStatus, String note) {
+
+        boolean hasItem() {
+            return orderDetailId != null && productId != null;
+        }
+    }
+
+    /**
+     * Order trên màn hình bếp (GET /api/kitchen/orders, snapshot / event của /api/kitchen/stream)
+     */
+    public record KitchenOrder(String orderId, String orderNumber, String orderDate, String status,
+                               String tableName, List<KitchenItem> items) implements JsonWritable {
+
+        @Override
+        public void writeJson(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name("orderId").value(orderId);
+            out.name("orderNumber").value(orderNumber);
+            out.name("orderDate").value(orderDate);
+            out.name("status").value(status);
+            out.name("tableName").value(tableName);
+            out.name("items");
+            JsonStreamUtil.writeArray(out, items);
+            out.endObject();
+        }
+    }
+
+    public record KitchenItem(String productName, Integer quantity, String status, String note) implements JsonWritable {
+
+        @Override
+        public void writeJson(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name("productName").value(productName);
+            out.name("quantity").value(quantity);
+            out.name("status").value(status);
+            out.name("note").value(note);
+            out.endObject();
+        }
+    }
+
+    /**
+     * Một món của phiên đang mở (GET /api/order/table/{tableId})
+     */
+    public record CashierItem(String orderId, String orderDetailId, String variantId, String productId,
+                              String name, String size, double price, Integer quantity, String status,
+                              String note) implements JsonWritable {
+
+        @Override
+        public void writeJson(JsonWriter out) throws IOException {
+            out.beginObject();
+            out.name("orderId").value(orderId);
+            out.name("orderDetailId").value(orderDetailId);
+            out.name("variantId").value(variantId);
+            out.name("productId").value(productId);
+            out.name("name").value(name);
+            out.name("size").value(size);
+            out.name("price").value(price);
+            out.name("quantity").value(quantity);
+            out.name("status").value(status);
+            out.name("note").value(note);
+            out.endObject();
+        }
+    }
+}
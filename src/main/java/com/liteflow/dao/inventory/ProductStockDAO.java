@@ -1,11 +1,17 @@
 package com.liteflow.dao.inventory;
 
 import com.liteflow.dao.GenericDAO;
+import com.liteflow.model.inventory.InventoryLog;
 import com.liteflow.model.inventory.ProductStock;
+import com.liteflow.model.inventory.ProductVariant;
 import com.liteflow.model.inventory.LowStockItem;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class ProductStockDAO extends GenericDAO<ProductStock, UUID> {
@@ -272,4 +278,64 @@ public class ProductStockDAO extends GenericDAO<ProductStock, UUID> {
             }
         }
     }
+
+    /**
+     * Trừ kho cho cả hóa đơn trong transaction của caller (checkout).
+     * Tất cả ProductStock liên quan được đọc bằng một query IN có khóa ghi (thứ tự theo ID để tránh deadlock),
+     * sau đó các UPDATE Amount và INSERT InventoryLogs được flush cùng lúc và gom thành JDBC batch
+     * (hibernate.jdbc.batch_size) thay vì SELECT/merge/persist cho từng món.
+     * Mỗi variant chỉ trừ trên bản ghi ProductStock đầu tiên, tồn kho không xuống dưới 0.
+     *
+     * @param em EntityManager đang có transaction
+     * @param quantities variantId -> tổng số lượng bán (đã gộp các dòng trùng variant)
+     * @return tồn kho trước/sau theo từng variant
+     */
+    public StockDeductionResult deductForSale(EntityManager em, Map<UUID, Integer> quantities) {
+        StockDeductionResult result = new StockDeductionResult();
+        if (quantities == null || quantities.isEmpty()) {
+            return result;
+        }
+
+        List<ProductStock> stocks = em.createQuery(
+                "SELECT ps FROM ProductStock ps JOIN FETCH ps.inventory " +
+                "WHERE ps.productVariant.productVariantId IN :variantIds " +
+                "ORDER BY ps.productStockId", ProductStock.class)
+                .setParameter("variantIds", quantities.keySet())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        Map<UUID, ProductStock> stockByVariant = new HashMap<>();
+        for (ProductStock stock : stocks) {
+            stockByVariant.putIfAbsent(stock.getProductVariant().getProductVariantId(), stock);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            UUID variantId = entry.getKey();
+            int quantity = entry.getValue();
+            ProductStock stock = stockByVariant.get(variantId);
+            if (stock == null) {
+                System.out.println("⚠️ No ProductStock found for ProductVariant: " + variantId);
+                result.add(new StockDeductionResult.Line(variantId, quantity, 0, 0, false));
+                continue;
+            }
+
+            int currentAmount = stock.getAmount() != null ? stock.getAmount() : 0;
+            stock.decreaseStock(quantity);
+            result.add(new StockDeductionResult.Line(variantId, quantity, currentAmount, stock.getAmount(), true));
+
+            InventoryLog inventoryLog = new InventoryLog();
+            inventoryLog.setProductVariant(em.getReference(ProductVariant.class, variantId));
+            inventoryLog.setActionType("Sale");
+            inventoryLog.setQuantityChanged(-quantity); // Negative for sale
+            inventoryLog.setActionDate(now);
+            inventoryLog.setStoreLocation(stock.getInventory().getStoreLocation());
+            em.persist(inventoryLog);
+        }
+
+        // Đẩy toàn bộ UPDATE/INSERT xuống DB ngay để lỗi (nếu có) rơi vào checkout chứ không phải lúc commit
+        em.flush();
+        System.out.println("📦 " + result);
+        return result;
+    }
 }
@@ -2,6 +2,7 @@ package com.liteflow.dao.inventory;
 
 import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.inventory.ProductVariant;
+import org.hibernate.jpa.HibernateHints;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,6 +20,8 @@ public class ProductVariantDAO extends GenericDAO<ProductVariant, UUID> {
                     ProductVariant.class)
                 .setParameter("pid", productId)
                 .setParameter("size", size)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, "query.catalog")
                 .setMaxResults(1)
                 .getResultList()
                 .stream().findFirst().orElse(null);
@@ -34,6 +37,8 @@ public class ProductVariantDAO extends GenericDAO<ProductVariant, UUID> {
                     "SELECT pv FROM ProductVariant pv WHERE pv.product.productId = :pid AND (pv.isDeleted = false OR pv.isDeleted IS NULL) ORDER BY pv.size",
                     ProductVariant.class)
                 .setParameter("pid", productId)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, "query.catalog")
                 .getResultList();
         } finally {
             em.close();
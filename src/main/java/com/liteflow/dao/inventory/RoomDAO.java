@@ -3,6 +3,9 @@ package com.liteflow.dao.inventory;
 import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.inventory.Room;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,7 +16,19 @@ public class RoomDAO extends GenericDAO<Room, UUID> {
     }
     
     public List<Room> findAll() {
-        return super.findAll();
+        EntityManager em = emf.createEntityManager();
+        try {
+            // Danh sách phòng đọc rất nhiều, ít thay đổi -> dùng query cache (region query.floor)
+            return em.createQuery("SELECT r FROM Room r ORDER BY r.createdAt DESC", Room.class)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .setHint(HibernateHints.HINT_CACHE_REGION, "query.floor")
+                    .getResultList();
+        } catch (Exception e) {
+            System.err.println("❌ Error in RoomDAO.findAll: " + e.getMessage());
+            return Collections.emptyList();
+        } finally {
+            em.close();
+        }
     }
     
     public Room findById(UUID id) {
@@ -40,6 +55,13 @@ public class RoomDAO extends GenericDAO<Room, UUID> {
         return super.findSingleByFieldIgnoreCase("name", name);
     }
     
+    /**
+     * Tìm các phòng theo danh sách tên (không phân biệt hoa thường), một query IN
+     */
+    public List<Room> findByNamesIgnoreCase(Collection<String> names) {
+        return super.findAllByFieldInIgnoreCase("name", names);
+    }
+    
     public boolean checkRoomHasRelatedData(UUID roomId) {
         EntityManager em = emf.createEntityManager();
         try {
@@ -0,0 +1,102 @@
+package com.liteflow.dao.inventory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Kết quả trừ kho của cả hóa đơn (ProductStockDAO.deductForSale), theo từng ProductVariant.
+ * Tồn kho mới được dùng lại cho StockAlertService nên không cần query lại sau thanh toán.
+ */
+public class StockDeductionResult {
+
+    private final Map<UUID, Line> lines = new LinkedHashMap<>();
+
+    void add(Line line) {
+        lines.put(line.getVariantId(), line);
+    }
+
+    public Map<UUID, Line> getLines() {
+        return Collections.unmodifiableMap(lines);
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /**
+     * Tồn kho sau khi trừ của các variant có ProductStock
+     */
+    public Map<UUID, Integer> getNewLevels() {
+        Map<UUID, Integer> levels = new LinkedHashMap<>();
+        for (Line line : lines.values()) {
+            if (line.isStockFound()) {
+                levels.put(line.getVariantId(), line.getNewAmount());
+            }
+        }
+        return levels;
+    }
+
+    public int getMissingStockCount() {
+        int count = 0;
+        for (Line line : lines.values()) {
+            if (!line.isStockFound()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "Trừ kho " + lines.size() + " variant, " + getMissingStockCount() + " không có ProductStock";
+    }
+
+    /**
+     * Một variant trong hóa đơn: số lượng cần trừ, tồn trước/sau (bằng nhau và = 0 nếu không có ProductStock)
+     */
+    public static class Line {
+
+        private final UUID variantId;
+        private final int requested;
+        private final int previousAmount;
+        private final int newAmount;
+        private final boolean stockFound;
+
+        public Line(UUID variantId, int requested, int previousAmount, int newAmount, boolean stockFound) {
+            this.variantId = variantId;
+            this.requested = requested;
+            this.previousAmount = previousAmount;
+            this.newAmount = newAmount;
+            this.stockFound = stockFound;
+        }
+
+        public UUID getVariantId() {
+            return variantId;
+        }
+
+        public int getRequested() {
+            return requested;
+        }
+
+        public int getPreviousAmount() {
+            return previousAmount;
+        }
+
+        public int getNewAmount() {
+            return newAmount;
+        }
+
+        /**
+         * Số lượng thực sự trừ (tồn kho không xuống dưới 0)
+         */
+        public int getDeducted() {
+            return previousAmount - newAmount;
+        }
+
+        public boolean isStockFound() {
+            return stockFound;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.liteflow.dao.inventory;
 import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.inventory.Table;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
 import java.util.List;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
 
@@ -40,6 +42,8 @@ public class TableDAO extends GenericDAO<Table, UUID> {
                     "SELECT t FROM Table t WHERE t.room.roomId = :roomId AND (t.isActive = true OR t.isActive IS NULL)",
                     Table.class)
                 .setParameter("roomId", roomId)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, "query.floor")
                 .getResultList();
         } catch (Exception e) {
             System.err.println("❌ Lỗi findByRoomId: " + e.getMessage());
@@ -53,6 +57,13 @@ public class TableDAO extends GenericDAO<Table, UUID> {
         return super.findSingleByFieldIgnoreCase("tableNumber", tableNumber);
     }
     
+    /**
+     * Tìm các bàn theo danh sách số bàn (không phân biệt hoa thường), một query IN
+     */
+    public List<Table> findByTableNumbersIgnoreCase(Collection<String> tableNumbers) {
+        return super.findAllByFieldInIgnoreCase("tableNumber", tableNumbers);
+    }
+    
     public List<Table> findByStatus(String status) {
         if (status == null || status.isBlank()) {
             return Collections.emptyList();
@@ -63,6 +74,8 @@ public class TableDAO extends GenericDAO<Table, UUID> {
                     "SELECT t FROM Table t WHERE t.status = :status AND (t.isActive = true OR t.isActive IS NULL)",
                     Table.class)
                 .setParameter("status", status)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, "query.floor")
                 .getResultList();
         } catch (Exception e) {
             System.err.println("❌ Lỗi findByStatus: " + e.getMessage());
@@ -2,14 +2,121 @@ package com.liteflow.dao.inventory;
 
 import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.inventory.TableSession;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * TableSessionDAO - DAO for managing TableSession entities
  */
 public class TableSessionDAO extends GenericDAO<TableSession, UUID> {
-    
+
     public TableSessionDAO() {
         super(TableSession.class, UUID.class);
     }
+
+    /**
+     * Đối chiếu tổng cộng dồn (SubTotal, VAT, TotalAmount, ItemCount) của các phiên đang Active
+     * với tổng tính lại từ Orders/OrderDetails (bỏ qua order đã hủy). Mỗi phiên được khóa (PESSIMISTIC_WRITE)
+     * rồi mới tính tổng trong cùng transaction, nên order đang ghi song song không làm tổng bị cũ.
+     * Phiên bị lệch sẽ được sửa lại và ghi log.
+     *
+     * @return checked, drifted, corrected, failed
+     */
+    public Map<String, Object> reconcileActiveSessionTotals() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        int checked = 0;
+        int drifted = 0;
+        int corrected = 0;
+        int failed = 0;
+
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            List<UUID> sessionIds = em.createQuery(
+                    "SELECT s.sessionId FROM TableSession s WHERE s.status = 'Active'", UUID.class)
+                    .getResultList();
+
+            for (UUID sessionId : sessionIds) {
+                try {
+                    // Khóa phiên trước rồi mới tính tổng: order mới phải chờ commit này nên tổng không bị cũ
+                    tx.begin();
+                    TableSession session = em.find(TableSession.class, sessionId, LockModeType.PESSIMISTIC_WRITE);
+                    if (session == null || !"Active".equals(session.getStatus())) {
+                        tx.rollback();
+                        em.clear();
+                        continue;
+                    }
+                    checked++;
+
+                    Object[] sums = em.createQuery(
+                            "SELECT SUM(o.subTotal), SUM(o.vat), SUM(o.totalAmount) " +
+                            "FROM Order o WHERE o.session.sessionId = :sessionId AND o.status <> 'Cancelled'", Object[].class)
+                            .setParameter("sessionId", sessionId)
+                            .getSingleResult();
+                    Long itemCount = em.createQuery(
+                            "SELECT COUNT(d) FROM OrderDetail d " +
+                            "WHERE d.order.session.sessionId = :sessionId AND d.order.status <> 'Cancelled'", Long.class)
+                            .setParameter("sessionId", sessionId)
+                            .getSingleResult();
+                    BigDecimal subTotal = nz((BigDecimal) sums[0]);
+                    BigDecimal vat = nz((BigDecimal) sums[1]);
+                    BigDecimal total = nz((BigDecimal) sums[2]);
+                    int items = itemCount != null ? itemCount.intValue() : 0;
+
+                    boolean matches = nz(session.getSubTotal()).compareTo(subTotal) == 0
+                            && nz(session.getVat()).compareTo(vat) == 0
+                            && nz(session.getTotalAmount()).compareTo(total) == 0
+                            && session.getItemCount() != null && session.getItemCount() == items;
+                    if (matches) {
+                        tx.commit();
+                        em.clear();
+                        continue;
+                    }
+
+                    drifted++;
+                    System.out.println("⚠️ [SessionTotals] Session " + sessionId + " lệch: "
+                            + "subTotal " + session.getSubTotal() + " -> " + subTotal
+                            + ", vat " + session.getVat() + " -> " + vat
+                            + ", total " + session.getTotalAmount() + " -> " + total
+                            + ", items " + session.getItemCount() + " -> " + items);
+                    session.setSubTotal(subTotal);
+                    session.setVat(vat);
+                    session.setTotalAmount(total);
+                    session.setItemCount(items);
+                    tx.commit();
+                    corrected++;
+                } catch (Exception e) {
+                    // Thường là khóa chờ quá lâu vì phiên đang nhận order, lần chạy sau sẽ kiểm tra lại
+                    if (tx.isActive()) {
+                        tx.rollback();
+                    }
+                    failed++;
+                    System.err.println("❌ [SessionTotals] Không thể sửa session " + sessionId + ": " + e.getMessage());
+                }
+                em.clear();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error in reconcileActiveSessionTotals: " + e.getMessage());
+            e.printStackTrace();
+            result.put("error", e.getMessage());
+        } finally {
+            em.close();
+        }
+
+        result.put("checked", checked);
+        result.put("drifted", drifted);
+        result.put("corrected", corrected);
+        result.put("failed", failed);
+        return result;
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
 }
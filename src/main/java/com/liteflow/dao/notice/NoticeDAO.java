@@ -1,5 +1,6 @@
 package com.liteflow.dao.notice;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.notice.Notice;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -12,13 +13,11 @@ import java.util.UUID;
  */
 public class NoticeDAO {
 
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-
     /**
      * Get active notices for employee dashboard
      */
     public List<Notice> getActiveNotices(UUID userID, int limit) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             // Get active notices with user read status
             String jpql = "SELECT n FROM Notice n " +
@@ -72,7 +71,7 @@ public class NoticeDAO {
      * Get all active notices (admin view)
      */
     public List<Notice> getAllActiveNotices() {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<Notice> query = em.createQuery(
                 "SELECT n FROM Notice n " +
@@ -97,7 +96,7 @@ public class NoticeDAO {
      * Create new notice
      */
     public UUID createNotice(Notice notice) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         EntityTransaction transaction = em.getTransaction();
 
         try {
@@ -130,7 +129,7 @@ public class NoticeDAO {
      * Mark notice as read
      */
     public boolean markAsRead(UUID noticeID, UUID userID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         EntityTransaction transaction = em.getTransaction();
 
         try {
@@ -184,7 +183,7 @@ public class NoticeDAO {
      * Get notice by ID
      */
     public Notice getNoticeByID(UUID noticeID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             return em.find(Notice.class, noticeID);
         } catch (Exception e) {
@@ -200,7 +199,7 @@ public class NoticeDAO {
      * Update notice
      */
     public boolean updateNotice(Notice notice) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         EntityTransaction transaction = em.getTransaction();
 
         try {
@@ -228,7 +227,7 @@ public class NoticeDAO {
      * Delete notice (soft delete)
      */
     public boolean deleteNotice(UUID noticeID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         EntityTransaction transaction = em.getTransaction();
 
         try {
@@ -262,7 +261,7 @@ public class NoticeDAO {
      * Get unread notice count for user
      */
     public int getUnreadCount(UUID userID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
 
         try {
             String sql = "SELECT COUNT(*) FROM Notices n " +
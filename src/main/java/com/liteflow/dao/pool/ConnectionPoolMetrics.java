@@ -0,0 +1,98 @@
+package com.liteflow.dao.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics của connection pool: active, idle, thời gian chờ lấy connection và số lần timeout.
+ * Hikari gọi tracker này trên hot path nên chỉ dùng counter không khóa.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanosTotal = new LongAdder();
+    private final LongAccumulator acquireNanosMax = new LongAccumulator(Long::max, 0L);
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder usageCount = new LongAdder();
+    private final LongAdder usageMillisTotal = new LongAdder();
+    private final AtomicLong usageMillisMax = new AtomicLong();
+
+    private volatile HikariDataSource dataSource;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                createdCount.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireCount.increment();
+                acquireNanosTotal.add(elapsedAcquiredNanos);
+                acquireNanosMax.accumulate(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageCount.increment();
+                usageMillisTotal.add(elapsedBorrowedMillis);
+                usageMillisMax.accumulateAndGet(elapsedBorrowedMillis, Math::max);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeoutCount.increment();
+            }
+        };
+    }
+
+    void bind(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Snapshot hiện tại của pool (dùng cho trang admin metrics)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        HikariDataSource ds = dataSource;
+        HikariPoolMXBean pool = ds != null ? ds.getHikariPoolMXBean() : null;
+        if (pool != null) {
+            stats.put("poolName", ds.getPoolName());
+            stats.put("active", pool.getActiveConnections());
+            stats.put("idle", pool.getIdleConnections());
+            stats.put("total", pool.getTotalConnections());
+            stats.put("threadsAwaiting", pool.getThreadsAwaitingConnection());
+            stats.put("minIdle", ds.getMinimumIdle());
+            stats.put("maxSize", ds.getMaximumPoolSize());
+        } else {
+            stats.put("active", 0);
+            stats.put("idle", 0);
+            stats.put("total", 0);
+            stats.put("threadsAwaiting", 0);
+        }
+
+        long acquired = acquireCount.sum();
+        long usages = usageCount.sum();
+        stats.put("acquireCount", acquired);
+        stats.put("waitAvgMs", acquired == 0 ? 0.0 : acquireNanosTotal.sum() / 1_000_000.0 / acquired);
+        stats.put("waitMaxMs", acquireNanosMax.get() / 1_000_000.0);
+        stats.put("timeouts", timeoutCount.sum());
+        stats.put("connectionsCreated", createdCount.sum());
+        stats.put("usageAvgMs", usages == 0 ? 0.0 : (double) usageMillisTotal.sum() / usages);
+        stats.put("usageMaxMs", usageMillisMax.get());
+        return stats;
+    }
+}
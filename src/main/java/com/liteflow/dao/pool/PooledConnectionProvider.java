@@ -0,0 +1,138 @@
+package com.liteflow.dao.pool;
+
+import com.liteflow.util.EnvConfigUtil;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Hibernate ConnectionProvider dùng HikariCP thay cho pool built-in (không dành cho production).
+ *
+ * Được khai báo trong persistence.xml qua hibernate.connection.provider_class, nên BaseDAO.emf
+ * tự động dùng pool này. URL/user/password lấy từ persistence.xml, có thể override bằng .env:
+ * LITEFLOW_JDBC_URL, LITEFLOW_DB_USER, LITEFLOW_DB_PASS. Kích thước pool, statement cache và
+ * leak detection cấu hình bằng các key LITEFLOW_DB_POOL_* (xem How_to_setup_env_file.md).
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static volatile ConnectionPoolMetrics activeMetrics;
+
+    private HikariDataSource dataSource;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("LiteFlowPool");
+
+        String url = EnvConfigUtil.get("LITEFLOW_JDBC_URL",
+                setting(settings, "jakarta.persistence.jdbc.url", "hibernate.connection.url"));
+        String user = EnvConfigUtil.get("LITEFLOW_DB_USER",
+                setting(settings, "jakarta.persistence.jdbc.user", "hibernate.connection.username"));
+        String password = EnvConfigUtil.get("LITEFLOW_DB_PASS",
+                setting(settings, "jakarta.persistence.jdbc.password", "hibernate.connection.password"));
+        String driver = setting(settings, "jakarta.persistence.jdbc.driver", "hibernate.connection.driver_class");
+
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        if (driver != null) {
+            config.setDriverClassName(driver);
+        }
+
+        config.setMinimumIdle(EnvConfigUtil.getInt("LITEFLOW_DB_POOL_MIN_IDLE", 5));
+        config.setMaximumPoolSize(EnvConfigUtil.getInt("LITEFLOW_DB_POOL_MAX_SIZE", 20));
+        config.setConnectionTimeout(EnvConfigUtil.getLong("LITEFLOW_DB_POOL_CONNECTION_TIMEOUT_MS", 10_000L));
+        config.setIdleTimeout(EnvConfigUtil.getLong("LITEFLOW_DB_POOL_IDLE_TIMEOUT_MS", 300_000L));
+        config.setMaxLifetime(EnvConfigUtil.getLong("LITEFLOW_DB_POOL_MAX_LIFETIME_MS", 1_800_000L));
+        config.setLeakDetectionThreshold(EnvConfigUtil.getLong("LITEFLOW_DB_POOL_LEAK_DETECTION_MS", 20_000L));
+        // Không fail khi khởi động nếu SQL Server chưa sẵn sàng, pool sẽ tự kết nối lại
+        config.setInitializationFailTimeout(-1);
+
+        // Statement cache: mssql-jdbc tự cache prepared statement theo từng connection
+        int statementCacheSize = EnvConfigUtil.getInt("LITEFLOW_DB_STATEMENT_CACHE_SIZE", 250);
+        if (url != null && url.startsWith("jdbc:sqlserver:") && statementCacheSize > 0) {
+            config.addDataSourceProperty("disableStatementPooling", "false");
+            config.addDataSourceProperty("statementPoolingCacheSize", String.valueOf(statementCacheSize));
+        }
+
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        config.setMetricsTrackerFactory(metrics);
+
+        dataSource = new HikariDataSource(config);
+        metrics.bind(dataSource);
+        activeMetrics = metrics;
+
+        System.out.println("✅ [ConnectionPool] HikariCP started: min=" + config.getMinimumIdle()
+                + ", max=" + config.getMaximumPoolSize()
+                + ", leakDetection=" + config.getLeakDetectionThreshold() + "ms"
+                + ", statementCache=" + statementCacheSize);
+    }
+
+    private static String setting(Map<String, Object> settings, String key, String fallbackKey) {
+        Object value = settings.get(key);
+        if (value == null) {
+            value = settings.get(fallbackKey);
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Metrics của pool đang chạy (rỗng nếu EMF chưa khởi tạo bằng provider này)
+     */
+    public static Map<String, Object> getPoolMetrics() {
+        ConnectionPoolMetrics metrics = activeMetrics;
+        return metrics != null ? metrics.snapshot() : Collections.emptyMap();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        conn.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || PooledConnectionProvider.class.isAssignableFrom(unwrapType)
+                || DataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType)
+                || PooledConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        }
+        if (DataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+            System.out.println("✅ [ConnectionPool] HikariCP stopped");
+        }
+    }
+}
@@ -1,22 +1,19 @@
 package com.liteflow.dao.procurement;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.procurement.GoodsReceiptItem;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
 import java.util.UUID;
 
 public class GoodsReceiptItemDAO {
     
-    private static EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Lấy tất cả items của một Goods Receipt
      */
     public List<GoodsReceiptItem> findByReceiptID(UUID receiptID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GoodsReceiptItem> query = em.createQuery(
                 "SELECT g FROM GoodsReceiptItem g WHERE g.receiptID = :receiptID ORDER BY g.itemID",
@@ -36,7 +33,7 @@ public class GoodsReceiptItemDAO {
      * Lấy items có chênh lệch (discrepancy)
      */
     public List<GoodsReceiptItem> findWithDiscrepancy(UUID receiptID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GoodsReceiptItem> query = em.createQuery(
                 "SELECT g FROM GoodsReceiptItem g WHERE g.receiptID = :receiptID AND g.discrepancy <> 0 ORDER BY g.itemID",
@@ -56,7 +53,7 @@ public class GoodsReceiptItemDAO {
      * Lấy items có vấn đề chất lượng
      */
     public List<GoodsReceiptItem> findWithQualityIssues(UUID receiptID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GoodsReceiptItem> query = em.createQuery(
                 "SELECT g FROM GoodsReceiptItem g WHERE g.receiptID = :receiptID AND g.qualityStatus <> 'OK' ORDER BY g.itemID",
@@ -76,7 +73,7 @@ public class GoodsReceiptItemDAO {
      * Lấy item theo POItemID
      */
     public List<GoodsReceiptItem> findByPOItemID(Integer poItemID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<GoodsReceiptItem> query = em.createQuery(
                 "SELECT g FROM GoodsReceiptItem g WHERE g.poItemID = :poItemID",
@@ -93,7 +90,7 @@ public class GoodsReceiptItemDAO {
     }
     
     public boolean insert(GoodsReceiptItem item) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(item);
@@ -109,7 +106,7 @@ public class GoodsReceiptItemDAO {
     }
     
     public boolean update(GoodsReceiptItem item) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.merge(item);
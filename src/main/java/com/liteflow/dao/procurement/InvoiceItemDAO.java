@@ -1,22 +1,19 @@
 package com.liteflow.dao.procurement;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.model.procurement.InvoiceItem;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
 import java.util.UUID;
 
 public class InvoiceItemDAO {
     
-    private static EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     /**
      * Lấy tất cả items của một Invoice
      */
     public List<InvoiceItem> findByInvoiceID(UUID invoiceID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<InvoiceItem> query = em.createQuery(
                 "SELECT i FROM InvoiceItem i WHERE i.invoiceID = :invoiceID ORDER BY i.itemID",
@@ -36,7 +33,7 @@ public class InvoiceItemDAO {
      * Lấy items chưa được match
      */
     public List<InvoiceItem> findUnmatched(UUID invoiceID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<InvoiceItem> query = em.createQuery(
                 "SELECT i FROM InvoiceItem i WHERE i.invoiceID = :invoiceID AND i.matched = false ORDER BY i.itemID",
@@ -56,7 +53,7 @@ public class InvoiceItemDAO {
      * Lấy items có chênh lệch
      */
     public List<InvoiceItem> findWithDiscrepancy(UUID invoiceID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<InvoiceItem> query = em.createQuery(
                 "SELECT i FROM InvoiceItem i WHERE i.invoiceID = :invoiceID AND " +
@@ -77,7 +74,7 @@ public class InvoiceItemDAO {
      * Lấy item theo POItemID
      */
     public List<InvoiceItem> findByPOItemID(Integer poItemID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             TypedQuery<InvoiceItem> query = em.createQuery(
                 "SELECT i FROM InvoiceItem i WHERE i.poItemID = :poItemID",
@@ -97,7 +94,7 @@ public class InvoiceItemDAO {
      * Xóa tất cả items của một invoice
      */
     public boolean deleteByInvoiceID(UUID invoiceID) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             int deleted = em.createQuery(
@@ -118,7 +115,7 @@ public class InvoiceItemDAO {
     }
     
     public boolean insert(InvoiceItem item) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.persist(item);
@@ -134,7 +131,7 @@ public class InvoiceItemDAO {
     }
     
     public boolean update(InvoiceItem item) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = BaseDAO.emf.createEntityManager();
         try {
             em.getTransaction().begin();
             em.merge(item);
@@ -136,6 +136,65 @@ public class PurchaseOrderDAO extends GenericDAO<PurchaseOrder, UUID> {
         }
     }
     
+    /**
+     * Find approved POs that have an expected delivery date (not yet received)
+     * @return List of POs awaiting delivery
+     */
+    public List<PurchaseOrder> findAwaitingDelivery() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            String jpql = 
+                "SELECT po FROM PurchaseOrder po " +
+                "WHERE po.status = 'APPROVED' " +
+                "  AND po.expectedDelivery IS NOT NULL";
+            
+            return em.createQuery(jpql, PurchaseOrder.class).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+    
+    /**
+     * Find open POs (PENDING / APPROVED / RECEIVING) whose expected delivery has passed
+     * @return List of late POs, most late first
+     */
+    public List<PurchaseOrder> findPastExpectedDelivery() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            String jpql = 
+                "SELECT po FROM PurchaseOrder po " +
+                "WHERE po.status IN ('PENDING', 'APPROVED', 'RECEIVING') " +
+                "  AND po.expectedDelivery < :now " +
+                "ORDER BY po.expectedDelivery ASC";
+            
+            return em.createQuery(jpql, PurchaseOrder.class)
+                     .setParameter("now", LocalDateTime.now())
+                     .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+    
+    /**
+     * Find POs whose invoiced total exceeds the PO amount
+     * @return Rows of [POID, PO amount, invoiced amount]
+     */
+    public List<Object[]> findOverInvoiced() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            String jpql = 
+                "SELECT po.poid, po.totalAmount, SUM(i.totalAmount) " +
+                "FROM PurchaseOrder po, Invoice i " +
+                "WHERE i.poid = po.poid " +
+                "GROUP BY po.poid, po.totalAmount " +
+                "HAVING SUM(i.totalAmount) > po.totalAmount";
+            
+            return em.createQuery(jpql, Object[].class).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+    
     /**
      * Get total value of pending POs
      * @return Total amount in VND
@@ -1,8 +1,7 @@
 package com.liteflow.dao.report;
 
+import com.liteflow.dao.BaseDAO;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 
 import java.math.BigDecimal;
@@ -10,22 +9,80 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * DAO for Revenue Report queries
  * Queries Orders, OrderDetails, Products for revenue analytics
+ *
+ * Khi SalesRollup đã dựng đủ khoảng ngày, các query đọc từ bảng rollup (theo ngày / giờ / biến thể / phiên)
+ * thay vì quét Orders/OrderDetails, kết quả giống hệt. Chưa đủ (vừa khởi động, qua ngày mới) thì dùng query gốc.
  */
 public class RevenueReportDAO {
     
-    private static EntityManagerFactory emf;
+    // Số query lỗi đã trả giá trị mặc định, theo thread (ReportCache không lưu kết quả tính trong lúc có lỗi)
+    private static final ThreadLocal<long[]> failedQueries = ThreadLocal.withInitial(() -> new long[1]);
     
-    static {
+    /**
+     * Số query lỗi (đã trả giá trị mặc định) trên thread hiện tại
+     */
+    public static long getFailedQueriesOnThread() {
+        return failedQueries.get()[0];
+    }
+    
+    // Hạn chót (System.nanoTime) của các query trên thread hiện tại, do ReportFanOut đặt cho từng metric
+    private static final ThreadLocal<Long> queryDeadline = new ThreadLocal<>();
+    
+    /**
+     * Chạy các query của loader với hạn chót deadlineNanos: mỗi query nhận phần thời gian còn lại làm
+     * jakarta.persistence.query.timeout nên quá hạn thì DB hủy query (trả kết nối, giải phóng thread)
+     */
+    public static <T> T withDeadline(long deadlineNanos, Supplier<T> loader) {
+        Long previous = queryDeadline.get();
+        queryDeadline.set(deadlineNanos);
         try {
-            emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-        } catch (Throwable e) {
-            System.err.println("❌ Failed to create EntityManagerFactory: " + e.getMessage());
-            e.printStackTrace();
-            emf = null;
+            return loader.get();
+        } finally {
+            if (previous != null) {
+                queryDeadline.set(previous);
+            } else {
+                queryDeadline.remove();
+            }
+        }
+    }
+    
+    /**
+     * EntityManager cho query báo cáo, gắn timeout còn lại nếu đang chạy trong withDeadline.
+     * Hibernate làm tròn timeout về giây (dưới 500 ms thành "không giới hạn") nên tối thiểu 1 giây.
+     */
+    private static EntityManager openEntityManager() {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        Long deadline = queryDeadline.get();
+        if (deadline != null) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            em.setProperty("jakarta.persistence.query.timeout", (int) Math.min(Integer.MAX_VALUE, Math.max(1000L, remainingMillis)));
+        }
+        return em;
+    }
+    
+    /**
+     * Chạy query trên rollup nếu SalesRollup phủ [startDate, endDate]
+     * Returns: kết quả, hoặc null nếu chưa phủ / lỗi (dùng query gốc)
+     */
+    private <T> T fromRollup(LocalDate startDate, LocalDate endDate, String name, Function<EntityManager, T> query) {
+        if (!SalesRollup.covers(startDate, endDate)) {
+            return null;
+        }
+        EntityManager em = openEntityManager();
+        try {
+            return query.apply(em);
+        } catch (Exception e) {
+            System.err.println("⚠️ Error reading " + name + " from sales rollup, using Orders: " + e.getMessage());
+            return null;
+        } finally {
+            em.close();
         }
     }
     
@@ -33,7 +90,17 @@ public class RevenueReportDAO {
      * Get total revenue for date range
      */
     public BigDecimal getTotalRevenue(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        BigDecimal rolled = fromRollup(startDate, endDate, "total revenue", rollupEm ->
+            rollupEm.createQuery("SELECT COALESCE(SUM(d.revenue), 0) FROM SalesDailyRollup d " +
+                                 "WHERE d.salesDate BETWEEN :startDate AND :endDate", BigDecimal.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getSingleResult());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -51,6 +118,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting total revenue: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return BigDecimal.ZERO;
         } finally {
@@ -62,7 +130,17 @@ public class RevenueReportDAO {
      * Get total order count for date range
      */
     public long getTotalOrders(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        Long rolled = fromRollup(startDate, endDate, "total orders", rollupEm ->
+            rollupEm.createQuery("SELECT COALESCE(SUM(d.orderCount), 0) FROM SalesDailyRollup d " +
+                                 "WHERE d.salesDate BETWEEN :startDate AND :endDate", Long.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getSingleResult());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -79,6 +157,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting total orders: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return 0;
         } finally {
@@ -91,7 +170,18 @@ public class RevenueReportDAO {
      * Returns: List of [date, revenue, orderCount]
      */
     public List<Object[]> getDailyRevenueTrend(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        List<Object[]> rolled = fromRollup(startDate, endDate, "daily trend", rollupEm ->
+            rollupEm.createQuery("SELECT d.salesDate, d.revenue, d.orderCount FROM SalesDailyRollup d " +
+                                 "WHERE d.salesDate BETWEEN :startDate AND :endDate AND d.orderCount > 0 " +
+                                 "ORDER BY d.salesDate", Object[].class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -112,6 +202,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting daily trend: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return new ArrayList<>();
         } finally {
@@ -124,7 +215,18 @@ public class RevenueReportDAO {
      * Returns: List of [hour, revenue]
      */
     public List<Object[]> getHourlyRevenue(LocalDate date) {
-        EntityManager em = emf.createEntityManager();
+        List<Object[]> rolled = fromRollup(date, date, "hourly revenue", rollupEm ->
+            rollupEm.createQuery("SELECT HOUR(h.bucketStart), h.revenue FROM SalesHourlyRollup h " +
+                                 "WHERE h.bucketStart BETWEEN :startDate AND :endDate " +
+                                 "ORDER BY h.bucketStart", Object[].class)
+                .setParameter("startDate", date.atStartOfDay())
+                .setParameter("endDate", date.atTime(LocalTime.MAX))
+                .getResultList());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = date.atStartOfDay();
             LocalDateTime endDateTime = date.atTime(LocalTime.MAX);
@@ -148,6 +250,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting hourly revenue: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return new ArrayList<>();
         } finally {
@@ -160,7 +263,23 @@ public class RevenueReportDAO {
      * Returns: List of [productId, productName, quantity, revenue]
      */
     public List<Object[]> getTopProducts(LocalDate startDate, LocalDate endDate, int limit) {
-        EntityManager em = emf.createEntityManager();
+        List<Object[]> rolled = fromRollup(startDate, endDate, "top products", rollupEm ->
+            rollupEm.createQuery("SELECT p.productId, p.name, SUM(r.quantity), SUM(r.revenue) " +
+                                 "FROM SalesVariantRollup r " +
+                                 "JOIN r.productVariant pv " +
+                                 "JOIN pv.product p " +
+                                 "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+                                 "GROUP BY p.productId, p.name " +
+                                 "ORDER BY SUM(r.revenue) DESC", Object[].class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .setMaxResults(limit)
+                .getResultList());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -188,6 +307,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting top products: " + e.getMessage());
+            failedQueries.get()[0]++;
             System.err.println("   Exception class: " + e.getClass().getName());
             e.printStackTrace();
             return new ArrayList<>();
@@ -201,7 +321,23 @@ public class RevenueReportDAO {
      * Returns: List of [categoryName, revenue]
      */
     public List<Object[]> getRevenueByCategory(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        List<Object[]> rolled = fromRollup(startDate, endDate, "revenue by category", rollupEm ->
+            rollupEm.createQuery("SELECT pc.category.name, SUM(r.revenue) " +
+                                 "FROM SalesVariantRollup r " +
+                                 "JOIN r.productVariant pv " +
+                                 "JOIN pv.product p " +
+                                 "JOIN p.productCategories pc " +
+                                 "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+                                 "GROUP BY pc.category.name " +
+                                 "ORDER BY SUM(r.revenue) DESC", Object[].class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -227,6 +363,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting revenue by category: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return new ArrayList<>();
         } finally {
@@ -238,7 +375,18 @@ public class RevenueReportDAO {
      * Get new customers count (first order in period)
      */
     public long getNewCustomers(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        // Phiên qua đêm có dòng ở cả hai ngày, COUNT(DISTINCT) vẫn chỉ tính một lần như query gốc
+        Long rolled = fromRollup(startDate, endDate, "new customers", rollupEm ->
+            rollupEm.createQuery("SELECT COUNT(DISTINCT s.sessionId) FROM SalesSessionDay s " +
+                                 "WHERE s.salesDate BETWEEN :startDate AND :endDate", Long.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getSingleResult());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -256,6 +404,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting new customers: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return 0;
         } finally {
@@ -276,7 +425,20 @@ public class RevenueReportDAO {
      * Get peak hour (hour with highest revenue)
      */
     public Integer getPeakHour(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        List<Integer> rolled = fromRollup(startDate, endDate, "peak hour", rollupEm ->
+            rollupEm.createQuery("SELECT HOUR(h.bucketStart) FROM SalesHourlyRollup h " +
+                                 "WHERE h.bucketStart BETWEEN :startDate AND :endDate " +
+                                 "GROUP BY HOUR(h.bucketStart) " +
+                                 "ORDER BY SUM(h.revenue) DESC", Integer.class)
+                .setParameter("startDate", startDate.atStartOfDay())
+                .setParameter("endDate", endDate.atTime(LocalTime.MAX))
+                .setMaxResults(1)
+                .getResultList());
+        if (rolled != null) {
+            return rolled.isEmpty() ? null : rolled.get(0);
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -298,6 +460,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting peak hour: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return null;
         } finally {
@@ -321,41 +484,40 @@ public class RevenueReportDAO {
      * Calculates: SUM(OrderDetail.quantity * ProductVariant.originalPrice)
      */
     public BigDecimal getTotalCostOfGoodsSold(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        // Giá vốn lấy theo ProductVariant.originalPrice hiện tại như query gốc, rollup chỉ giữ số lượng theo biến thể
+        BigDecimal rolled = fromRollup(startDate, endDate, "total COGS", rollupEm ->
+            rollupEm.createQuery("SELECT COALESCE(SUM(r.quantity * pv.originalPrice), 0) " +
+                                 "FROM SalesVariantRollup r " +
+                                 "JOIN r.productVariant pv " +
+                                 "WHERE r.salesDate BETWEEN :startDate AND :endDate", BigDecimal.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getSingleResult());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
             
-            // Use JPQL to get all order details and calculate COGS in Java
-            // JPQL doesn't always handle Integer * BigDecimal multiplication well
-            String jpql = "SELECT od.quantity, pv.originalPrice " +
+            // Tính SUM trong DB thay vì kéo từng dòng OrderDetail về Java
+            String jpql = "SELECT COALESCE(SUM(od.quantity * pv.originalPrice), 0) " +
                          "FROM OrderDetail od " +
                          "JOIN od.order o " +
                          "JOIN od.productVariant pv " +
                          "WHERE o.orderDate BETWEEN :startDate AND :endDate " +
                          "AND o.paymentStatus = 'Paid'";
             
-            @SuppressWarnings("unchecked")
-            List<Object[]> orderDetails = em.createQuery(jpql, Object[].class)
+            return em.createQuery(jpql, BigDecimal.class)
                 .setParameter("startDate", startDateTime)
                 .setParameter("endDate", endDateTime)
-                .getResultList();
-            
-            BigDecimal totalCOGS = BigDecimal.ZERO;
-            for (Object[] row : orderDetails) {
-                Integer quantity = (Integer) row[0];
-                BigDecimal originalPrice = (BigDecimal) row[1];
-                
-                if (quantity != null && originalPrice != null) {
-                    BigDecimal itemCOGS = originalPrice.multiply(BigDecimal.valueOf(quantity));
-                    totalCOGS = totalCOGS.add(itemCOGS);
-                }
-            }
-            
-            return totalCOGS;
+                .getSingleResult();
             
         } catch (Exception e) {
             System.err.println("❌ Error getting total COGS: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return BigDecimal.ZERO;
         } finally {
@@ -374,12 +536,176 @@ public class RevenueReportDAO {
         return getTotalCostOfGoodsSold(prevStartDate, prevEndDate);
     }
     
+    /**
+     * Doanh thu, số đơn, giờ cao điểm, giá vốn của kỳ hiện tại và kỳ trước (cùng độ dài) trong một lần gọi DB
+     * Một query gom theo giờ trên [đầu kỳ trước, cuối kỳ này], tách hai kỳ bằng SUM(CASE ...);
+     * dòng Hour = -1 (UNION ALL) là giá vốn. Tổng kỳ = cộng các giờ, giờ cao điểm = giờ doanh thu lớn nhất.
+     */
+    public PeriodFinancials getPeriodFinancials(LocalDate startDate, LocalDate endDate) {
+        long days = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate);
+        LocalDate prevStartDate = startDate.minusDays(days + 1);
+        
+        List<Object[]> rows = fromRollup(prevStartDate, endDate, "period financials", rollupEm ->
+            rollupEm.createQuery(
+                    "(SELECT HOUR(h.bucketStart), " +
+                    "        SUM(CASE WHEN h.bucketStart >= :currentStart THEN h.revenue ELSE 0 END), " +
+                    "        SUM(CASE WHEN h.bucketStart >= :currentStart THEN h.orderCount ELSE 0L END), " +
+                    "        SUM(CASE WHEN h.bucketStart < :currentStart THEN h.revenue ELSE 0 END), " +
+                    "        SUM(CASE WHEN h.bucketStart < :currentStart THEN h.orderCount ELSE 0L END) " +
+                    " FROM SalesHourlyRollup h " +
+                    " WHERE h.bucketStart BETWEEN :previousStart AND :currentEnd " +
+                    " GROUP BY HOUR(h.bucketStart)) " +
+                    "UNION ALL " +
+                    "(SELECT -1, " +
+                    "        SUM(CASE WHEN r.salesDate >= :currentDay THEN r.quantity * pv.originalPrice ELSE 0 END), 0L, " +
+                    "        SUM(CASE WHEN r.salesDate < :currentDay THEN r.quantity * pv.originalPrice ELSE 0 END), 0L " +
+                    " FROM SalesVariantRollup r " +
+                    " JOIN r.productVariant pv " +
+                    " WHERE r.salesDate BETWEEN :previousDay AND :endDay)", Object[].class)
+                .setParameter("currentStart", startDate.atStartOfDay())
+                .setParameter("previousStart", prevStartDate.atStartOfDay())
+                .setParameter("currentEnd", endDate.atTime(LocalTime.MAX))
+                .setParameter("currentDay", startDate)
+                .setParameter("previousDay", prevStartDate)
+                .setParameter("endDay", endDate)
+                .getResultList());
+        
+        if (rows == null) {
+            EntityManager em = openEntityManager();
+            try {
+                rows = em.createQuery(
+                        "(SELECT HOUR(o.orderDate), " +
+                        "        SUM(CASE WHEN o.orderDate >= :currentStart THEN o.totalAmount ELSE 0 END), " +
+                        "        SUM(CASE WHEN o.orderDate >= :currentStart THEN 1L ELSE 0L END), " +
+                        "        SUM(CASE WHEN o.orderDate < :currentStart THEN o.totalAmount ELSE 0 END), " +
+                        "        SUM(CASE WHEN o.orderDate < :currentStart THEN 1L ELSE 0L END) " +
+                        " FROM Order o " +
+                        " WHERE o.orderDate BETWEEN :previousStart AND :currentEnd " +
+                        " AND o.paymentStatus = 'Paid' " +
+                        " GROUP BY HOUR(o.orderDate)) " +
+                        "UNION ALL " +
+                        "(SELECT -1, " +
+                        "        SUM(CASE WHEN o.orderDate >= :currentStart THEN od.quantity * pv.originalPrice ELSE 0 END), 0L, " +
+                        "        SUM(CASE WHEN o.orderDate < :currentStart THEN od.quantity * pv.originalPrice ELSE 0 END), 0L " +
+                        " FROM OrderDetail od " +
+                        " JOIN od.order o " +
+                        " JOIN od.productVariant pv " +
+                        " WHERE o.orderDate BETWEEN :previousStart AND :currentEnd " +
+                        " AND o.paymentStatus = 'Paid')", Object[].class)
+                    .setParameter("currentStart", startDate.atStartOfDay())
+                    .setParameter("previousStart", prevStartDate.atStartOfDay())
+                    .setParameter("currentEnd", endDate.atTime(LocalTime.MAX))
+                    .getResultList();
+            } catch (Exception e) {
+                System.err.println("❌ Error getting period financials: " + e.getMessage());
+                failedQueries.get()[0]++;
+                e.printStackTrace();
+                return PeriodFinancials.empty(startDate, endDate);
+            } finally {
+                em.close();
+            }
+        }
+        
+        BigDecimal[] revenue = {BigDecimal.ZERO, BigDecimal.ZERO};
+        long[] orders = new long[2];
+        BigDecimal[] cogs = {BigDecimal.ZERO, BigDecimal.ZERO};
+        List<SortedMap<Integer, BigDecimal>> hourly = List.of(new TreeMap<>(), new TreeMap<>());
+        for (Object[] row : rows) {
+            int hour = ((Number) row[0]).intValue();
+            for (int period = 0; period < 2; period++) {
+                BigDecimal amount = toDecimal(row[1 + period * 2]);
+                if (hour < 0) {
+                    cogs[period] = cogs[period].add(amount);
+                    continue;
+                }
+                long count = toLong(row[2 + period * 2]);
+                revenue[period] = revenue[period].add(amount);
+                orders[period] += count;
+                if (count > 0) {
+                    hourly.get(period).put(hour, amount);
+                }
+            }
+        }
+        
+        return new PeriodFinancials(
+            new Period(startDate, endDate, revenue[0], orders[0], cogs[0], hourly.get(0)),
+            new Period(prevStartDate, startDate.minusDays(1), revenue[1], orders[1], cogs[1], hourly.get(1)));
+    }
+    
+    /**
+     * Doanh thu, giá vốn theo danh mục (tính trong DB), sắp theo doanh thu giảm dần
+     */
+    public List<CategoryMargin> getCategoryMargins(LocalDate startDate, LocalDate endDate) {
+        List<CategoryMargin> rolled = fromRollup(startDate, endDate, "category margins", rollupEm ->
+            rollupEm.createQuery("SELECT new com.liteflow.dao.report.RevenueReportDAO$CategoryMargin(" +
+                                 "pc.category.name, SUM(r.revenue), SUM(r.quantity * pv.originalPrice)) " +
+                                 "FROM SalesVariantRollup r " +
+                                 "JOIN r.productVariant pv " +
+                                 "JOIN pv.product p " +
+                                 "JOIN p.productCategories pc " +
+                                 "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+                                 "GROUP BY pc.category.name " +
+                                 "ORDER BY SUM(r.revenue) DESC", CategoryMargin.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList());
+        if (rolled != null) {
+            return rolled;
+        }
+        
+        EntityManager em = openEntityManager();
+        try {
+            String jpql = "SELECT new com.liteflow.dao.report.RevenueReportDAO$CategoryMargin(" +
+                         "pc.category.name, SUM(od.totalPrice), SUM(od.quantity * pv.originalPrice)) " +
+                         "FROM OrderDetail od " +
+                         "JOIN od.productVariant pv " +
+                         "JOIN pv.product p " +
+                         "JOIN p.productCategories pc " +
+                         "JOIN od.order o " +
+                         "WHERE o.orderDate BETWEEN :startDate AND :endDate " +
+                         "AND o.paymentStatus = 'Paid' " +
+                         "GROUP BY pc.category.name " +
+                         "ORDER BY SUM(od.totalPrice) DESC";
+            
+            return em.createQuery(jpql, CategoryMargin.class)
+                .setParameter("startDate", startDate.atStartOfDay())
+                .setParameter("endDate", endDate.atTime(LocalTime.MAX))
+                .getResultList();
+            
+        } catch (Exception e) {
+            System.err.println("❌ Error getting category margins: " + e.getMessage());
+            failedQueries.get()[0]++;
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            em.close();
+        }
+    }
+    
     /**
      * Get revenue by weekday (1=Monday, 7=Sunday)
      * Returns: List of [weekday (1-7), revenue, orderCount]
      */
     public List<Object[]> getRevenueByWeekday(LocalDate startDate, LocalDate endDate) {
-        EntityManager em = emf.createEntityManager();
+        List<Object[]> rolled = fromRollup(startDate, endDate, "revenue by weekday", rollupEm ->
+            rollupEm.createQuery("SELECT d.salesDate, d.revenue, d.orderCount FROM SalesDailyRollup d " +
+                                 "WHERE d.salesDate BETWEEN :startDate AND :endDate AND d.orderCount > 0", Object[].class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList());
+        if (rolled != null) {
+            // Gộp theo thứ trong tuần (1=Monday, 7=Sunday) giống DATEPART ở query gốc
+            Map<Integer, Object[]> byWeekday = new TreeMap<>();
+            for (Object[] row : rolled) {
+                int weekday = ((LocalDate) row[0]).getDayOfWeek().getValue();
+                Object[] total = byWeekday.computeIfAbsent(weekday, k -> new Object[] {k, BigDecimal.ZERO, 0L});
+                total[1] = ((BigDecimal) total[1]).add((BigDecimal) row[1]);
+                total[2] = (Long) total[2] + (Long) row[2];
+            }
+            return new ArrayList<>(byWeekday.values());
+        }
+        
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
@@ -408,6 +734,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting revenue by weekday: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return new ArrayList<>();
         } finally {
@@ -420,7 +747,7 @@ public class RevenueReportDAO {
      * Used to debug why revenue might be showing as 0
      */
     public Map<String, Object> getDebugOrdersToday(LocalDate date) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = openEntityManager();
         try {
             LocalDateTime startDateTime = date.atStartOfDay();
             LocalDateTime endDateTime = date.atTime(LocalTime.MAX);
@@ -463,12 +790,25 @@ public class RevenueReportDAO {
      * Returns: List of [year, month, totalRevenue]
      */
     public List<Object[]> getMonthlyRevenue(int numberOfMonths) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = openEntityManager();
         try {
             // Calculate start date (N months ago from now)
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusMonths(numberOfMonths - 1).withDayOfMonth(1);
             
+            List<Object[]> rolled = fromRollup(startDate, endDate, "monthly revenue", rollupEm ->
+                rollupEm.createQuery("SELECT YEAR(d.salesDate), MONTH(d.salesDate), COALESCE(SUM(d.revenue), 0) " +
+                                     "FROM SalesDailyRollup d " +
+                                     "WHERE d.salesDate BETWEEN :startDate AND :endDate AND d.orderCount > 0 " +
+                                     "GROUP BY YEAR(d.salesDate), MONTH(d.salesDate) " +
+                                     "ORDER BY YEAR(d.salesDate), MONTH(d.salesDate)", Object[].class)
+                    .setParameter("startDate", startDate)
+                    .setParameter("endDate", endDate)
+                    .getResultList());
+            if (rolled != null) {
+                return rolled;
+            }
+            
             LocalDateTime startDateTime = startDate.atStartOfDay();
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
             
@@ -491,6 +831,7 @@ public class RevenueReportDAO {
             
         } catch (Exception e) {
             System.err.println("❌ Error getting monthly revenue: " + e.getMessage());
+            failedQueries.get()[0]++;
             e.printStackTrace();
             return new ArrayList<>();
         } finally {
@@ -503,124 +844,126 @@ public class RevenueReportDAO {
      * Includes revenue, orders, customers, peak hour, hourly trend
      */
     public Map<String, Object> getTodayMetrics() {
-        EntityManager em = emf.createEntityManager();
         Map<String, Object> metrics = new HashMap<>();
         
-        try {
-            LocalDate today = LocalDate.now();
-            LocalDate yesterday = today.minusDays(1);
-            LocalDateTime todayStart = today.atStartOfDay();
-            LocalDateTime todayEnd = today.atTime(LocalTime.MAX);
-            LocalDateTime yesterdayStart = yesterday.atStartOfDay();
-            LocalDateTime yesterdayEnd = yesterday.atTime(LocalTime.MAX);
-            
-            // 1. Today's revenue
-            String revenueJpql = "SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
-                                "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid'";
-            BigDecimal todayRevenue = em.createQuery(revenueJpql, BigDecimal.class)
-                .setParameter("start", todayStart)
-                .setParameter("end", todayEnd)
-                .getSingleResult();
-            metrics.put("todayRevenue", todayRevenue != null ? todayRevenue : BigDecimal.ZERO);
-            
-            // 2. Yesterday's revenue for comparison
-            BigDecimal yesterdayRevenue = em.createQuery(revenueJpql, BigDecimal.class)
-                .setParameter("start", yesterdayStart)
-                .setParameter("end", yesterdayEnd)
-                .getSingleResult();
-            metrics.put("yesterdayRevenue", yesterdayRevenue != null ? yesterdayRevenue : BigDecimal.ZERO);
-            
-            // 3. Today's order count
-            String orderCountJpql = "SELECT COUNT(o) FROM Order o " +
-                                   "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid'";
-            Long todayOrders = em.createQuery(orderCountJpql, Long.class)
-                .setParameter("start", todayStart)
-                .setParameter("end", todayEnd)
-                .getSingleResult();
-            metrics.put("todayOrders", todayOrders != null ? todayOrders : 0L);
-            
-            // 4. Yesterday's order count
-            Long yesterdayOrders = em.createQuery(orderCountJpql, Long.class)
-                .setParameter("start", yesterdayStart)
-                .setParameter("end", yesterdayEnd)
-                .getSingleResult();
-            metrics.put("yesterdayOrders", yesterdayOrders != null ? yesterdayOrders : 0L);
-            
-            // 5. Today's average order value
-            long orderCount = todayOrders != null ? todayOrders : 0L;
-            BigDecimal safeTodayRevenue = todayRevenue != null ? todayRevenue : BigDecimal.ZERO;
-            BigDecimal avgOrderValue = orderCount > 0 ? 
-                safeTodayRevenue.divide(BigDecimal.valueOf(orderCount), 0, java.math.RoundingMode.HALF_UP) : 
-                BigDecimal.ZERO;
-            metrics.put("avgOrderValue", avgOrderValue);
-            
-            // 6. Peak hour (hour with highest revenue)
-            String peakHourJpql = "SELECT HOUR(o.orderDate), SUM(o.totalAmount) FROM Order o " +
-                                 "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid' " +
-                                 "GROUP BY HOUR(o.orderDate) " +
-                                 "ORDER BY SUM(o.totalAmount) DESC";
-            List<Object[]> peakHourResults = em.createQuery(peakHourJpql, Object[].class)
-                .setParameter("start", todayStart)
-                .setParameter("end", todayEnd)
-                .setMaxResults(1)
-                .getResultList();
-            
-            if (!peakHourResults.isEmpty()) {
-                Integer peakHour = (Integer) peakHourResults.get(0)[0];
-                metrics.put("peakHour", String.format("%02d:00", peakHour));
-            } else {
-                metrics.put("peakHour", "--:--");
-            }
-            
-            // 7. Hourly revenue trend for today (mini chart data)
-            String hourlyJpql = "SELECT HOUR(o.orderDate), COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
-                               "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid' " +
-                               "GROUP BY HOUR(o.orderDate) " +
-                               "ORDER BY HOUR(o.orderDate)";
-            List<Object[]> hourlyResults = em.createQuery(hourlyJpql, Object[].class)
-                .setParameter("start", todayStart)
-                .setParameter("end", todayEnd)
-                .getResultList();
-            
-            // Create hourly map (0-23)
-            Map<Integer, BigDecimal> hourlyMap = new HashMap<>();
-            for (Object[] row : hourlyResults) {
-                Integer hour = (Integer) row[0];
-                BigDecimal revenue = (BigDecimal) row[1];
-                hourlyMap.put(hour, revenue);
-            }
-            
-            // Fill missing hours with 0
-            List<String> hourLabels = new ArrayList<>();
-            List<BigDecimal> hourRevenues = new ArrayList<>();
-            for (int i = 0; i < 24; i++) {
-                hourLabels.add(String.format("%02d:00", i));
-                hourRevenues.add(hourlyMap.getOrDefault(i, BigDecimal.ZERO));
-            }
-            metrics.put("hourlyLabels", hourLabels);
-            metrics.put("hourlyRevenues", hourRevenues);
-            
-            System.out.println("✅ Today's metrics: Revenue=" + todayRevenue + 
-                             ", Orders=" + todayOrders + 
-                             ", Peak=" + metrics.get("peakHour"));
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error getting today's metrics: " + e.getMessage());
-            e.printStackTrace();
-            // Return empty/default values
-            metrics.put("todayRevenue", BigDecimal.ZERO);
-            metrics.put("yesterdayRevenue", BigDecimal.ZERO);
-            metrics.put("todayOrders", 0L);
-            metrics.put("yesterdayOrders", 0L);
-            metrics.put("avgOrderValue", BigDecimal.ZERO);
-            metrics.put("peakHour", "--:--");
-            metrics.put("hourlyLabels", new ArrayList<>());
-            metrics.put("hourlyRevenues", new ArrayList<>());
-        } finally {
-            em.close();
+        // Hôm nay và hôm qua (kỳ trước) đọc chung một query gom theo giờ (rollup nếu đã phủ)
+        LocalDate date = LocalDate.now();
+        PeriodFinancials financials = getPeriodFinancials(date, date);
+        Period today = financials.current();
+        Period yesterday = financials.previous();
+        
+        metrics.put("todayRevenue", today.revenue());
+        metrics.put("yesterdayRevenue", yesterday.revenue());
+        metrics.put("todayOrders", today.orders());
+        metrics.put("yesterdayOrders", yesterday.orders());
+        
+        // Today's average order value
+        BigDecimal avgOrderValue = today.orders() > 0 ? 
+            today.revenue().divide(BigDecimal.valueOf(today.orders()), 0, java.math.RoundingMode.HALF_UP) : 
+            BigDecimal.ZERO;
+        metrics.put("avgOrderValue", avgOrderValue);
+        
+        // Peak hour (hour with highest revenue)
+        Integer peakHour = today.peakHour();
+        metrics.put("peakHour", peakHour != null ? String.format("%02d:00", peakHour) : "--:--");
+        
+        // Hourly revenue trend for today (mini chart data), fill missing hours with 0
+        List<String> hourLabels = new ArrayList<>();
+        List<BigDecimal> hourRevenues = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            hourLabels.add(String.format("%02d:00", i));
+            hourRevenues.add(today.hourlyRevenue().getOrDefault(i, BigDecimal.ZERO));
         }
+        metrics.put("hourlyLabels", hourLabels);
+        metrics.put("hourlyRevenues", hourRevenues);
+        
+        System.out.println("✅ Today's metrics: Revenue=" + today.revenue() + 
+                         ", Orders=" + today.orders() + 
+                         ", Peak=" + metrics.get("peakHour"));
         
         return metrics;
     }
+    
+    private static BigDecimal toDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+    
+    private static long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+    
+    /**
+     * Biên lợi nhuận gộp (%) = (doanh thu - giá vốn) / doanh thu, 0 nếu chưa có doanh thu
+     */
+    private static double grossMargin(BigDecimal revenue, BigDecimal cogs) {
+        if (revenue == null || revenue.signum() == 0) {
+            return 0.0;
+        }
+        return revenue.subtract(cogs).multiply(BigDecimal.valueOf(100))
+            .divide(revenue, 2, java.math.RoundingMode.HALF_UP).doubleValue();
+    }
+    
+    /**
+     * Số liệu một kỳ: doanh thu, số đơn, giá vốn (COGS), doanh thu theo giờ trong ngày (cộng mọi ngày của kỳ)
+     */
+    public record Period(LocalDate startDate, LocalDate endDate, BigDecimal revenue, long orders, BigDecimal cogs,
+                         SortedMap<Integer, BigDecimal> hourlyRevenue) {
+        public BigDecimal grossProfit() {
+            return revenue.subtract(cogs);
+        }
+        
+        public double grossMargin() {
+            return RevenueReportDAO.grossMargin(revenue, cogs);
+        }
+        
+        /**
+         * Giờ có doanh thu cao nhất (bằng nhau thì lấy giờ sớm hơn), null nếu kỳ chưa có đơn
+         */
+        public Integer peakHour() {
+            Integer peak = null;
+            for (Map.Entry<Integer, BigDecimal> entry : hourlyRevenue.entrySet()) {
+                if (peak == null || entry.getValue().compareTo(hourlyRevenue.get(peak)) > 0) {
+                    peak = entry.getKey();
+                }
+            }
+            return peak;
+        }
+    }
+    
+    /**
+     * Kỳ hiện tại và kỳ trước liền kề
+     */
+    public record PeriodFinancials(Period current, Period previous) {
+        /**
+         * Số liệu rỗng (toàn 0) khi không đọc được DB
+         */
+        public static PeriodFinancials empty(LocalDate startDate, LocalDate endDate) {
+            long days = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate);
+            return new PeriodFinancials(
+                new Period(startDate, endDate, BigDecimal.ZERO, 0, BigDecimal.ZERO, new TreeMap<>()),
+                new Period(startDate.minusDays(days + 1), startDate.minusDays(1), BigDecimal.ZERO, 0, BigDecimal.ZERO,
+                           new TreeMap<>()));
+        }
+    }
+    
+    /**
+     * Doanh thu, giá vốn của một danh mục
+     */
+    public record CategoryMargin(String category, BigDecimal revenue, BigDecimal cogs) {
+        public CategoryMargin {
+            revenue = toDecimal(revenue);
+            cogs = toDecimal(cogs);
+        }
+        
+        public BigDecimal grossProfit() {
+            return revenue.subtract(cogs);
+        }
+        
+        public double grossMargin() {
+            return RevenueReportDAO.grossMargin(revenue, cogs);
+        }
+    }
 }
-
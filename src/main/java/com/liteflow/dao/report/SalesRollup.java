@@ -0,0 +1,369 @@
+package com.liteflow.dao.report;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.model.report.SalesDailyRollup;
+import com.liteflow.model.report.SalesHourlyRollup;
+import com.liteflow.model.report.SalesSessionDay;
+import com.liteflow.model.report.SalesVariantRollup;
+import com.liteflow.util.EnvConfigUtil;
+import jakarta.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bảng tổng hợp doanh thu cho báo cáo: theo ngày (SalesDailyRollup), theo giờ (SalesHourlyRollup),
+ * theo ngày + biến thể sản phẩm (SalesVariantDailyRollup) và các phiên có đơn trong ngày (SalesDailySessions).
+ *
+ * Mỗi ngày luôn được dựng lại nguyên vẹn từ Orders/OrderDetails (xóa rồi ghi lại trong một transaction),
+ * nên số liệu giống hệt query gốc và chạy lại bao nhiêu lần cũng được. Ngày được dựng lại khi một phiên
+ * thanh toán xong (sessionPaid, gọi từ CashierAPIServlet / VNPayService), khi order đã thanh toán bị xóa cùng bàn / phòng
+ * (ordersDeleted, gọi từ RoomTableService) và bởi SalesRollupBackfillJob
+ * (lúc khởi động và định kỳ cho LITEFLOW_SALES_ROLLUP_RECENT_DAYS ngày gần nhất).
+ *
+ * RevenueReportDAO chỉ đọc rollup khi covers() xác nhận cả khoảng ngày đã được dựng, ngược lại dùng query gốc.
+ */
+public final class SalesRollup {
+
+    private static final int RECENT_DAYS = Math.max(1, EnvConfigUtil.getInt("LITEFLOW_SALES_ROLLUP_RECENT_DAYS", 2));
+    private static final int CHUNK_DAYS = 31;
+    private static final int FLUSH_EVERY = 500;
+
+    private static final Object lock = new Object();
+    // Khoảng ngày liên tục đã dựng, null khi chưa backfill (hoặc vừa refresh lỗi)
+    private static volatile Coverage coverage;
+    // Ngày refresh lỗi, backfill kế tiếp dựng lại
+    private static final Set<LocalDate> pendingDays = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicLong rollupReads = new AtomicLong();
+    private static final AtomicLong rawReads = new AtomicLong();
+    private static final AtomicLong daysRebuilt = new AtomicLong();
+    private static final AtomicLong paymentRefreshes = new AtomicLong();
+    private static final AtomicLong refreshFailures = new AtomicLong();
+    private static volatile Map<String, Object> lastBackfill;
+
+    private SalesRollup() {
+    }
+
+    /**
+     * Rollup có đủ dữ liệu cho khoảng [startDate, endDate] không.
+     * Trước ngày đầu tiên có order và sau hôm nay không có đơn nào nên không cần dựng.
+     */
+    public static boolean covers(LocalDate startDate, LocalDate endDate) {
+        Coverage current = coverage;
+        LocalDate today = LocalDate.now();
+        LocalDate last = endDate.isAfter(today) ? today : endDate;
+        boolean covered = current != null && (last.isBefore(startDate) || !last.isAfter(current.through));
+        (covered ? rollupReads : rawReads).incrementAndGet();
+        return covered;
+    }
+
+    /**
+     * Dựng lại các ngày có order của phiên vừa thanh toán. Gọi sau khi commit, không ném lỗi:
+     * lỗi thì báo cáo quay về query gốc cho tới lần backfill sau.
+     *
+     * @return các ngày có số liệu thay đổi (hôm nay nếu không đọc được ngày của phiên)
+     */
+    public static List<LocalDate> sessionPaid(UUID sessionId) {
+        if (sessionId == null) {
+            return List.of();
+        }
+        List<LocalDate> days = new ArrayList<>();
+        try {
+            EntityManager em = BaseDAO.emf.createEntityManager();
+            try {
+                days.addAll(em.createQuery(
+                        "SELECT DISTINCT CAST(o.orderDate AS LocalDate) FROM Order o "
+                        + "WHERE o.session.sessionId = :sessionId AND o.orderDate IS NOT NULL", LocalDate.class)
+                        .setParameter("sessionId", sessionId)
+                        .getResultList());
+            } finally {
+                em.close();
+            }
+            rebuildDays(days);
+            paymentRefreshes.incrementAndGet();
+        } catch (Exception e) {
+            refreshFailed(days.isEmpty() ? List.of(LocalDate.now()) : days, "session " + sessionId, e);
+        }
+        return days.isEmpty() ? List.of(LocalDate.now()) : days;
+    }
+
+    /**
+     * Dựng lại các ngày có order đã thanh toán vừa bị xóa (xóa bàn / phòng). Ngày phải được đọc trước khi xóa;
+     * gọi sau khi commit, không ném lỗi giống sessionPaid.
+     *
+     * @return các ngày đã dựng lại
+     */
+    public static List<LocalDate> ordersDeleted(Collection<LocalDate> days) {
+        List<LocalDate> changed = new ArrayList<>(new TreeSet<>(days));
+        if (changed.isEmpty()) {
+            return changed;
+        }
+        try {
+            rebuildDays(changed);
+        } catch (Exception e) {
+            refreshFailed(changed, "deleted orders", e);
+        }
+        return changed;
+    }
+
+    private static void rebuildDays(List<LocalDate> days) {
+        synchronized (lock) {
+            for (LocalDate day : days) {
+                rebuild(day, day);
+                extendCoverage(day);
+            }
+        }
+    }
+
+    private static void refreshFailed(List<LocalDate> days, String source, Exception e) {
+        refreshFailures.incrementAndGet();
+        pendingDays.addAll(days);
+        coverage = null;
+        System.err.println("⚠️ Sales rollup refresh failed for " + source
+                + " (reports use Orders until next backfill): " + e.getMessage());
+    }
+
+    /**
+     * Dựng phần còn thiếu: toàn bộ lịch sử nếu rollup chưa có (hoặc thiếu ngày đầu), ngược lại từ ngày cuối đã dựng
+     * (tối đa RECENT_DAYS ngày gần nhất) tới hôm nay, cộng các ngày refresh lỗi.
+     */
+    public static Map<String, Object> backfill() {
+        return backfill(false);
+    }
+
+    /**
+     * Dựng lại toàn bộ từ ngày có order đầu tiên (sau khi sửa dữ liệu cũ trực tiếp trong DB)
+     */
+    public static Map<String, Object> rebuildAll() {
+        return backfill(true);
+    }
+
+    private static Map<String, Object> backfill(boolean full) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", LocalDateTime.now().toString());
+        run.put("full", full);
+
+        LocalDate today = LocalDate.now();
+        LocalDate earliest;
+        LocalDate builtFrom;
+        LocalDate builtThrough;
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            LocalDateTime firstOrder = em.createQuery("SELECT MIN(o.orderDate) FROM Order o", LocalDateTime.class)
+                    .getSingleResult();
+            earliest = firstOrder != null ? firstOrder.toLocalDate() : today;
+            Object[] built = em.createQuery(
+                    "SELECT MIN(d.salesDate), MAX(d.salesDate) FROM SalesDailyRollup d", Object[].class)
+                    .getSingleResult();
+            builtFrom = (LocalDate) built[0];
+            builtThrough = (LocalDate) built[1];
+        } finally {
+            em.close();
+        }
+
+        LocalDate from;
+        if (full || builtFrom == null || builtFrom.isAfter(earliest)) {
+            from = earliest;
+        } else {
+            LocalDate recent = today.minusDays(RECENT_DAYS - 1L);
+            from = builtThrough.isBefore(recent) ? builtThrough : recent;
+        }
+        if (from.isAfter(today)) {
+            from = today;
+        }
+
+        Set<LocalDate> pending = new TreeSet<>(pendingDays);
+        pendingDays.removeAll(pending);
+        int days = 0;
+        try {
+            for (LocalDate day : pending) {
+                if (day.isBefore(from)) {
+                    days += rebuild(day, day);
+                }
+            }
+            days += rebuild(from, today);
+        } catch (RuntimeException e) {
+            pendingDays.addAll(pending);
+            throw e;
+        }
+
+        // Refresh lỗi trong lúc backfill: chưa phủ, lần sau dựng lại
+        if (pendingDays.isEmpty()) {
+            coverage = new Coverage(!full && builtFrom != null && builtFrom.isBefore(from) ? builtFrom : from, today);
+        }
+
+        run.put("from", from.toString());
+        run.put("to", today.toString());
+        run.put("days", days);
+        run.put("durationMs", System.currentTimeMillis() - start);
+        lastBackfill = run;
+        return run;
+    }
+
+    /**
+     * Dựng lại [from, to] theo từng đợt CHUNK_DAYS ngày, mỗi đợt một transaction
+     *
+     * @return số ngày đã dựng
+     */
+    private static int rebuild(LocalDate from, LocalDate to) {
+        int days = 0;
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.plusDays(CHUNK_DAYS)) {
+            LocalDate chunkEnd = chunkStart.plusDays(CHUNK_DAYS - 1L);
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            }
+            synchronized (lock) {
+                rebuildChunk(chunkStart, chunkEnd);
+            }
+            days += (int) (chunkEnd.toEpochDay() - chunkStart.toEpochDay() + 1);
+        }
+        daysRebuilt.addAndGet(days);
+        return days;
+    }
+
+    // guarded by lock
+    private static void rebuildChunk(LocalDate from, LocalDate to) {
+        LocalDateTime startTime = from.atStartOfDay();
+        LocalDateTime endTime = to.atTime(LocalTime.MAX);
+
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM SalesDailyRollup d WHERE d.salesDate BETWEEN :from AND :to")
+                    .setParameter("from", from).setParameter("to", to).executeUpdate();
+            em.createQuery("DELETE FROM SalesHourlyRollup h WHERE h.bucketStart BETWEEN :start AND :end")
+                    .setParameter("start", startTime).setParameter("end", endTime).executeUpdate();
+            em.createQuery("DELETE FROM SalesVariantRollup r WHERE r.salesDate BETWEEN :from AND :to")
+                    .setParameter("from", from).setParameter("to", to).executeUpdate();
+            em.createQuery("DELETE FROM SalesSessionDay s WHERE s.salesDate BETWEEN :from AND :to")
+                    .setParameter("from", from).setParameter("to", to).executeUpdate();
+
+            // Cùng điều kiện với các query gốc của RevenueReportDAO
+            List<Object[]> hourly = em.createQuery(
+                    "SELECT CAST(o.orderDate AS LocalDate), HOUR(o.orderDate), COALESCE(SUM(o.totalAmount), 0), COUNT(o) "
+                    + "FROM Order o "
+                    + "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid' "
+                    + "GROUP BY CAST(o.orderDate AS LocalDate), HOUR(o.orderDate)", Object[].class)
+                    .setParameter("start", startTime).setParameter("end", endTime)
+                    .getResultList();
+            List<Object[]> variants = em.createQuery(
+                    "SELECT CAST(o.orderDate AS LocalDate), od.productVariant.productVariantId, "
+                    + "COALESCE(SUM(od.quantity), 0), COALESCE(SUM(od.totalPrice), 0) "
+                    + "FROM OrderDetail od JOIN od.order o "
+                    + "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid' "
+                    + "GROUP BY CAST(o.orderDate AS LocalDate), od.productVariant.productVariantId", Object[].class)
+                    .setParameter("start", startTime).setParameter("end", endTime)
+                    .getResultList();
+            List<Object[]> sessions = em.createQuery(
+                    "SELECT DISTINCT CAST(o.orderDate AS LocalDate), o.session.sessionId FROM Order o "
+                    + "WHERE o.orderDate BETWEEN :start AND :end AND o.paymentStatus = 'Paid'", Object[].class)
+                    .setParameter("start", startTime).setParameter("end", endTime)
+                    .getResultList();
+
+            // Ngày không có đơn vẫn có dòng 0 để biết ngày đó đã được dựng
+            Map<LocalDate, SalesDailyRollup> daily = new TreeMap<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                daily.put(day, new SalesDailyRollup(day, BigDecimal.ZERO, 0L));
+            }
+
+            int written = 0;
+            for (Object[] row : hourly) {
+                LocalDate day = (LocalDate) row[0];
+                BigDecimal revenue = (BigDecimal) row[2];
+                long orders = ((Number) row[3]).longValue();
+                written = persist(em, new SalesHourlyRollup(day.atTime(((Number) row[1]).intValue(), 0), revenue, orders), written);
+                SalesDailyRollup total = daily.get(day);
+                total.setRevenue(total.getRevenue().add(revenue));
+                total.setOrderCount(total.getOrderCount() + orders);
+            }
+            for (SalesDailyRollup total : daily.values()) {
+                written = persist(em, total, written);
+            }
+            for (Object[] row : variants) {
+                written = persist(em, new SalesVariantRollup((LocalDate) row[0], (UUID) row[1],
+                        ((Number) row[2]).longValue(), (BigDecimal) row[3]), written);
+            }
+            for (Object[] row : sessions) {
+                written = persist(em, new SalesSessionDay((LocalDate) row[0], (UUID) row[1]), written);
+            }
+
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static int persist(EntityManager em, Object entity, int written) {
+        em.persist(entity);
+        if (++written % FLUSH_EVERY == 0) {
+            em.flush();
+            em.clear();
+        }
+        return written;
+    }
+
+    /**
+     * Ngày vừa dựng nằm ngoài khoảng đã phủ (qua ngày mới, order cũ mới thanh toán): dựng nốt phần hở để khoảng liền mạch
+     */
+    // guarded by lock
+    private static void extendCoverage(LocalDate day) {
+        Coverage current = coverage;
+        if (current == null) {
+            return; // backfill đang chạy hoặc chưa chạy, sẽ tự dựng tới hôm nay
+        }
+        if (day.isAfter(current.through)) {
+            rebuild(current.through.plusDays(1), day.minusDays(1));
+            coverage = new Coverage(current.from, day);
+        } else if (day.isBefore(current.from)) {
+            rebuild(day.plusDays(1), current.from.minusDays(1));
+            coverage = new Coverage(day, current.through);
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Coverage current = coverage;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("coveredFrom", current != null ? current.from.toString() : null);
+        metrics.put("coveredThrough", current != null ? current.through.toString() : null);
+        metrics.put("recentDays", RECENT_DAYS);
+        metrics.put("rollupReads", rollupReads.get());
+        metrics.put("rawReads", rawReads.get());
+        metrics.put("daysRebuilt", daysRebuilt.get());
+        metrics.put("paymentRefreshes", paymentRefreshes.get());
+        metrics.put("refreshFailures", refreshFailures.get());
+        metrics.put("pendingDays", pendingDays.size());
+        metrics.put("lastBackfill", lastBackfill);
+        return metrics;
+    }
+
+    private static final class Coverage {
+
+        private final LocalDate from;
+        private final LocalDate through;
+
+        private Coverage(LocalDate from, LocalDate through) {
+            this.from = from;
+            this.through = through;
+        }
+    }
+}
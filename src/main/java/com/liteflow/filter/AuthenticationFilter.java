@@ -2,6 +2,8 @@ package com.liteflow.filter;
 
 import com.liteflow.model.auth.User;
 import com.liteflow.security.JwtUtil;
+import com.liteflow.security.PathAuthorizer;
+import com.liteflow.security.PrincipalCache;
 import com.liteflow.service.employee.EmployeeService;
 import com.liteflow.service.auth.AuditService;
 import com.liteflow.service.auth.UserService;
@@ -11,60 +13,19 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import java.io.IOException;
 import java.util.*;
+import java.util.logging.Logger;
 
 // @WebFilter annotation removed - using web.xml mapping to control filter order
 public class AuthenticationFilter extends BaseFilter {
 
+    private static final Logger LOG = Logger.getLogger(AuthenticationFilter.class.getName());
+
     private static volatile boolean AUTH_ENABLED = false;
 //ádasdáds
     private final AuditService auditService = new AuditService();
     private final UserService userService = new UserService();
     private final EmployeeService employeeService = new EmployeeService();
 
-    private static final Map<String, Set<String>> ROLE_FUNCTIONS = new HashMap<>();
-
-    static {
-        ROLE_FUNCTIONS.put("Cashier", new HashSet<>(Arrays.asList("/pos", "/sales", "/cart", "/checkout")));
-        ROLE_FUNCTIONS.put("Inventory Manager", new HashSet<>(Arrays.asList("/inventory", "/products", "/stock", "/purchaseOrders")));
-        ROLE_FUNCTIONS.put("Procurement Officer", new HashSet<>(Arrays.asList("/purchaseOrders", "/suppliers", "/invoices")));
-        ROLE_FUNCTIONS.put("HR Officer", new HashSet<>(Arrays.asList("/employees", "/payroll", "/timesheets", "/leaveRequests")));
-        // Allow employees to access their own user pages and dashboard
-        ROLE_FUNCTIONS.put("Employee", new HashSet<>(Arrays.asList(
-                "/dashboard",
-                "/schedule",
-                "/user/profile",
-                "/user/timesheet",
-                "/user/payroll",
-                "/api/notices"  // Employee có thể xem thông báo
-        )));
-        ROLE_FUNCTIONS.put("Admin", new HashSet<>(Arrays.asList(
-                "/*",
-                "/api/send-notification",  // Admin có thể gửi thông báo
-                "/api/notices"  // Admin có thể xem thông báo
-        ))); // full quyền
-
-        // ============================================================
-        // 🆕 PHÂN QUYỀN MODULE PROCUREMENT (THÊM MỚI)
-        // ============================================================
-        // Cho phép truy cập các đường dẫn trong module Procurement:
-        // /procurement/supplier, /procurement/po, /procurement/gr ...
-        Set<String> procurementPaths = new HashSet<>(Arrays.asList(
-                "/procurement",
-                "/procurement/dashboard",
-                "/procurement/supplier",
-                "/procurement/po",
-                "/procurement/gr"
-        ));
-
-        List<String> targetRoles = Arrays.asList("Procurement Officer", "Inventory Manager", "Owner", "Admin");
-
-        for (String role : targetRoles) {
-            Set<String> funcs = new HashSet<>(ROLE_FUNCTIONS.getOrDefault(role, Collections.emptySet()));
-            funcs.addAll(procurementPaths);
-            ROLE_FUNCTIONS.put(role, funcs);
-        }
-    }
-
     @Override
     public void init(FilterConfig filterConfig) {
         try {
@@ -77,7 +38,14 @@ public class AuthenticationFilter extends BaseFilter {
             }
         } catch (Exception ignore) {
         }
-        java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("[AuthenticationFilter] AUTH_ENABLED = " + AUTH_ENABLED);
+        LOG.info(() -> "[AuthenticationFilter] AUTH_ENABLED = " + AUTH_ENABLED);
+        if (AUTH_ENABLED) {
+            try {
+                PathAuthorizer.reload();
+            } catch (Exception e) {
+                System.err.println("⚠️ Cannot load RolePaths, using built-in path rules: " + e.getMessage());
+            }
+        }
     }
 
     private boolean isStaticResource(String path) {
@@ -121,108 +89,139 @@ public class AuthenticationFilter extends BaseFilter {
             return;
         }
 
-        User user = null;
-        List<String> roles = Collections.emptyList();
+        PrincipalCache.Principal principal = null;
 
         // JWT
         String authHeader = req.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             try {
                 JwtUtil.UserContext ctx = JwtUtil.parseToUserContext(authHeader.substring(7));
-                user = userService.getUserById(UUID.fromString(ctx.userId())).orElse(null);
-                if (user != null) {
-                    roles = (ctx.roles() == null || ctx.roles().isEmpty())
-                            ? userService.getRoleNames(user.getUserID())
-                            : ctx.roles();
+                principal = resolveJwtPrincipal(ctx);
+                if (principal != null) {
                     HttpSession session = getSession(req, true);
-                    session.setAttribute("UserLogin", user.getUserID().toString());
-                    session.setAttribute("UserRoles", roles);
-                    session.setAttribute("UserDisplayName", user.getDisplayName());
+                    session.setAttribute("UserLogin", principal.user().getUserID().toString());
+                    session.setAttribute("UserRoles", principal.roles());
+                    session.setAttribute("UserDisplayName", principal.user().getDisplayName());
                     // Lưu employeeCode nếu user có employee record
-                    employeeService.getEmployeeByUserID(user.getUserID()).ifPresent(emp -> {
-                        session.setAttribute("UserEmployeeCode", emp.getEmployeeCode());
-                        java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("Set UserEmployeeCode: " + emp.getEmployeeCode());
-                    });
+                    if (principal.employeeCode() != null) {
+                        session.setAttribute("UserEmployeeCode", principal.employeeCode());
+                    }
                 }
             } catch (JwtException e) {
-                auditService.logLoginFail("Invalid JWT", req.getRemoteAddr());
+                auditService.logLoginFail(e instanceof JwtUtil.RevokedJwtException ? "Revoked JWT" : "Invalid JWT",
+                        req.getRemoteAddr());
             }
         }
 
         // Session fallback: accept User object, UUID, or String (uuid or email)
-        if (user == null) {
+        if (principal == null) {
             HttpSession session = getSession(req, false);
             if (session != null) {
-                Object sUser = session.getAttribute("UserLogin");
-                java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("Session UserLogin attribute: " + sUser + " (type: " + (sUser != null ? sUser.getClass().getSimpleName() : "null") + ")");
-                if (sUser instanceof User) {
-                    User u = (User) sUser;
-                    user = u;
-                } else if (sUser instanceof java.util.UUID) {
-                    user = userService.getUserById((java.util.UUID) sUser).orElse(null);
-                } else if (sUser instanceof String) {
-                    String sval = (String) sUser;
-                    try {
-                        user = userService.getUserById(java.util.UUID.fromString(sval)).orElse(null);
-                    } catch (IllegalArgumentException ex) {
-                        user = userService.findByEmail(sval);
-                    }
-                }
-
-                if (user != null) {
-           
-                    List<String> sRoles = (List<String>) session.getAttribute("UserRoles");
-                    roles = (sRoles != null) ? sRoles : userService.getRoleNames(user.getUserID());
-                    // Ensure displayName is set in session
-                    if (session.getAttribute("UserDisplayName") == null) {
-                        session.setAttribute("UserDisplayName", user.getDisplayName());
-                    }
-                    // Ensure employeeCode is set in session
-                    if (session.getAttribute("UserEmployeeCode") == null) {
-                        employeeService.getEmployeeByUserID(user.getUserID()).ifPresent(emp -> {
-                            session.setAttribute("UserEmployeeCode", emp.getEmployeeCode());
-                            java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("Set UserEmployeeCode (fallback): " + emp.getEmployeeCode());
-                        });
-                    }
-                    java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("User found: " + user.getUserID() + ", Roles: " + roles);
-                }
+                principal = resolveSessionPrincipal(session);
             }
         }
 
-        if (user == null) {
-            java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).warning("No user found for path: " + path + " - redirecting to login");
+        if (principal == null) {
+            LOG.warning(() -> "No user found for path: " + path + " - redirecting to login");
             res.sendRedirect(req.getContextPath() + "/login");
             return;
         }
 
+        User user = principal.user();
+        List<String> roles = principal.roles();
         if (isAuthorized(roles, path)) {
-            java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("Access granted for " + path + " - proceeding to servlet");
+            LOG.fine(() -> "Access granted for " + path + " - proceeding to servlet");
             chain.doFilter(req, res);
         } else {
-            java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).warning("Access denied for " + path + " - redirecting to access denied");
+            LOG.warning(() -> "Access denied for " + path + " - redirecting to access denied");
             auditService.logDenied(user, path, req.getRemoteAddr());
             res.sendRedirect(req.getContextPath() + "/accessDenied.jsp");
         }
     }
 
-    private boolean isAuthorized(List<String> roles, String path) {
-        if (roles == null || roles.isEmpty()) {
-            java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).warning("No roles found for path: " + path);
-            return false;
+    /**
+     * Principal của JWT: lấy từ PrincipalCache theo jti, chỉ đọc DB khi chưa có hoặc đã bị invalidate
+     */
+    private PrincipalCache.Principal resolveJwtPrincipal(JwtUtil.UserContext ctx) {
+        String key = ctx.claims().getId() != null ? PrincipalCache.jwtKey(ctx.claims().getId()) : null;
+        if (key != null) {
+            PrincipalCache.Principal cached = PrincipalCache.get(key, ctx.userId());
+            if (cached != null) {
+                return cached;
+            }
         }
-        if (roles.stream().anyMatch(r -> r.equalsIgnoreCase("owner") || r.equalsIgnoreCase("admin"))) {
-            java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("Access granted for " + path + " - Owner/Admin role");
-            return true;
+
+        long stamp = PrincipalCache.stamp();
+        User user = userService.getUserById(UUID.fromString(ctx.userId())).orElse(null);
+        if (user == null || !user.isActiveSafe()) {
+            return null;
+        }
+        // Roles đọc lại từ DB (không dùng roles trong token) để đổi role có hiệu lực ngay sau khi cache bị xóa
+        List<String> roles = userService.getRoleNames(user.getUserID());
+        Date expiration = ctx.claims().getExpiration();
+        return PrincipalCache.put(key, stamp, ctx.userId(), user, roles, loadEmployeeCode(user),
+                expiration != null ? expiration.getTime() : 0L);
+    }
+
+    /**
+     * Principal của HTTP session: lấy từ PrincipalCache theo session id (kèm giá trị UserLogin),
+     * khi đọc DB thì cập nhật lại UserRoles / UserDisplayName / UserEmployeeCode trong session
+     */
+    private PrincipalCache.Principal resolveSessionPrincipal(HttpSession session) {
+        Object sUser = session.getAttribute("UserLogin");
+        LOG.fine(() -> "Session UserLogin attribute: " + sUser + " (type: " + (sUser != null ? sUser.getClass().getSimpleName() : "null") + ")");
+        if (sUser == null) {
+            return null;
+        }
+        String loginValue = sUser instanceof User ? String.valueOf(((User) sUser).getUserID()) : sUser.toString();
+        String key = PrincipalCache.sessionKey(session.getId());
+        PrincipalCache.Principal cached = PrincipalCache.get(key, loginValue);
+        if (cached != null) {
+            return cached;
         }
-        String lowerPath = path.toLowerCase();
-        for (String role : roles) {
-            Set<String> funcs = ROLE_FUNCTIONS.getOrDefault(role, Collections.emptySet());
-            if (funcs.stream().anyMatch(f -> lowerPath.startsWith(f.toLowerCase()))) {
-                java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).info("Access granted for " + path + " - Role: " + role);
-                return true;
+
+        long stamp = PrincipalCache.stamp();
+        User user = null;
+        if (sUser instanceof User) {
+            User u = (User) sUser;
+            user = u.getUserID() != null ? userService.getUserById(u.getUserID()).orElse(null) : u;
+        } else if (sUser instanceof java.util.UUID) {
+            user = userService.getUserById((java.util.UUID) sUser).orElse(null);
+        } else if (sUser instanceof String) {
+            String sval = (String) sUser;
+            try {
+                user = userService.getUserById(java.util.UUID.fromString(sval)).orElse(null);
+            } catch (IllegalArgumentException ex) {
+                user = userService.findByEmail(sval);
             }
         }
-        java.util.logging.Logger.getLogger(AuthenticationFilter.class.getName()).warning("Access denied for " + path + " - Roles: " + roles + ", Available functions: " + ROLE_FUNCTIONS);
+        if (user == null || !user.isActiveSafe()) {
+            return null;
+        }
+
+        List<String> roles = userService.getRoleNames(user.getUserID());
+        String employeeCode = loadEmployeeCode(user);
+        session.setAttribute("UserRoles", roles);
+        session.setAttribute("UserDisplayName", user.getDisplayName());
+        if (employeeCode != null) {
+            session.setAttribute("UserEmployeeCode", employeeCode);
+        }
+        User found = user;
+        LOG.fine(() -> "User found: " + found.getUserID() + ", Roles: " + roles);
+        return PrincipalCache.put(key, stamp, loginValue, user, roles, employeeCode, 0L);
+    }
+
+    private String loadEmployeeCode(User user) {
+        return employeeService.getEmployeeByUserID(user.getUserID())
+                .map(emp -> emp.getEmployeeCode())
+                .orElse(null);
+    }
+
+    private boolean isAuthorized(List<String> roles, String path) {
+        if (PathAuthorizer.isAuthorized(roles, path)) {
+            return true;
+        }
+        LOG.warning(() -> "Access denied for " + path + " - Roles: " + roles);
         return false;
     }
 }
@@ -1,6 +1,7 @@
 package com.liteflow.filter;
 
 import com.liteflow.model.auth.User;
+import com.liteflow.security.PrincipalCache;
 import com.liteflow.service.auth.AuditService;
 
 import jakarta.servlet.*;
@@ -49,6 +50,7 @@ public class LogoutFilter extends BaseFilter {
         // Cookie này chỉ được xóa khi user uncheck "Remember me" hoặc login với remember me = false
 
         if (session != null) {
+            PrincipalCache.invalidate(PrincipalCache.sessionKey(session.getId()));
             session.invalidate();
         }
 
@@ -0,0 +1,532 @@
+package com.liteflow.job;
+
+import com.liteflow.dao.alert.AlertConfigurationDAO;
+import com.liteflow.model.alert.AlertConfiguration;
+import com.liteflow.util.EnvConfigUtil;
+import org.quartz.CronExpression;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bộ lập lịch chung cho mọi job định kỳ (thay Timer / ScheduledExecutorService riêng lẻ của từng job).
+ *
+ * - Chạy trên Quartz (RAMJobStore, LITEFLOW_SCHEDULER_THREADS thread), mỗi job đăng ký theo tên
+ * - Không chạy chồng: một job chưa xong thì lượt kế tiếp của chính job đó phải chờ (job khác vẫn chạy song song)
+ * - Misfire: lượt bị lỡ quá LITEFLOW_SCHEDULER_MISFIRE_THRESHOLD_MS (job trước chạy lâu, vừa resume...) được chạy bù
+ *   ngay một lần (FIRE_NOW) hoặc bỏ qua chờ lượt kế (SKIP)
+ * - Jitter: mỗi lượt chờ ngẫu nhiên tối đa LITEFLOW_SCHEDULER_JITTER_MS ms (không quá 1/10 chu kỳ) để các job
+ *   cùng chu kỳ không cùng lúc đập vào DB
+ * - Job gắn với một AlertType: bật/tắt theo IsEnabled, ScheduleCron (nếu có) thay chu kỳ mặc định; đọc lại mỗi
+ *   LITEFLOW_SCHEDULER_CONFIG_REFRESH_SECONDS giây hoặc ngay khi cấu hình được sửa qua AlertService
+ */
+public final class JobScheduler {
+
+    public enum MisfirePolicy {
+        FIRE_NOW,
+        SKIP
+    }
+
+    // Số chỉ ngày trong trường thứ (giá trị, hai đầu khoảng); số sau "/" là bước nhảy, không đổi
+    private static final Pattern DAY_OF_WEEK_DIGITS = Pattern.compile("(?<![/\\d])\\d+");
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private static volatile JobScheduler current;
+
+    private final int threads;
+    private final long jitterMillis;
+    private final long misfireThresholdMillis;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private volatile Scheduler scheduler;
+    private volatile LocalDateTime lastConfigRefresh;
+
+    public JobScheduler(int threads, long jitterMillis, long misfireThresholdMillis) {
+        this.threads = Math.max(1, threads);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.misfireThresholdMillis = Math.max(1, misfireThresholdMillis);
+    }
+
+    /**
+     * Scheduler theo cấu hình LITEFLOW_SCHEDULER_* trong .env
+     */
+    public static JobScheduler fromEnv() {
+        return new JobScheduler(
+                EnvConfigUtil.getInt("LITEFLOW_SCHEDULER_THREADS", 4),
+                EnvConfigUtil.getLong("LITEFLOW_SCHEDULER_JITTER_MS", 2000L),
+                EnvConfigUtil.getLong("LITEFLOW_SCHEDULER_MISFIRE_THRESHOLD_MS", 60000L));
+    }
+
+    /**
+     * Scheduler đang chạy (null nếu chưa khởi động)
+     */
+    public static JobScheduler current() {
+        return current;
+    }
+
+    public static void install(JobScheduler scheduler) {
+        current = scheduler;
+    }
+
+    /**
+     * Đăng ký một job chạy mỗi intervalMillis ms (trước start())
+     *
+     * @param configType AlertType điều khiển job (null nếu không gắn cấu hình)
+     */
+    public synchronized void register(String name, String description, String configType, long intervalMillis,
+            long initialDelayMillis, MisfirePolicy misfirePolicy, Runnable task) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        if (entries.containsKey(name)) {
+            throw new IllegalArgumentException("Job already registered: " + name);
+        }
+        entries.put(name, new Entry(name, description, configType, Math.max(1, intervalMillis),
+                Math.max(0, initialDelayMillis), misfirePolicy, task));
+    }
+
+    public void start() throws SchedulerException {
+        start(List.of());
+    }
+
+    /**
+     * Khởi động, áp dụng cấu hình trước lượt chạy đầu tiên (job đã tắt không chạy lần nào)
+     */
+    public synchronized void start(List<AlertConfiguration> configs) throws SchedulerException {
+        if (scheduler != null) {
+            return;
+        }
+        Properties props = new Properties();
+        props.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "LiteFlowScheduler-" + INSTANCES.incrementAndGet());
+        props.setProperty(StdSchedulerFactory.PROP_SCHED_MAKE_SCHEDULER_THREAD_DAEMON, "true");
+        props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore");
+        props.setProperty("org.quartz.jobStore.misfireThreshold", String.valueOf(misfireThresholdMillis));
+        props.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, "org.quartz.simpl.SimpleThreadPool");
+        props.setProperty("org.quartz.threadPool.threadCount", String.valueOf(threads));
+        props.setProperty("org.quartz.threadPool.threadNamePrefix", "liteflow-job");
+        props.setProperty("org.quartz.threadPool.makeThreadsDaemons", "true");
+
+        Scheduler quartz = new StdSchedulerFactory(props).getScheduler();
+        quartz.setJobFactory((bundle, s) -> new RegisteredJob(this));
+        quartz.getListenerManager().addTriggerListener(new MisfireCounter());
+        for (Entry entry : entries.values()) {
+            quartz.scheduleJob(
+                    JobBuilder.newJob(RegisteredJob.class).withIdentity(entry.name).withDescription(entry.description).build(),
+                    buildTrigger(entry, null, new Date(System.currentTimeMillis() + entry.initialDelayMillis)));
+        }
+        scheduler = quartz;
+        applyConfigurations(configs);
+        quartz.start();
+    }
+
+    /**
+     * Ngừng nhận lượt mới, chờ các job đang chạy tối đa timeoutMillis rồi dừng Quartz
+     */
+    public void shutdown(long timeoutMillis) {
+        Scheduler quartz;
+        synchronized (this) {
+            quartz = scheduler;
+            scheduler = null;
+        }
+        if (quartz == null) {
+            return;
+        }
+        try {
+            quartz.standby();
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (runningCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            if (runningCount() > 0) {
+                System.err.println("⚠️ Scheduler shutdown timed out, " + runningCount() + " jobs still running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SchedulerException e) {
+            System.err.println("❌ Failed to pause scheduler: " + e.getMessage());
+        }
+        try {
+            quartz.shutdown(false);
+        } catch (SchedulerException e) {
+            System.err.println("❌ Failed to shut down scheduler: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Chạy ngay một lượt ngoài lịch (vẫn không chồng với lượt đang chạy)
+     *
+     * @return false nếu không có job tên này hoặc scheduler chưa chạy
+     */
+    public boolean runNow(String name) {
+        Scheduler quartz = scheduler;
+        if (quartz == null || !entries.containsKey(name)) {
+            return false;
+        }
+        try {
+            quartz.triggerJob(JobKey.jobKey(name));
+            return true;
+        } catch (SchedulerException e) {
+            System.err.println("❌ Failed to trigger job " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Bật / tắt một job (tắt: lịch được giữ nhưng không chạy)
+     */
+    public synchronized boolean setEnabled(String name, boolean enabled) {
+        Entry entry = entries.get(name);
+        if (entry == null || scheduler == null) {
+            return false;
+        }
+        try {
+            if (enabled) {
+                scheduler.resumeJob(JobKey.jobKey(name));
+            } else {
+                scheduler.pauseJob(JobKey.jobKey(name));
+            }
+            entry.enabled = enabled;
+            return true;
+        } catch (SchedulerException e) {
+            System.err.println("❌ Failed to " + (enabled ? "resume" : "pause") + " job " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Đổi lịch của một job
+     *
+     * @param cron biểu thức cron (5 trường kiểu Unix hoặc cron Quartz), null để về chu kỳ mặc định
+     */
+    public synchronized boolean reschedule(String name, String cron) {
+        Entry entry = entries.get(name);
+        if (entry == null || scheduler == null) {
+            return false;
+        }
+        String quartzCron = cron != null ? toQuartzCron(cron) : null;
+        if (cron != null && quartzCron == null) {
+            System.err.println("⚠️ Invalid schedule for job " + name + ": " + cron);
+            return false;
+        }
+        try {
+            scheduler.rescheduleJob(TriggerKey.triggerKey(name), buildTrigger(entry, quartzCron, new Date()));
+            if (!entry.enabled) {
+                scheduler.pauseJob(JobKey.jobKey(name));
+            }
+            entry.cron = quartzCron;
+            return true;
+        } catch (SchedulerException e) {
+            System.err.println("❌ Failed to reschedule job " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Đọc lại AlertConfigurations và áp dụng cho các job gắn AlertType
+     */
+    public int refreshFromConfig() {
+        return applyConfigurations(new AlertConfigurationDAO().getAll());
+    }
+
+    /**
+     * Áp dụng cấu hình cho các job gắn AlertType: job bật nếu có ít nhất một cấu hình cùng loại đang bật
+     * (không có cấu hình nào thì giữ mặc định), ScheduleCron của cấu hình đó thay chu kỳ mặc định
+     *
+     * @return số job đã đổi trạng thái hoặc lịch
+     */
+    public synchronized int applyConfigurations(List<AlertConfiguration> configs) {
+        int changed = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.configType == null) {
+                continue;
+            }
+            List<AlertConfiguration> matching = new ArrayList<>();
+            for (AlertConfiguration config : configs) {
+                if (entry.configType.equals(config.getAlertType())) {
+                    matching.add(config);
+                }
+            }
+            boolean enabled = matching.isEmpty();
+            String cron = null;
+            for (AlertConfiguration config : matching) {
+                if (Boolean.TRUE.equals(config.getIsEnabled())) {
+                    enabled = true;
+                    if (cron == null && config.getScheduleCron() != null && !config.getScheduleCron().isBlank()) {
+                        cron = config.getScheduleCron().trim();
+                    }
+                }
+            }
+
+            String quartzCron = cron != null ? toQuartzCron(cron) : null;
+            if (cron != null && quartzCron == null && !cron.equals(entry.rejectedCron)) {
+                System.err.println("⚠️ Invalid ScheduleCron for job " + entry.name + ": " + cron);
+            }
+            entry.rejectedCron = cron != null && quartzCron == null ? cron : null;
+            if (!Objects.equals(quartzCron, entry.cron) && reschedule(entry.name, quartzCron)) {
+                System.out.println("🔄 Job " + entry.name + " rescheduled: " + describeSchedule(entry));
+                changed++;
+            }
+            if (enabled != entry.enabled && setEnabled(entry.name, enabled)) {
+                System.out.println("🔄 Job " + entry.name + (enabled ? " enabled" : " disabled"));
+                changed++;
+            }
+        }
+        lastConfigRefresh = LocalDateTime.now();
+        return changed;
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", scheduler != null);
+        metrics.put("threads", threads);
+        metrics.put("jitterMillis", jitterMillis);
+        metrics.put("misfireThresholdMillis", misfireThresholdMillis);
+        metrics.put("lastConfigRefresh", lastConfigRefresh != null ? lastConfigRefresh.toString() : null);
+        Map<String, Object> jobs = new LinkedHashMap<>();
+        for (Entry entry : entries.values()) {
+            Map<String, Object> job = new LinkedHashMap<>();
+            job.put("description", entry.description);
+            job.put("configType", entry.configType);
+            job.put("enabled", entry.enabled);
+            job.put("schedule", describeSchedule(entry));
+            job.put("misfirePolicy", entry.misfirePolicy.name());
+            job.put("nextFireAt", nextFireAt(entry));
+            job.put("running", entry.running.get());
+            long runs = entry.runs.get();
+            job.put("runs", runs);
+            job.put("successes", entry.successes.get());
+            job.put("failures", entry.failures.get());
+            job.put("misfires", entry.misfires.get());
+            job.put("lastDurationMs", entry.lastDurationMillis);
+            job.put("avgDurationMs", runs > 0 ? entry.totalDurationMillis.get() / runs : 0L);
+            job.put("maxDurationMs", entry.maxDurationMillis);
+            job.put("lastStartedAt", entry.lastStartedAt != null ? entry.lastStartedAt.toString() : null);
+            job.put("lastSuccessAt", entry.lastSuccessAt != null ? entry.lastSuccessAt.toString() : null);
+            job.put("lastError", entry.lastError);
+            jobs.put(entry.name, job);
+        }
+        metrics.put("jobs", jobs);
+        return metrics;
+    }
+
+    /**
+     * Chuyển cron 5 trường kiểu Unix (phút giờ ngày tháng thứ, Chủ nhật = 0) sang cron Quartz;
+     * cron Quartz (6-7 trường) giữ nguyên
+     *
+     * @return null nếu không hợp lệ
+     */
+    static String toQuartzCron(String cron) {
+        String[] fields = cron.trim().split("\\s+");
+        String expression;
+        if (fields.length == 5) {
+            String dayOfMonth = fields[2];
+            String dayOfWeek = fields[4];
+            if ("*".equals(dayOfWeek) || "?".equals(dayOfWeek)) {
+                dayOfWeek = "?";
+            } else {
+                dayOfMonth = "?";
+                Matcher m = DAY_OF_WEEK_DIGITS.matcher(dayOfWeek);
+                StringBuilder sb = new StringBuilder();
+                while (m.find()) {
+                    m.appendReplacement(sb, String.valueOf(Integer.parseInt(m.group()) % 7 + 1));
+                }
+                m.appendTail(sb);
+                dayOfWeek = sb.toString();
+            }
+            expression = "0 " + fields[0] + " " + fields[1] + " " + dayOfMonth + " " + fields[3] + " " + dayOfWeek;
+        } else if (fields.length == 6 || fields.length == 7) {
+            expression = String.join(" ", fields);
+        } else {
+            return null;
+        }
+        return CronExpression.isValidExpression(expression) ? expression : null;
+    }
+
+    private Trigger buildTrigger(Entry entry, String quartzCron, Date startAt) {
+        TriggerBuilder<Trigger> builder = TriggerBuilder.newTrigger().withIdentity(entry.name).forJob(entry.name);
+        if (quartzCron != null) {
+            CronScheduleBuilder schedule = CronScheduleBuilder.cronSchedule(quartzCron);
+            schedule = entry.misfirePolicy == MisfirePolicy.FIRE_NOW
+                    ? schedule.withMisfireHandlingInstructionFireAndProceed()
+                    : schedule.withMisfireHandlingInstructionDoNothing();
+            return builder.withSchedule(schedule).startAt(startAt).build();
+        }
+        SimpleScheduleBuilder schedule = SimpleScheduleBuilder.simpleSchedule()
+                .withIntervalInMilliseconds(entry.intervalMillis)
+                .repeatForever();
+        schedule = entry.misfirePolicy == MisfirePolicy.FIRE_NOW
+                ? schedule.withMisfireHandlingInstructionNowWithRemainingCount()
+                : schedule.withMisfireHandlingInstructionNextWithRemainingCount();
+        return builder.withSchedule(schedule).startAt(startAt).build();
+    }
+
+    private String describeSchedule(Entry entry) {
+        return entry.cron != null ? "cron " + entry.cron : "every " + entry.intervalMillis + " ms";
+    }
+
+    private String nextFireAt(Entry entry) {
+        if (scheduler == null || !entry.enabled) {
+            return null;
+        }
+        try {
+            Trigger trigger = scheduler.getTrigger(TriggerKey.triggerKey(entry.name));
+            Date next = trigger != null ? trigger.getNextFireTime() : null;
+            return next != null ? next.toInstant().toString() : null;
+        } catch (SchedulerException e) {
+            return null;
+        }
+    }
+
+    private int runningCount() {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.running.get()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Không khóa: entries chỉ thay đổi trước start(), còn MisfireCounter được gọi khi Quartz đang giữ khóa JobStore
+     */
+    private Entry entryOf(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Job Quartz dùng chung cho mọi job đăng ký; DisallowConcurrentExecution áp dụng theo tên job
+     */
+    @DisallowConcurrentExecution
+    private static final class RegisteredJob implements Job {
+
+        private final JobScheduler owner;
+
+        RegisteredJob(JobScheduler owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void execute(JobExecutionContext context) {
+            Entry entry = owner.entryOf(context.getJobDetail().getKey().getName());
+            if (entry == null) {
+                return;
+            }
+            long jitter = entry.cron != null ? owner.jitterMillis : Math.min(owner.jitterMillis, entry.intervalMillis / 10);
+            if (jitter > 0) {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(jitter + 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            entry.run();
+        }
+    }
+
+    /**
+     * Đếm số lượt bị lỡ của từng job
+     */
+    private final class MisfireCounter extends TriggerListenerSupport {
+
+        @Override
+        public String getName() {
+            return "liteflow-misfire-counter";
+        }
+
+        @Override
+        public void triggerMisfired(Trigger trigger) {
+            Entry entry = entryOf(trigger.getJobKey().getName());
+            if (entry != null) {
+                entry.misfires.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final String name;
+        final String description;
+        final String configType;
+        final long intervalMillis;
+        final long initialDelayMillis;
+        final MisfirePolicy misfirePolicy;
+        final Runnable task;
+        volatile boolean enabled = true;
+        volatile String cron;
+        String rejectedCron;
+
+        final AtomicBoolean running = new AtomicBoolean();
+        final AtomicLong runs = new AtomicLong();
+        final AtomicLong successes = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong misfires = new AtomicLong();
+        final AtomicLong totalDurationMillis = new AtomicLong();
+        volatile long lastDurationMillis;
+        volatile long maxDurationMillis;
+        volatile LocalDateTime lastStartedAt;
+        volatile LocalDateTime lastSuccessAt;
+        volatile String lastError;
+
+        Entry(String name, String description, String configType, long intervalMillis, long initialDelayMillis,
+                MisfirePolicy misfirePolicy, Runnable task) {
+            this.name = name;
+            this.description = description;
+            this.configType = configType;
+            this.intervalMillis = intervalMillis;
+            this.initialDelayMillis = initialDelayMillis;
+            this.misfirePolicy = misfirePolicy;
+            this.task = task;
+        }
+
+        void run() {
+            running.set(true);
+            lastStartedAt = LocalDateTime.now();
+            long start = System.currentTimeMillis();
+            try {
+                task.run();
+                successes.incrementAndGet();
+                lastSuccessAt = LocalDateTime.now();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+                System.err.println("❌ Job " + name + " failed: " + e.getMessage());
+            } finally {
+                long duration = System.currentTimeMillis() - start;
+                runs.incrementAndGet();
+                totalDurationMillis.addAndGet(duration);
+                lastDurationMillis = duration;
+                if (duration > maxDurationMillis) {
+                    maxDurationMillis = duration;
+                }
+                running.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.liteflow.job;
+
+import com.liteflow.service.alert.ChannelUsageTracker;
+import com.liteflow.util.EnvConfigUtil;
+
+/**
+ * Ghi usage cộng dồn của các NotificationChannel (ChannelUsageTracker) vào DB mỗi
+ * LITEFLOW_NOTIFY_USAGE_FLUSH_MS ms (mặc định 30000). Phần còn lại được NotificationUsageListener ghi nốt khi undeploy.
+ */
+public final class NotificationUsageFlushJob {
+
+    private static final long FLUSH_MILLIS = Math.max(1000L, EnvConfigUtil.getLong("LITEFLOW_NOTIFY_USAGE_FLUSH_MS", 30000L));
+
+    private NotificationUsageFlushJob() {
+    }
+
+    /**
+     * Chuyển ChannelUsageTracker sang chế độ cộng dồn và đăng ký job "notification-usage-flush".
+     * Job không gắn AlertType: đã cộng dồn thì phải luôn ghi định kỳ, nếu một cấu hình tắt được job thì usage
+     * chỉ được ghi khi undeploy
+     */
+    public static void register(JobScheduler scheduler) {
+        scheduler.register("notification-usage-flush", "Ghi thống kê sử dụng kênh thông báo", null,
+                FLUSH_MILLIS, FLUSH_MILLIS, JobScheduler.MisfirePolicy.SKIP, ChannelUsageTracker::flush);
+        ChannelUsageTracker.start();
+    }
+}
@@ -1,66 +1,45 @@
 package com.liteflow.job;
 
-import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebListener;
-import java.sql.*;
-import java.util.Timer;
-import java.util.TimerTask;
+import com.liteflow.dao.procurement.PurchaseOrderDAO;
+import com.liteflow.model.procurement.PurchaseOrder;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * Legacy PO Alert Job - checks for overdue and over-budget POs
  * NOTE: PO Pending alerts are now handled by AlertSchedulerService
  */
-@WebListener
-public class ProcurementAlertJob implements ServletContextListener {
-    private Timer timer;
+public final class ProcurementAlertJob {
     private static final Logger log = Logger.getLogger(ProcurementAlertJob.class.getName());
 
-    @Override
-    public void contextInitialized(ServletContextEvent sce) {
-        System.out.println("🚀 Starting ProcurementAlertJob (checks overdue/over-budget POs every 6h)...");
-        timer = new Timer(true);
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                checkAlerts();
-            }
-        }, 10_000, 6 * 60 * 60 * 1000); // 6 giờ
+    private ProcurementAlertJob() {
     }
 
-    @Override
-    public void contextDestroyed(ServletContextEvent sce) {
-        if (timer != null) timer.cancel();
+    /**
+     * Đăng ký job "procurement-audit" (mỗi 6 giờ, bật/tắt, đổi lịch qua AlertType JOB_PROCUREMENT_AUDIT)
+     */
+    public static void register(JobScheduler scheduler) {
+        scheduler.register("procurement-audit", "Ghi log PO trễ giao / vượt giá", "JOB_PROCUREMENT_AUDIT",
+                TimeUnit.HOURS.toMillis(6), 10_000,
+                JobScheduler.MisfirePolicy.SKIP, ProcurementAlertJob::checkAlerts);
     }
 
-    private void checkAlerts() {
-        try (Connection c = DriverManager.getConnection(
-                System.getenv("LITEFLOW_JDBC_URL"),
-                System.getenv("LITEFLOW_DB_USER"),
-                System.getenv("LITEFLOW_DB_PASS"))) {
+    private static void checkAlerts() {
+        PurchaseOrderDAO poDAO = new PurchaseOrderDAO();
 
-            try (Statement st = c.createStatement()) {
-                // Kiểm tra PO trễ
-                ResultSet rs = st.executeQuery(
-                        "SELECT POID, DATEDIFF(DAY, ExpectedDelivery, GETUTCDATE()) AS Delay FROM PurchaseOrders " +
-                                "WHERE Status IN ('PENDING','APPROVED','RECEIVING') AND GETUTCDATE() > ExpectedDelivery");
-                while (rs.next()) {
-                    log.warning("⚠ PO " + rs.getString("POID") + " bị trễ " + rs.getInt("Delay") + " ngày.");
-                }
-                rs.close();
+        // Kiểm tra PO trễ
+        LocalDateTime now = LocalDateTime.now();
+        for (PurchaseOrder po : poDAO.findPastExpectedDelivery()) {
+            log.warning("⚠ PO " + po.getPoid() + " bị trễ "
+                    + ChronoUnit.DAYS.between(po.getExpectedDelivery(), now) + " ngày.");
+        }
 
-                // Kiểm tra PO vượt giá
-                rs = st.executeQuery(
-                        "SELECT p.POID, p.TotalAmount AS PO_Amount, " +
-                                "ISNULL((SELECT SUM(i.TotalAmount) FROM Invoices i WHERE i.POID = p.POID),0) AS Invoiced " +
-                                "FROM PurchaseOrders p WHERE ISNULL((SELECT SUM(i.TotalAmount) FROM Invoices i WHERE i.POID = p.POID),0) > p.TotalAmount");
-                while (rs.next()) {
-                    log.warning("⚠ PO " + rs.getString("POID") + " bị vượt giá: " +
-                            rs.getBigDecimal("Invoiced") + " > " + rs.getBigDecimal("PO_Amount"));
-                }
-            }
-        } catch (Exception e) {
-            log.severe("AlertJob Error: " + e.getMessage());
+        // Kiểm tra PO vượt giá
+        for (Object[] row : poDAO.findOverInvoiced()) {
+            log.warning("⚠ PO " + row[0] + " bị vượt giá: " + row[2] + " > " + row[1]);
         }
     }
 }
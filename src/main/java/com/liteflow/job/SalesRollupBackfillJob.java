@@ -0,0 +1,47 @@
+package com.liteflow.job;
+
+import com.liteflow.dao.report.SalesRollup;
+import com.liteflow.util.EnvConfigUtil;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dựng bảng rollup doanh thu (SalesRollup) ngay khi khởi động (toàn bộ lịch sử nếu chưa có), sau đó mỗi
+ * LITEFLOW_SALES_ROLLUP_REFRESH_MINUTES phút (mặc định 30) dựng lại các ngày gần nhất: phủ sang ngày mới
+ * và sửa lệch nếu Orders bị sửa ngoài luồng thanh toán.
+ */
+public final class SalesRollupBackfillJob {
+
+    private static final long INTERVAL_MINUTES = Math.max(1, EnvConfigUtil.getLong("LITEFLOW_SALES_ROLLUP_REFRESH_MINUTES", 30L));
+
+    private static volatile boolean backfilled;
+
+    private SalesRollupBackfillJob() {
+    }
+
+    /**
+     * Đăng ký job "sales-rollup" vào JobScheduler, lượt đầu chạy ngay khi khởi động
+     * (bật/tắt, đổi lịch qua AlertType JOB_SALES_ROLLUP)
+     */
+    public static void register(JobScheduler scheduler) {
+        scheduler.register("sales-rollup", "Dựng lại rollup doanh thu các ngày gần nhất", "JOB_SALES_ROLLUP",
+                TimeUnit.MINUTES.toMillis(INTERVAL_MINUTES), 0,
+                JobScheduler.MisfirePolicy.FIRE_NOW, SalesRollupBackfillJob::runOnce);
+    }
+
+    private static void runOnce() {
+        Map<String, Object> run = SalesRollup.backfill();
+        if (!backfilled) {
+            backfilled = true;
+            System.out.println("✅ Sales rollup backfilled: " + run);
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("intervalMinutes", INTERVAL_MINUTES);
+        metrics.putAll(SalesRollup.getMetrics());
+        return metrics;
+    }
+}
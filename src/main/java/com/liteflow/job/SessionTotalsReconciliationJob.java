@@ -0,0 +1,61 @@
+package com.liteflow.job;
+
+import com.liteflow.dao.inventory.TableSessionDAO;
+import com.liteflow.util.EnvConfigUtil;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đối chiếu định kỳ tổng tiền cộng dồn trên TableSessions với Orders/OrderDetails.
+ * Tổng được cập nhật ngay khi tạo/hủy order nên job này chỉ là lưới an toàn
+ * (sửa tay trong DB, order bị xóa trực tiếp...). Chu kỳ: LITEFLOW_SESSION_RECONCILE_MINUTES (mặc định 15).
+ */
+public final class SessionTotalsReconciliationJob {
+
+    private static final long INTERVAL_MINUTES = Math.max(1, EnvConfigUtil.getLong("LITEFLOW_SESSION_RECONCILE_MINUTES", 15L));
+
+    private static volatile Map<String, Object> lastRun;
+
+    private SessionTotalsReconciliationJob() {
+    }
+
+    /**
+     * Đăng ký job "session-totals" vào JobScheduler (bật/tắt, đổi lịch qua AlertType JOB_SESSION_TOTALS)
+     */
+    public static void register(JobScheduler scheduler) {
+        scheduler.register("session-totals", "Đối chiếu tổng tiền TableSessions", "JOB_SESSION_TOTALS",
+                TimeUnit.MINUTES.toMillis(INTERVAL_MINUTES), TimeUnit.MINUTES.toMillis(1),
+                JobScheduler.MisfirePolicy.SKIP, SessionTotalsReconciliationJob::runOnce);
+    }
+
+    /**
+     * Chạy một lần đối chiếu và lưu kết quả cho /admin/metrics
+     */
+    public static Map<String, Object> runOnce() {
+        long start = System.currentTimeMillis();
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", LocalDateTime.now().toString());
+        try {
+            run.putAll(new TableSessionDAO().reconcileActiveSessionTotals());
+        } catch (Exception e) {
+            System.err.println("❌ SessionTotalsReconciliationJob error: " + e.getMessage());
+            run.put("error", e.getMessage());
+        }
+        run.put("durationMs", System.currentTimeMillis() - start);
+        lastRun = run;
+        Object drifted = run.get("drifted");
+        if (drifted instanceof Integer && (Integer) drifted > 0) {
+            System.out.println("⚠️ [SessionTotals] " + run);
+        }
+        return run;
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("intervalMinutes", INTERVAL_MINUTES);
+        metrics.put("lastRun", lastRun);
+        return metrics;
+    }
+}
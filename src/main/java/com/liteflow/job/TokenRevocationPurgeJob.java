@@ -0,0 +1,33 @@
+package com.liteflow.job;
+
+import com.liteflow.security.TokenRevocationList;
+import com.liteflow.util.EnvConfigUtil;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dọn các jti đã thu hồi nhưng JWT đã hết hạn khỏi TokenRevocationList mỗi
+ * LITEFLOW_JWT_REVOCATION_PURGE_MINUTES phút (mặc định 60). Danh sách được nạp lúc khởi động bởi TokenRevocationListener.
+ */
+public final class TokenRevocationPurgeJob {
+
+    private static final long PURGE_MINUTES = Math.max(1, EnvConfigUtil.getLong("LITEFLOW_JWT_REVOCATION_PURGE_MINUTES", 60L));
+
+    private TokenRevocationPurgeJob() {
+    }
+
+    /**
+     * Đăng ký job "jwt-revocation-purge" vào JobScheduler (bật/tắt, đổi lịch qua AlertType JOB_JWT_REVOCATION_PURGE)
+     */
+    public static void register(JobScheduler scheduler) {
+        scheduler.register("jwt-revocation-purge", "Dọn JWT đã thu hồi và hết hạn", "JOB_JWT_REVOCATION_PURGE",
+                TimeUnit.MINUTES.toMillis(PURGE_MINUTES), TimeUnit.MINUTES.toMillis(PURGE_MINUTES),
+                JobScheduler.MisfirePolicy.SKIP, TokenRevocationPurgeJob::runOnce);
+    }
+
+    private static void runOnce() {
+        int purged = TokenRevocationList.purgeExpired();
+        if (purged > 0) {
+            System.out.println("🧹 Purged " + purged + " expired revoked JWT ids");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.liteflow.listener;
+
+import com.liteflow.service.alert.AlertCoalescer;
+import com.liteflow.service.alert.AlertDeliveryPipeline;
+import com.liteflow.service.alert.AlertService;
+import com.liteflow.util.EnvConfigUtil;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Khởi động AlertDeliveryPipeline (gửi alert Slack/Telegram bất đồng bộ) khi server chạy, đưa lại các alert
+ * còn PENDING trong LITEFLOW_ALERT_RECOVERY_HOURS giờ gần nhất, và dừng các worker khi undeploy.
+ * AlertCoalescer (gộp / chống lặp cảnh báo) chạy trước pipeline nên được dừng trước để digest còn gom được gửi đi.
+ */
+@WebListener
+public class AlertDeliveryListener implements ServletContextListener {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private AlertDeliveryPipeline pipeline;
+    private AlertCoalescer coalescer;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        pipeline = AlertDeliveryPipeline.fromEnv();
+        pipeline.start();
+        AlertDeliveryPipeline.install(pipeline);
+        try {
+            int recovered = pipeline.recoverPending(EnvConfigUtil.getLong("LITEFLOW_ALERT_RECOVERY_HOURS", 24L));
+            if (recovered > 0) {
+                System.out.println("✅ Re-queued " + recovered + " pending alerts");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to re-queue pending alerts: " + e.getMessage());
+        }
+        System.out.println("🚀 Alert delivery pipeline started " + pipeline.getMetrics());
+
+        AlertService alertService = new AlertService();
+        coalescer = AlertCoalescer.fromEnv(alertService::triggerAlert);
+        coalescer.start();
+        AlertCoalescer.install(coalescer);
+        System.out.println("🚀 Alert coalescer started " + coalescer.getMetrics());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (coalescer != null) {
+            System.out.println("🛑 Flushing coalesced alerts...");
+            AlertCoalescer.install(null);
+            coalescer.shutdown();
+        }
+        if (pipeline != null) {
+            System.out.println("🛑 Stopping alert delivery pipeline...");
+            AlertDeliveryPipeline.install(null);
+            pipeline.shutdown(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+}
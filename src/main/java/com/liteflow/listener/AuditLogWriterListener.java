@@ -0,0 +1,43 @@
+package com.liteflow.listener;
+
+import com.liteflow.service.auth.AuditLogWriter;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Khởi động AuditLogWriter (ghi AuditLog bất đồng bộ theo lô) khi server chạy, nạp lại file spill còn sót,
+ * và ghi nốt hàng đợi khi undeploy (trước khi PersistenceLifecycleListener đóng EntityManagerFactory).
+ */
+@WebListener
+public class AuditLogWriterListener implements ServletContextListener {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private AuditLogWriter writer;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        writer = AuditLogWriter.fromEnv();
+        try {
+            int replayed = writer.replaySpillFile();
+            if (replayed > 0) {
+                System.out.println("✅ Replayed " + replayed + " spilled audit logs");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to replay audit spill file: " + e.getMessage());
+        }
+        writer.start();
+        AuditLogWriter.install(writer);
+        System.out.println("🚀 Audit log writer started " + writer.getMetrics());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (writer != null) {
+            System.out.println("🛑 Flushing audit log queue...");
+            writer.shutdown(SHUTDOWN_TIMEOUT_MS);
+            AuditLogWriter.install(null);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.liteflow.listener;
+
+import com.liteflow.service.alert.AlertService;
+import com.liteflow.service.alert.POAlertTracker;
+import com.liteflow.service.event.DomainEventBus;
+import com.liteflow.service.procurement.PurchaseOrderEvent;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Khởi động DomainEventBus và POAlertTracker (cảnh báo PO chờ duyệt / quá hạn theo sự kiện và hạn chót),
+ * nạp hạn chót của các PO đang chờ giao, và dừng khi undeploy. Bus được dừng sau tracker để xử lý nốt sự kiện.
+ */
+@WebListener
+public class DomainEventListener implements ServletContextListener {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private DomainEventBus bus;
+    private POAlertTracker tracker;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        bus = DomainEventBus.fromEnv();
+        tracker = POAlertTracker.fromEnv(new AlertService());
+        bus.subscribe(PurchaseOrderEvent.class, tracker::onEvent);
+        bus.start();
+        DomainEventBus.install(bus);
+
+        try {
+            int armed = tracker.armFromDatabase();
+            System.out.println("✅ Tracking delivery deadlines of " + armed + " approved POs");
+        } catch (Exception e) {
+            System.err.println("❌ Failed to load PO delivery deadlines: " + e.getMessage());
+        }
+        tracker.start();
+        POAlertTracker.install(tracker);
+        System.out.println("🚀 Domain event bus started " + bus.getMetrics());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (tracker != null) {
+            System.out.println("🛑 Stopping PO deadline tracker...");
+            POAlertTracker.install(null);
+            tracker.shutdown();
+        }
+        if (bus != null) {
+            System.out.println("🛑 Stopping domain event bus...");
+            DomainEventBus.install(null);
+            bus.shutdown(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.liteflow.listener;
+
+import com.liteflow.dao.alert.AlertConfigurationDAO;
+import com.liteflow.job.JobScheduler;
+import com.liteflow.job.NotificationUsageFlushJob;
+import com.liteflow.job.ProcurementAlertJob;
+import com.liteflow.job.ReservationOverdueJob;
+import com.liteflow.job.SalesRollupBackfillJob;
+import com.liteflow.job.SessionTotalsReconciliationJob;
+import com.liteflow.job.TokenRevocationPurgeJob;
+import com.liteflow.model.alert.AlertConfiguration;
+import com.liteflow.service.alert.AlertSchedulerService;
+import com.liteflow.util.EnvConfigUtil;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đăng ký mọi job định kỳ vào JobScheduler và khởi động khi server chạy, dừng khi undeploy.
+ * Job "config-refresh" đọc lại AlertConfigurations mỗi LITEFLOW_SCHEDULER_CONFIG_REFRESH_SECONDS giây để bật/tắt
+ * và đổi lịch các job gắn AlertType.
+ */
+@WebListener
+public class JobSchedulerListener implements ServletContextListener {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private JobScheduler scheduler;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        try {
+            JobScheduler jobs = JobScheduler.fromEnv();
+            new AlertSchedulerService().registerJobs(jobs);
+            ReservationOverdueJob.register(jobs);
+            ProcurementAlertJob.register(jobs);
+            SalesRollupBackfillJob.register(jobs);
+            SessionTotalsReconciliationJob.register(jobs);
+            TokenRevocationPurgeJob.register(jobs);
+            NotificationUsageFlushJob.register(jobs);
+            jobs.register("config-refresh", "Đọc lại AlertConfigurations cho các job", null,
+                    TimeUnit.SECONDS.toMillis(Math.max(1, EnvConfigUtil.getLong("LITEFLOW_SCHEDULER_CONFIG_REFRESH_SECONDS", 60L))),
+                    0, JobScheduler.MisfirePolicy.SKIP, jobs::refreshFromConfig);
+            jobs.start(loadConfigurations());
+            JobScheduler.install(jobs);
+            scheduler = jobs;
+            System.out.println("🚀 Job scheduler started " + jobs.getMetrics());
+        } catch (Exception e) {
+            System.err.println("❌ Failed to start job scheduler: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private List<AlertConfiguration> loadConfigurations() {
+        try {
+            return new AlertConfigurationDAO().getAll();
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to load alert configurations, jobs use default schedules: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (scheduler != null) {
+            System.out.println("🛑 Stopping job scheduler...");
+            JobScheduler.install(null);
+            scheduler.shutdown(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+}
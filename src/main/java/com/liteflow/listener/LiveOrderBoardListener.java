@@ -0,0 +1,53 @@
+package com.liteflow.listener;
+
+import com.liteflow.dao.inventory.LiveOrderBoard;
+import com.liteflow.util.EnvConfigUtil;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nạp LiveOrderBoard khi server khởi động (trên thread nền, trong lúc chờ thì OrderDAO đọc DB)
+ * và đối chiếu với DB mỗi LITEFLOW_ORDER_BOARD_VERIFY_MINUTES phút (mặc định 5).
+ */
+@WebListener
+public class LiveOrderBoardListener implements ServletContextListener {
+
+    private static final long VERIFY_MINUTES = Math.max(1, EnvConfigUtil.getLong("LITEFLOW_ORDER_BOARD_VERIFY_MINUTES", 5L));
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        System.out.println("🚀 Initializing Live Order Board (verify every " + VERIFY_MINUTES + " min)...");
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-order-board");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(() -> {
+            try {
+                LiveOrderBoard.reload();
+            } catch (Exception e) {
+                System.err.println("❌ Failed to load Live Order Board (reads fall back to DB): " + e.getMessage());
+            }
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                LiveOrderBoard.verifyAgainstDatabase();
+            } catch (Exception e) {
+                System.err.println("❌ Live Order Board verify failed: " + e.getMessage());
+            }
+        }, VERIFY_MINUTES, VERIFY_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.liteflow.listener;
+
+import com.liteflow.service.alert.ChannelUsageTracker;
+import com.liteflow.service.alert.NotificationHttpClient;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Khi undeploy ghi nốt usage NotificationChannel còn lại (ChannelUsageTracker, ghi định kỳ bởi job
+ * "notification-usage-flush" của JobScheduler) và đóng HTTP client dùng chung của các kênh thông báo.
+ */
+@WebListener
+public class NotificationUsageListener implements ServletContextListener {
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        System.out.println("🛑 Flushing notification channel usage...");
+        ChannelUsageTracker.shutdown();
+        NotificationHttpClient.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.liteflow.listener;
+
+import com.liteflow.dao.BaseDAO;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+
+/**
+ * Listener đóng EntityManagerFactory (và connection pool phía sau) khi undeploy.
+ * Khai báo trong web.xml (không dùng @WebListener) để chạy contextDestroyed sau cùng,
+ * sau khi các listener khác đã dừng job và flush dữ liệu xuống DB.
+ */
+public class PersistenceLifecycleListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        if (BaseDAO.emf == null) {
+            System.err.println("❌ EntityManagerFactory is not available - database features disabled");
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        System.out.println("🛑 Closing EntityManagerFactory...");
+        try {
+            if (BaseDAO.emf != null && BaseDAO.emf.isOpen()) {
+                BaseDAO.emf.close();
+            }
+            System.out.println("✅ EntityManagerFactory closed");
+        } catch (Exception e) {
+            System.err.println("❌ Error closing EntityManagerFactory: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.liteflow.listener;
+
+import com.liteflow.security.TokenRevocationList;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Nạp danh sách JWT đã thu hồi (UserSessions.Revoked) khi server khởi động. Các jti đã hết hạn được dọn
+ * định kỳ bởi job "jwt-revocation-purge" (TokenRevocationPurgeJob) của JobScheduler.
+ */
+@WebListener
+public class TokenRevocationListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        try {
+            int loaded = TokenRevocationList.loadFromDatabase();
+            System.out.println("✅ Loaded " + loaded + " revoked JWT ids");
+        } catch (Exception e) {
+            System.err.println("❌ Failed to load revoked JWT ids: " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.liteflow.model.ai;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -10,6 +12,8 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "AIAgentConfigurations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "config.AIAgentConfiguration")
 public class AIAgentConfiguration {
     
     @Id
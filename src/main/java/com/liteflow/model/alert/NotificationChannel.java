@@ -321,6 +321,18 @@ public class NotificationChannel {
         this.lastUsed = LocalDateTime.now();
     }
     
+    /**
+     * Ghi usage đã cộng dồn trong bộ nhớ (ChannelUsageTracker.flush)
+     */
+    public void applyUsage(int requests, LocalDateTime usedAt, String errorMessage) {
+        resetRateLimitIfNeeded();
+        currentHourRequests += requests;
+        if (usedAt != null) {
+            this.lastUsed = usedAt;
+        }
+        this.lastError = errorMessage;
+    }
+    
     @Override
     public String toString() {
         return "NotificationChannel{" +
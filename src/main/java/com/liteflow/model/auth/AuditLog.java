@@ -44,7 +44,10 @@ public class AuditLog implements Serializable {
         if (auditID == null) {
             auditID = UUID.randomUUID();
         }
-        createdAt = new Date();
+        // Ghi bất đồng bộ: giữ thời điểm phát sinh sự kiện thay vì thời điểm insert
+        if (createdAt == null) {
+            createdAt = new Date();
+        }
     }
 
     // Getters & Setters
@@ -107,4 +110,8 @@ public class AuditLog implements Serializable {
     public Date getCreatedAt() {
         return createdAt;
     }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
 }
@@ -1,6 +1,8 @@
 package com.liteflow.model.auth;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
@@ -10,6 +12,8 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "Roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "auth.Role")
 public class Role {
 
     @Id
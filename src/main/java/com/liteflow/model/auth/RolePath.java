@@ -0,0 +1,64 @@
+package com.liteflow.model.auth;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * RolePath: Tiền tố đường dẫn mà một Role được truy cập (bổ sung cho các quyền mặc định trong PathAuthorizer).
+ */
+@Entity
+@Table(name = "RolePaths")
+@IdClass(RolePathId.class)
+public class RolePath implements Serializable {
+
+    @Id
+    @Column(name = "RoleID", nullable = false)
+    private UUID roleId;
+
+    @Id
+    @Column(name = "PathPrefix", nullable = false, length = 200)
+    private String pathPrefix;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "RoleID", insertable = false, updatable = false)
+    private Role role;
+
+    // ==========================
+    // Constructors
+    // ==========================
+    public RolePath() {
+    }
+
+    public RolePath(UUID roleId, String pathPrefix) {
+        this.roleId = roleId;
+        this.pathPrefix = pathPrefix;
+    }
+
+    // ==========================
+    // Getters & Setters
+    // ==========================
+    public UUID getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(UUID roleId) {
+        this.roleId = roleId;
+    }
+
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    public void setPathPrefix(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+}
@@ -0,0 +1,56 @@
+package com.liteflow.model.auth;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * RolePathId: Composite key cho RolePath.
+ */
+public class RolePathId implements Serializable {
+
+    private UUID roleId;
+    private String pathPrefix;
+
+    public RolePathId() {
+    }
+
+    public RolePathId(UUID roleId, String pathPrefix) {
+        this.roleId = roleId;
+        this.pathPrefix = pathPrefix;
+    }
+
+    // Getters & Setters
+    public UUID getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(UUID roleId) {
+        this.roleId = roleId;
+    }
+
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    public void setPathPrefix(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RolePathId)) {
+            return false;
+        }
+        RolePathId that = (RolePathId) o;
+        return Objects.equals(roleId, that.roleId) && Objects.equals(pathPrefix, that.pathPrefix);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(roleId, pathPrefix);
+    }
+}
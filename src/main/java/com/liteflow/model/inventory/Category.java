@@ -1,6 +1,8 @@
 package com.liteflow.model.inventory;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,6 +13,8 @@ import java.util.UUID;
  */
 @Entity
 @jakarta.persistence.Table(name = "Categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.Category")
 public class Category implements Serializable {
 
     @Id
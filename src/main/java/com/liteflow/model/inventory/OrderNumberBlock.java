@@ -0,0 +1,63 @@
+package com.liteflow.model.inventory;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * OrderNumberBlock: bộ đếm hi/lo cho số đơn hàng theo từng ngày.
+ * NextValue là số thứ tự đầu tiên chưa được JVM nào giữ trong ngày BusinessDate.
+ */
+@Entity
+@jakarta.persistence.Table(name = "OrderNumberBlocks")
+public class OrderNumberBlock implements Serializable {
+
+    @Id
+    @Column(name = "BusinessDate")
+    private LocalDate businessDate;
+
+    @Column(name = "NextValue", nullable = false)
+    private Integer nextValue = 1;
+
+    @Column(name = "UpdatedAt")
+    private LocalDateTime updatedAt;
+
+    public OrderNumberBlock() {
+    }
+
+    public OrderNumberBlock(LocalDate businessDate, Integer nextValue) {
+        this.businessDate = businessDate;
+        this.nextValue = nextValue;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+
+    public void setBusinessDate(LocalDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    public Integer getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(Integer nextValue) {
+        this.nextValue = nextValue;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,6 +1,8 @@
 package com.liteflow.model.inventory;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.util.UUID;
 
@@ -9,6 +11,8 @@ import java.util.UUID;
  */
 @Entity
 @jakarta.persistence.Table(name = "ProductsCategories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.ProductCategory")
 public class ProductCategory implements Serializable {
 
     @Id
@@ -1,6 +1,8 @@
 package com.liteflow.model.inventory;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,6 +15,8 @@ import java.util.UUID;
  */
 @Entity
 @jakarta.persistence.Table(name = "ProductVariant")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog.ProductVariant")
 public class ProductVariant implements Serializable {
 
     @Id
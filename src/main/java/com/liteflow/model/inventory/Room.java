@@ -1,6 +1,8 @@
 package com.liteflow.model.inventory;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,6 +14,8 @@ import java.util.UUID;
  */
 @Entity
 @jakarta.persistence.Table(name = "Rooms")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "floor.Room")
 public class Room implements Serializable {
 
     @Id
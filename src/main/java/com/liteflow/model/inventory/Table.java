@@ -5,11 +5,15 @@
 package com.liteflow.model.inventory;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.*;
 import java.time.LocalDateTime;
 
 @Entity
 @jakarta.persistence.Table(name = "Tables")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "floor.Table")
 public class Table {
 
     @Id
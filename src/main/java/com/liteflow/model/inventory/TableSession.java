@@ -42,6 +42,21 @@ public class TableSession implements Serializable {
     @Column(name = "TotalAmount", precision = 10, scale = 2)
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
+    // Tổng cộng dồn của các order chưa hủy, cập nhật cùng transaction với order (xem addOrderTotals)
+    @Column(name = "SubTotal", precision = 10, scale = 2)
+    private BigDecimal subTotal = BigDecimal.ZERO;
+
+    @Column(name = "VAT", precision = 10, scale = 2)
+    private BigDecimal vat = BigDecimal.ZERO;
+
+    @Column(name = "ItemCount")
+    private Integer itemCount = 0;
+
+    // Optimistic lock: hai cashier cùng ghi vào một phiên sẽ bị phát hiện khi commit
+    @Version
+    @Column(name = "Version")
+    private Integer version;
+
     @Column(name = "PaymentMethod", length = 50)
     private String paymentMethod;
 
@@ -96,6 +111,33 @@ public class TableSession implements Serializable {
         }
     }
 
+    /**
+     * Cộng tổng tiền và số món của order vào phiên (order mới hoặc order được khôi phục)
+     */
+    public void addOrderTotals(Order order) {
+        applyOrderTotals(order, 1);
+    }
+
+    /**
+     * Trừ tổng tiền và số món của order khỏi phiên (order bị hủy)
+     */
+    public void subtractOrderTotals(Order order) {
+        applyOrderTotals(order, -1);
+    }
+
+    private void applyOrderTotals(Order order, int sign) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        subTotal = nz(subTotal).add(nz(order.getSubTotal()).multiply(factor));
+        vat = nz(vat).add(nz(order.getVat()).multiply(factor));
+        totalAmount = nz(totalAmount).add(nz(order.getTotalAmount()).multiply(factor));
+        int items = order.getOrderDetails() != null ? order.getOrderDetails().size() : 0;
+        itemCount = (itemCount != null ? itemCount : 0) + sign * items;
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
     public boolean isActive() {
         return "Active".equals(status);
     }
@@ -173,6 +215,34 @@ public class TableSession implements Serializable {
         this.totalAmount = totalAmount;
     }
 
+    public BigDecimal getSubTotal() {
+        return subTotal;
+    }
+
+    public void setSubTotal(BigDecimal subTotal) {
+        this.subTotal = subTotal;
+    }
+
+    public BigDecimal getVat() {
+        return vat;
+    }
+
+    public void setVat(BigDecimal vat) {
+        this.vat = vat;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Integer itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
     public String getPaymentMethod() {
         return paymentMethod;
     }
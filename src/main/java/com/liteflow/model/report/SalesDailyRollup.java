@@ -0,0 +1,78 @@
+package com.liteflow.model.report;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * SalesDailyRollup: Doanh thu và số đơn đã thanh toán theo ngày (theo Orders.OrderDate).
+ * Mỗi ngày đã được dựng đều có một dòng, kể cả ngày không bán được (0).
+ */
+@Entity
+@Table(name = "SalesDailyRollup")
+public class SalesDailyRollup implements Serializable {
+
+    @Id
+    @Column(name = "SalesDate", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "Revenue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "OrderCount", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "UpdatedAt")
+    private LocalDateTime updatedAt;
+
+    // ==========================
+    // Constructors
+    // ==========================
+    public SalesDailyRollup() {
+    }
+
+    public SalesDailyRollup(LocalDate salesDate, BigDecimal revenue, Long orderCount) {
+        this.salesDate = salesDate;
+        this.revenue = revenue;
+        this.orderCount = orderCount;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // ==========================
+    // Getters & Setters
+    // ==========================
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,64 @@
+package com.liteflow.model.report;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * SalesHourlyRollup: Doanh thu và số đơn đã thanh toán theo giờ, key là đầu giờ (vd. 2025-01-31T14:00).
+ * Chỉ có dòng cho giờ có đơn.
+ */
+@Entity
+@Table(name = "SalesHourlyRollup")
+public class SalesHourlyRollup implements Serializable {
+
+    @Id
+    @Column(name = "BucketStart", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "Revenue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "OrderCount", nullable = false)
+    private Long orderCount = 0L;
+
+    // ==========================
+    // Constructors
+    // ==========================
+    public SalesHourlyRollup() {
+    }
+
+    public SalesHourlyRollup(LocalDateTime bucketStart, BigDecimal revenue, Long orderCount) {
+        this.bucketStart = bucketStart;
+        this.revenue = revenue;
+        this.orderCount = orderCount;
+    }
+
+    // ==========================
+    // Getters & Setters
+    // ==========================
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
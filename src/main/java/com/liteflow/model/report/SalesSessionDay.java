@@ -0,0 +1,54 @@
+package com.liteflow.model.report;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * SalesSessionDay: Phiên (khách) có đơn đã thanh toán trong ngày.
+ * Số khách của một khoảng là COUNT(DISTINCT SessionID), phiên qua đêm vẫn chỉ tính một lần.
+ */
+@Entity
+@Table(name = "SalesDailySessions")
+@IdClass(SalesSessionDayId.class)
+public class SalesSessionDay implements Serializable {
+
+    @Id
+    @Column(name = "SalesDate", nullable = false)
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "SessionID", nullable = false)
+    private UUID sessionId;
+
+    // ==========================
+    // Constructors
+    // ==========================
+    public SalesSessionDay() {
+    }
+
+    public SalesSessionDay(LocalDate salesDate, UUID sessionId) {
+        this.salesDate = salesDate;
+        this.sessionId = sessionId;
+    }
+
+    // ==========================
+    // Getters & Setters
+    // ==========================
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+}
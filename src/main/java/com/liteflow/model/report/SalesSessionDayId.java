@@ -0,0 +1,57 @@
+package com.liteflow.model.report;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * SalesSessionDayId: Composite key cho SalesSessionDay.
+ */
+public class SalesSessionDayId implements Serializable {
+
+    private LocalDate salesDate;
+    private UUID sessionId;
+
+    public SalesSessionDayId() {
+    }
+
+    public SalesSessionDayId(LocalDate salesDate, UUID sessionId) {
+        this.salesDate = salesDate;
+        this.sessionId = sessionId;
+    }
+
+    // Getters & Setters
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SalesSessionDayId)) {
+            return false;
+        }
+        SalesSessionDayId that = (SalesSessionDayId) o;
+        return Objects.equals(salesDate, that.salesDate) && Objects.equals(sessionId, that.sessionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(salesDate, sessionId);
+    }
+}
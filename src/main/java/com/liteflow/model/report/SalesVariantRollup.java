@@ -0,0 +1,90 @@
+package com.liteflow.model.report;
+
+import com.liteflow.model.inventory.ProductVariant;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * SalesVariantRollup: Số lượng và doanh thu (OrderDetails.TotalPrice) theo ngày và biến thể sản phẩm.
+ * Sản phẩm, danh mục và giá vốn được join lúc đọc nên luôn theo dữ liệu hiện tại như query gốc.
+ */
+@Entity
+@Table(name = "SalesVariantDailyRollup")
+@IdClass(SalesVariantRollupId.class)
+public class SalesVariantRollup implements Serializable {
+
+    @Id
+    @Column(name = "SalesDate", nullable = false)
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "ProductVariantID", nullable = false)
+    private UUID productVariantId;
+
+    // Dữ liệu dẫn xuất, dựng lại được nên không ràng buộc khóa ngoại
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ProductVariantID", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private ProductVariant productVariant;
+
+    @Column(name = "Quantity", nullable = false)
+    private Long quantity = 0L;
+
+    @Column(name = "Revenue", precision = 18, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // ==========================
+    // Constructors
+    // ==========================
+    public SalesVariantRollup() {
+    }
+
+    public SalesVariantRollup(LocalDate salesDate, UUID productVariantId, Long quantity, BigDecimal revenue) {
+        this.salesDate = salesDate;
+        this.productVariantId = productVariantId;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    // ==========================
+    // Getters & Setters
+    // ==========================
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public UUID getProductVariantId() {
+        return productVariantId;
+    }
+
+    public void setProductVariantId(UUID productVariantId) {
+        this.productVariantId = productVariantId;
+    }
+
+    public ProductVariant getProductVariant() {
+        return productVariant;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,57 @@
+package com.liteflow.model.report;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * SalesVariantRollupId: Composite key cho SalesVariantRollup.
+ */
+public class SalesVariantRollupId implements Serializable {
+
+    private LocalDate salesDate;
+    private UUID productVariantId;
+
+    public SalesVariantRollupId() {
+    }
+
+    public SalesVariantRollupId(LocalDate salesDate, UUID productVariantId) {
+        this.salesDate = salesDate;
+        this.productVariantId = productVariantId;
+    }
+
+    // Getters & Setters
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public UUID getProductVariantId() {
+        return productVariantId;
+    }
+
+    public void setProductVariantId(UUID productVariantId) {
+        this.productVariantId = productVariantId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SalesVariantRollupId)) {
+            return false;
+        }
+        SalesVariantRollupId that = (SalesVariantRollupId) o;
+        return Objects.equals(salesDate, that.salesDate) && Objects.equals(productVariantId, that.productVariantId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(salesDate, productVariantId);
+    }
+}
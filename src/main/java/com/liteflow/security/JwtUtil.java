@@ -1,5 +1,6 @@
 package com.liteflow.security;
 
+import com.liteflow.util.EnvConfigUtil;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 
@@ -11,7 +12,11 @@ import java.util.Arrays;
 /**
  * JwtUtil: - Subject = userId (UUID string) - Claim "roles" luôn là
  * List<String>
- * - Có jti, iat, exp
+ * - Có jti, iat, exp, header kid (key id)
+ * - Parser dựng sẵn một lần (thread-safe), chọn key theo kid để xoay vòng secret:
+ *   LITEFLOW_JWT_SECRET / LITEFLOW_JWT_KEY_ID là key ký hiện tại, LITEFLOW_JWT_PREVIOUS_KEYS
+ *   ("kid:secret,kid:secret") chỉ dùng để xác thực token cũ. Token không có kid dùng key hiện tại.
+ * - Token có jti nằm trong TokenRevocationList bị từ chối mà không cần đọc DB
  */
 public final class JwtUtil {
 
@@ -19,14 +24,53 @@ public final class JwtUtil {
             = "5DfF9vP1hZbH9Y87Uqx8UJZz2mJbn7c0U8U9jV9p3wJZoE4u4eItD0FQkg4T6x2k";
     private static final long DEFAULT_TTL_SECONDS = 15 * 60;
 
+    private static final String KEY_ID;
     private static final Key KEY;
+    private static final Map<String, Key> VERIFY_KEYS = new HashMap<>();
+    private static final JwtParser PARSER;
 
     static {
         String s = System.getenv("LITEFLOW_JWT_SECRET");
         if (s == null || s.length() < 32) {
             s = System.getProperty("LITEFLOW_JWT_SECRET", DEFAULT_SECRET);
         }
+        KEY_ID = EnvConfigUtil.get("LITEFLOW_JWT_KEY_ID", "k1");
         KEY = Keys.hmacShaKeyFor(s.getBytes());
+        VERIFY_KEYS.put(KEY_ID, KEY);
+
+        String previous = EnvConfigUtil.get("LITEFLOW_JWT_PREVIOUS_KEYS", "");
+        for (String entry : previous.split(",")) {
+            int sep = entry.indexOf(':');
+            if (sep <= 0) {
+                continue;
+            }
+            String kid = entry.substring(0, sep).trim();
+            String secret = entry.substring(sep + 1).trim();
+            if (secret.length() < 32 || VERIFY_KEYS.containsKey(kid)) {
+                System.err.println("⚠️ [JwtUtil] Ignoring previous JWT key '" + kid + "' (duplicate or shorter than 32 chars)");
+                continue;
+            }
+            VERIFY_KEYS.put(kid, Keys.hmacShaKeyFor(secret.getBytes()));
+        }
+
+        PARSER = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 khai báo tham số là JwsHeader raw, JwsHeader<?> không override được
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        String kid = header.getKeyId();
+                        if (kid == null) {
+                            return KEY;
+                        }
+                        Key key = VERIFY_KEYS.get(kid);
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+                        }
+                        return key;
+                    }
+                })
+                .build();
     }
 
     private JwtUtil() {
@@ -37,11 +81,7 @@ public final class JwtUtil {
             long ttlSeconds,
             Map<String, Object> claims) {
         Instant now = Instant.now();
-        JwtBuilder b = Jwts.builder()
-                .setSubject(subject)
-                .setId(UUID.randomUUID().toString())
-                .setIssuedAt(Date.from(now))
-                .signWith(KEY, SignatureAlgorithm.HS256);
+        JwtBuilder b = newBuilder(subject, now);
 
         if (claims != null && !claims.isEmpty()) {
             b.addClaims(claims);
@@ -54,11 +94,45 @@ public final class JwtUtil {
         return b.compact();
     }
 
+    /**
+     * Xác thực chữ ký + hạn và kiểm tra jti chưa bị thu hồi.
+     *
+     * @throws RevokedJwtException nếu token đã bị thu hồi
+     */
     public static Jws<Claims> parse(String jwt) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey(KEY)
-                .build()
-                .parseClaimsJws(jwt);
+        Jws<Claims> jws = PARSER.parseClaimsJws(jwt);
+        if (TokenRevocationList.isRevoked(jws.getBody().getId())) {
+            throw new RevokedJwtException("JWT has been revoked");
+        }
+        return jws;
+    }
+
+    /**
+     * Thu hồi token (logout / refresh / revoke session): thêm jti vào TokenRevocationList.
+     * Token sai chữ ký hoặc không có jti thì bỏ qua.
+     */
+    public static void revoke(String jwt) {
+        Claims claims = readVerifiedClaims(jwt);
+        if (claims != null && claims.getId() != null) {
+            Date exp = claims.getExpiration();
+            TokenRevocationList.revoke(claims.getId(), exp != null ? exp.getTime() / 1000 : 0L);
+        }
+    }
+
+    /**
+     * Claims của token đã xác thực chữ ký, kể cả khi đã hết hạn hoặc bị thu hồi (null nếu không hợp lệ)
+     */
+    public static Claims readVerifiedClaims(String jwt) {
+        if (jwt == null || jwt.isBlank()) {
+            return null;
+        }
+        try {
+            return PARSER.parseClaimsJws(jwt).getBody();
+        } catch (ExpiredJwtException e) {
+            return e.getClaims();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
     public static UserContext parseToUserContext(String jwt) throws JwtException {
@@ -126,11 +200,7 @@ public final class JwtUtil {
             ttlSeconds = 900; // ✅ mặc định 15 phút
         }
 
-        JwtBuilder builder = Jwts.builder()
-                .setSubject(subject)
-                .setId(UUID.randomUUID().toString()) // ✅ jti để revoke
-                .setIssuedAt(Date.from(now))
-                .signWith(KEY, SignatureAlgorithm.HS256);
+        JwtBuilder builder = newBuilder(subject, now);
 
         if (claims != null) {
             builder.addClaims(claims);
@@ -142,4 +212,24 @@ public final class JwtUtil {
         return builder.compact();
     }
 
+    /**
+     * Builder đã gắn subject, jti (để revoke), iat, kid và key ký hiện tại
+     */
+    private static JwtBuilder newBuilder(String subject, Instant now) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, KEY_ID)
+                .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(Date.from(now))
+                .signWith(KEY, SignatureAlgorithm.HS256);
+    }
+
+    /**
+     * Token hợp lệ nhưng jti đã bị thu hồi
+     */
+    public static class RevokedJwtException extends JwtException {
+        public RevokedJwtException(String message) {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package com.liteflow.security;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.util.EnvConfigUtil;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phân quyền theo tiền tố đường dẫn cho AuthenticationFilter.
+ *
+ * Quyền Role -> tiền tố (mặc định bên dưới + bảng RolePaths) được biên dịch một lần thành trie theo ký tự
+ * (không phân biệt hoa thường). Mỗi path chỉ đi qua trie một lần, kết quả (tập role được phép) được cache,
+ * nên request sau chỉ còn một lần tra map. reload() đọc lại RolePaths và thay bộ quy tắc mới mà không cần redeploy.
+ *
+ * So khớp giữ nguyên cách cũ: path.toLowerCase().startsWith(prefix.toLowerCase()), Owner/Admin được phép mọi path.
+ */
+public final class PathAuthorizer {
+
+    private static final Map<String, Set<String>> DEFAULT_RULES = new HashMap<>();
+
+    static {
+        DEFAULT_RULES.put("Cashier", new HashSet<>(Arrays.asList("/pos", "/sales", "/cart", "/checkout")));
+        DEFAULT_RULES.put("Inventory Manager", new HashSet<>(Arrays.asList("/inventory", "/products", "/stock", "/purchaseOrders")));
+        DEFAULT_RULES.put("Procurement Officer", new HashSet<>(Arrays.asList("/purchaseOrders", "/suppliers", "/invoices")));
+        DEFAULT_RULES.put("HR Officer", new HashSet<>(Arrays.asList("/employees", "/payroll", "/timesheets", "/leaveRequests")));
+        // Allow employees to access their own user pages and dashboard
+        DEFAULT_RULES.put("Employee", new HashSet<>(Arrays.asList(
+                "/dashboard",
+                "/schedule",
+                "/user/profile",
+                "/user/timesheet",
+                "/user/payroll",
+                "/api/notices"  // Employee có thể xem thông báo
+        )));
+        DEFAULT_RULES.put("Admin", new HashSet<>(Arrays.asList(
+                "/*",
+                "/api/send-notification",  // Admin có thể gửi thông báo
+                "/api/notices"  // Admin có thể xem thông báo
+        ))); // full quyền
+
+        // ============================================================
+        // 🆕 PHÂN QUYỀN MODULE PROCUREMENT (THÊM MỚI)
+        // ============================================================
+        // Cho phép truy cập các đường dẫn trong module Procurement:
+        // /procurement/supplier, /procurement/po, /procurement/gr ...
+        Set<String> procurementPaths = new HashSet<>(Arrays.asList(
+                "/procurement",
+                "/procurement/dashboard",
+                "/procurement/supplier",
+                "/procurement/po",
+                "/procurement/gr"
+        ));
+
+        List<String> targetRoles = Arrays.asList("Procurement Officer", "Inventory Manager", "Owner", "Admin");
+
+        for (String role : targetRoles) {
+            Set<String> funcs = new HashSet<>(DEFAULT_RULES.getOrDefault(role, Collections.emptySet()));
+            funcs.addAll(procurementPaths);
+            DEFAULT_RULES.put(role, funcs);
+        }
+    }
+
+    private static final int DECISION_CACHE_MAX = Math.max(100, EnvConfigUtil.getInt("LITEFLOW_AUTH_PATH_CACHE_MAX", 10000));
+
+    private static volatile Rules rules = Rules.compile(DEFAULT_RULES, 0);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static volatile String lastReload;
+
+    private PathAuthorizer() {
+    }
+
+    /**
+     * User có một trong các roles được truy cập path không
+     */
+    public static boolean isAuthorized(List<String> roles, String path) {
+        if (roles == null || roles.isEmpty()) {
+            return false;
+        }
+        for (String role : roles) {
+            if (role.equalsIgnoreCase("owner") || role.equalsIgnoreCase("admin")) {
+                return true;
+            }
+        }
+        Set<String> allowed = allowedRoles(path);
+        for (String role : roles) {
+            if (allowed.contains(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Các role có tiền tố khớp với path
+     */
+    public static Set<String> allowedRoles(String path) {
+        Rules current = rules;
+        Set<String> allowed = current.decisions.get(path);
+        if (allowed != null) {
+            hits.incrementAndGet();
+            return allowed;
+        }
+        misses.incrementAndGet();
+        allowed = current.match(path);
+        if (current.decisions.size() >= DECISION_CACHE_MAX) {
+            // Path có ID (vd. /api/order/table/{id}) làm cache phình ra, xóa và dựng lại dần
+            current.decisions.clear();
+        }
+        current.decisions.put(path, allowed);
+        return allowed;
+    }
+
+    /**
+     * Đọc lại bảng RolePaths, gộp với quyền mặc định và thay bộ quy tắc đang dùng.
+     *
+     * @return số quy tắc đọc từ DB
+     */
+    public static int reload() {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        List<Object[]> rows;
+        try {
+            rows = em.createQuery(
+                    "SELECT r.name, rp.pathPrefix FROM RolePath rp JOIN rp.role r", Object[].class)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+
+        Map<String, Set<String>> merged = new HashMap<>();
+        DEFAULT_RULES.forEach((role, prefixes) -> merged.put(role, new HashSet<>(prefixes)));
+        for (Object[] row : rows) {
+            merged.computeIfAbsent((String) row[0], k -> new HashSet<>()).add((String) row[1]);
+        }
+        rules = Rules.compile(merged, rows.size());
+        lastReload = LocalDateTime.now().toString();
+        System.out.println("✅ Path authorization rules reloaded: " + rows.size() + " from RolePaths");
+        return rows.size();
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Rules current = rules;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("roles", current.ruleCount.size());
+        metrics.put("prefixes", current.ruleCount.values().stream().mapToInt(Integer::intValue).sum());
+        metrics.put("databaseRules", current.databaseRules);
+        metrics.put("cachedPaths", current.decisions.size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("lastReload", lastReload);
+        return metrics;
+    }
+
+    /**
+     * Bộ quy tắc đã biên dịch (bất biến, trừ cache quyết định đi kèm)
+     */
+    private static final class Rules {
+
+        private final Node root = new Node();
+        private final Map<String, Integer> ruleCount = new HashMap<>();
+        private final int databaseRules;
+        private final ConcurrentHashMap<String, Set<String>> decisions = new ConcurrentHashMap<>();
+
+        private Rules(int databaseRules) {
+            this.databaseRules = databaseRules;
+        }
+
+        static Rules compile(Map<String, Set<String>> rolePrefixes, int databaseRules) {
+            Rules compiled = new Rules(databaseRules);
+            rolePrefixes.forEach((role, prefixes) -> {
+                for (String prefix : prefixes) {
+                    Node node = compiled.root;
+                    String lower = prefix.toLowerCase(Locale.ROOT);
+                    for (int i = 0; i < lower.length(); i++) {
+                        node = node.children.computeIfAbsent(lower.charAt(i), k -> new Node());
+                    }
+                    node.roles.add(role);
+                }
+                compiled.ruleCount.put(role, prefixes.size());
+            });
+            return compiled;
+        }
+
+        /**
+         * Gộp role của mọi tiền tố nằm trên đường đi của path trong trie
+         */
+        Set<String> match(String path) {
+            Set<String> allowed = new HashSet<>(root.roles);
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.get(Character.toLowerCase(path.charAt(i)));
+                if (node == null) {
+                    break;
+                }
+                allowed.addAll(node.roles);
+            }
+            return allowed.isEmpty() ? Collections.emptySet() : Set.copyOf(allowed);
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<String> roles = new HashSet<>();
+    }
+}
@@ -0,0 +1,197 @@
+package com.liteflow.security;
+
+import com.liteflow.model.auth.User;
+import com.liteflow.util.EnvConfigUtil;
+import io.jsonwebtoken.Claims;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache principal đã xác thực cho AuthenticationFilter, key theo JWT id (jti) hoặc HTTP session id.
+ *
+ * Mỗi entry giữ user, roles và employeeCode đã đọc từ DB, nên các request lặp lại (cashier / bếp polling)
+ * xác thực mà không chạm DB. Entry hết hạn sau LITEFLOW_AUTH_CACHE_TTL_SECONDS (mặc định 60, không quá hạn của JWT),
+ * tối đa LITEFLOW_AUTH_CACHE_MAX entry (mặc định 5000).
+ *
+ * Bị xóa khi logout (AuthService / LogoutFilter), refresh token, đổi role (UserService / RoleService)
+ * và khóa / sửa user. Lần đọc DB đang chạy khi có invalidate sẽ không được ghi vào cache (stamp).
+ */
+public final class PrincipalCache {
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(
+            Math.max(1, EnvConfigUtil.getLong("LITEFLOW_AUTH_CACHE_TTL_SECONDS", 60L)));
+    private static final int MAX_ENTRIES = Math.max(16, EnvConfigUtil.getInt("LITEFLOW_AUTH_CACHE_MAX", 5000));
+
+    private static final ConcurrentHashMap<String, Principal> entries = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<UUID, Set<String>> keysByUser = new ConcurrentHashMap<>();
+    private static final AtomicLong invalidations = new AtomicLong();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private PrincipalCache() {
+    }
+
+    public static String jwtKey(String jti) {
+        return "jti:" + jti;
+    }
+
+    public static String sessionKey(String sessionId) {
+        return "session:" + sessionId;
+    }
+
+    /**
+     * Principal còn hạn theo key, null nếu không có hoặc login của entry khác loginValue
+     * (session đã đăng nhập lại bằng user khác)
+     */
+    public static Principal get(String key, String loginValue) {
+        Principal principal = entries.get(key);
+        if (principal == null || principal.isExpired(System.nanoTime())
+                || (loginValue != null && !loginValue.equals(principal.loginValue()))) {
+            if (principal != null) {
+                remove(key, principal);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return principal;
+    }
+
+    /**
+     * Gọi trước khi đọc DB, truyền lại cho put() để bỏ kết quả nếu trong lúc đó có invalidate
+     */
+    public static long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Ghi principal vừa đọc từ DB.
+     *
+     * @param notAfterMillis hạn của token (epoch millis), 0 nếu không có
+     */
+    public static Principal put(String key, long stamp, String loginValue, User user, List<String> roles,
+            String employeeCode, long notAfterMillis) {
+        long ttl = TTL_NANOS;
+        if (notAfterMillis > 0) {
+            ttl = Math.min(ttl, TimeUnit.MILLISECONDS.toNanos(notAfterMillis - System.currentTimeMillis()));
+        }
+        Principal principal = new Principal(loginValue, user, List.copyOf(roles),
+                employeeCode, System.nanoTime() + ttl);
+        if (key == null || ttl <= 0 || stamp != invalidations.get()) {
+            return principal;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            evict();
+        }
+        keysByUser.computeIfAbsent(user.getUserID(), k -> ConcurrentHashMap.newKeySet()).add(key);
+        entries.put(key, principal);
+        // invalidate chạy xen giữa kiểm tra stamp và put -> bỏ entry vừa ghi
+        if (stamp != invalidations.get()) {
+            remove(key, principal);
+        }
+        return principal;
+    }
+
+    public static void invalidate(String key) {
+        invalidations.incrementAndGet();
+        Principal principal = entries.remove(key);
+        if (principal != null) {
+            unindex(principal.user().getUserID(), key);
+        }
+    }
+
+    /**
+     * Xóa principal của một JWT (logout / refresh). Token sai chữ ký thì bỏ qua, entry tự hết hạn theo token.
+     */
+    public static void invalidateToken(String jwt) {
+        Claims claims = JwtUtil.readVerifiedClaims(jwt);
+        if (claims != null && claims.getId() != null) {
+            invalidate(jwtKey(claims.getId()));
+        }
+    }
+
+    /**
+     * Xóa mọi principal của user (đổi role, khóa tài khoản, đổi mật khẩu...)
+     */
+    public static void invalidateUser(UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        Set<String> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            for (String key : keys) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    public static void clear() {
+        invalidations.incrementAndGet();
+        entries.clear();
+        keysByUser.clear();
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("entries", entries.size());
+        metrics.put("maxEntries", MAX_ENTRIES);
+        metrics.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(TTL_NANOS));
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+    /**
+     * Đầy: bỏ các entry hết hạn, nếu vẫn đầy thì bỏ bớt bất kỳ cho tới còn 3/4
+     */
+    private static void evict() {
+        long now = System.nanoTime();
+        entries.forEach((key, principal) -> {
+            if (principal.isExpired(now)) {
+                remove(key, principal);
+                evictions.incrementAndGet();
+            }
+        });
+        Iterator<Map.Entry<String, Principal>> it = entries.entrySet().iterator();
+        while (entries.size() > MAX_ENTRIES * 3 / 4 && it.hasNext()) {
+            Map.Entry<String, Principal> entry = it.next();
+            remove(entry.getKey(), entry.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static void remove(String key, Principal principal) {
+        if (entries.remove(key, principal)) {
+            unindex(principal.user().getUserID(), key);
+        }
+    }
+
+    private static void unindex(UUID userId, String key) {
+        keysByUser.computeIfPresent(userId, (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * User (detached), roles và employeeCode đã xác thực
+     */
+    public record Principal(String loginValue, User user, List<String> roles, String employeeCode, long expiresAtNanos) {
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.liteflow.security;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.util.EnvConfigUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Danh sách jti đã bị thu hồi (logout, refresh, revoke session) giữ trong bộ nhớ.
+ *
+ * Bloom filter (LITEFLOW_JWT_REVOCATION_BLOOM_BITS bit, mặc định 2^20) trả lời ngay "chắc chắn chưa thu hồi"
+ * cho gần như mọi request; chỉ khi bloom báo có mới tra tập chính xác (jti -> hạn token) để loại false positive.
+ * Nạp từ UserSessions.Revoked khi khởi động (TokenRevocationListener), các entry hết hạn được dọn định kỳ
+ * và bloom được dựng lại vì bloom filter không xóa được bit.
+ */
+public final class TokenRevocationList {
+
+    private static final int HASHES = 4;
+    private static final int BLOOM_BITS = Integer.highestOneBit(
+            Math.max(1 << 10, EnvConfigUtil.getInt("LITEFLOW_JWT_REVOCATION_BLOOM_BITS", 1 << 20)));
+
+    private static final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>(); // jti -> exp (epoch seconds)
+    private static volatile AtomicLongArray bloom = new AtomicLongArray(BLOOM_BITS / 64);
+    private static final Object writeLock = new Object();
+
+    private static final AtomicLong bloomNegatives = new AtomicLong();
+    private static final AtomicLong exactChecks = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+
+    private TokenRevocationList() {
+    }
+
+    /**
+     * Thu hồi jti cho tới thời điểm hết hạn của token
+     *
+     * @param expiresAtEpochSeconds hạn token, 0 nếu không rõ (giữ tới lần dọn sau 1 ngày)
+     */
+    public static void revoke(String jti, long expiresAtEpochSeconds) {
+        if (jti == null) {
+            return;
+        }
+        long exp = expiresAtEpochSeconds > 0 ? expiresAtEpochSeconds : nowSeconds() + 86_400;
+        synchronized (writeLock) {
+            revoked.put(jti, exp);
+            setBits(bloom, jti);
+        }
+    }
+
+    public static boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (!mightContain(bloom, jti)) {
+            bloomNegatives.incrementAndGet();
+            return false;
+        }
+        exactChecks.incrementAndGet();
+        if (revoked.containsKey(jti)) {
+            rejected.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nạp lại từ các UserSessions đã revoke và chưa hết hạn (jti đọc từ cột JWT)
+     *
+     * @return số jti đã nạp
+     */
+    public static int loadFromDatabase() {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        List<String> tokens;
+        try {
+            tokens = em.createQuery(
+                    "SELECT s.jwt FROM UserSession s WHERE s.revoked = true AND s.expiresAt > :now", String.class)
+                    .setParameter("now", LocalDateTime.now())
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+
+        Map<String, Long> entries = new HashMap<>();
+        for (String token : tokens) {
+            Claims claims = JwtUtil.readVerifiedClaims(token);
+            if (claims != null && claims.getId() != null) {
+                Date exp = claims.getExpiration();
+                entries.put(claims.getId(), exp != null ? exp.getTime() / 1000 : nowSeconds() + 86_400);
+            }
+        }
+        replaceAll(entries);
+        return entries.size();
+    }
+
+    /**
+     * Thay toàn bộ danh sách
+     */
+    public static void replaceAll(Map<String, Long> entries) {
+        synchronized (writeLock) {
+            revoked.clear();
+            revoked.putAll(entries);
+            rebuildBloom();
+        }
+    }
+
+    /**
+     * Bỏ các jti đã hết hạn (token hết hạn thì đằng nào cũng bị từ chối) và dựng lại bloom
+     *
+     * @return số entry đã bỏ
+     */
+    public static int purgeExpired() {
+        long now = nowSeconds();
+        synchronized (writeLock) {
+            int before = revoked.size();
+            revoked.values().removeIf(exp -> exp < now);
+            rebuildBloom();
+            return before - revoked.size();
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("revoked", revoked.size());
+        metrics.put("bloomBits", BLOOM_BITS);
+        metrics.put("bloomNegatives", bloomNegatives.get());
+        metrics.put("exactChecks", exactChecks.get());
+        metrics.put("rejected", rejected.get());
+        return metrics;
+    }
+
+    // guarded by writeLock
+    private static void rebuildBloom() {
+        AtomicLongArray rebuilt = new AtomicLongArray(BLOOM_BITS / 64);
+        for (String jti : revoked.keySet()) {
+            setBits(rebuilt, jti);
+        }
+        bloom = rebuilt;
+    }
+
+    private static void setBits(AtomicLongArray bits, String jti) {
+        long h = hash(jti);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & (BLOOM_BITS - 1);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private static boolean mightContain(AtomicLongArray bits, String jti) {
+        long h = hash(jti);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & (BLOOM_BITS - 1);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash 64 bit (FNV-1a + trộn bit), hai nửa dùng cho double hashing
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
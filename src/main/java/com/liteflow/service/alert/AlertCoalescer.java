@@ -0,0 +1,292 @@
+package com.liteflow.service.alert;
+
+import com.liteflow.util.EnvConfigUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gộp và chống lặp cảnh báo theo (alertType, entity) trước khi lưu AlertHistory.
+ *
+ * - Gộp: cảnh báo đầu tiên của một loại mở một đợt, các cảnh báo cùng loại trong LITEFLOW_ALERT_COALESCE_DELAY_MS ms
+ *   sau đó (vd nhiều biến thể tồn kho thấp sau một lần thanh toán) được gửi chung một digest, chỉ digest được lưu
+ * - Chống lặp: sau khi đã gửi, cùng (alertType, entity) bị bỏ qua trong LITEFLOW_ALERT_DEDUP_WINDOW_MS ms
+ *   (vd PO quá hạn được kiểm tra mỗi phút); số lần bỏ qua được đếm và ghi chú trong digest kế tiếp của entity đó
+ * Khi chưa install (vd trong test) AlertService gửi từng cảnh báo ngay như trước.
+ */
+public final class AlertCoalescer {
+
+    /**
+     * Lưu và gửi một cảnh báo (AlertService.triggerAlert)
+     */
+    public interface Emitter {
+        void emit(String alertType, String title, String message, JSONObject contextData, String priority);
+    }
+
+    private static final List<String> PRIORITY_ORDER = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
+    private static volatile AlertCoalescer current;
+
+    private final Emitter emitter;
+    private final long delayMillis;
+    private final long windowMillis;
+    private final Map<String, Batch> batches = new HashMap<>();
+    /** alertType|entity -> thời điểm gửi gần nhất */
+    private final Map<String, Long> lastEmitted = new HashMap<>();
+    /** alertType|entity -> số lần bị bỏ qua từ lần gửi gần nhất */
+    private final Map<String, Integer> suppressedSinceEmit = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong digests = new AtomicLong();
+    private final AtomicLong emittedEvents = new AtomicLong();
+    private final Map<String, AtomicLong> suppressedByType = new LinkedHashMap<>();
+
+    public AlertCoalescer(Emitter emitter, long delayMillis, long windowMillis) {
+        this.emitter = emitter;
+        this.delayMillis = Math.max(0, delayMillis);
+        this.windowMillis = Math.max(0, windowMillis);
+    }
+
+    /**
+     * Coalescer theo cấu hình LITEFLOW_ALERT_COALESCE_DELAY_MS / LITEFLOW_ALERT_DEDUP_WINDOW_MS trong .env
+     */
+    public static AlertCoalescer fromEnv(Emitter emitter) {
+        return new AlertCoalescer(emitter,
+                EnvConfigUtil.getLong("LITEFLOW_ALERT_COALESCE_DELAY_MS", 5000L),
+                EnvConfigUtil.getLong("LITEFLOW_ALERT_DEDUP_WINDOW_MS", 1800000L));
+    }
+
+    /**
+     * Coalescer đang chạy (null nếu chưa khởi động)
+     */
+    public static AlertCoalescer current() {
+        return current;
+    }
+
+    public static void install(AlertCoalescer coalescer) {
+        current = coalescer;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alert-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Đưa một cảnh báo vào đợt gộp của loại đó
+     *
+     * @param entityKey   khóa đối tượng (variant, PO...) để chống lặp
+     * @param summaryLine một dòng mô tả cảnh báo trong digest
+     * @return false nếu coalescer đã dừng (người gọi tự gửi)
+     */
+    public boolean offer(String alertType, String entityKey, String summaryLine, String title, String message,
+            JSONObject contextData, String priority) {
+        Batch flushNow = null;
+        synchronized (this) {
+            if (scheduler == null) {
+                return false;
+            }
+            offered.incrementAndGet();
+            String key = alertType + "|" + entityKey;
+            Batch batch = batches.get(alertType);
+
+            // Cùng entity đã có trong đợt đang gom: giữ bản mới nhất
+            if (batch != null && batch.events.containsKey(entityKey)) {
+                Event previous = batch.events.get(entityKey);
+                batch.events.put(entityKey, new Event(summaryLine, title, message, contextData, priority,
+                        previous.repeats + 1));
+                merged.incrementAndGet();
+                return true;
+            }
+
+            // Đã gửi trong cửa sổ chống lặp
+            Long emittedAt = lastEmitted.get(key);
+            if (emittedAt != null && System.currentTimeMillis() - emittedAt < windowMillis) {
+                suppressed.incrementAndGet();
+                suppressedByType.computeIfAbsent(alertType, t -> new AtomicLong()).incrementAndGet();
+                suppressedSinceEmit.merge(key, 1, Integer::sum);
+                return true;
+            }
+
+            if (batch == null) {
+                batch = new Batch(alertType);
+                batches.put(alertType, batch);
+                if (delayMillis > 0) {
+                    Batch scheduled = batch;
+                    scheduler.schedule(() -> flush(scheduled), delayMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    flushNow = batch;
+                }
+            }
+            batch.events.put(entityKey, new Event(summaryLine, title, message, contextData, priority, 0));
+        }
+        if (flushNow != null) {
+            flush(flushNow);
+        }
+        return true;
+    }
+
+    /**
+     * Gửi ngay mọi đợt đang gom
+     */
+    public void flushAll() {
+        List<Batch> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(batches.values());
+        }
+        for (Batch batch : pending) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Dừng nhận cảnh báo mới và gửi nốt các đợt đang gom
+     */
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = scheduler;
+            scheduler = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        flushAll();
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", scheduler != null);
+        metrics.put("delayMillis", delayMillis);
+        metrics.put("windowMillis", windowMillis);
+        metrics.put("offered", offered.get());
+        metrics.put("merged", merged.get());
+        metrics.put("suppressed", suppressed.get());
+        metrics.put("digests", digests.get());
+        metrics.put("emittedEvents", emittedEvents.get());
+        Map<String, Long> byType = new LinkedHashMap<>();
+        suppressedByType.forEach((type, count) -> byType.put(type, count.get()));
+        metrics.put("suppressedByType", byType);
+        int pendingEvents = 0;
+        for (Batch batch : batches.values()) {
+            pendingEvents += batch.events.size();
+        }
+        metrics.put("pendingEvents", pendingEvents);
+        metrics.put("trackedEntities", lastEmitted.size());
+        return metrics;
+    }
+
+    private void flush(Batch batch) {
+        Map<String, Event> events;
+        Map<String, Integer> suppressedCounts = new HashMap<>();
+        synchronized (this) {
+            if (batches.get(batch.alertType) != batch) {
+                return;
+            }
+            batches.remove(batch.alertType);
+            events = new LinkedHashMap<>(batch.events);
+            long now = System.currentTimeMillis();
+            for (String entityKey : events.keySet()) {
+                String key = batch.alertType + "|" + entityKey;
+                lastEmitted.put(key, now);
+                Integer count = suppressedSinceEmit.remove(key);
+                if (count != null) {
+                    suppressedCounts.put(entityKey, count);
+                }
+            }
+            // Bỏ các entity đã hết cửa sổ chống lặp
+            Iterator<Map.Entry<String, Long>> it = lastEmitted.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (now - entry.getValue() >= windowMillis && !suppressedSinceEmit.containsKey(entry.getKey())) {
+                    it.remove();
+                }
+            }
+        }
+        digests.incrementAndGet();
+        emittedEvents.addAndGet(events.size());
+        try {
+            emit(batch.alertType, events, suppressedCounts);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to emit coalesced " + batch.alertType + " alert: " + e.getMessage());
+        }
+    }
+
+    private void emit(String alertType, Map<String, Event> events, Map<String, Integer> suppressedCounts) {
+        if (events.size() == 1) {
+            Map.Entry<String, Event> only = events.entrySet().iterator().next();
+            Event event = only.getValue();
+            int repeats = event.repeats + suppressedCounts.getOrDefault(only.getKey(), 0);
+            String message = repeats > 0
+                    ? event.message + "\n\n🔕 Đã gộp " + repeats + " cảnh báo trùng"
+                    : event.message;
+            emitter.emit(alertType, event.title, message, event.contextData, event.priority);
+            return;
+        }
+
+        Event first = events.values().iterator().next();
+        String priority = first.priority;
+        StringBuilder message = new StringBuilder();
+        message.append("**").append(events.size()).append(" cảnh báo trong ")
+               .append(Math.max(1, delayMillis / 1000)).append(" giây:**\n\n");
+        JSONArray items = new JSONArray();
+        int totalRepeats = 0;
+        for (Map.Entry<String, Event> entry : events.entrySet()) {
+            Event event = entry.getValue();
+            int repeats = event.repeats + suppressedCounts.getOrDefault(entry.getKey(), 0);
+            totalRepeats += repeats;
+            message.append("• ").append(event.summaryLine);
+            if (repeats > 0) {
+                message.append(" (+").append(repeats).append(" lần)");
+            }
+            message.append("\n");
+            items.put(event.contextData != null ? event.contextData : new JSONObject());
+            if (PRIORITY_ORDER.indexOf(event.priority) > PRIORITY_ORDER.indexOf(priority)) {
+                priority = event.priority;
+            }
+        }
+        if (totalRepeats > 0) {
+            message.append("\n🔕 Đã gộp ").append(totalRepeats).append(" cảnh báo trùng");
+        }
+
+        JSONObject context = new JSONObject();
+        context.put("coalesced", true);
+        context.put("count", events.size());
+        context.put("suppressed", totalRepeats);
+        context.put("items", items);
+        emitter.emit(alertType, first.title + " (" + events.size() + " mục)", message.toString().trim(), context, priority);
+    }
+
+    private static final class Batch {
+
+        final String alertType;
+        final Map<String, Event> events = new LinkedHashMap<>();
+
+        Batch(String alertType) {
+            this.alertType = alertType;
+        }
+    }
+
+    private record Event(String summaryLine, String title, String message, JSONObject contextData, String priority,
+                         int repeats) {
+    }
+}
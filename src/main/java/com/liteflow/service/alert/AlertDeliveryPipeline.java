@@ -0,0 +1,511 @@
+package com.liteflow.service.alert;
+
+import com.liteflow.dao.alert.AlertConfigurationDAO;
+import com.liteflow.dao.alert.AlertHistoryDAO;
+import com.liteflow.model.alert.AlertConfiguration;
+import com.liteflow.model.alert.AlertHistory;
+import com.liteflow.util.EnvConfigUtil;
+import org.json.JSONObject;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi alert Slack/Telegram bất đồng bộ, tách khỏi AlertService.triggerAlert.
+ *
+ * triggerAlert chỉ lưu AlertHistory ở trạng thái PENDING (in-app hiển thị ngay) rồi submit vào pipeline:
+ * - Bước GPT (tùy chọn, LITEFLOW_ALERT_GPT_ENABLED): một thread "alert-enrich" gọi GPTService rồi mới gửi,
+ *   lỗi / hàng đợi đầy thì gửi message gốc
+ * - Mỗi kênh có pool riêng LITEFLOW_ALERT_CHANNEL_THREADS thread, hàng đợi tối đa LITEFLOW_ALERT_QUEUE_CAPACITY,
+ *   nên webhook chậm của kênh này không giữ kênh kia
+ * - Gửi lỗi thì thử lại sau LITEFLOW_ALERT_RETRY_BASE_MS * 2^(lần-1) (tối đa LITEFLOW_ALERT_RETRY_MAX_MS),
+ *   hết LITEFLOW_ALERT_MAX_ATTEMPTS lần thì kênh đó vào dead letter
+ * - Xong mọi kênh: SENT (tất cả thành công), PARTIAL (một phần) hoặc DEAD_LETTER (không kênh nào gửi được),
+ *   lỗi từng kênh ghi vào ErrorMessage
+ * Alert chưa gửi xong khi dừng server vẫn là PENDING trong DB và được recoverPending() đưa lại khi khởi động.
+ */
+public final class AlertDeliveryPipeline {
+
+    public enum Channel {
+        SLACK, TELEGRAM
+    }
+
+    /**
+     * Gửi một alert qua một kênh (mặc định NotificationService.sendToDefaultSlack / sendToDefaultTelegram)
+     */
+    public interface ChannelSender {
+        boolean send(Channel channel, String title, String message, String priority) throws Exception;
+    }
+
+    /**
+     * Sinh GPT summary cho alert (mặc định GPTService.generateAlertSummary), null nếu không có
+     */
+    public interface Enricher {
+        String summarize(String alertType, JSONObject contextData) throws Exception;
+    }
+
+    private static volatile AlertDeliveryPipeline current;
+
+    private final AlertHistoryDAO alertHistoryDAO = new AlertHistoryDAO();
+    private final ChannelSender sender;
+    private final Enricher enricher;
+    private final int threadsPerChannel;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long retryMaxMillis;
+
+    private final Map<Channel, ThreadPoolExecutor> channelExecutors = new EnumMap<>(Channel.class);
+    private ThreadPoolExecutor enrichExecutor;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong partial = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong enriched = new AtomicLong();
+    private final AtomicLong enrichSkipped = new AtomicLong();
+    private final AtomicLong latencyTotalMillis = new AtomicLong();
+    private final AtomicLong latencyMaxMillis = new AtomicLong();
+    private final Map<Channel, AtomicLong> channelSent = new ConcurrentHashMap<>();
+    private final Map<Channel, AtomicLong> channelDeadLettered = new ConcurrentHashMap<>();
+
+    public AlertDeliveryPipeline(ChannelSender sender, Enricher enricher, int threadsPerChannel, int queueCapacity,
+            int maxAttempts, long retryBaseMillis, long retryMaxMillis) {
+        this.sender = sender;
+        this.enricher = enricher;
+        this.threadsPerChannel = Math.max(1, threadsPerChannel);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseMillis = Math.max(0, retryBaseMillis);
+        this.retryMaxMillis = Math.max(this.retryBaseMillis, retryMaxMillis);
+        for (Channel channel : Channel.values()) {
+            channelSent.put(channel, new AtomicLong());
+            channelDeadLettered.put(channel, new AtomicLong());
+        }
+    }
+
+    /**
+     * Pipeline theo cấu hình LITEFLOW_ALERT_* trong .env, gửi qua NotificationService và GPTService
+     */
+    public static AlertDeliveryPipeline fromEnv() {
+        NotificationService notificationService = new NotificationService();
+        Enricher enricher = null;
+        if (EnvConfigUtil.getBoolean("LITEFLOW_ALERT_GPT_ENABLED", true)) {
+            GPTService gptService = new GPTService();
+            enricher = (alertType, contextData) -> gptService.isAvailable()
+                    ? gptService.generateAlertSummary(alertType, contextData) : null;
+        }
+        return new AlertDeliveryPipeline(
+                defaultSender(notificationService),
+                enricher,
+                EnvConfigUtil.getInt("LITEFLOW_ALERT_CHANNEL_THREADS", 2),
+                EnvConfigUtil.getInt("LITEFLOW_ALERT_QUEUE_CAPACITY", 1000),
+                EnvConfigUtil.getInt("LITEFLOW_ALERT_MAX_ATTEMPTS", 4),
+                EnvConfigUtil.getLong("LITEFLOW_ALERT_RETRY_BASE_MS", 2000L),
+                EnvConfigUtil.getLong("LITEFLOW_ALERT_RETRY_MAX_MS", 60000L));
+    }
+
+    static ChannelSender defaultSender(NotificationService notificationService) {
+        return (channel, title, message, priority) -> channel == Channel.SLACK
+                ? notificationService.sendToDefaultSlack(title, message, priority)
+                : notificationService.sendToDefaultTelegram(title, message, priority);
+    }
+
+    /**
+     * Pipeline đang chạy (null nếu chưa khởi động, khi đó AlertService gửi trực tiếp như trước)
+     */
+    public static AlertDeliveryPipeline current() {
+        return current;
+    }
+
+    public static void install(AlertDeliveryPipeline pipeline) {
+        current = pipeline;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        for (Channel channel : Channel.values()) {
+            channelExecutors.put(channel, newExecutor("alert-" + channel.name().toLowerCase(), threadsPerChannel));
+        }
+        enrichExecutor = newExecutor("alert-enrich", 1);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alert-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+    }
+
+    /**
+     * Đưa alert đã lưu (PENDING) vào pipeline
+     *
+     * @return false nếu pipeline đã dừng (người gọi tự gửi)
+     */
+    public boolean submit(Delivery delivery) {
+        if (!running) {
+            return false;
+        }
+        submitted.incrementAndGet();
+        if (delivery.enrich && enricher != null) {
+            try {
+                enrichExecutor.execute(() -> {
+                    enrich(delivery, enricher, alertHistoryDAO);
+                    enriched.incrementAndGet();
+                    dispatch(delivery);
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                // Hàng đợi GPT đầy: gửi message gốc, không chờ
+                enrichSkipped.incrementAndGet();
+            }
+        }
+        dispatch(delivery);
+        return true;
+    }
+
+    /**
+     * Đưa lại các alert còn PENDING trong DB (server dừng khi chưa gửi xong), gọi sau start()
+     *
+     * @return số alert đã đưa vào pipeline
+     */
+    public int recoverPending(long hours) {
+        AlertConfigurationDAO configDAO = new AlertConfigurationDAO();
+        Map<UUID, AlertConfiguration> configs = new HashMap<>();
+        int recovered = 0;
+        for (AlertHistory alert : alertHistoryDAO.getPendingDeliveries(LocalDateTime.now().minusHours(hours))) {
+            AlertConfiguration config = alert.getAlertID() != null
+                    ? configs.computeIfAbsent(alert.getAlertID(), configDAO::getById) : null;
+            Delivery delivery = Delivery.of(alert, config, null, false);
+            // Kênh đã gửi thành công trước khi dừng không gửi lại
+            if (Boolean.TRUE.equals(alert.getSentToSlack())) {
+                delivery.channels.remove(Channel.SLACK);
+                delivery.results.put(Channel.SLACK, true);
+            }
+            if (Boolean.TRUE.equals(alert.getSentToTelegram())) {
+                delivery.channels.remove(Channel.TELEGRAM);
+                delivery.results.put(Channel.TELEGRAM, true);
+            }
+            delivery.remaining.set(delivery.channels.size());
+            if (submit(delivery)) {
+                recovered++;
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * Dừng nhận alert mới, chờ các lần gửi đang chạy (tối đa timeoutMillis).
+     * Alert còn trong hàng đợi / chờ retry vẫn PENDING trong DB, lần khởi động sau gửi lại.
+     */
+    public void shutdown(long timeoutMillis) {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        retryScheduler.shutdownNow();
+        enrichExecutor.shutdown();
+        for (ThreadPoolExecutor executor : channelExecutors.values()) {
+            executor.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<ThreadPoolExecutor> executors = new ArrayList<>(channelExecutors.values());
+        executors.add(0, enrichExecutor);
+        for (ThreadPoolExecutor executor : executors) {
+            try {
+                long wait = deadline - System.nanoTime();
+                if (wait <= 0 || !executor.awaitTermination(wait, TimeUnit.NANOSECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", running);
+        Map<String, Object> channels = new LinkedHashMap<>();
+        for (Channel channel : Channel.values()) {
+            ThreadPoolExecutor executor = channelExecutors.get(channel);
+            Map<String, Object> c = new LinkedHashMap<>();
+            c.put("queueDepth", executor != null ? executor.getQueue().size() : 0);
+            c.put("active", executor != null ? executor.getActiveCount() : 0);
+            c.put("threads", threadsPerChannel);
+            c.put("capacity", queueCapacity);
+            c.put("sent", channelSent.get(channel).get());
+            c.put("deadLettered", channelDeadLettered.get(channel).get());
+            channels.put(channel.name(), c);
+        }
+        metrics.put("channels", channels);
+        metrics.put("enrichQueueDepth", enrichExecutor != null ? enrichExecutor.getQueue().size() : 0);
+        long done = completed.get();
+        metrics.put("submitted", submitted.get());
+        metrics.put("inFlight", submitted.get() - done);
+        metrics.put("sent", sent.get());
+        metrics.put("partial", partial.get());
+        metrics.put("deadLettered", deadLettered.get());
+        metrics.put("retries", retries.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("enriched", enriched.get());
+        metrics.put("enrichSkipped", enrichSkipped.get());
+        metrics.put("avgLatencyMillis", done > 0 ? latencyTotalMillis.get() / done : 0L);
+        metrics.put("maxLatencyMillis", latencyMaxMillis.get());
+        metrics.put("maxAttempts", maxAttempts);
+        return metrics;
+    }
+
+    /**
+     * Gửi ngay trên thread gọi, mỗi kênh một lần, không retry (khi chưa có pipeline, vd trong test)
+     */
+    public static void deliverInline(Delivery delivery, ChannelSender sender, Enricher enricher,
+            AlertHistoryDAO alertHistoryDAO) {
+        if (delivery.enrich && enricher != null) {
+            enrich(delivery, enricher, alertHistoryDAO);
+        }
+        for (Channel channel : delivery.channels) {
+            String error = null;
+            boolean ok = false;
+            try {
+                ok = sender.send(channel, delivery.title, delivery.message, delivery.priority);
+            } catch (Exception e) {
+                error = e.getMessage();
+            }
+            delivery.results.put(channel, ok);
+            if (!ok) {
+                delivery.errors.put(channel, error != null ? error : "send failed");
+            }
+        }
+        record(delivery, alertHistoryDAO);
+    }
+
+    private void dispatch(Delivery delivery) {
+        if (delivery.channels.isEmpty()) {
+            complete(delivery);
+            return;
+        }
+        for (Channel channel : delivery.channels) {
+            enqueue(delivery, channel, 1);
+        }
+    }
+
+    private void enqueue(Delivery delivery, Channel channel, int attempt) {
+        try {
+            channelExecutors.get(channel).execute(() -> attempt(delivery, channel, attempt));
+        } catch (RejectedExecutionException e) {
+            if (!running) {
+                // Đang dừng: để PENDING, lần khởi động sau gửi lại
+                return;
+            }
+            rejected.incrementAndGet();
+            channelFinished(delivery, channel, false, "queue full");
+        }
+    }
+
+    private void attempt(Delivery delivery, Channel channel, int attempt) {
+        String error = null;
+        boolean ok = false;
+        try {
+            ok = sender.send(channel, delivery.title, delivery.message, delivery.priority);
+        } catch (Exception e) {
+            error = e.getMessage();
+        }
+        if (ok) {
+            channelSent.get(channel).incrementAndGet();
+            channelFinished(delivery, channel, true, null);
+            return;
+        }
+        if (attempt < maxAttempts && running) {
+            retries.incrementAndGet();
+            long backoff = Math.min(retryMaxMillis, retryBaseMillis << Math.min(attempt - 1, 20));
+            try {
+                retryScheduler.schedule(() -> enqueue(delivery, channel, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Đang dừng: để PENDING, lần khởi động sau gửi lại
+            }
+            return;
+        }
+        if (!running) {
+            return;
+        }
+        channelDeadLettered.get(channel).incrementAndGet();
+        System.err.println("❌ Alert " + delivery.historyID + " dead-lettered on " + channel + " after " + attempt
+                + " attempts" + (error != null ? ": " + error : ""));
+        channelFinished(delivery, channel, false, "dead letter after " + attempt + " attempts"
+                + (error != null ? ": " + error : ""));
+    }
+
+    private void channelFinished(Delivery delivery, Channel channel, boolean ok, String error) {
+        delivery.results.put(channel, ok);
+        if (!ok) {
+            delivery.errors.put(channel, error);
+        }
+        if (delivery.remaining.decrementAndGet() == 0) {
+            complete(delivery);
+        } else if (ok) {
+            // Ghi ngay kênh đã gửi: dừng server trước khi các kênh khác xong thì recoverPending() không gửi lại kênh này
+            if (channel == Channel.SLACK) {
+                alertHistoryDAO.markSentToSlack(delivery.historyID);
+            } else {
+                alertHistoryDAO.markSentToTelegram(delivery.historyID);
+            }
+        }
+    }
+
+    private void complete(Delivery delivery) {
+        String status = record(delivery, alertHistoryDAO);
+        completed.incrementAndGet();
+        switch (status) {
+            case "SENT":
+                sent.incrementAndGet();
+                break;
+            case "PARTIAL":
+                partial.incrementAndGet();
+                break;
+            default:
+                deadLettered.incrementAndGet();
+        }
+        long latency = System.currentTimeMillis() - delivery.createdAtMillis;
+        latencyTotalMillis.addAndGet(latency);
+        latencyMaxMillis.accumulateAndGet(latency, Math::max);
+    }
+
+    private static void enrich(Delivery delivery, Enricher enricher, AlertHistoryDAO alertHistoryDAO) {
+        try {
+            String gptSummary = enricher.summarize(delivery.alertType, delivery.contextData);
+            // Use GPT summary as message if available
+            if (gptSummary != null && !gptSummary.isEmpty() && !gptSummary.contains("không khả dụng")) {
+                delivery.message = delivery.message + "\n\n📊 AI Analysis:\n" + gptSummary;
+                alertHistoryDAO.updateGptSummary(delivery.historyID, gptSummary, delivery.message);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ GPT summary generation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi kết quả các kênh vào AlertHistory
+     *
+     * @return trạng thái cuối (SENT / PARTIAL / DEAD_LETTER)
+     */
+    private static String record(Delivery delivery, AlertHistoryDAO alertHistoryDAO) {
+        int ok = 0;
+        for (Boolean result : delivery.results.values()) {
+            if (Boolean.TRUE.equals(result)) {
+                ok++;
+            }
+        }
+        String status;
+        if (ok == delivery.results.size()) {
+            status = "SENT";
+        } else if (ok > 0) {
+            status = "PARTIAL";
+        } else {
+            status = "DEAD_LETTER";
+        }
+        String error = null;
+        if (!delivery.errors.isEmpty()) {
+            error = delivery.errors.toString();
+            if (error.length() > 500) {
+                error = error.substring(0, 500);
+            }
+        }
+        alertHistoryDAO.updateDeliveryResult(delivery.historyID,
+                Boolean.TRUE.equals(delivery.results.get(Channel.SLACK)),
+                Boolean.TRUE.equals(delivery.results.get(Channel.TELEGRAM)),
+                status, error, LocalDateTime.now());
+        return status;
+    }
+
+    private ThreadPoolExecutor newExecutor(String name, int threads) {
+        AtomicInteger seq = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, name + "-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Một alert đã lưu, chờ gửi qua các kênh bật trong AlertConfiguration
+     */
+    public static final class Delivery {
+
+        final UUID historyID;
+        final String alertType;
+        final String title;
+        final String priority;
+        final JSONObject contextData;
+        final boolean enrich;
+        final Set<Channel> channels;
+        final Map<Channel, Boolean> results = new ConcurrentHashMap<>();
+        final Map<Channel, String> errors = new ConcurrentHashMap<>();
+        final AtomicInteger remaining;
+        final long createdAtMillis = System.currentTimeMillis();
+        volatile String message;
+
+        private Delivery(AlertHistory alert, Set<Channel> channels, JSONObject contextData, boolean enrich) {
+            this.historyID = alert.getHistoryID();
+            this.alertType = alert.getAlertType();
+            this.title = alert.getTitle();
+            this.message = alert.getMessage();
+            this.priority = alert.getPriority();
+            this.contextData = contextData;
+            this.enrich = enrich && contextData != null;
+            this.channels = channels;
+            this.remaining = new AtomicInteger(channels.size());
+        }
+
+        /**
+         * @param config        cấu hình của alert (null: không gửi kênh ngoài nào)
+         * @param enrichWithGpt chạy bước GPT nếu config bật useGPTSummary
+         */
+        public static Delivery of(AlertHistory alert, AlertConfiguration config, JSONObject contextData,
+                boolean enrichWithGpt) {
+            Set<Channel> channels = EnumSet.noneOf(Channel.class);
+            boolean enrich = false;
+            if (config != null) {
+                if (Boolean.TRUE.equals(config.getNotifySlack())) {
+                    channels.add(Channel.SLACK);
+                }
+                if (Boolean.TRUE.equals(config.getNotifyTelegram())) {
+                    channels.add(Channel.TELEGRAM);
+                }
+                enrich = enrichWithGpt && Boolean.TRUE.equals(config.getUseGPTSummary());
+            }
+            return new Delivery(alert, channels, contextData, enrich);
+        }
+
+        public UUID getHistoryID() {
+            return historyID;
+        }
+    }
+}
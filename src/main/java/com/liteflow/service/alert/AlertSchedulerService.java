@@ -2,10 +2,10 @@ package com.liteflow.service.alert;
 
 import com.liteflow.dao.alert.AlertConfigurationDAO;
 import com.liteflow.dao.procurement.PurchaseOrderDAO;
+import com.liteflow.job.JobScheduler;
 import com.liteflow.model.alert.AlertConfiguration;
 import com.liteflow.model.procurement.PurchaseOrder;
 import com.liteflow.service.report.RevenueReportService;
-import com.liteflow.service.inventory.ReservationService;
 import org.json.JSONObject;
 
 import java.time.LocalDate;
@@ -13,18 +13,16 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Alert Scheduler Service
  * Handles periodic alert checking and triggering
  * 
- * This service runs in the background and checks:
+ * Registers its checks as jobs of the shared JobScheduler:
  * - Scheduled alerts (e.g., daily summary at 6 PM)
- * - Condition-based alerts (e.g., PO pending > 2 days)
  * - Threshold alerts (e.g., low inventory)
+ * PO pending / overdue alerts are event-driven (POAlertTracker); the PO checks here are manual only.
  */
 public class AlertSchedulerService {
     
@@ -32,79 +30,21 @@ public class AlertSchedulerService {
     private final AlertService alertService;
     private final PurchaseOrderDAO poDAO;
     private final RevenueReportService revenueService;
-    private final ReservationService reservationService;
-    private final ScheduledExecutorService scheduler;
-    private boolean isRunning = false;
     
     public AlertSchedulerService() {
         this.alertConfigDAO = new AlertConfigurationDAO();
         this.alertService = new AlertService();
         this.poDAO = new PurchaseOrderDAO();
         this.revenueService = new RevenueReportService();
-        this.reservationService = new ReservationService();
-        this.scheduler = Executors.newScheduledThreadPool(3);
     }
     
     /**
-     * Start the scheduler
+     * Register alert checks with the scheduler
      */
-    public void start() {
-        if (isRunning) {
-            System.out.println("⚠️ Scheduler is already running");
-            return;
-        }
-        
-        System.out.println("🚀 Starting Alert Scheduler...");
-        
-        // Schedule periodic checks every 5 minutes
-        scheduler.scheduleAtFixedRate(
-            this::checkScheduledAlerts,
-            0,
-            5,
-            TimeUnit.MINUTES
-        );
-        
-        // Schedule condition checks every 1 minute for real-time updates
-        // 🔥 FIX: Change from 60 minutes to 1 minute for responsive notifications
-        scheduler.scheduleAtFixedRate(
-            this::checkConditionBasedAlerts,
-            0,  // Start immediately
-            1,  // Run every 1 minute
-            TimeUnit.MINUTES
-        );
-        
-        // Schedule reservation overdue checks every 5 minutes
-        scheduler.scheduleAtFixedRate(
-            this::checkReservationOverdue,
-            0,  // Start immediately
-            5,  // Run every 5 minutes
-            TimeUnit.MINUTES
-        );
-        
-        isRunning = true;
-        System.out.println("✅ Alert Scheduler started");
-    }
-    
-    /**
-     * Stop the scheduler
-     */
-    public void stop() {
-        if (!isRunning) {
-            System.out.println("⚠️ Scheduler is not running");
-            return;
-        }
-        
-        System.out.println("🛑 Stopping Alert Scheduler...");
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-        }
-        isRunning = false;
-        System.out.println("✅ Alert Scheduler stopped");
+    public void registerJobs(JobScheduler scheduler) {
+        // Scheduled alerts every 5 minutes
+        scheduler.register("scheduled-alerts", "Cảnh báo theo lịch (NextScheduledRun)", "JOB_SCHEDULED_ALERTS",
+            TimeUnit.MINUTES.toMillis(5), 0, JobScheduler.MisfirePolicy.SKIP, this::checkScheduledAlerts);
     }
     
     /**
@@ -137,31 +77,7 @@ public class AlertSchedulerService {
             
         } catch (Exception e) {
             System.err.println("❌ Error checking scheduled alerts: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * Check condition-based alerts
-     */
-    private void checkConditionBasedAlerts() {
-        try {
-            System.out.println("🔍 Checking condition-based alerts...");
-            
-            // Check PO pending alerts
-            checkPOPendingAlerts();
-            
-            // Check PO overdue alerts
-            checkPOOverdueAlerts();
-            
-            // Check inventory alerts (if inventory module available)
-            // checkInventoryAlerts();
-            
-            System.out.println("✅ Condition check completed");
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error checking condition-based alerts: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
     }
     
@@ -210,16 +126,16 @@ public class AlertSchedulerService {
      */
     private void checkPOPendingAlerts() {
         try {
-            System.out.println("🔍 Checking PO pending alerts (scheduled)...");
+            System.out.println("🔍 Checking PO pending alerts (manual)...");
             
             // Use the unified refresh method that expires old alerts and creates new summary
             alertService.refreshPOPendingNotification();
             
-            System.out.println("✅ PO pending summary refreshed by scheduler");
+            System.out.println("✅ PO pending summary refreshed");
             
         } catch (Exception e) {
             System.err.println("❌ Error checking PO pending alerts: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
     }
     
@@ -228,34 +144,30 @@ public class AlertSchedulerService {
      */
     private void checkPOOverdueAlerts() {
         try {
-            List<PurchaseOrder> allPOs = poDAO.getAll();
+            // Approved POs whose expected delivery date has passed
+            List<PurchaseOrder> overduePOs = poDAO.findOverdue();
             
-            for (PurchaseOrder po : allPOs) {
-                if (!"APPROVED".equals(po.getStatus())) continue;
-                if (po.getExpectedDelivery() == null) continue;
+            for (PurchaseOrder po : overduePOs) {
+                long daysOverdue = ChronoUnit.DAYS.between(po.getExpectedDelivery(), LocalDateTime.now());
                 
-                // Check if expected delivery date has passed
-                if (LocalDateTime.now().isAfter(po.getExpectedDelivery())) {
-                    long daysOverdue = ChronoUnit.DAYS.between(po.getExpectedDelivery(), LocalDateTime.now());
+                if (daysOverdue > 0) {
+                    // Supplier name would need to be fetched from SupplierDAO
+                    String supplierName = "Supplier-" + po.getSupplierID();
                     
-                    if (daysOverdue > 0) {
-                        // Supplier name would need to be fetched from SupplierDAO
-                        String supplierName = "Supplier-" + po.getSupplierID();
-                        
-                        alertService.triggerPOOverdue(
-                            po.getPoid().toString(),
-                            supplierName,
-                            po.getExpectedDelivery(),
-                            (int) daysOverdue
-                        );
-                        
-                        System.out.println("✅ PO overdue alert sent for: " + po.getPoid());
-                    }
+                    alertService.triggerPOOverdue(
+                        po.getPoid().toString(),
+                        supplierName,
+                        po.getExpectedDelivery(),
+                        (int) daysOverdue
+                    );
+                    
+                    System.out.println("✅ PO overdue alert sent for: " + po.getPoid());
                 }
             }
             
         } catch (Exception e) {
             System.err.println("❌ Error checking PO overdue alerts: " + e.getMessage());
+            throw e;
         }
     }
     
@@ -286,34 +198,6 @@ public class AlertSchedulerService {
         checkPOOverdueAlerts();
     }
     
-    /**
-     * Check for overdue reservations (more than 30 minutes past arrival time)
-     */
-    private void checkReservationOverdue() {
-        try {
-            System.out.println("🏨 Checking overdue reservations...");
-            
-            int count = reservationService.autoCheckOverdue();
-            
-            if (count > 0) {
-                System.out.println("✅ Marked " + count + " overdue reservations as NO_SHOW");
-            } else {
-                System.out.println("✅ No overdue reservations found");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error checking overdue reservations: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-    
-    /**
-     * Get scheduler status
-     */
-    public boolean isRunning() {
-        return isRunning;
-    }
-    
     /**
      * Initialize next scheduled runs for all configs
      */
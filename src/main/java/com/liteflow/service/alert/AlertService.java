@@ -1,6 +1,7 @@
 package com.liteflow.service.alert;
 
 import com.liteflow.dao.alert.*;
+import com.liteflow.job.JobScheduler;
 import com.liteflow.model.alert.*;
 import org.json.JSONObject;
 
@@ -53,19 +54,11 @@ public class AlertService {
         alert.setPriority(priority != null ? priority : config.getPriority());
         alert.setDeliveryStatus("PENDING");
         
-        // Generate GPT summary if enabled
-        if (Boolean.TRUE.equals(config.getUseGPTSummary()) && gptService.isAvailable() && contextData != null) {
-            try {
-                String gptSummary = gptService.generateAlertSummary(alertType, contextData);
-                alert.setGptSummary(gptSummary);
-                
-                // Use GPT summary as message if available
-                if (gptSummary != null && !gptSummary.isEmpty() && !gptSummary.contains("không khả dụng")) {
-                    alert.setMessage(message + "\n\n📊 AI Analysis:\n" + gptSummary);
-                }
-            } catch (Exception e) {
-                System.err.println("⚠️ GPT summary generation failed: " + e.getMessage());
-            }
+        // In-app hiển thị ngay khi lưu, email chỉ ghi log như trước
+        alert.setSentInApp(true);
+        if (Boolean.TRUE.equals(config.getNotifyEmail())) {
+            System.out.println("📧 Email notification queued for: " + title);
+            alert.setSentToEmail(true);
         }
         
         // Save to database
@@ -75,73 +68,32 @@ public class AlertService {
             return null;
         }
         
-        // Send notifications
-        deliverAlert(alert, config);
-        
-        // 🔥 FIX: Update deliveryStatus to database after delivery
-        boolean updated = alertHistoryDAO.update(alert);
-        if (!updated) {
-            System.err.println("⚠️ Failed to update alert delivery status (non-critical)");
-        }
-        
         // Update last triggered
         alertConfigDAO.updateLastTriggered(config.getAlertID(), null);
         
+        // GPT summary + Slack/Telegram chạy nền trong AlertDeliveryPipeline, không giữ thread gọi
+        AlertDeliveryPipeline.Delivery delivery = AlertDeliveryPipeline.Delivery.of(alert, config, contextData, true);
+        AlertDeliveryPipeline pipeline = AlertDeliveryPipeline.current();
+        if (pipeline == null || !pipeline.submit(delivery)) {
+            AlertDeliveryPipeline.deliverInline(delivery, AlertDeliveryPipeline.defaultSender(notificationService),
+                    gptService.isAvailable() ? gptService::generateAlertSummary : null, alertHistoryDAO);
+        }
+        
         return alert.getHistoryID();
     }
     
     /**
-     * Deliver alert to appropriate channels
+     * Trigger alert qua AlertCoalescer (gộp theo loại, chống lặp theo entityKey); gửi ngay nếu coalescer chưa chạy
+     *
+     * @return Alert history ID, null nếu cảnh báo được gộp / bỏ qua
      */
-    private void deliverAlert(AlertHistory alert, AlertConfiguration config) {
-        String title = alert.getTitle();
-        String message = alert.getMessage();
-        String priority = alert.getPriority();
-        
-        boolean anySuccess = false;
-        
-        // Send to Slack
-        if (Boolean.TRUE.equals(config.getNotifySlack())) {
-            boolean sent = notificationService.sendToDefaultSlack(title, message, priority);
-            if (sent) {
-                alert.setSentToSlack(true);
-                anySuccess = true;
-            }
-        }
-        
-        // Send to Telegram
-        if (Boolean.TRUE.equals(config.getNotifyTelegram())) {
-            boolean sent = notificationService.sendToDefaultTelegram(title, message, priority);
-            if (sent) {
-                alert.setSentToTelegram(true);
-                anySuccess = true;
-            }
-        }
-        
-        // Send to Email
-        if (Boolean.TRUE.equals(config.getNotifyEmail())) {
-        
-            System.out.println("📧 Email notification queued for: " + title);
-            alert.setSentToEmail(true);
-            anySuccess = true;
-        }
-        
-      
-        // 🔥 FIX: Force in-app notification to always be sent
-        alert.setSentInApp(true);
-        anySuccess = true;
-        
-        // Update delivery status
-        if (anySuccess) {
-            alert.setDeliveryStatus("SENT");
-            alert.setSentAt(LocalDateTime.now());
-        } else {
-            // This should never happen now since in-app is always sent
-            alert.setDeliveryStatus("FAILED");
-            alert.setErrorMessage("No channels delivered successfully");
+    private UUID triggerCoalesced(String alertType, String entityKey, String summaryLine, String title,
+                                  String message, JSONObject contextData, String priority) {
+        AlertCoalescer coalescer = AlertCoalescer.current();
+        if (coalescer != null && coalescer.offer(alertType, entityKey, summaryLine, title, message, contextData, priority)) {
+            return null;
         }
-        
-        alertHistoryDAO.update(alert);
+        return triggerAlert(alertType, title, message, contextData, priority);
     }
     
     /**
@@ -357,7 +309,7 @@ public class AlertService {
      * @param productName Full product name (with size)
      * @param currentStock Current stock level
      * @param threshold Alert threshold
-     * @return Alert history ID
+     * @return Alert history ID (null nếu được gộp vào digest của AlertCoalescer)
      */
     public UUID triggerLowInventory(UUID productVariantID, String productName, int currentStock, int threshold) {
         String title = "📦 Cảnh báo tồn kho thấp";
@@ -378,7 +330,9 @@ public class AlertService {
         context.put("currentStock", currentStock);
         context.put("threshold", threshold);
         
-        return triggerAlert("LOW_INVENTORY", title, message, context, "MEDIUM");
+        return triggerCoalesced("LOW_INVENTORY", productVariantID != null ? productVariantID.toString() : productName,
+                String.format("**%s**: còn %d (ngưỡng %d)", productName, currentStock, threshold),
+                title, message, context, "MEDIUM");
     }
     
     /**
@@ -394,7 +348,7 @@ public class AlertService {
      * Trigger Out of Stock alert with product variant ID
      * @param productVariantID Product variant UUID (for spam prevention)
      * @param productName Full product name (with size)
-     * @return Alert history ID
+     * @return Alert history ID (null nếu được gộp vào digest của AlertCoalescer)
      */
     public UUID triggerOutOfStock(UUID productVariantID, String productName) {
         String title = "🚨 SẢN PHẨM HẾT HÀNG - CẦN XỬ LÝ GẤP";
@@ -424,7 +378,8 @@ public class AlertService {
         context.put("severity", "CRITICAL");
         context.put("detectedAt", java.time.LocalDateTime.now().toString());
         
-        return triggerAlert("OUT_OF_STOCK", title, message, context, "CRITICAL");
+        return triggerCoalesced("OUT_OF_STOCK", productVariantID != null ? productVariantID.toString() : productName,
+                String.format("**%s**: hết hàng", productName), title, message, context, "CRITICAL");
     }
     
     /**
@@ -454,7 +409,7 @@ public class AlertService {
     }
     
     /**
-     * Trigger PO Overdue alert
+     * Trigger PO Overdue alert (mỗi PO chỉ gửi lại sau cửa sổ chống lặp của AlertCoalescer)
      */
     public UUID triggerPOOverdue(String poId, String supplierName, LocalDateTime expectedDelivery, int daysOverdue) {
         String title = "⏰ Đơn đặt hàng quá hạn giao";
@@ -475,7 +430,9 @@ public class AlertService {
         context.put("expectedDelivery", expectedDelivery.toString());
         context.put("daysOverdue", daysOverdue);
         
-        return triggerAlert("PO_OVERDUE", title, message, context, "HIGH");
+        return triggerCoalesced("PO_OVERDUE", poId,
+                String.format("**%s** (%s): quá hạn %d ngày", poId, supplierName, daysOverdue),
+                title, message, context, "HIGH");
     }
     
     /**
@@ -568,6 +525,7 @@ public class AlertService {
             stats.put("unreadCount", alertHistoryDAO.getUnreadCount());
             stats.put("sentCount", alertHistoryDAO.getCountByStatus("SENT"));
             stats.put("failedCount", alertHistoryDAO.getCountByStatus("FAILED"));
+            stats.put("deadLetterCount", alertHistoryDAO.getCountByStatus("DEAD_LETTER"));
             
             // Recent alerts by priority
             JSONObject byPriority = new JSONObject();
@@ -649,14 +607,36 @@ public class AlertService {
      * Update alert configuration
      */
     public boolean updateConfiguration(AlertConfiguration config) {
-        return alertConfigDAO.update(config);
+        boolean updated = alertConfigDAO.update(config);
+        if (updated) {
+            refreshJobSchedules();
+        }
+        return updated;
     }
     
     /**
      * Enable/disable alert configuration
      */
     public boolean setConfigurationEnabled(UUID alertID, boolean enabled) {
-        return alertConfigDAO.setEnabled(alertID, enabled);
+        boolean updated = alertConfigDAO.setEnabled(alertID, enabled);
+        if (updated) {
+            refreshJobSchedules();
+        }
+        return updated;
+    }
+    
+    /**
+     * Apply changed configurations to scheduled jobs right away instead of waiting for config-refresh
+     */
+    private void refreshJobSchedules() {
+        JobScheduler scheduler = JobScheduler.current();
+        if (scheduler != null) {
+            try {
+                scheduler.refreshFromConfig();
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to refresh job schedules: " + e.getMessage());
+            }
+        }
     }
     
     /**
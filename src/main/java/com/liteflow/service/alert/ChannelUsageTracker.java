@@ -0,0 +1,208 @@
+package com.liteflow.service.alert;
+
+import com.liteflow.dao.alert.NotificationChannelDAO;
+import com.liteflow.model.alert.NotificationChannel;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit và thống kê sử dụng của NotificationChannel giữ trong bộ nhớ.
+ *
+ * - Rate limit: token bucket mỗi kênh, dung lượng MaxRequestsPerHour, nạp lại đều trong một giờ
+ *   (không còn đọc/ghi bộ đếm CurrentHourRequests trong DB trước mỗi tin)
+ * - Usage: số tin gửi thành công, LastUsed, LastError được cộng dồn và ghi vào NotificationChannel
+ *   mỗi LITEFLOW_NOTIFY_USAGE_FLUSH_MS ms bởi job "notification-usage-flush" (NotificationUsageFlushJob)
+ * Khi chưa start() (vd trong test) mỗi lần gửi vẫn ghi usage trực tiếp như trước.
+ */
+public final class ChannelUsageTracker {
+
+    private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private static final Map<UUID, ChannelState> channels = new ConcurrentHashMap<>();
+    private static final NotificationChannelDAO channelDAO = new NotificationChannelDAO();
+    private static volatile boolean started;
+
+    private ChannelUsageTracker() {
+    }
+
+    /**
+     * Lấy một token của kênh
+     *
+     * @return false nếu kênh đã vượt MaxRequestsPerHour
+     */
+    public static boolean tryAcquire(NotificationChannel channel) {
+        ChannelState state = stateOf(channel);
+        synchronized (state) {
+            state.refill(channel);
+            if (state.tokens < 1) {
+                state.rateLimited++;
+                return false;
+            }
+            state.tokens -= 1;
+            return true;
+        }
+    }
+
+    /**
+     * Ghi nhận kết quả một lần gửi
+     */
+    public static void record(NotificationChannel channel, boolean success, String errorMessage) {
+        boolean buffered = started;
+        if (!buffered) {
+            channelDAO.recordUsage(channel.getChannelID(), success, errorMessage);
+        }
+        ChannelState state = stateOf(channel);
+        synchronized (state) {
+            if (success) {
+                state.sent++;
+                if (buffered) {
+                    state.pendingRequests++;
+                }
+                state.lastError = null;
+            } else {
+                state.failed++;
+                state.lastError = errorMessage;
+            }
+            state.lastUsed = LocalDateTime.now();
+            if (buffered) {
+                state.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Ghi phần usage cộng dồn của mọi kênh vào DB
+     *
+     * @return số kênh đã ghi
+     */
+    public static int flush() {
+        int flushed = 0;
+        for (Map.Entry<UUID, ChannelState> entry : channels.entrySet()) {
+            ChannelState state = entry.getValue();
+            int requests;
+            LocalDateTime lastUsed;
+            String lastError;
+            synchronized (state) {
+                if (!state.dirty) {
+                    continue;
+                }
+                requests = state.pendingRequests;
+                lastUsed = state.lastUsed;
+                lastError = state.lastError;
+                state.pendingRequests = 0;
+                state.dirty = false;
+            }
+            if (channelDAO.flushUsage(entry.getKey(), requests, lastUsed, lastError)) {
+                flushed++;
+            } else {
+                // Ghi lỗi: cộng lại để lần sau ghi tiếp
+                synchronized (state) {
+                    state.pendingRequests += requests;
+                    state.dirty = true;
+                }
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Chuyển sang chế độ cộng dồn: usage chỉ được ghi khi flush() (job "notification-usage-flush" của JobScheduler)
+     */
+    public static synchronized void start() {
+        started = true;
+    }
+
+    /**
+     * Ghi nốt usage còn lại và quay về ghi trực tiếp từng lần gửi
+     */
+    public static synchronized void shutdown() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        flush();
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("flushing", started);
+        Map<String, Object> perChannel = new LinkedHashMap<>();
+        for (ChannelState state : channels.values()) {
+            Map<String, Object> c = new LinkedHashMap<>();
+            synchronized (state) {
+                c.put("type", state.type);
+                c.put("tokens", (long) state.tokens);
+                c.put("capacity", state.capacity);
+                c.put("sent", state.sent);
+                c.put("failed", state.failed);
+                c.put("rateLimited", state.rateLimited);
+                c.put("pendingFlush", state.pendingRequests);
+            }
+            perChannel.put(state.name, c);
+        }
+        metrics.put("channels", perChannel);
+        return metrics;
+    }
+
+    /**
+     * Xóa trạng thái trong bộ nhớ (test)
+     */
+    public static void reset() {
+        channels.clear();
+    }
+
+    private static ChannelState stateOf(NotificationChannel channel) {
+        return channels.computeIfAbsent(channel.getChannelID(), id -> new ChannelState(channel));
+    }
+
+    private static int capacityOf(NotificationChannel channel) {
+        Integer max = channel.getMaxRequestsPerHour();
+        return max != null && max > 0 ? max : 1;
+    }
+
+    private static final class ChannelState {
+
+        final String name;
+        final String type;
+        int capacity;
+        double tokens;
+        long lastRefillNanos = System.nanoTime();
+        long sent;
+        long failed;
+        long rateLimited;
+        int pendingRequests;
+        LocalDateTime lastUsed;
+        String lastError;
+        boolean dirty;
+
+        ChannelState(NotificationChannel channel) {
+            this.name = channel.getName() != null ? channel.getName() : String.valueOf(channel.getChannelID());
+            this.type = channel.getChannelType();
+            this.capacity = capacityOf(channel);
+            // Khởi động lại trong cùng giờ: trừ phần đã dùng theo bộ đếm đã lưu
+            int used = 0;
+            if (channel.getCurrentHourRequests() != null && channel.getHourResetAt() != null
+                    && channel.getHourResetAt().isAfter(LocalDateTime.now())) {
+                used = channel.getCurrentHourRequests();
+            }
+            this.tokens = Math.max(0, capacity - used);
+        }
+
+        void refill(NotificationChannel channel) {
+            // MaxRequestsPerHour có thể đã đổi trong trang cấu hình
+            int newCapacity = capacityOf(channel);
+            if (newCapacity != capacity) {
+                capacity = newCapacity;
+                tokens = Math.min(tokens, capacity);
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (double) (now - lastRefillNanos) * capacity / HOUR_NANOS);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.liteflow.service.alert;
+
+import com.liteflow.util.EnvConfigUtil;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client dùng chung cho mọi kênh thông báo (Slack webhook, Telegram Bot API).
+ *
+ * Một OkHttpClient duy nhất giữ connection pool (keep-alive, TLS session dùng lại giữa các tin) và Dispatcher
+ * giới hạn LITEFLOW_NOTIFY_MAX_REQUESTS request đồng thời (LITEFLOW_NOTIFY_MAX_REQUESTS_PER_HOST mỗi host).
+ * Gọi bất đồng bộ: postJson trả về CompletableFuture, timeout đặt riêng cho từng lần gọi (theo loại kênh).
+ */
+public final class NotificationHttpClient {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private static final OkHttpClient CLIENT = build();
+
+    private NotificationHttpClient() {
+    }
+
+    /**
+     * Kết quả một request: mã HTTP và body (đã đọc hết để trả connection về pool)
+     */
+    public record Result(int code, String body) {
+
+        public boolean isSuccess() {
+            return code == 200;
+        }
+    }
+
+    private static OkHttpClient build() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(EnvConfigUtil.getInt("LITEFLOW_NOTIFY_MAX_REQUESTS", 32));
+        dispatcher.setMaxRequestsPerHost(EnvConfigUtil.getInt("LITEFLOW_NOTIFY_MAX_REQUESTS_PER_HOST", 8));
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(EnvConfigUtil.getInt("LITEFLOW_NOTIFY_MAX_IDLE_CONNECTIONS", 8),
+                        5, TimeUnit.MINUTES))
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * POST JSON bất đồng bộ
+     *
+     * @param timeoutMillis tổng thời gian tối đa của lần gọi (kết nối + gửi + đọc), quá hạn future lỗi
+     */
+    public static CompletableFuture<Result> postJson(String url, String json, long timeoutMillis) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(url)
+                    .post(RequestBody.create(json, JSON))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        Call call = CLIENT.newCall(request);
+        call.timeout().timeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                try (ResponseBody body = response.body()) {
+                    future.complete(new Result(response.code(), body != null ? body.string() : ""));
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runningCalls", CLIENT.dispatcher().runningCallsCount());
+        metrics.put("queuedCalls", CLIENT.dispatcher().queuedCallsCount());
+        metrics.put("connections", CLIENT.connectionPool().connectionCount());
+        metrics.put("idleConnections", CLIENT.connectionPool().idleConnectionCount());
+        return metrics;
+    }
+
+    /**
+     * Hủy các request còn chờ, đóng connection và thread của Dispatcher (khi undeploy)
+     */
+    public static void shutdown() {
+        CLIENT.dispatcher().cancelAll();
+        CLIENT.dispatcher().executorService().shutdown();
+        CLIENT.connectionPool().evictAll();
+    }
+}
@@ -4,22 +4,27 @@ import com.liteflow.dao.alert.NotificationChannelDAO;
 import com.liteflow.model.alert.NotificationChannel;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import com.liteflow.util.EnvConfigUtil;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for sending notifications to multiple channels
  * Supports: Slack, Telegram, Email, In-App
+ *
+ * Slack/Telegram gửi bất đồng bộ qua NotificationHttpClient dùng chung (timeout riêng theo loại kênh:
+ * LITEFLOW_NOTIFY_SLACK_TIMEOUT_MS, LITEFLOW_NOTIFY_TELEGRAM_TIMEOUT_MS); rate limit và usage của kênh
+ * do ChannelUsageTracker giữ trong bộ nhớ.
  */
 public class NotificationService {
     
+    private static final long SLACK_TIMEOUT_MS = EnvConfigUtil.getLong("LITEFLOW_NOTIFY_SLACK_TIMEOUT_MS", 10000L);
+    private static final long TELEGRAM_TIMEOUT_MS = EnvConfigUtil.getLong("LITEFLOW_NOTIFY_TELEGRAM_TIMEOUT_MS", 10000L);
+    
     private final NotificationChannelDAO channelDAO;
     
     public NotificationService() {
@@ -27,15 +32,19 @@ public class NotificationService {
     }
     
     /**
-     * Send notification to all configured channels
+     * Send notification to all configured channels (gửi song song, chờ tất cả xong)
      */
     public boolean sendToAllChannels(String title, String message, String priority) {
         List<NotificationChannel> channels = channelDAO.getAllActive();
-        boolean anySuccess = false;
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>();
         
         for (NotificationChannel channel : channels) {
-            boolean sent = sendToChannel(channel, title, message, priority);
-            if (sent) {
+            sends.add(sendToChannelAsync(channel, title, message, priority));
+        }
+        
+        boolean anySuccess = false;
+        for (CompletableFuture<Boolean> send : sends) {
+            if (send.join()) {
                 anySuccess = true;
             }
         }
@@ -47,192 +56,161 @@ public class NotificationService {
      * Send notification to specific channel
      */
     public boolean sendToChannel(NotificationChannel channel, String title, String message, String priority) {
+        return sendToChannelAsync(channel, title, message, priority).join();
+    }
+    
+    /**
+     * Send notification to specific channel without blocking the caller
+     *
+     * @return future hoàn thành với true nếu gửi thành công (không bao giờ lỗi)
+     */
+    public CompletableFuture<Boolean> sendToChannelAsync(NotificationChannel channel, String title, String message,
+                                                         String priority) {
         if (!channel.isConfigured()) {
             System.err.println("❌ Channel not configured: " + channel.getName());
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         
-        if (channel.isRateLimitExceeded()) {
+        if (!ChannelUsageTracker.tryAcquire(channel)) {
             System.err.println("⚠️ Rate limit exceeded for channel: " + channel.getName());
-            channelDAO.recordUsage(channel.getChannelID(), false, "Rate limit exceeded");
-            return false;
+            ChannelUsageTracker.record(channel, false, "Rate limit exceeded");
+            return CompletableFuture.completedFuture(false);
         }
         
-        boolean success = false;
-        String errorMessage = null;
-        
+        CompletableFuture<Boolean> send;
         try {
             switch (channel.getChannelType().toUpperCase()) {
                 case "SLACK":
-                    success = sendToSlack(channel, title, message, priority);
+                    send = sendToSlack(channel, title, message, priority);
                     break;
                 case "TELEGRAM":
-                    success = sendToTelegram(channel, title, message, priority);
+                    send = sendToTelegram(channel, title, message, priority);
                     break;
                 case "EMAIL":
-                    success = sendEmail(channel, title, message, priority);
+                    send = CompletableFuture.completedFuture(sendEmail(channel, title, message, priority));
                     break;
                 default:
-                    errorMessage = "Unsupported channel type: " + channel.getChannelType();
-                    System.err.println("❌ " + errorMessage);
+                    send = CompletableFuture.failedFuture(
+                            new IllegalArgumentException("Unsupported channel type: " + channel.getChannelType()));
             }
         } catch (Exception e) {
-            errorMessage = e.getMessage();
-            System.err.println("❌ Failed to send to " + channel.getName() + ": " + errorMessage);
-            e.printStackTrace();
+            send = CompletableFuture.failedFuture(e);
         }
         
-        // Record usage
-        channelDAO.recordUsage(channel.getChannelID(), success, errorMessage);
-        
-        return success;
+        return send.handle((success, error) -> {
+            String errorMessage = null;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                errorMessage = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                System.err.println("❌ Failed to send to " + channel.getName() + ": " + errorMessage);
+            }
+            boolean ok = error == null && Boolean.TRUE.equals(success);
+            // Record usage
+            ChannelUsageTracker.record(channel, ok, errorMessage);
+            return ok;
+        });
     }
     
     /**
      * Send to Slack webhook
      */
-    private boolean sendToSlack(NotificationChannel channel, String title, String message, String priority) {
-        try {
-            String webhookUrl = channel.getSlackWebhookURL();
-            if (webhookUrl == null || webhookUrl.isEmpty()) {
-                System.err.println("❌ Slack webhook URL not configured");
-                return false;
-            }
-            
-            // Build Slack message
-            JSONObject slackMessage = new JSONObject();
-            
-            // Add emoji based on priority
-            String emoji = getPriorityEmoji(priority);
-            slackMessage.put("text", emoji + " *" + title + "*");
-            
-            // Add blocks for better formatting
-            org.json.JSONArray blocks = new org.json.JSONArray();
-            
-            // Header block
-            JSONObject headerBlock = new JSONObject();
-            headerBlock.put("type", "header");
-            JSONObject headerText = new JSONObject();
-            headerText.put("type", "plain_text");
-            headerText.put("text", emoji + " " + title);
-            headerBlock.put("text", headerText);
-            blocks.put(headerBlock);
-            
-            // Message block
-            JSONObject messageBlock = new JSONObject();
-            messageBlock.put("type", "section");
-            JSONObject messageText = new JSONObject();
-            messageText.put("type", "mrkdwn");
-            messageText.put("text", message);
-            messageBlock.put("text", messageText);
-            blocks.put(messageBlock);
-            
-            // Context block (priority + timestamp)
-            JSONObject contextBlock = new JSONObject();
-            contextBlock.put("type", "context");
-            org.json.JSONArray contextElements = new org.json.JSONArray();
-            JSONObject contextText = new JSONObject();
-            contextText.put("type", "mrkdwn");
-            contextText.put("text", "*Priority:* " + priority + " | " + java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            contextElements.put(contextText);
-            contextBlock.put("elements", contextElements);
-            blocks.put(contextBlock);
-            
-            slackMessage.put("blocks", blocks);
-            
-            // Send HTTP POST
-            URL url = URI.create(webhookUrl).toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = slackMessage.toString().getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
-            
-            int responseCode = conn.getResponseCode();
-            if (responseCode == 200) {
+    private CompletableFuture<Boolean> sendToSlack(NotificationChannel channel, String title, String message, String priority) {
+        String webhookUrl = channel.getSlackWebhookURL();
+        if (webhookUrl == null || webhookUrl.isEmpty()) {
+            System.err.println("❌ Slack webhook URL not configured");
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // Build Slack message
+        JSONObject slackMessage = new JSONObject();
+        
+        // Add emoji based on priority
+        String emoji = getPriorityEmoji(priority);
+        slackMessage.put("text", emoji + " *" + title + "*");
+        
+        // Add blocks for better formatting
+        org.json.JSONArray blocks = new org.json.JSONArray();
+        
+        // Header block
+        JSONObject headerBlock = new JSONObject();
+        headerBlock.put("type", "header");
+        JSONObject headerText = new JSONObject();
+        headerText.put("type", "plain_text");
+        headerText.put("text", emoji + " " + title);
+        headerBlock.put("text", headerText);
+        blocks.put(headerBlock);
+        
+        // Message block
+        JSONObject messageBlock = new JSONObject();
+        messageBlock.put("type", "section");
+        JSONObject messageText = new JSONObject();
+        messageText.put("type", "mrkdwn");
+        messageText.put("text", message);
+        messageBlock.put("text", messageText);
+        blocks.put(messageBlock);
+        
+        // Context block (priority + timestamp)
+        JSONObject contextBlock = new JSONObject();
+        contextBlock.put("type", "context");
+        org.json.JSONArray contextElements = new org.json.JSONArray();
+        JSONObject contextText = new JSONObject();
+        contextText.put("type", "mrkdwn");
+        contextText.put("text", "*Priority:* " + priority + " | " + java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
+        contextElements.put(contextText);
+        contextBlock.put("elements", contextElements);
+        blocks.put(contextBlock);
+        
+        slackMessage.put("blocks", blocks);
+        
+        // Send HTTP POST
+        return NotificationHttpClient.postJson(webhookUrl, slackMessage.toString(), SLACK_TIMEOUT_MS)
+            .thenApply(response -> {
+                if (!response.isSuccess()) {
+                    throw new IllegalStateException("Slack returned: " + response.code());
+                }
                 System.out.println("✅ Slack notification sent: " + title);
                 return true;
-            } else {
-                System.err.println("❌ Slack returned: " + responseCode);
-                return false;
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Slack send failed: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+            });
     }
     
     /**
      * Send to Telegram bot
      */
-    private boolean sendToTelegram(NotificationChannel channel, String title, String message, String priority) {
-        try {
-            String botToken = channel.getTelegramBotToken();
-            String chatId = channel.getTelegramChatID();
-            
-            if (botToken == null || botToken.isEmpty() || chatId == null || chatId.isEmpty()) {
-                System.err.println("❌ Telegram bot token or chat ID not configured");
-                return false;
-            }
-            
-            // Build Telegram message (HTML format)
-            String emoji = getPriorityEmoji(priority);
-            StringBuilder telegramMessage = new StringBuilder();
-            telegramMessage.append(emoji).append(" <b>").append(escapeHtml(title)).append("</b>\n\n");
-            telegramMessage.append(escapeHtml(message)).append("\n\n");
-            telegramMessage.append("<i>Priority: ").append(priority).append(" | ");
-            telegramMessage.append(java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
-            telegramMessage.append("</i>");
-            
-            // Build request
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("chat_id", chatId);
-            requestBody.put("text", telegramMessage.toString());
-            requestBody.put("parse_mode", "HTML");
-            
-            // Send HTTP POST
-            String apiUrl = "https://api.telegram.org/bot" + botToken + "/sendMessage";
-            URL url = URI.create(apiUrl).toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = requestBody.toString().getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
-            
-            // Read response
-            int responseCode = conn.getResponseCode();
-            if (responseCode == 200) {
+    private CompletableFuture<Boolean> sendToTelegram(NotificationChannel channel, String title, String message, String priority) {
+        String botToken = channel.getTelegramBotToken();
+        String chatId = channel.getTelegramChatID();
+        
+        if (botToken == null || botToken.isEmpty() || chatId == null || chatId.isEmpty()) {
+            System.err.println("❌ Telegram bot token or chat ID not configured");
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // Build Telegram message (HTML format)
+        String emoji = getPriorityEmoji(priority);
+        StringBuilder telegramMessage = new StringBuilder();
+        telegramMessage.append(emoji).append(" <b>").append(escapeHtml(title)).append("</b>\n\n");
+        telegramMessage.append(escapeHtml(message)).append("\n\n");
+        telegramMessage.append("<i>Priority: ").append(priority).append(" | ");
+        telegramMessage.append(java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
+        telegramMessage.append("</i>");
+        
+        // Build request
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("chat_id", chatId);
+        requestBody.put("text", telegramMessage.toString());
+        requestBody.put("parse_mode", "HTML");
+        
+        // Send HTTP POST
+        String apiUrl = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+        return NotificationHttpClient.postJson(apiUrl, requestBody.toString(), TELEGRAM_TIMEOUT_MS)
+            .thenApply(response -> {
+                if (!response.isSuccess()) {
+                    System.err.println("❌ Telegram error: " + response.body());
+                    throw new IllegalStateException("Telegram returned: " + response.code());
+                }
                 System.out.println("✅ Telegram notification sent: " + title);
                 return true;
-            } else {
-                // Read error
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(conn.getErrorStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
-                    System.err.println("❌ Telegram error: " + response.toString());
-                }
-                return false;
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Telegram send failed: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+            });
     }
     
     /**
@@ -426,57 +404,30 @@ public class NotificationService {
             String apiUrl = "https://api.telegram.org/bot" + token + "/sendMessage";
             System.out.println("🔍 [Telegram] API URL: https://api.telegram.org/bot" + (token != null ? token.substring(0, Math.min(10, token.length())) + "..." : "NULL") + "/sendMessage");
             
-            URL url = new URL(apiUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(10000); // 10 seconds
-            conn.setReadTimeout(10000); // 10 seconds
-            
             System.out.println("🔍 [Telegram] Sending HTTP POST request...");
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = requestBodyStr.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-                System.out.println("🔍 [Telegram] Request body sent (" + input.length + " bytes)");
+            NotificationHttpClient.Result response;
+            try {
+                response = NotificationHttpClient.postJson(apiUrl, requestBodyStr, TELEGRAM_TIMEOUT_MS).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
             }
             
             // Read response
-            System.out.println("🔍 [Telegram] Reading response...");
-            int responseCode = conn.getResponseCode();
+            int responseCode = response.code();
             System.out.println("🔍 [Telegram] Response code: " + responseCode);
             
             if (responseCode == 200) {
-                // Read success response
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
-                    System.out.println("✅ [Telegram] Success response: " + response.toString());
-                }
+                System.out.println("✅ [Telegram] Success response: " + response.body());
                 System.out.println("✅ [Telegram] Telegram message sent to user: " + chatId);
                 return true;
             } else {
                 // Read error
                 System.err.println("❌ [Telegram] API returned error code: " + responseCode);
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(conn.getErrorStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
-                    System.err.println("❌ [Telegram] Error response body: " + response.toString());
-                } catch (Exception e) {
-                    System.err.println("❌ [Telegram] Could not read error stream: " + e.getMessage());
-                }
+                System.err.println("❌ [Telegram] Error response body: " + response.body());
                 return false;
             }
             
-        } catch (java.net.SocketTimeoutException e) {
+        } catch (java.io.InterruptedIOException e) {
             System.err.println("❌ [Telegram] Connection timeout: " + e.getMessage());
             e.printStackTrace();
             return false;
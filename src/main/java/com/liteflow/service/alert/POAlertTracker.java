@@ -0,0 +1,170 @@
+package com.liteflow.service.alert;
+
+import com.liteflow.dao.procurement.PurchaseOrderDAO;
+import com.liteflow.model.procurement.PurchaseOrder;
+import com.liteflow.service.procurement.PurchaseOrderEvent;
+import com.liteflow.util.DeadlineWheel;
+import com.liteflow.util.EnvConfigUtil;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cảnh báo PO chờ duyệt / quá hạn giao theo sự kiện thay vì quét mọi PO mỗi phút.
+ *
+ * - PO chờ duyệt: tóm tắt PO_PENDING được tính lại khi nhận PurchaseOrderEvent tạo / duyệt / từ chối PO
+ * - PO quá hạn: PO đã duyệt được đặt hạn chót (ExpectedDelivery + 1 ngày) trong DeadlineWheel; tới hạn mà PO vẫn
+ *   APPROVED thì gửi PO_OVERDUE và đặt hạn nhắc lại sau mỗi ngày quá hạn; từ chối / nhận hàng thì hủy hạn
+ * Wheel tick mỗi LITEFLOW_PO_DEADLINE_TICK_MS ms trên thread "po-deadline-wheel"; khi khởi động nạp lại
+ * các PO đang chờ giao từ DB.
+ */
+public final class POAlertTracker {
+
+    private static final int WHEEL_SIZE = 512;
+
+    private static volatile POAlertTracker current;
+
+    private final AlertService alertService;
+    private final PurchaseOrderDAO poDAO;
+    private final long tickMillis;
+    private final DeadlineWheel<UUID> wheel;
+    private ScheduledExecutorService ticker;
+
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong pendingRefreshes = new AtomicLong();
+    private final AtomicLong deadlinesFired = new AtomicLong();
+    private final AtomicLong overdueAlerts = new AtomicLong();
+
+    public POAlertTracker(AlertService alertService, PurchaseOrderDAO poDAO, long tickMillis) {
+        this.alertService = alertService;
+        this.poDAO = poDAO;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.wheel = new DeadlineWheel<>(this.tickMillis, WHEEL_SIZE, System.currentTimeMillis(), this::onDeadline);
+    }
+
+    /**
+     * Tracker theo cấu hình LITEFLOW_PO_DEADLINE_TICK_MS trong .env
+     */
+    public static POAlertTracker fromEnv(AlertService alertService) {
+        return new POAlertTracker(alertService, new PurchaseOrderDAO(),
+                EnvConfigUtil.getLong("LITEFLOW_PO_DEADLINE_TICK_MS", 10000L));
+    }
+
+    /**
+     * Tracker đang chạy (null nếu chưa khởi động)
+     */
+    public static POAlertTracker current() {
+        return current;
+    }
+
+    public static void install(POAlertTracker tracker) {
+        current = tracker;
+    }
+
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "po-deadline-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> wheel.advance(System.currentTimeMillis()),
+                tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Đặt hạn chót cho mọi PO đã duyệt đang chờ giao (khi khởi động)
+     *
+     * @return số PO được theo dõi
+     */
+    public int armFromDatabase() {
+        int armed = 0;
+        for (PurchaseOrder po : poDAO.findAwaitingDelivery()) {
+            arm(po.getPoid(), po.getExpectedDelivery(), 1);
+            armed++;
+        }
+        return armed;
+    }
+
+    /**
+     * Subscriber của DomainEventBus
+     */
+    public void onEvent(PurchaseOrderEvent event) {
+        events.incrementAndGet();
+        if (event.type() != PurchaseOrderEvent.Type.RECEIVED) {
+            // Tập PO chờ duyệt chỉ đổi khi tạo / duyệt / từ chối
+            alertService.refreshPOPendingNotification();
+            pendingRefreshes.incrementAndGet();
+        }
+        if ("APPROVED".equals(event.status()) && event.expectedDelivery() != null) {
+            arm(event.poid(), event.expectedDelivery(), 1);
+        } else {
+            wheel.cancel(event.poid());
+        }
+    }
+
+    /**
+     * Chạy các hạn chót đã tới (ticker, hoặc đồng hồ giả trong test)
+     */
+    public int advance(long nowMillis) {
+        return wheel.advance(nowMillis);
+    }
+
+    public boolean isTracking(UUID poid) {
+        return wheel.contains(poid);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", ticker != null);
+        metrics.put("tickMillis", tickMillis);
+        metrics.put("trackedPOs", wheel.size());
+        metrics.put("events", events.get());
+        metrics.put("pendingRefreshes", pendingRefreshes.get());
+        metrics.put("deadlinesFired", deadlinesFired.get());
+        metrics.put("overdueAlerts", overdueAlerts.get());
+        return metrics;
+    }
+
+    /**
+     * Hạn chót thứ n: ExpectedDelivery + n ngày (lúc PO quá hạn n ngày)
+     */
+    private void arm(UUID poid, LocalDateTime expectedDelivery, long daysOverdue) {
+        long deadline = expectedDelivery.plusDays(daysOverdue).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        wheel.schedule(poid, deadline);
+    }
+
+    private void onDeadline(UUID poid) {
+        deadlinesFired.incrementAndGet();
+        PurchaseOrder po = poDAO.findById(poid);
+        if (po == null || !"APPROVED".equals(po.getStatus()) || po.getExpectedDelivery() == null) {
+            return;
+        }
+        long daysOverdue = ChronoUnit.DAYS.between(po.getExpectedDelivery(), LocalDateTime.now());
+        if (daysOverdue > 0) {
+            // Supplier name would need to be fetched from SupplierDAO
+            alertService.triggerPOOverdue(po.getPoid().toString(), "Supplier-" + po.getSupplierID(),
+                    po.getExpectedDelivery(), (int) daysOverdue);
+            overdueAlerts.incrementAndGet();
+        }
+        // Nhắc lại khi tròn thêm một ngày quá hạn (ExpectedDelivery có thể đã được sửa)
+        arm(poid, po.getExpectedDelivery(), Math.max(daysOverdue, 0) + 1);
+    }
+}
@@ -0,0 +1,363 @@
+package com.liteflow.service.auth;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.liteflow.dao.BatchResult;
+import com.liteflow.dao.GenericDAO;
+import com.liteflow.model.auth.AuditLog;
+import com.liteflow.util.EnvConfigUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ghi AuditLog bất đồng bộ theo lô.
+ *
+ * AuditService chỉ đưa sự kiện vào hàng đợi có giới hạn, thread nền "audit-log-writer" gom tối đa
+ * LITEFLOW_AUDIT_BATCH_SIZE dòng hoặc chờ tối đa LITEFLOW_AUDIT_FLUSH_MS ms rồi insert một lần
+ * (GenericDAO.insertAll, JDBC batch). Khi hàng đợi đầy xử lý theo LITEFLOW_AUDIT_OVERFLOW:
+ * - BLOCK: chờ tối đa LITEFLOW_AUDIT_BLOCK_TIMEOUT_MS, quá hạn thì bỏ sự kiện
+ * - DROP_OLDEST: bỏ sự kiện cũ nhất trong hàng đợi
+ * - SPILL (mặc định): ghi ra file LITEFLOW_AUDIT_SPILL_FILE (JSON mỗi dòng), nạp lại vào DB lần khởi động sau
+ * Các dòng insert lỗi cũng được ghi ra file spill. shutdown() ghi nốt hàng đợi trước khi dừng.
+ */
+public final class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP_OLDEST, SPILL
+    }
+
+    private static volatile AuditLogWriter current;
+
+    private final GenericDAO<AuditLog, UUID> dao = new GenericDAO<>(AuditLog.class, UUID.class);
+    private final ArrayBlockingQueue<AuditLog> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushMillis;
+    private final long blockTimeoutMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final Object spillLock = new Object();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastBatchLagMillis;
+
+    public AuditLogWriter(int capacity, int batchSize, long flushMillis, OverflowPolicy overflowPolicy,
+            long blockTimeoutMillis, Path spillFile) {
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMillis = Math.max(1, flushMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = Math.max(0, blockTimeoutMillis);
+        this.spillFile = spillFile;
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+    }
+
+    /**
+     * Writer theo cấu hình LITEFLOW_AUDIT_* trong .env
+     */
+    public static AuditLogWriter fromEnv() {
+        OverflowPolicy policy;
+        try {
+            policy = OverflowPolicy.valueOf(EnvConfigUtil.get("LITEFLOW_AUDIT_OVERFLOW", "SPILL").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ Unknown LITEFLOW_AUDIT_OVERFLOW, using SPILL");
+            policy = OverflowPolicy.SPILL;
+        }
+        String defaultSpill = Paths.get(System.getProperty("java.io.tmpdir"), "liteflow-audit-spill.jsonl").toString();
+        return new AuditLogWriter(
+                EnvConfigUtil.getInt("LITEFLOW_AUDIT_QUEUE_CAPACITY", 10000),
+                EnvConfigUtil.getInt("LITEFLOW_AUDIT_BATCH_SIZE", 100),
+                EnvConfigUtil.getLong("LITEFLOW_AUDIT_FLUSH_MS", 1000L),
+                policy,
+                EnvConfigUtil.getLong("LITEFLOW_AUDIT_BLOCK_TIMEOUT_MS", 500L),
+                Paths.get(EnvConfigUtil.get("LITEFLOW_AUDIT_SPILL_FILE", defaultSpill)));
+    }
+
+    /**
+     * Writer đang chạy (null nếu chưa khởi động, khi đó AuditService ghi trực tiếp như trước)
+     */
+    public static AuditLogWriter current() {
+        return current;
+    }
+
+    public static void install(AuditLogWriter writer) {
+        current = writer;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Đưa sự kiện vào hàng đợi
+     *
+     * @return false nếu writer đã dừng (người gọi tự ghi)
+     */
+    public boolean submit(AuditLog log) {
+        if (!running) {
+            return false;
+        }
+        if (log.getCreatedAt() == null) {
+            log.setCreatedAt(new Date());
+        }
+        if (queue.offer(log)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(log, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        enqueued.incrementAndGet();
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.incrementAndGet();
+                return true;
+            case DROP_OLDEST:
+                while (!queue.offer(log)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                enqueued.incrementAndGet();
+                return true;
+            default:
+                spill(List.of(log));
+                return true;
+        }
+    }
+
+    /**
+     * Dừng nhận sự kiện, ghi nốt hàng đợi (tối đa timeoutMillis), phần còn lại ghi ra file spill
+     */
+    public void shutdown(long timeoutMillis) {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = worker;
+        }
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            thread.interrupt();
+        }
+        List<AuditLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+
+    /**
+     * Nạp lại các sự kiện đã ghi ra file spill (gọi khi khởi động, trước start())
+     *
+     * @return số dòng đã insert
+     */
+    public int replaySpillFile() {
+        if (spillFile == null || !Files.exists(spillFile)) {
+            return 0;
+        }
+        List<AuditLog> logs = new ArrayList<>();
+        Path replaying = spillFile.resolveSibling(spillFile.getFileName() + ".replaying");
+        try {
+            synchronized (spillLock) {
+                Files.move(spillFile, replaying, StandardCopyOption.REPLACE_EXISTING);
+            }
+            for (String line : Files.readAllLines(replaying, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    logs.add(fromSpillLine(line));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Cannot read audit spill file " + spillFile + ": " + e.getMessage());
+            return 0;
+        }
+        int inserted = writeBatch(logs);
+        try {
+            Files.deleteIfExists(replaying);
+        } catch (IOException e) {
+            System.err.println("⚠️ Cannot delete " + replaying + ": " + e.getMessage());
+        }
+        return inserted;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        AuditLog oldest = queue.peek();
+        metrics.put("running", running);
+        metrics.put("overflowPolicy", overflowPolicy.name());
+        metrics.put("queueDepth", queue.size());
+        metrics.put("capacity", capacity);
+        metrics.put("lagMillis", oldest != null && oldest.getCreatedAt() != null
+                ? System.currentTimeMillis() - oldest.getCreatedAt().getTime() : 0L);
+        metrics.put("lastBatchLagMillis", lastBatchLagMillis);
+        metrics.put("enqueued", enqueued.get());
+        metrics.put("written", written.get());
+        metrics.put("failed", failed.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("spilled", spilled.get());
+        metrics.put("batches", batches.get());
+        return metrics;
+    }
+
+    private void runLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Gom tới đủ batchSize hoặc hết flushMillis tính từ sự kiện đầu tiên
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // shutdown quá hạn: phần còn lại do shutdown() ghi ra file spill
+                Thread.currentThread().interrupt();
+                break;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+        if (!batch.isEmpty()) {
+            spill(batch);
+        }
+    }
+
+    private int writeBatch(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            BatchResult result = dao.insertAll(batch, batchSize, batchSize);
+            batches.incrementAndGet();
+            written.addAndGet(result.getSucceeded());
+            Date firstCreated = batch.get(0).getCreatedAt();
+            if (firstCreated != null) {
+                lastBatchLagMillis = System.currentTimeMillis() - firstCreated.getTime();
+            }
+            if (!result.getFailures().isEmpty()) {
+                failed.addAndGet(result.getFailed());
+                System.err.println("❌ Audit batch: " + result);
+                List<AuditLog> failedRows = new ArrayList<>();
+                for (BatchResult.RowFailure failure : result.getFailures()) {
+                    if (failure.getItem() instanceof AuditLog) {
+                        failedRows.add((AuditLog) failure.getItem());
+                    }
+                }
+                spill(failedRows);
+            }
+            return result.getSucceeded();
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            System.err.println("❌ Failed to write audit batch (" + batch.size() + " rows): " + e.getMessage());
+            spill(batch);
+            return 0;
+        }
+    }
+
+    private void spill(List<AuditLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (spillFile == null) {
+            dropped.addAndGet(logs.size());
+            return;
+        }
+        synchronized (spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (AuditLog log : logs) {
+                    out.write(toSpillLine(log));
+                    out.newLine();
+                }
+                spilled.addAndGet(logs.size());
+            } catch (IOException e) {
+                dropped.addAndGet(logs.size());
+                System.err.println("❌ Cannot write audit spill file " + spillFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static String toSpillLine(AuditLog log) {
+        JsonObject json = new JsonObject();
+        json.addProperty("userId", log.getUserID() != null ? log.getUserID().toString() : null);
+        json.addProperty("action", log.getAction());
+        json.addProperty("objectType", log.getObjectType());
+        json.addProperty("objectId", log.getObjectID());
+        json.addProperty("details", log.getDetails());
+        json.addProperty("ip", log.getIpAddress());
+        json.addProperty("createdAt", log.getCreatedAt() != null ? log.getCreatedAt().getTime() : System.currentTimeMillis());
+        return json.toString();
+    }
+
+    private static AuditLog fromSpillLine(String line) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        AuditLog log = new AuditLog();
+        String userId = stringOf(json, "userId");
+        log.setUserID(userId != null ? UUID.fromString(userId) : null);
+        log.setAction(stringOf(json, "action"));
+        log.setObjectType(stringOf(json, "objectType"));
+        log.setObjectID(stringOf(json, "objectId"));
+        log.setDetails(stringOf(json, "details"));
+        log.setIpAddress(stringOf(json, "ip"));
+        log.setCreatedAt(new Date(json.get("createdAt").getAsLong()));
+        return log;
+    }
+
+    private static String stringOf(JsonObject json, String name) {
+        return json.has(name) && !json.get(name).isJsonNull() ? json.get(name).getAsString() : null;
+    }
+}
@@ -63,7 +63,11 @@ public class AuditService {
             log.setDetails(details);
             log.setIpAddress(ip);
 
-            dao.insert(log);
+            // Có AuditLogWriter (server đang chạy) thì ghi bất đồng bộ theo lô, không thì ghi trực tiếp
+            AuditLogWriter writer = AuditLogWriter.current();
+            if (writer == null || !writer.submit(log)) {
+                dao.insert(log);
+            }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "❌ Failed to write audit log", e);
         }
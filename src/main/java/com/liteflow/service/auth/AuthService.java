@@ -4,6 +4,7 @@ import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.auth.User;
 import com.liteflow.model.auth.UserSession;
 import com.liteflow.security.JwtUtil;
+import com.liteflow.security.PrincipalCache;
 import com.liteflow.util.PasswordUtil;
 
 import java.time.LocalDateTime;
@@ -161,6 +162,8 @@ public class AuthService {
         if (s != null) {
             s.setRevoked(true);
             sessionDao.update(s);
+            JwtUtil.revoke(jwt);
+            PrincipalCache.invalidateToken(jwt);
             audit.logLogout(user, ip);
             return true;
         }
@@ -202,6 +205,8 @@ public class AuthService {
         s.setJwt(newJwt);
         s.setExpiresAt(LocalDateTime.now().plusSeconds(DEFAULT_TTL_SECONDS));
         sessionDao.update(s);
+        JwtUtil.revoke(oldJwt);
+        PrincipalCache.invalidateToken(oldJwt);
 
         audit.log(user,
                 AuditService.AuditAction.TOKEN_REFRESH,
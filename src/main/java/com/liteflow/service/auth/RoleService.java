@@ -3,8 +3,12 @@ package com.liteflow.service.auth;
 import com.liteflow.dao.BaseDAO;
 import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.auth.Role;
+import com.liteflow.model.auth.RolePath;
+import com.liteflow.model.auth.RolePathId;
 import com.liteflow.model.auth.User;
 import com.liteflow.model.auth.UserRole;
+import com.liteflow.security.PathAuthorizer;
+import com.liteflow.security.PrincipalCache;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
@@ -43,17 +47,83 @@ public class RoleService {
         if (role == null || role.getRoleID() == null) {
             return false;
         }
-        return roleDao.update(role);
+        boolean ok = roleDao.update(role);
+        if (ok) {
+            // Đổi tên role ảnh hưởng mọi user đang giữ role
+            PrincipalCache.clear();
+            reloadPathRules();
+        }
+        return ok;
     }
 
     public boolean deleteRole(UUID roleId) {
         Role r = roleDao.findById(roleId);
         if (r != null) {
-            return roleDao.delete(roleId);
+            boolean ok = roleDao.delete(roleId);
+            if (ok) {
+                PrincipalCache.clear();
+                reloadPathRules();
+            }
+            return ok;
+        }
+        return false;
+    }
+
+    // ==========================
+    // Role ↔ Path (RolePaths)
+    // ==========================
+    /**
+     * Cho phép role truy cập các đường dẫn bắt đầu bằng pathPrefix, có hiệu lực ngay (không cần redeploy).
+     */
+    public boolean addRolePath(UUID roleId, String pathPrefix) {
+        if (roleId == null || pathPrefix == null || !pathPrefix.startsWith("/")) {
+            return false;
+        }
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        try {
+            if (em.find(RolePath.class, new RolePathId(roleId, pathPrefix)) != null) {
+                return false;
+            }
+            em.getTransaction().begin();
+            em.persist(new RolePath(roleId, pathPrefix));
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        reloadPathRules();
+        return true;
+    }
+
+    public boolean removeRolePath(UUID roleId, String pathPrefix) {
+        EntityManager em = BaseDAO.emf.createEntityManager();
+        int deleted;
+        try {
+            em.getTransaction().begin();
+            deleted = em.createQuery(
+                    "DELETE FROM RolePath rp WHERE rp.roleId = :r AND rp.pathPrefix = :p"
+            )
+                    .setParameter("r", roleId)
+                    .setParameter("p", pathPrefix)
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        if (deleted > 0) {
+            reloadPathRules();
+            return true;
         }
         return false;
     }
 
+    private void reloadPathRules() {
+        try {
+            PathAuthorizer.reload();
+        } catch (Exception e) {
+            System.err.println("❌ Failed to reload path rules: " + e.getMessage());
+        }
+    }
+
     // ==========================
     // User ↔ Role mapping
     // ==========================
@@ -81,6 +151,7 @@ public class RoleService {
                 ur.setIsActive(true);
                 em.persist(ur);
                 em.getTransaction().commit();
+                PrincipalCache.invalidateUser(userId);
 
                 User u = em.find(User.class, userId);
                 Role r = em.find(Role.class, roleId);
@@ -114,6 +185,7 @@ public class RoleService {
                     .setParameter("r", roleId)
                     .executeUpdate();
             em.getTransaction().commit();
+            PrincipalCache.invalidateUser(userId);
 
             if (updated > 0) {
                 User u = em.find(User.class, userId);
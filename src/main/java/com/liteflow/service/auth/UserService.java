@@ -6,9 +6,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import static com.liteflow.dao.BaseDAO.emf;
 import com.liteflow.dao.GenericDAO;
 import com.liteflow.model.auth.*;
+import com.liteflow.security.JwtUtil;
+import com.liteflow.security.PrincipalCache;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -63,7 +66,11 @@ public class UserService {
      * @return true nếu update thành công
      */
     public boolean updateUser(User user) {
-        return userDao.update(user);
+        boolean ok = userDao.update(user);
+        if (ok) {
+            PrincipalCache.invalidateUser(user.getUserID());
+        }
+        return ok;
     }
 
     /**
@@ -79,6 +86,7 @@ public class UserService {
             user.setIsActive(false);
             boolean ok = userDao.update(user);
             if (ok) {
+                PrincipalCache.invalidateUser(id);
                 audit.log(user, AuditService.AuditAction.LOCK_ACCOUNT,
                         AuditService.ObjectType.USER, user.getUserID().toString(),
                         "User account locked", ip);
@@ -101,6 +109,7 @@ public class UserService {
             user.setIsActive(true);
             boolean ok = userDao.update(user);
             if (ok) {
+                PrincipalCache.invalidateUser(id);
                 audit.log(user, AuditService.AuditAction.UNLOCK_ACCOUNT,
                         AuditService.ObjectType.USER, user.getUserID().toString(),
                         "User account unlocked", ip);
@@ -184,6 +193,7 @@ public class UserService {
             em.persist(ur);
 
             em.getTransaction().commit();
+            PrincipalCache.invalidateUser(userId);
 
             User u = userDao.findById(userId);
             audit.logRoleAssigned(u, roleName, ip);
@@ -216,6 +226,7 @@ public class UserService {
                 audit.logRoleRemoved(u, roleName, ip);
             }
             em.getTransaction().commit();
+            PrincipalCache.invalidateUser(userId);
         } finally {
             em.close();
         }
@@ -234,6 +245,8 @@ public class UserService {
                     "SELECT r.name FROM Role r JOIN UserRole ur ON r.roleID = ur.id.roleId WHERE ur.id.userId = :u",
                     String.class)
                     .setParameter("u", userId)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .setHint(HibernateHints.HINT_CACHE_REGION, "query.auth")
                     .getResultList();
         } finally {
             em.close();
@@ -301,7 +314,12 @@ public class UserService {
         UserSession s = sessionDao.findById(sessionId);
         if (s != null) {
             s.setRevoked(true);
-            return sessionDao.update(s);
+            boolean ok = sessionDao.update(s);
+            if (ok) {
+                JwtUtil.revoke(s.getJwt());
+                PrincipalCache.invalidateToken(s.getJwt());
+            }
+            return ok;
         }
         return false;
     }
@@ -358,7 +376,12 @@ public class UserService {
         UserSession s = findActiveSessionByJwt(jwt);
         if (s != null) {
             s.setRevoked(true);
-            return sessionDao.update(s);
+            boolean ok = sessionDao.update(s);
+            if (ok) {
+                JwtUtil.revoke(s.getJwt());
+                PrincipalCache.invalidateToken(s.getJwt());
+            }
+            return ok;
         }
         return false;
     }
@@ -0,0 +1,159 @@
+package com.liteflow.service.event;
+
+import com.liteflow.util.EnvConfigUtil;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bus sự kiện nghiệp vụ trong tiến trình (vd PurchaseOrderEvent khi tạo / duyệt / từ chối / nhận hàng PO).
+ *
+ * Service phát sự kiện sau khi đã ghi DB; các subscriber (cảnh báo, ...) xử lý trên thread "domain-events" theo đúng
+ * thứ tự phát, không giữ thread của request. Hàng đợi tối đa LITEFLOW_EVENT_QUEUE_CAPACITY sự kiện, đầy thì thread
+ * phát tự xử lý. Khi chưa start() (vd trong test) sự kiện được xử lý ngay trên thread phát.
+ */
+public final class DomainEventBus {
+
+    private static volatile DomainEventBus current;
+
+    private final int queueCapacity;
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile ThreadPoolExecutor dispatcher;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong inline = new AtomicLong();
+    private final Map<String, AtomicLong> publishedByType = new ConcurrentHashMap<>();
+
+    public DomainEventBus(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Bus theo cấu hình LITEFLOW_EVENT_QUEUE_CAPACITY trong .env
+     */
+    public static DomainEventBus fromEnv() {
+        return new DomainEventBus(EnvConfigUtil.getInt("LITEFLOW_EVENT_QUEUE_CAPACITY", 10000));
+    }
+
+    /**
+     * Bus đang chạy (null nếu chưa khởi động)
+     */
+    public static DomainEventBus current() {
+        return current;
+    }
+
+    public static void install(DomainEventBus bus) {
+        current = bus;
+    }
+
+    /**
+     * Đăng ký xử lý mọi sự kiện thuộc kiểu eventType (kể cả lớp con)
+     */
+    public <E> void subscribe(Class<E> eventType, Consumer<? super E> handler) {
+        subscriptions.add(new Subscription<>(eventType, handler));
+    }
+
+    public synchronized void start() {
+        if (dispatcher != null) {
+            return;
+        }
+        dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "domain-events");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Phát một sự kiện tới các subscriber
+     */
+    public void publish(Object event) {
+        published.incrementAndGet();
+        publishedByType.computeIfAbsent(event.getClass().getSimpleName(), t -> new AtomicLong()).incrementAndGet();
+        ThreadPoolExecutor executor = dispatcher;
+        if (executor != null) {
+            try {
+                executor.execute(() -> dispatch(event));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Hàng đợi đầy hoặc đang dừng: xử lý trên thread phát
+            }
+        }
+        inline.incrementAndGet();
+        dispatch(event);
+    }
+
+    /**
+     * Dừng nhận sự kiện mới, xử lý nốt hàng đợi tối đa timeoutMillis
+     */
+    public void shutdown(long timeoutMillis) {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = dispatcher;
+            dispatcher = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                System.err.println("⚠️ Domain event bus shutdown timed out, dropping "
+                        + executor.shutdownNow().size() + " events");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        ThreadPoolExecutor executor = dispatcher;
+        metrics.put("running", executor != null);
+        metrics.put("queueDepth", executor != null ? executor.getQueue().size() : 0);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("subscribers", subscriptions.size());
+        metrics.put("published", published.get());
+        metrics.put("delivered", delivered.get());
+        metrics.put("failed", failed.get());
+        metrics.put("inline", inline.get());
+        Map<String, Long> byType = new LinkedHashMap<>();
+        publishedByType.forEach((type, count) -> byType.put(type, count.get()));
+        metrics.put("publishedByType", byType);
+        return metrics;
+    }
+
+    private void dispatch(Object event) {
+        for (Subscription<?> subscription : subscriptions) {
+            if (!subscription.eventType.isInstance(event)) {
+                continue;
+            }
+            try {
+                subscription.deliver(event);
+                delivered.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                System.err.println("❌ Failed to handle " + event.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private record Subscription<E>(Class<E> eventType, Consumer<? super E> handler) {
+
+        void deliver(Object event) {
+            handler.accept(eventType.cast(event));
+        }
+    }
+}
@@ -1,20 +1,56 @@
 package com.liteflow.service.inventory;
 
+import com.liteflow.dao.BatchResult;
 import com.liteflow.model.inventory.Room;
 import com.liteflow.model.inventory.Table;
+import com.liteflow.util.EnvConfigUtil;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Service for handling Excel import/export operations
+ *
+ * Export ghi bằng SXSSFWorkbook: chỉ LITEFLOW_EXCEL_ROW_WINDOW dòng (mặc định 100) nằm trong bộ nhớ,
+ * phần còn lại được đẩy ra file tạm rồi ghi thẳng ra output stream.
+ * Import .xlsx đọc theo event model (XSSFReader + SAX) từ file tạm, từng dòng được kiểm tra rồi xử lý theo lô
+ * LITEFLOW_EXCEL_IMPORT_CHUNK_SIZE dòng (mặc định 500), nên bộ nhớ không tăng theo kích thước file. Mỗi lô tra
+ * tên phòng / số bàn đã có bằng một query IN, lọc trùng trong bộ nhớ rồi ghi bằng batch insert; checkExcelFile
+ * chạy cùng pipeline ở chế độ dry run.
+ * File .xls (định dạng cũ) vẫn đọc bằng HSSFWorkbook.
  */
 public class ExcelService {
+
+    private static final int ROW_WINDOW = Math.max(10, EnvConfigUtil.getInt("LITEFLOW_EXCEL_ROW_WINDOW", 100));
+    private static final int IMPORT_CHUNK_SIZE = Math.max(1, EnvConfigUtil.getInt("LITEFLOW_EXCEL_IMPORT_CHUNK_SIZE", 500));
+    private static final int MAX_ERROR_MESSAGES = 1000;
+    
+    // Tiến độ các lượt import đang chạy (theo importId do client gửi lên)
+    private static final Map<String, ImportProgress> runningImports = new ConcurrentHashMap<>();
     
     private RoomTableService roomTableService;
     
@@ -23,115 +59,75 @@ public class ExcelService {
     }
     
     /**
-     * Check Excel file for validation without importing
+     * Check Excel file for validation without importing (chạy pipeline import ở chế độ dry run, không ghi DB)
      */
-    public Map<String, Object> checkExcelFile(InputStream inputStream, String fileName, 
-                                              boolean skipDuplicates, boolean validateData, 
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> checkExcelFile(InputStream inputStream, String fileName,
+                                              boolean skipDuplicates, boolean validateData,
                                               boolean createMissingRooms) {
+        Map<String, Object> report = importFromExcel(inputStream, fileName, skipDuplicates, validateData,
+                createMissingRooms, true, null);
         Map<String, Object> result = new HashMap<>();
-        List<String> errors = new ArrayList<>();
-        int totalRooms = 0;
-        int totalTables = 0;
         
-        try {
-            Workbook workbook;
-            if (fileName.toLowerCase().endsWith(".xlsx")) {
-                workbook = new XSSFWorkbook(inputStream);
-            } else {
-                workbook = new HSSFWorkbook(inputStream);
-            }
-            
-            // Check which sheets exist
-            boolean hasRoomsSheet = workbook.getSheet("Rooms") != null;
-            boolean hasTablesSheet = workbook.getSheet("Tables") != null;
-            
-            if (!hasRoomsSheet && !hasTablesSheet) {
-                workbook.close();
-                result.put("success", false);
-                result.put("message", "File Excel không chứa sheet 'Rooms' hoặc 'Tables'");
-                result.put("totalRooms", 0);
-                result.put("totalTables", 0);
-                result.put("errors", Arrays.asList("File Excel phải chứa ít nhất một sheet 'Rooms' hoặc 'Tables'"));
-                return result;
-            }
-            
-            // Check Rooms sheet if exists
-            if (hasRoomsSheet) {
-                Sheet roomsSheet = workbook.getSheet("Rooms");
-                for (int i = 1; i <= roomsSheet.getLastRowNum(); i++) {
-                    Row row = roomsSheet.getRow(i);
-                    if (row == null) continue;
-                    
-                    try {
-                        Room room = parseRoomFromRow(row, validateData);
-                        if (room != null) {
-                            // Check for duplicates
-                            if (!skipDuplicates && roomTableService.getRoomByName(room.getName()) != null) {
-                                errors.add("Dòng " + (i + 1) + " (Rooms): Phòng '" + room.getName() + "' đã tồn tại");
-                            } else {
-                                totalRooms++;
-                            }
-                        }
-                    } catch (Exception e) {
-                        errors.add("Dòng " + (i + 1) + " (Rooms): " + e.getMessage());
-                    }
-                }
-            }
-            
-            // Check Tables sheet if exists
-            if (hasTablesSheet) {
-                Sheet tablesSheet = workbook.getSheet("Tables");
-                for (int i = 1; i <= tablesSheet.getLastRowNum(); i++) {
-                    Row row = tablesSheet.getRow(i);
-                    if (row == null) continue;
-                    
-                    try {
-                        Table table = parseTableFromRow(row, validateData, createMissingRooms);
-                        if (table != null) {
-                            // Check for duplicates
-                            if (!skipDuplicates && roomTableService.getTableByNumber(table.getTableNumber()) != null) {
-                                errors.add("Dòng " + (i + 1) + " (Tables): Bàn '" + table.getTableNumber() + "' đã tồn tại");
-                            } else {
-                                totalTables++;
-                            }
-                        }
-                    } catch (Exception e) {
-                        errors.add("Dòng " + (i + 1) + " (Tables): " + e.getMessage());
-                    }
-                }
-            }
-            
-            workbook.close();
-            
-            result.put("success", true);
-            result.put("totalRooms", totalRooms);
-            result.put("totalTables", totalTables);
-            result.put("errors", errors);
-            
-        } catch (Exception e) {
+        // Không đọc được file / không có sheet nào
+        if (!report.containsKey("rooms")) {
             result.put("success", false);
-            result.put("message", "Lỗi khi đọc file Excel: " + e.getMessage());
-            result.put("errors", errors);
+            result.put("message", report.get("message"));
+            result.put("totalRooms", 0);
+            result.put("totalTables", 0);
+            result.put("errors", report.get("errors"));
+            return result;
+        }
+        
+        Map<String, Object> rooms = (Map<String, Object>) report.get("rooms");
+        Map<String, Object> tables = (Map<String, Object>) report.get("tables");
+        List<String> errors = new ArrayList<>();
+        for (Object error : (List<Object>) rooms.getOrDefault("errors", List.of())) {
+            errors.add("Rooms - " + error);
+        }
+        for (Object error : (List<Object>) tables.getOrDefault("errors", List.of())) {
+            errors.add("Tables - " + error);
         }
         
+        result.put("success", true);
+        result.put("totalRooms", rooms.get("success"));
+        result.put("totalTables", tables.get("success"));
+        result.put("skipped", (Integer) rooms.getOrDefault("skipped", 0) + (Integer) tables.getOrDefault("skipped", 0));
+        result.put("roomsToCreate", tables.getOrDefault("roomsCreated", 0));
+        result.put("errors", errors);
         return result;
     }
     
     /**
      * Import rooms and tables from Excel file
      */
-    public Map<String, Object> importFromExcel(InputStream inputStream, String fileName, 
-                                             boolean skipDuplicates, boolean validateData, 
+    public Map<String, Object> importFromExcel(InputStream inputStream, String fileName,
+                                             boolean skipDuplicates, boolean validateData,
                                              boolean createMissingRooms) {
+        return importFromExcel(inputStream, fileName, skipDuplicates, validateData, createMissingRooms, false, null);
+    }
+    
+    /**
+     * Import rooms and tables from Excel file theo từng lô: parse + kiểm tra dòng, tra tên phòng / số bàn của cả lô
+     * bằng một query IN, lọc trùng trong bộ nhớ rồi ghi lô bằng batch insert.
+     *
+     * @param dryRun   chỉ báo cáo sẽ thêm / bỏ qua / lỗi bao nhiêu dòng, không ghi DB
+     * @param importId id để xem tiến độ qua getImportProgress() trong lúc chạy (có thể null)
+     */
+    public Map<String, Object> importFromExcel(InputStream inputStream, String fileName,
+                                             boolean skipDuplicates, boolean validateData,
+                                             boolean createMissingRooms, boolean dryRun, String importId) {
         Map<String, Object> result = new HashMap<>();
         List<String> errors = new ArrayList<>();
+        ImportProgress progress = new ImportProgress();
+        if (importId != null) {
+            runningImports.put(importId, progress);
+        }
         
-        try {
-            Workbook workbook = createWorkbook(inputStream, fileName);
-            
+        try (SheetReader sheets = openSheets(inputStream, fileName, progress)) {
             // Check which sheets exist
-            boolean hasRoomsSheet = workbook.getSheet("Rooms") != null;
-            boolean hasTablesSheet = workbook.getSheet("Tables") != null;
+            boolean hasRoomsSheet = sheets.hasSheet("Rooms");
+            boolean hasTablesSheet = sheets.hasSheet("Tables");
             
             if (!hasRoomsSheet && !hasTablesSheet) {
                 result.put("success", false);
@@ -142,10 +138,14 @@ public class ExcelService {
             
             int totalSuccess = 0;
             int totalErrors = 0;
+            // Tên phòng (lowercase) sẽ được thêm từ sheet Rooms, để sheet Tables tham chiếu được khi dry run
+            Set<String> fileRoomNames = new HashSet<>();
             
-            // Import rooms if sheet exists
+            // Import rooms if sheet exists (ghi xong phòng trước để bàn tham chiếu được)
             if (hasRoomsSheet) {
-                Map<String, Object> roomsResult = importRooms(workbook, skipDuplicates, validateData);
+                progress.phase = "rooms";
+                Map<String, Object> roomsResult = importRooms(sheets, skipDuplicates, validateData, dryRun,
+                        fileRoomNames, progress);
                 result.put("rooms", roomsResult);
                 totalSuccess += (Integer) roomsResult.get("success");
                 totalErrors += (Integer) roomsResult.get("error");
@@ -155,7 +155,9 @@ public class ExcelService {
             
             // Import tables if sheet exists
             if (hasTablesSheet) {
-                Map<String, Object> tablesResult = importTables(workbook, skipDuplicates, validateData, createMissingRooms);
+                progress.phase = "tables";
+                Map<String, Object> tablesResult = importTables(sheets, skipDuplicates, validateData,
+                        createMissingRooms, dryRun, fileRoomNames, progress);
                 result.put("tables", tablesResult);
                 totalSuccess += (Integer) tablesResult.get("success");
                 totalErrors += (Integer) tablesResult.get("error");
@@ -163,10 +165,14 @@ public class ExcelService {
                 result.put("tables", Map.of("success", 0, "error", 0, "message", "Không có sheet 'Tables'"));
             }
             
-            workbook.close();
-            
+            System.out.println("📊 " + (dryRun ? "Kiểm tra" : "Import") + " Excel " + fileName + ": "
+                    + progress.rowsRead.get() + " dòng, " + totalSuccess + " thành công, " + totalErrors + " lỗi");
+                    
             result.put("success", totalErrors == 0);
-            result.put("message", String.format("Nhập thành công %d bản ghi, %d lỗi", totalSuccess, totalErrors));
+            result.put("dryRun", dryRun);
+            result.put("message", dryRun
+                    ? String.format("Kiểm tra: sẽ nhập %d bản ghi, %d lỗi", totalSuccess, totalErrors)
+                    : String.format("Nhập thành công %d bản ghi, %d lỗi", totalSuccess, totalErrors));
             result.put("errors", errors);
             
         } catch (Exception e) {
@@ -175,18 +181,51 @@ public class ExcelService {
             result.put("success", false);
             result.put("message", "Lỗi khi xử lý file Excel: " + e.getMessage());
             result.put("errors", Arrays.asList(e.getMessage()));
+        } finally {
+            progress.phase = "done";
+            if (importId != null) {
+                runningImports.remove(importId);
+            }
         }
         
         return result;
     }
     
+    /**
+     * Tiến độ của lượt import đang chạy
+     *
+     * @return phase, rowsRead, imported, failed, percent; null nếu không có lượt import nào với id này
+     */
+    public static Map<String, Object> getImportProgress(String importId) {
+        ImportProgress progress = importId != null ? runningImports.get(importId) : null;
+        return progress != null ? progress.toMap() : null;
+    }
+    
     /**
      * Export rooms and tables to Excel file
      */
     public byte[] exportToExcel() {
         try {
-            Workbook workbook = new XSSFWorkbook();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            exportToExcel(outputStream);
+            return outputStream.toByteArray();
             
+        } catch (Exception e) {
+            System.err.println("❌ Lỗi khi export Excel: " + e.getMessage());
+            e.printStackTrace();
+            return new byte[0];
+        }
+    }
+    
+    /**
+     * Export rooms and tables ghi thẳng ra output stream (SXSSF, giữ tối đa ROW_WINDOW dòng trong bộ nhớ).
+     * Dữ liệu được đọc và ghi vào file tạm trước, output stream chỉ được ghi khi mọi sheet đã xong
+     * nên lỗi đọc dữ liệu không để lại file hỏng cho client.
+     */
+    public void exportToExcel(OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             // Create styles
             Map<String, CellStyle> styles = createStyles(workbook);
             
@@ -196,179 +235,247 @@ public class ExcelService {
             // Export tables
             exportTables(workbook, styles);
             
-            // Write to byte array
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            workbook.dispose();
             workbook.close();
-            
-            return outputStream.toByteArray();
-            
-        } catch (Exception e) {
-            System.err.println("❌ Lỗi khi export Excel: " + e.getMessage());
-            e.printStackTrace();
-            return new byte[0];
         }
     }
     
     /**
-     * Create workbook from input stream
+     * Mở file upload để đọc theo sheet: .xlsx đọc stream (SAX), .xls đọc bằng HSSFWorkbook
      */
-    private Workbook createWorkbook(InputStream inputStream, String fileName) throws IOException {
-        if (fileName.toLowerCase().endsWith(".xlsx")) {
-            return new XSSFWorkbook(inputStream);
-        } else if (fileName.toLowerCase().endsWith(".xls")) {
-            return new HSSFWorkbook(inputStream);
+    private SheetReader openSheets(InputStream inputStream, String fileName, ImportProgress progress) throws Exception {
+        String name = fileName != null ? fileName.toLowerCase() : "";
+        if (name.endsWith(".xlsx")) {
+            return new StreamingSheetReader(inputStream, progress);
+        } else if (name.endsWith(".xls")) {
+            return new WorkbookSheetReader(new HSSFWorkbook(inputStream), progress);
         } else {
             throw new IllegalArgumentException("Unsupported file format. Only .xlsx and .xls are supported.");
         }
     }
     
     /**
-     * Import rooms from Excel
+     * Import rooms from Excel: mỗi lô IMPORT_CHUNK_SIZE dòng tra trùng bằng một query IN rồi ghi bằng một batch insert
      */
-    private Map<String, Object> importRooms(Workbook workbook, boolean skipDuplicates, boolean validateData) {
-        Map<String, Object> result = new HashMap<>();
-        int success = 0;
-        int error = 0;
-        List<String> errors = new ArrayList<>();
-        
-        try {
-            Sheet roomsSheet = workbook.getSheet("Rooms");
-            if (roomsSheet == null) {
-                result.put("success", 0);
-                result.put("error", 0);
-                result.put("message", "Không tìm thấy sheet 'Rooms'");
-                return result;
+    private Map<String, Object> importRooms(SheetReader sheets, boolean skipDuplicates, boolean validateData,
+                                            boolean dryRun, Set<String> fileRoomNames, ImportProgress progress) {
+        ChunkWriter<Room> writer = new ChunkWriter<>(dryRun, progress, (rooms, rows, w) -> {
+            // Tên đã có trong DB của cả lô
+            Set<String> existingNames = new HashSet<>();
+            for (Room room : roomTableService.getRoomsByNames(collectKeys(rooms, Room::getName))) {
+                existingNames.add(room.getName().toLowerCase());
             }
             
-            // Skip header row
-            for (int i = 1; i <= roomsSheet.getLastRowNum(); i++) {
-                Row row = roomsSheet.getRow(i);
-                if (row == null) continue;
-                
+            List<Room> newRooms = new ArrayList<>();
+            List<Integer> newRows = new ArrayList<>();
+            for (int i = 0; i < rooms.size(); i++) {
+                Room room = rooms.get(i);
+                String key = room.getName().toLowerCase();
+                // Trùng trong DB hoặc trong chính file
+                if (existingNames.contains(key) || !fileRoomNames.add(key)) {
+                    w.duplicate(skipDuplicates, "Lỗi dòng " + rows.get(i) + ": Phòng '" + room.getName() + "' đã tồn tại");
+                    continue;
+                }
+                newRooms.add(room);
+                newRows.add(rows.get(i));
+            }
+            w.write(newRooms, newRows, roomTableService::addRooms, room -> "Không thể thêm phòng: " + room.getName());
+        });
+        
+        try {
+            boolean found = sheets.readSheet("Rooms", (rowNumber, values) -> {
                 try {
-                    Room room = parseRoomFromRow(row, validateData);
-                    if (room != null) {
-                        // Check for duplicates if required
-                        if (skipDuplicates && roomExists(room.getName())) {
-                            continue;
-                        }
-                        
-                        if (roomTableService.addRoom(room)) {
-                            success++;
-                        } else {
-                            error++;
-                            errors.add("Không thể thêm phòng: " + room.getName());
-                        }
-                    }
+                    writer.add(parseRoomFromRow(values, validateData), rowNumber);
                 } catch (Exception e) {
-                    error++;
-                    errors.add("Lỗi dòng " + (i + 1) + ": " + e.getMessage());
+                    writer.rowFailed("Lỗi dòng " + rowNumber + ": " + e.getMessage());
                 }
+            });
+            if (!found) {
+                return Map.of("success", 0, "error", 0, "message", "Không tìm thấy sheet 'Rooms'");
             }
+            writer.flush();
             
         } catch (Exception e) {
-            error++;
-            errors.add("Lỗi khi đọc sheet Rooms: " + e.getMessage());
+            writer.rowFailed("Lỗi khi đọc sheet Rooms: " + e.getMessage());
         }
         
-        result.put("success", success);
-        result.put("error", error);
-        result.put("message", String.format("Phòng: %d thành công, %d lỗi", success, error));
-        return result;
+        return writer.toResult("Phòng");
     }
     
     /**
-     * Import tables from Excel
+     * Import tables from Excel: mỗi lô tra số bàn trùng và tên phòng chưa biết bằng query IN (phòng đã tra được giữ
+     * trong index cho các lô sau), phòng thiếu của lô được tạo bằng một batch rồi các bàn được ghi bằng một batch
      */
-    private Map<String, Object> importTables(Workbook workbook, boolean skipDuplicates, boolean validateData, boolean createMissingRooms) {
-        Map<String, Object> result = new HashMap<>();
-        int success = 0;
-        int error = 0;
-        List<String> errors = new ArrayList<>();
+    private Map<String, Object> importTables(SheetReader sheets, boolean skipDuplicates, boolean validateData,
+                                             boolean createMissingRooms, boolean dryRun, Set<String> fileRoomNames,
+                                             ImportProgress progress) {
+        Map<String, Room> roomIndex = new HashMap<>();
+        Set<String> missingRooms = new HashSet<>();
+        // Dry run không ghi DB: phòng từ sheet Rooms và phòng sẽ tạo được coi như đã có
+        Set<String> plannedRooms = dryRun ? new HashSet<>(fileRoomNames) : new HashSet<>();
+        Set<String> fileNumbers = new HashSet<>();
+        int[] roomsCreated = {0};
         
-        try {
-            Sheet tablesSheet = workbook.getSheet("Tables");
-            if (tablesSheet == null) {
-                result.put("success", 0);
-                result.put("error", 0);
-                result.put("message", "Không tìm thấy sheet 'Tables'");
-                return result;
+        ChunkWriter<StagedTable> writer = new ChunkWriter<>(dryRun, progress, (staged, rows, w) -> {
+            Set<String> existingNumbers = new HashSet<>();
+            for (Table table : roomTableService.getTablesByNumbers(collectKeys(staged, s -> s.table().getTableNumber()))) {
+                existingNumbers.add(table.getTableNumber().toLowerCase());
             }
             
-            // Skip header row
-            for (int i = 1; i <= tablesSheet.getLastRowNum(); i++) {
-                Row row = tablesSheet.getRow(i);
-                if (row == null) continue;
-                
+            Set<String> unresolved = new HashSet<>();
+            for (StagedTable s : staged) {
+                String key = s.roomName().toLowerCase();
+                if (!key.isEmpty() && !roomIndex.containsKey(key) && !missingRooms.contains(key)) {
+                    unresolved.add(key);
+                }
+            }
+            for (Room room : roomTableService.getRoomsByNames(unresolved)) {
+                roomIndex.put(room.getName().toLowerCase(), room);
+            }
+            for (String key : unresolved) {
+                if (!roomIndex.containsKey(key)) {
+                    missingRooms.add(key);
+                }
+            }
+            
+            List<StagedTable> accepted = new ArrayList<>();
+            List<Integer> acceptedRows = new ArrayList<>();
+            Map<String, Room> roomsToCreate = new LinkedHashMap<>();
+            for (int i = 0; i < staged.size(); i++) {
+                StagedTable s = staged.get(i);
+                String number = s.table().getTableNumber();
+                // Trùng trong DB hoặc trong chính file
+                if (existingNumbers.contains(number.toLowerCase()) || !fileNumbers.add(number.toLowerCase())) {
+                    w.duplicate(skipDuplicates, "Lỗi dòng " + rows.get(i) + ": Bàn '" + number + "' đã tồn tại");
+                    continue;
+                }
+                String roomKey = s.roomName().toLowerCase();
+                if (createMissingRooms && missingRooms.contains(roomKey) && !roomIndex.containsKey(roomKey)
+                        && !plannedRooms.contains(roomKey)) {
+                    roomsToCreate.computeIfAbsent(roomKey, k -> newDefaultRoom(s.roomName()));
+                }
+                accepted.add(s);
+                acceptedRows.add(rows.get(i));
+            }
+            
+            // Phòng thiếu của cả lô được tạo trong một batch trước khi ghi bàn (mỗi tên chỉ thử tạo một lần)
+            if (!roomsToCreate.isEmpty()) {
+                roomsCreated[0] += dryRun ? roomsToCreate.size() : createRooms(roomsToCreate, roomIndex, w);
+                plannedRooms.addAll(roomsToCreate.keySet());
+            }
+            
+            List<Table> newTables = new ArrayList<>();
+            List<Integer> newRows = new ArrayList<>();
+            for (int i = 0; i < accepted.size(); i++) {
+                StagedTable s = accepted.get(i);
+                String roomKey = s.roomName().toLowerCase();
+                Room room = roomIndex.get(roomKey);
+                if (!dryRun && room == null && plannedRooms.contains(roomKey)) {
+                    w.rowFailed("Lỗi dòng " + acceptedRows.get(i) + ": Không thể tạo phòng '" + s.roomName() + "'");
+                    continue;
+                }
+                s.table().setRoom(room);
+                newTables.add(s.table());
+                newRows.add(acceptedRows.get(i));
+            }
+            w.write(newTables, newRows, roomTableService::addTables, table -> "Không thể thêm bàn: " + table.getTableNumber());
+        });
+        
+        try {
+            boolean found = sheets.readSheet("Tables", (rowNumber, values) -> {
                 try {
-                    Table table = parseTableFromRow(row, validateData, createMissingRooms);
-                    if (table != null) {
-                        // Check for duplicates if required
-                        if (skipDuplicates && tableExists(table.getTableNumber())) {
-                            continue;
-                        }
-                        
-                        if (roomTableService.addTable(table)) {
-                            success++;
-                        } else {
-                            error++;
-                            errors.add("Không thể thêm bàn: " + table.getTableNumber());
-                        }
-                    }
+                    writer.add(parseTableFromRow(values, validateData), rowNumber);
                 } catch (Exception e) {
-                    error++;
-                    errors.add("Lỗi dòng " + (i + 1) + ": " + e.getMessage());
+                    writer.rowFailed("Lỗi dòng " + rowNumber + ": " + e.getMessage());
                 }
+            });
+            if (!found) {
+                return Map.of("success", 0, "error", 0, "message", "Không tìm thấy sheet 'Tables'");
             }
+            writer.flush();
             
         } catch (Exception e) {
-            error++;
-            errors.add("Lỗi khi đọc sheet Tables: " + e.getMessage());
+            writer.rowFailed("Lỗi khi đọc sheet Tables: " + e.getMessage());
         }
         
-        result.put("success", success);
-        result.put("error", error);
-        result.put("message", String.format("Bàn: %d thành công, %d lỗi", success, error));
+        Map<String, Object> result = writer.toResult("Bàn");
+        result.put("roomsCreated", roomsCreated[0]);
         return result;
     }
     
+    /**
+     * Tạo các phòng còn thiếu bằng một batch insert, phòng tạo được đưa vào index
+     *
+     * @return số phòng đã tạo
+     */
+    private int createRooms(Map<String, Room> roomsToCreate, Map<String, Room> roomIndex, ChunkWriter<?> writer) {
+        List<Room> rooms = new ArrayList<>(roomsToCreate.values());
+        BatchResult batch = roomTableService.addRooms(rooms);
+        Set<Integer> failed = new HashSet<>();
+        for (BatchResult.RowFailure failure : batch.getFailures()) {
+            failed.add(failure.getIndex());
+            writer.log("Không thể tạo phòng: " + rooms.get(failure.getIndex()).getName() + ": " + failure.getMessage());
+        }
+        for (int i = 0; i < rooms.size(); i++) {
+            if (!failed.contains(i)) {
+                roomIndex.put(rooms.get(i).getName().toLowerCase(), rooms.get(i));
+            }
+        }
+        return batch.getSucceeded();
+    }
+    
+    private static Room newDefaultRoom(String name) {
+        Room room = new Room();
+        room.setName(name);
+        room.setTableCount(10); // Default
+        room.setTotalCapacity(40); // Default
+        return room;
+    }
+    
+    private static <T> Set<String> collectKeys(List<T> items, Function<T, String> key) {
+        Set<String> keys = new HashSet<>();
+        for (T item : items) {
+            keys.add(key.apply(item).toLowerCase());
+        }
+        return keys;
+    }
+    
     /**
      * Parse room from Excel row
      */
-    private Room parseRoomFromRow(Row row, boolean validateData) {
+    private Room parseRoomFromRow(String[] values, boolean validateData) {
         Room room = new Room();
         
         // Column A: Room Name (required)
-        Cell nameCell = row.getCell(0);
-        if (nameCell == null || getCellValueAsString(nameCell).trim().isEmpty()) {
+        String name = cellValue(values, 0);
+        if (name.isEmpty()) {
             throw new IllegalArgumentException("Tên phòng không được để trống");
         }
-        room.setName(getCellValueAsString(nameCell).trim());
+        room.setName(name);
         
         // Column B: Description (optional)
-        Cell descCell = row.getCell(1);
-        if (descCell != null) {
-            room.setDescription(getCellValueAsString(descCell).trim());
-        }
+        room.setDescription(cellValue(values, 1));
         
         // Column C: Table Count (required)
-        Cell tableCountCell = row.getCell(2);
-        if (tableCountCell == null) {
+        String tableCountValue = cellValue(values, 2);
+        if (tableCountValue.isEmpty()) {
             throw new IllegalArgumentException("Số lượng bàn không được để trống");
         }
-        int tableCount = getCellValueAsInt(tableCountCell);
+        int tableCount = parseInt(tableCountValue);
         if (validateData && (tableCount < 1 || tableCount > 100)) {
             throw new IllegalArgumentException("Số lượng bàn phải từ 1-100");
         }
         room.setTableCount(tableCount);
         
         // Column D: Total Capacity (required)
-        Cell capacityCell = row.getCell(3);
-        if (capacityCell == null) {
+        String capacityValue = cellValue(values, 3);
+        if (capacityValue.isEmpty()) {
             throw new IllegalArgumentException("Tổng sức chứa không được để trống");
         }
-        int capacity = getCellValueAsInt(capacityCell);
+        int capacity = parseInt(capacityValue);
         if (validateData && (capacity < 1 || capacity > 1000)) {
             throw new IllegalArgumentException("Tổng sức chứa phải từ 1-1000");
         }
@@ -378,50 +485,34 @@ public class ExcelService {
     }
     
     /**
-     * Parse table from Excel row
+     * Parse table from Excel row (tên phòng được tra theo lô trong importTables)
      */
-    private Table parseTableFromRow(Row row, boolean validateData, boolean createMissingRooms) {
+    private StagedTable parseTableFromRow(String[] values, boolean validateData) {
         Table table = new Table();
         
         // Column A: Table Number (required)
-        Cell numberCell = row.getCell(0);
-        if (numberCell == null || getCellValueAsString(numberCell).trim().isEmpty()) {
+        String number = cellValue(values, 0);
+        if (number.isEmpty()) {
             throw new IllegalArgumentException("Số bàn không được để trống");
         }
-        table.setTableNumber(getCellValueAsString(numberCell).trim());
+        table.setTableNumber(number);
         
         // Column B: Table Name (required)
-        Cell nameCell = row.getCell(1);
-        if (nameCell == null || getCellValueAsString(nameCell).trim().isEmpty()) {
+        String name = cellValue(values, 1);
+        if (name.isEmpty()) {
             throw new IllegalArgumentException("Tên bàn không được để trống");
         }
-        table.setTableName(getCellValueAsString(nameCell).trim());
+        table.setTableName(name);
         
         // Column C: Room Name (optional)
-        Cell roomCell = row.getCell(2);
-        if (roomCell != null) {
-            String roomName = getCellValueAsString(roomCell).trim();
-            if (!roomName.isEmpty()) {
-                Room room = findRoomByName(roomName);
-                if (room == null && createMissingRooms) {
-                    // Create missing room
-                    room = new Room();
-                    room.setName(roomName);
-                    room.setTableCount(10); // Default
-                    room.setTotalCapacity(40); // Default
-                    roomTableService.addRoom(room);
-                    room = findRoomByName(roomName); // Get the created room
-                }
-                table.setRoom(room);
-            }
-        }
+        String roomName = cellValue(values, 2);
         
         // Column D: Capacity (required)
-        Cell capacityCell = row.getCell(3);
-        if (capacityCell == null) {
+        String capacityValue = cellValue(values, 3);
+        if (capacityValue.isEmpty()) {
             throw new IllegalArgumentException("Sức chứa không được để trống");
         }
-        int capacity = getCellValueAsInt(capacityCell);
+        int capacity = parseInt(capacityValue);
         if (validateData && (capacity < 1 || capacity > 20)) {
             throw new IllegalArgumentException("Sức chứa phải từ 1-20");
         }
@@ -429,14 +520,22 @@ public class ExcelService {
         
         // Trạng thái sẽ được tự động thiết lập là "Available" trong @PrePersist
         
-        return table;
+        return new StagedTable(table, roomName);
+    }
+    
+    /**
+     * Bàn đã parse, chờ tra phòng theo tên
+     */
+    private record StagedTable(Table table, String roomName) {
     }
     
     /**
      * Export rooms to Excel
      */
-    private void exportRooms(Workbook workbook, Map<String, CellStyle> styles) {
-        Sheet sheet = workbook.createSheet("Rooms");
+    private void exportRooms(SXSSFWorkbook workbook, Map<String, CellStyle> styles) {
+        SXSSFSheet sheet = workbook.createSheet("Rooms");
+        // Độ rộng cột được tính dần khi các dòng được đẩy ra file tạm
+        sheet.trackAllColumnsForAutoSizing();
         
         // Create header row
         Row headerRow = sheet.createRow(0);
@@ -473,8 +572,9 @@ public class ExcelService {
     /**
      * Export tables to Excel
      */
-    private void exportTables(Workbook workbook, Map<String, CellStyle> styles) {
-        Sheet sheet = workbook.createSheet("Tables");
+    private void exportTables(SXSSFWorkbook workbook, Map<String, CellStyle> styles) {
+        SXSSFSheet sheet = workbook.createSheet("Tables");
+        sheet.trackAllColumnsForAutoSizing();
         
         // Create header row
         Row headerRow = sheet.createRow(0);
@@ -535,77 +635,404 @@ public class ExcelService {
     /**
      * Helper methods
      */
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+    private static String cellValue(String[] values, int column) {
+        return column < values.length && values[column] != null ? values[column].trim() : "";
+    }
+    
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            // Ô số có phần thập phân (vd "4.0") được làm tròn xuống như khi đọc ô NUMERIC
+            try {
+                return (int) Double.parseDouble(value);
+            } catch (NumberFormatException ignored) {
+                throw new IllegalArgumentException("Giá trị không phải là số: " + value);
+            }
         }
     }
     
-    private int getCellValueAsInt(Cell cell) {
-        if (cell == null) return 0;
+    private static void addError(List<String> errors, String message) {
+        if (errors.size() < MAX_ERROR_MESSAGES) {
+            errors.add(message);
+        }
+    }
+    
+    /**
+     * Format LocalDateTime to dd/MM/yyyy HH:mm format
+     */
+    private String formatDateTime(LocalDateTime dateTime) {
+        if (dateTime == null) return "";
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        return dateTime.format(formatter);
+    }
+    
+    /**
+     * Nhận từng dòng dữ liệu của một sheet (đã bỏ dòng tiêu đề và dòng trống), rowNumber tính từ 1 như trong Excel
+     */
+    private interface RowHandler {
+        void row(int rowNumber, String[] values);
+    }
+    
+    /**
+     * Đọc các sheet của file upload theo tên
+     */
+    private interface SheetReader extends Closeable {
+        boolean hasSheet(String name);
         
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                return (int) cell.getNumericCellValue();
-            case STRING:
-                try {
-                    return Integer.parseInt(cell.getStringCellValue().trim());
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Giá trị không phải là số: " + cell.getStringCellValue());
+        /**
+         * @return false nếu file không có sheet này
+         */
+        boolean readSheet(String name, RowHandler handler) throws Exception;
+    }
+    
+    /**
+     * Đọc .xlsx theo event model: file upload được chép ra file tạm, mỗi sheet được parse SAX từ zip,
+     * chỉ dòng đang đọc (và bảng shared strings) nằm trong bộ nhớ. Tiến độ tính theo số byte XML đã đọc.
+     */
+    private static final class StreamingSheetReader implements SheetReader {
+        
+        private final Path tempFile;
+        private final OPCPackage pkg;
+        private final XSSFReader reader;
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final Set<String> sheetNames = new HashSet<>();
+        private final ImportProgress progress;
+        
+        StreamingSheetReader(InputStream inputStream, ImportProgress progress) throws Exception {
+            this.progress = progress;
+            this.tempFile = Files.createTempFile("liteflow-import-", ".xlsx");
+            OPCPackage opened = null;
+            try {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                opened = OPCPackage.open(tempFile.toFile(), PackageAccess.READ);
+                this.reader = new XSSFReader(opened);
+                this.strings = new ReadOnlySharedStringsTable(opened, false);
+                this.styles = reader.getStylesTable();
+                
+                long totalBytes = 0;
+                XSSFReader.SheetIterator sheetsData = (XSSFReader.SheetIterator) reader.getSheetsData();
+                while (sheetsData.hasNext()) {
+                    sheetsData.next().close(); // chỉ cần tên và kích thước sheet
+                    sheetNames.add(sheetsData.getSheetName());
+                    if ("Rooms".equals(sheetsData.getSheetName()) || "Tables".equals(sheetsData.getSheetName())) {
+                        totalBytes += Math.max(0, sheetsData.getSheetPart().getSize());
+                    }
+                }
+                progress.totalWork = totalBytes;
+                this.pkg = opened;
+            } catch (Exception e) {
+                if (opened != null) {
+                    opened.revert();
+                }
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        }
+        
+        @Override
+        public boolean hasSheet(String name) {
+            return sheetNames.contains(name);
+        }
+        
+        @Override
+        public boolean readSheet(String name, RowHandler handler) throws Exception {
+            XSSFReader.SheetIterator sheetsData = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheetsData.hasNext()) {
+                try (InputStream sheet = sheetsData.next()) {
+                    if (!name.equals(sheetsData.getSheetName())) {
+                        continue;
+                    }
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                            new RowCollector(handler, progress), new DataFormatter(), false));
+                    parser.parse(new InputSource(new CountingInputStream(sheet, progress)));
+                    return true;
                 }
-            default:
-                throw new IllegalArgumentException("Không thể chuyển đổi thành số");
+            }
+            return false;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                pkg.revert();
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
         }
     }
     
-    private boolean roomExists(String roomName) {
-        List<Room> rooms = roomTableService.getAllRooms();
-        if (rooms == null) return false;
+    /**
+     * Gom các ô của một dòng SAX thành mảng giá trị theo cột
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
         
-        return rooms.stream().anyMatch(room -> room.getName().equalsIgnoreCase(roomName));
+        private final RowHandler handler;
+        private final ImportProgress progress;
+        private final List<String> values = new ArrayList<>();
+        
+        RowCollector(RowHandler handler, ImportProgress progress) {
+            this.handler = handler;
+            this.progress = progress;
+        }
+        
+        @Override
+        public void startRow(int rowNum) {
+            values.clear();
+        }
+        
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : values.size();
+            while (values.size() < column) {
+                values.add("");
+            }
+            values.add(formattedValue != null ? formattedValue : "");
+        }
+        
+        @Override
+        public void endRow(int rowNum) {
+            // Skip header row
+            if (rowNum == 0 || isBlank(values)) {
+                return;
+            }
+            progress.rowsRead.incrementAndGet();
+            handler.row(rowNum + 1, values.toArray(new String[0]));
+        }
     }
     
-    private boolean tableExists(String tableNumber) {
-        List<Table> tables = roomTableService.getAllTables();
-        if (tables == null) return false;
+    /**
+     * Đọc file .xls (HSSF không có event model dùng chung được với .xlsx)
+     */
+    private static final class WorkbookSheetReader implements SheetReader {
+        
+        private final Workbook workbook;
+        private final ImportProgress progress;
+        private final DataFormatter formatter = new DataFormatter();
         
-        return tables.stream().anyMatch(table -> table.getTableNumber().equalsIgnoreCase(tableNumber));
+        WorkbookSheetReader(Workbook workbook, ImportProgress progress) {
+            this.workbook = workbook;
+            this.progress = progress;
+            long totalRows = 0;
+            for (String name : new String[] {"Rooms", "Tables"}) {
+                Sheet sheet = workbook.getSheet(name);
+                if (sheet != null) {
+                    totalRows += sheet.getLastRowNum();
+                }
+            }
+            progress.totalWork = totalRows;
+        }
+        
+        @Override
+        public boolean hasSheet(String name) {
+            return workbook.getSheet(name) != null;
+        }
+        
+        @Override
+        public boolean readSheet(String name, RowHandler handler) {
+            Sheet sheet = workbook.getSheet(name);
+            if (sheet == null) {
+                return false;
+            }
+            FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+            // Skip header row
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                progress.doneWork.incrementAndGet();
+                Row row = sheet.getRow(i);
+                if (row == null) continue;
+                
+                List<String> values = new ArrayList<>();
+                for (int c = 0; c < Math.max(0, row.getLastCellNum()); c++) {
+                    Cell cell = row.getCell(c);
+                    values.add(cell != null ? formatter.formatCellValue(cell, evaluator) : "");
+                }
+                if (isBlank(values)) continue;
+                
+                progress.rowsRead.incrementAndGet();
+                handler.row(i + 1, values.toArray(new String[0]));
+            }
+            return true;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            workbook.close();
+        }
     }
     
-    private Room findRoomByName(String roomName) {
-        List<Room> rooms = roomTableService.getAllRooms();
-        if (rooms == null) return null;
+    private static boolean isBlank(List<String> values) {
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Đếm số byte đã đọc của sheet để tính phần trăm tiến độ
+     */
+    private static final class CountingInputStream extends FilterInputStream {
         
-        return rooms.stream()
-                .filter(room -> room.getName().equalsIgnoreCase(roomName))
-                .findFirst()
-                .orElse(null);
+        private final ImportProgress progress;
+        
+        CountingInputStream(InputStream in, ImportProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                progress.doneWork.incrementAndGet();
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                progress.doneWork.addAndGet(n);
+            }
+            return n;
+        }
     }
     
     /**
-     * Format LocalDateTime to dd/MM/yyyy HH:mm format
+     * Xử lý một lô dòng đã parse (tra trùng, tra phòng, ghi DB) qua các hàm của ChunkWriter
      */
-    private String formatDateTime(LocalDateTime dateTime) {
-        if (dateTime == null) return "";
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        return dateTime.format(formatter);
+    private interface ChunkStage<T> {
+        void process(List<T> items, List<Integer> rows, ChunkWriter<T> writer);
     }
-
+    
+    /**
+     * Gom các dòng đã parse, mỗi IMPORT_CHUNK_SIZE dòng chạy stage một lần; đếm thành công / lỗi / bỏ qua,
+     * lỗi ghi theo số dòng trong file
+     */
+    private static final class ChunkWriter<T> {
+        
+        private final boolean dryRun;
+        private final ImportProgress progress;
+        private final ChunkStage<T> stage;
+        private final List<T> pending = new ArrayList<>();
+        private final List<Integer> pendingRows = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private int success;
+        private int error;
+        private int skipped;
+        
+        ChunkWriter(boolean dryRun, ImportProgress progress, ChunkStage<T> stage) {
+            this.dryRun = dryRun;
+            this.progress = progress;
+            this.stage = stage;
+        }
+        
+        void add(T item, int rowNumber) {
+            pending.add(item);
+            pendingRows.add(rowNumber);
+            if (pending.size() >= IMPORT_CHUNK_SIZE) {
+                flush();
+            }
+        }
+        
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                stage.process(pending, pendingRows, this);
+            } finally {
+                pending.clear();
+                pendingRows.clear();
+            }
+        }
+        
+        void rowFailed(String message) {
+            error++;
+            progress.failed.incrementAndGet();
+            addError(errors, message);
+        }
+        
+        /**
+         * Dòng trùng: bỏ qua nếu skipDuplicates, ngược lại tính là lỗi
+         */
+        void duplicate(boolean skipDuplicates, String message) {
+            if (skipDuplicates) {
+                skipped++;
+            } else {
+                rowFailed(message);
+            }
+        }
+        
+        /**
+         * Ghi chú lỗi không gắn với dòng nào (vd tạo phòng thiếu thất bại)
+         */
+        void log(String message) {
+            addError(errors, message);
+        }
+        
+        /**
+         * Ghi các dòng mới bằng một batch insert; dry run chỉ đếm
+         */
+        <E> void write(List<E> items, List<Integer> rows, Function<List<E>, BatchResult> insert,
+                       Function<E, String> describe) {
+            if (items.isEmpty()) {
+                return;
+            }
+            if (dryRun) {
+                success += items.size();
+                progress.imported.addAndGet(items.size());
+                return;
+            }
+            BatchResult batch = insert.apply(items);
+            success += batch.getSucceeded();
+            progress.imported.addAndGet(batch.getSucceeded());
+            for (BatchResult.RowFailure failure : batch.getFailures()) {
+                rowFailed(describe.apply(items.get(failure.getIndex()))
+                        + " (dòng " + rows.get(failure.getIndex()) + "): " + failure.getMessage());
+            }
+        }
+        
+        Map<String, Object> toResult(String label) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", success);
+            result.put("error", error);
+            result.put("skipped", skipped);
+            result.put("errors", errors);
+            result.put("message", String.format("%s: %d thành công, %d lỗi, %d bỏ qua", label, success, error, skipped));
+            return result;
+        }
+    }
+    
+    /**
+     * Tiến độ một lượt import
+     */
+    private static final class ImportProgress {
+        
+        private volatile String phase = "reading";
+        private volatile long totalWork;
+        private final AtomicLong doneWork = new AtomicLong();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("phase", phase);
+            map.put("rowsRead", rowsRead.get());
+            map.put("imported", imported.get());
+            map.put("failed", failed.get());
+            // Đọc xong chưa có nghĩa đã ghi xong lô cuối, giữ dưới 100% tới khi kết thúc
+            long total = totalWork;
+            map.put("percent", "done".equals(phase) ? 100 : total <= 0 ? 0 : (int) Math.min(99, doneWork.get() * 100 / total));
+            return map;
+        }
+    }
+    
     /**
      * Generate template Excel file for rooms or tables
      *
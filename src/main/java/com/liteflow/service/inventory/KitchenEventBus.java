@@ -0,0 +1,196 @@
+package com.liteflow.service.inventory;
+
+import com.liteflow.dao.inventory.OrderReadModel.KitchenOrder;
+import com.liteflow.util.EnvConfigUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Event bus trong bộ nhớ cho màn hình bếp: OrderService publish thay đổi của order (tạo mới, đổi trạng thái, hủy),
+ * KitchenStreamServlet đẩy xuống các màn hình qua Server-Sent Events.
+ *
+ * Mỗi event có số thứ tự tăng dần; LITEFLOW_KITCHEN_EVENT_BUFFER event gần nhất (mặc định 500) được giữ lại
+ * để màn hình kết nối lại có thể nhận tiếp từ Last-Event-ID. Event ID có dạng "epoch:seq", epoch đổi
+ * mỗi lần khởi động nên ID của lần chạy trước luôn bị coi là không resume được (client nhận snapshot).
+ */
+public final class KitchenEventBus {
+
+    public static final String TYPE_CREATED = "created";
+    public static final String TYPE_STATUS = "status";
+
+    private static final int CAPACITY = Math.max(16, EnvConfigUtil.getInt("LITEFLOW_KITCHEN_EVENT_BUFFER", 500));
+    private static final long EPOCH = System.currentTimeMillis();
+
+    private static final Event[] ring = new Event[CAPACITY];
+    private static long lastSeq;
+    private static final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+
+    private KitchenEventBus() {
+    }
+
+    /**
+     * Order mới (một phần tử như của OrderService.getPendingOrders)
+     */
+    public static Event publishCreated(KitchenOrder order) {
+        if (order == null) {
+            return null;
+        }
+        return publish(TYPE_CREATED, order.orderId(), order.status(), order);
+    }
+
+    /**
+     * Order đổi trạng thái (bao gồm Cancelled / Served - màn hình bếp sẽ bỏ order khỏi danh sách)
+     */
+    public static Event publishStatus(String orderId, String status) {
+        return publish(TYPE_STATUS, orderId, status, null);
+    }
+
+    /**
+     * Nhiều order rời màn hình bếp cùng lúc (thanh toán cả session, xóa bàn / phòng) - gọi sau khi commit
+     */
+    public static void publishStatus(Collection<?> orderIds, String status) {
+        for (Object orderId : orderIds) {
+            publishStatus(orderId.toString(), status);
+        }
+    }
+
+    private static Event publish(String type, String orderId, String status, KitchenOrder order) {
+        // Listener được gọi trong lock để nhận event đúng thứ tự seq, nên listener chỉ được phép xếp việc vào queue
+        synchronized (ring) {
+            Event event = new Event(++lastSeq, type, orderId, status, order);
+            ring[(int) (event.seq % CAPACITY)] = event;
+            for (Consumer<Event> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (Exception e) {
+                    System.err.println("❌ [KitchenEventBus] Listener error: " + e.getMessage());
+                }
+            }
+            return event;
+        }
+    }
+
+    public static void subscribe(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    public static void unsubscribe(Consumer<Event> listener) {
+        listeners.remove(listener);
+    }
+
+    public static long currentSeq() {
+        synchronized (ring) {
+            return lastSeq;
+        }
+    }
+
+    public static String currentEventId() {
+        return eventId(currentSeq());
+    }
+
+    public static String eventId(long seq) {
+        return EPOCH + ":" + seq;
+    }
+
+    /**
+     * Số thứ tự trong Last-Event-ID, hoặc -1 nếu ID không hợp lệ / thuộc lần khởi động trước
+     */
+    public static long parseSeq(String eventId) {
+        if (eventId == null || eventId.isEmpty()) {
+            return -1;
+        }
+        int sep = eventId.indexOf(':');
+        if (sep <= 0) {
+            return -1;
+        }
+        try {
+            if (Long.parseLong(eventId.substring(0, sep)) != EPOCH) {
+                return -1;
+            }
+            long seq = Long.parseLong(eventId.substring(sep + 1));
+            return seq >= 0 && seq <= currentSeq() ? seq : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Các event sau afterSeq, theo thứ tự; null nếu một phần đã bị đẩy ra khỏi buffer (client cần snapshot)
+     */
+    public static List<Event> eventsSince(long afterSeq) {
+        synchronized (ring) {
+            if (afterSeq < 0 || afterSeq > lastSeq) {
+                return null;
+            }
+            if (afterSeq == lastSeq) {
+                return Collections.emptyList();
+            }
+            if (lastSeq - afterSeq > CAPACITY) {
+                return null;
+            }
+            List<Event> events = new ArrayList<>((int) (lastSeq - afterSeq));
+            for (long seq = afterSeq + 1; seq <= lastSeq; seq++) {
+                events.add(ring[(int) (seq % CAPACITY)]);
+            }
+            return events;
+        }
+    }
+
+    public static int getBufferCapacity() {
+        return CAPACITY;
+    }
+
+    /**
+     * Một thay đổi của order
+     */
+    public static final class Event {
+
+        private final long seq;
+        private final String type;
+        private final String orderId;
+        private final String status;
+        private final KitchenOrder order;
+        private final long timestamp;
+
+        Event(long seq, String type, String orderId, String status, KitchenOrder order) {
+            this.seq = seq;
+            this.type = type;
+            this.orderId = orderId;
+            this.status = status;
+            this.order = order;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public String getId() {
+            return eventId(seq);
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public KitchenOrder getOrder() {
+            return order;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.liteflow.service.inventory;
 
 import com.liteflow.dao.inventory.OrderDAO;
+import com.liteflow.dao.inventory.OrderReadModel.CashierItem;
+import com.liteflow.dao.inventory.OrderReadModel.KitchenOrder;
 import java.util.*;
 
 public class OrderService {
@@ -38,8 +40,11 @@ public class OrderService {
         String orderNumber = (String) orderInfo.get("orderNumber");
         String tableInfo = (tableId != null) ? "Table ID: " + tableId : "Bàn đặc biệt (Mang về/Giao hàng)";
         
-      
-        // Ví dụ: WebSocket, Server-Sent Events, hoặc Polling
+        // Đẩy order mới đến các màn hình bếp (KitchenStreamServlet - Server-Sent Events)
+        Object orderId = orderInfo.get("orderId");
+        if (orderId != null) {
+            KitchenEventBus.publishCreated(orderDAO.getKitchenOrder(UUID.fromString(orderId.toString())));
+        }
         System.out.println("📢 Thông báo đến bếp: Order mới đã được tạo - " + tableInfo + ", OrderNumber: " + orderNumber + ", Invoice: " + invoiceName + (orderNote != null ? ", Note: " + orderNote : ""));
         
         return orderInfo;
@@ -48,12 +53,12 @@ public class OrderService {
     /**
      * Lấy orders của bàn (cho cashier)
      */
-    public List<Map<String, Object>> getOrdersByTable(UUID tableId) {
+    public List<CashierItem> getOrdersByTable(UUID tableId) {
         if (tableId == null) {
             throw new IllegalArgumentException("Table ID không được null");
         }
         
-        List<Map<String, Object>> result = orderDAO.getOrdersByTable(tableId);
+        List<CashierItem> result = orderDAO.getOrdersByTable(tableId);
         // ✅ Return empty list instead of null
         return result != null ? result : new ArrayList<>();
     }
@@ -61,8 +66,8 @@ public class OrderService {
     /**
      * Lấy danh sách orders đang chờ làm
      */
-    public List<Map<String, Object>> getPendingOrders() {
-        List<Map<String, Object>> result = orderDAO.getPendingOrders();
+    public List<KitchenOrder> getPendingOrders() {
+        List<KitchenOrder> result = orderDAO.getPendingOrders();
         // ✅ Return empty list instead of null
         return result != null ? result : new ArrayList<>();
     }
@@ -86,7 +91,11 @@ public class OrderService {
             throw new IllegalArgumentException("Trạng thái không hợp lệ: " + status);
         }
         
-        return orderDAO.updateOrderStatus(orderId, status);
+        boolean updated = orderDAO.updateOrderStatus(orderId, status);
+        if (updated) {
+            KitchenEventBus.publishStatus(orderId.toString(), status);
+        }
+        return updated;
     }
     
     /**
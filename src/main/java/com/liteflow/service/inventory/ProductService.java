@@ -7,6 +7,7 @@ import com.liteflow.model.inventory.ProductPriceDTO;
 import com.liteflow.dao.BaseDAO;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -167,6 +168,8 @@ public class ProductService {
                            "ORDER BY p.name, pv.size";
                 
                 Query query = em.createQuery(jpql);
+                query.setHint(HibernateHints.HINT_CACHEABLE, true);
+                query.setHint(HibernateHints.HINT_CACHE_REGION, "query.catalog");
                 
                 List<Object[]> results = query.getResultList();
                 
@@ -219,6 +222,8 @@ public class ProductService {
                            "ORDER BY c.name";
                 
                 Query query = em.createQuery(jpql);
+                query.setHint(HibernateHints.HINT_CACHEABLE, true);
+                query.setHint(HibernateHints.HINT_CACHE_REGION, "query.catalog");
                 
                 List<String> result = query.getResultList();
                 
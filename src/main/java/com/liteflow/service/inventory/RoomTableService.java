@@ -1,16 +1,24 @@
 package com.liteflow.service.inventory;
 
+import com.liteflow.dao.BatchResult;
+import com.liteflow.dao.inventory.LiveOrderBoard;
 import com.liteflow.dao.inventory.RoomDAO;
 import com.liteflow.dao.inventory.TableDAO;
+import com.liteflow.dao.report.SalesRollup;
 import com.liteflow.model.inventory.Room;
 import com.liteflow.model.inventory.Table;
+import com.liteflow.service.report.ReportCache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.TypedQuery;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public class RoomTableService {
@@ -70,6 +78,13 @@ public class RoomTableService {
         }
     }
     
+    /**
+     * Thêm nhiều phòng một lần (batch insert, lỗi ghi theo từng dòng)
+     */
+    public BatchResult addRooms(List<Room> rooms) {
+        return roomDAO.insertAll(rooms);
+    }
+    
     public boolean updateRoom(Room room) {
         try {
             return roomDAO.update(room);
@@ -100,8 +115,20 @@ public class RoomTableService {
             
             // First, manually delete all related data using JPA
             System.out.println("Manually deleting related data...");
-            boolean relatedDataDeleted = deleteAllRelatedData(roomId);
+            List<UUID> removedKitchenOrders = new ArrayList<>();
+            Set<LocalDate> deletedPaidDays = new HashSet<>();
+            Set<LocalDate> deletedCheckoutDays = new HashSet<>();
+            boolean relatedDataDeleted = deleteAllRelatedData(roomId, removedKitchenOrders, deletedPaidDays, deletedCheckoutDays);
             System.out.println("Related data deletion result: " + relatedDataDeleted);
+            if (relatedDataDeleted) {
+                if (LiveOrderBoard.isLoaded()) {
+                    LiveOrderBoard.reload(); // order của bàn bị xóa phải biến mất khỏi bếp/cashier
+                }
+                KitchenEventBus.publishStatus(removedKitchenOrders, "Cancelled");
+                Set<LocalDate> changedDays = new HashSet<>(deletedCheckoutDays);
+                changedDays.addAll(SalesRollup.ordersDeleted(deletedPaidDays));
+                ReportCache.daysChanged(changedDays);
+            }
             
             // Then try to delete the room
             System.out.println("Trying to delete room...");
@@ -122,7 +149,8 @@ public class RoomTableService {
         }
     }
     
-    private boolean deleteAllRelatedData(UUID roomId) {
+    private boolean deleteAllRelatedData(UUID roomId, List<UUID> removedKitchenOrders, Set<LocalDate> deletedPaidDays,
+            Set<LocalDate> deletedCheckoutDays) {
         try {
             System.out.println("=== DEBUG: deleteAllRelatedData ===");
             System.out.println("Room ID: " + roomId);
@@ -132,6 +160,29 @@ public class RoomTableService {
             
             try {
                 tx.begin();
+
+                // Order còn trên màn hình bếp: báo Cancelled sau khi commit để màn hình SSE bỏ order đi
+                List<?> kitchenOrderIds = em.createNativeQuery(
+                        "SELECT o.OrderID FROM Orders o " +
+                        "INNER JOIN TableSessions ts ON o.SessionID = ts.SessionID " +
+                        "INNER JOIN Tables t ON ts.TableID = t.TableID " +
+                        "WHERE t.RoomID = ? AND o.Status IN ('Pending', 'Preparing', 'Ready')"
+                ).setParameter(1, roomId).getResultList();
+                for (Object orderId : kitchenOrderIds) {
+                    removedKitchenOrders.add(orderId instanceof UUID ? (UUID) orderId : UUID.fromString(orderId.toString()));
+                }
+                // Ngày có order đã thanh toán: dựng lại rollup doanh thu sau khi commit
+                deletedPaidDays.addAll(em.createQuery(
+                        "SELECT DISTINCT CAST(o.orderDate AS LocalDate) FROM Order o " +
+                        "WHERE o.session.table.room.roomId = :id AND o.paymentStatus = 'Paid' AND o.orderDate IS NOT NULL", LocalDate.class)
+                    .setParameter("id", roomId)
+                    .getResultList());
+                // Báo cáo tổng kết ngày (DailyReportServlet) tính theo ngày checkout của phiên
+                deletedCheckoutDays.addAll(em.createQuery(
+                        "SELECT DISTINCT CAST(s.checkOutTime AS LocalDate) FROM TableSession s " +
+                        "WHERE s.table.room.roomId = :id AND s.checkOutTime IS NOT NULL", LocalDate.class)
+                    .setParameter("id", roomId)
+                    .getResultList());
                 
                 // Step 1: Delete PaymentTransactions for all tables in this room
                 try {
@@ -257,6 +308,14 @@ public class RoomTableService {
         }
     }
     
+    /**
+     * Thêm nhiều bàn một lần (batch insert, lỗi ghi theo từng dòng).
+     * Bàn mới phải chưa có TableID, phòng chỉ cần có RoomID.
+     */
+    public BatchResult addTables(List<Table> tables) {
+        return tableDAO.insertAll(tables);
+    }
+    
     public boolean addTable(Table table) {
         EntityManager em = this.emf.createEntityManager();
         var tx = em.getTransaction();
@@ -331,8 +390,20 @@ public class RoomTableService {
             
             // First, manually delete all related data using JPA
             System.out.println("Manually deleting related data...");
-            boolean relatedDataDeleted = deleteAllTableRelatedData(tableId);
+            List<UUID> removedKitchenOrders = new ArrayList<>();
+            Set<LocalDate> deletedPaidDays = new HashSet<>();
+            Set<LocalDate> deletedCheckoutDays = new HashSet<>();
+            boolean relatedDataDeleted = deleteAllTableRelatedData(tableId, removedKitchenOrders, deletedPaidDays, deletedCheckoutDays);
             System.out.println("Related data deletion result: " + relatedDataDeleted);
+            if (relatedDataDeleted) {
+                if (LiveOrderBoard.isLoaded()) {
+                    LiveOrderBoard.reload(); // order của bàn bị xóa phải biến mất khỏi bếp/cashier
+                }
+                KitchenEventBus.publishStatus(removedKitchenOrders, "Cancelled");
+                Set<LocalDate> changedDays = new HashSet<>(deletedCheckoutDays);
+                changedDays.addAll(SalesRollup.ordersDeleted(deletedPaidDays));
+                ReportCache.daysChanged(changedDays);
+            }
             
             // Then try to delete the table
             System.out.println("Trying to delete table...");
@@ -347,7 +418,8 @@ public class RoomTableService {
         }
     }
     
-    private boolean deleteAllTableRelatedData(UUID tableId) {
+    private boolean deleteAllTableRelatedData(UUID tableId, List<UUID> removedKitchenOrders, Set<LocalDate> deletedPaidDays,
+            Set<LocalDate> deletedCheckoutDays) {
         try {
             System.out.println("=== DEBUG: deleteAllTableRelatedData ===");
             System.out.println("Table ID: " + tableId);
@@ -357,6 +429,28 @@ public class RoomTableService {
             
             try {
                 tx.begin();
+
+                // Order còn trên màn hình bếp: báo Cancelled sau khi commit để màn hình SSE bỏ order đi
+                List<?> kitchenOrderIds = em.createNativeQuery(
+                        "SELECT o.OrderID FROM Orders o " +
+                        "INNER JOIN TableSessions ts ON o.SessionID = ts.SessionID " +
+                        "WHERE ts.TableID = ? AND o.Status IN ('Pending', 'Preparing', 'Ready')"
+                ).setParameter(1, tableId).getResultList();
+                for (Object orderId : kitchenOrderIds) {
+                    removedKitchenOrders.add(orderId instanceof UUID ? (UUID) orderId : UUID.fromString(orderId.toString()));
+                }
+                // Ngày có order đã thanh toán: dựng lại rollup doanh thu sau khi commit
+                deletedPaidDays.addAll(em.createQuery(
+                        "SELECT DISTINCT CAST(o.orderDate AS LocalDate) FROM Order o " +
+                        "WHERE o.session.table.tableId = :id AND o.paymentStatus = 'Paid' AND o.orderDate IS NOT NULL", LocalDate.class)
+                    .setParameter("id", tableId)
+                    .getResultList());
+                // Báo cáo tổng kết ngày (DailyReportServlet) tính theo ngày checkout của phiên
+                deletedCheckoutDays.addAll(em.createQuery(
+                        "SELECT DISTINCT CAST(s.checkOutTime AS LocalDate) FROM TableSession s " +
+                        "WHERE s.table.tableId = :id AND s.checkOutTime IS NOT NULL", LocalDate.class)
+                    .setParameter("id", tableId)
+                    .getResultList());
                 
                 // Step 1: Delete PaymentTransactions for this table
                 try {
@@ -797,4 +891,18 @@ public class RoomTableService {
             return null;
         }
     }
+    
+    /**
+     * Tìm nhiều phòng theo tên trong một query (import Excel)
+     */
+    public List<Room> getRoomsByNames(Collection<String> names) {
+        return roomDAO.findByNamesIgnoreCase(names);
+    }
+    
+    /**
+     * Tìm nhiều bàn theo số bàn trong một query (import Excel)
+     */
+    public List<Table> getTablesByNumbers(Collection<String> tableNumbers) {
+        return tableDAO.findByTableNumbersIgnoreCase(tableNumbers);
+    }
 }
@@ -1,5 +1,6 @@
 package com.liteflow.service.inventory;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.dao.alert.UserAlertPreferenceDAO;
 import com.liteflow.dao.inventory.ProductStockDAO;
 import com.liteflow.dao.inventory.StockAlertNotificationDAO;
@@ -10,11 +11,13 @@ import com.liteflow.service.alert.NotificationService;
 import com.liteflow.service.ai.AIAgentConfigService;
 import io.github.cdimascio.dotenv.Dotenv;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -23,8 +26,6 @@ import java.util.concurrent.CompletableFuture;
  */
 public class StockAlertService {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     // Default thresholds (fallback if config not found)
     private static final int DEFAULT_WARNING_THRESHOLD = 20;
     private static final int DEFAULT_CRITICAL_THRESHOLD = 10;
@@ -381,36 +382,66 @@ public class StockAlertService {
             return;
         }
         
+        Set<UUID> variantIds = new LinkedHashSet<>();
+        for (Map<String, Object> item : orderItems) {
+            try {
+                String variantIdStr = (String) item.get("variantId");
+                if (variantIdStr != null && !variantIdStr.isEmpty()) {
+                    variantIds.add(UUID.fromString(variantIdStr));
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Error checking stock alert for item: " + e.getMessage());
+            }
+        }
+        
+        // Stock level is looked up per variant inside the async task
+        Map<UUID, Integer> unknownLevels = new LinkedHashMap<>();
+        for (UUID variantId : variantIds) {
+            unknownLevels.put(variantId, null);
+        }
+        checkAndSendAlertsAfterPayment(unknownLevels, userId);
+    }
+    
+    /**
+     * Same as above, but with stock levels already known (e.g. returned by ProductStockDAO.deductForSale),
+     * so no stock query is needed. A null level is looked up from ProductStock.
+     * @param stockLevels variantId -> current stock after payment
+     * @param userId User ID to send notification to (null = send to all users with Telegram enabled)
+     */
+    public void checkAndSendAlertsAfterPayment(Map<UUID, Integer> stockLevels, UUID userId) {
+        if (stockLevels == null || stockLevels.isEmpty()) {
+            System.out.println("⚠️ No order items to check stock alerts");
+            return;
+        }
+        
         // Check if stock alerts are enabled
         if (!isStockAlertsEnabled()) {
             System.out.println("ℹ️ Stock alerts are disabled in configuration");
             return;
         }
         
+        Map<UUID, Integer> levels = new LinkedHashMap<>(stockLevels);
+        
         // Run asynchronously to not block payment response
         CompletableFuture.runAsync(() -> {
             EntityManager em = null;
             try {
-                em = emf.createEntityManager();
+                em = BaseDAO.emf.createEntityManager();
                 
-                System.out.println("🔍 Checking stock levels for " + orderItems.size() + " items after payment...");
+                System.out.println("🔍 Checking stock levels for " + levels.size() + " items after payment...");
                 
-                for (Map<String, Object> item : orderItems) {
+                List<PendingStockAlert> pending = new ArrayList<>();
+                for (Map.Entry<UUID, Integer> entry : levels.entrySet()) {
                     try {
-                        String variantIdStr = (String) item.get("variantId");
-                        if (variantIdStr == null || variantIdStr.isEmpty()) {
-                            continue;
-                        }
-                        
-                        UUID productVariantId = UUID.fromString(variantIdStr);
-                        
-                        // Get current stock level
-                        int currentStock = productStockDAO.getStockLevel(productVariantId);
+                        UUID productVariantId = entry.getKey();
+                        int currentStock = entry.getValue() != null
+                                ? entry.getValue()
+                                : productStockDAO.getStockLevel(productVariantId);
                         
                         System.out.println("📦 ProductVariant: " + productVariantId + " | Current Stock: " + currentStock);
                         
                         // Check if notification should be sent for this variant
-                        checkAndSendAlertForVariant(em, productVariantId, currentStock, userId);
+                        checkAlertForVariant(em, productVariantId, currentStock, pending);
                         
                     } catch (Exception e) {
                         System.err.println("❌ Error checking stock alert for item: " + e.getMessage());
@@ -418,6 +449,11 @@ public class StockAlertService {
                     }
                 }
                 
+                // Một tin cho mỗi người dùng thay vì một tin cho mỗi variant
+                if (!pending.isEmpty()) {
+                    sendStockAlerts(pending, userId);
+                }
+                
                 System.out.println("✅ Stock alert check completed");
                 
             } catch (Exception e) {
@@ -432,9 +468,9 @@ public class StockAlertService {
     }
     
     /**
-     * Check and send alert for a specific product variant
+     * Check a specific product variant, thresholds that need an alert are added to pending
      */
-    private void checkAndSendAlertForVariant(EntityManager em, UUID variantId, int currentStock, UUID targetUserId) {
+    private void checkAlertForVariant(EntityManager em, UUID variantId, int currentStock, List<PendingStockAlert> pending) {
         try {
             // Get ProductVariant details
             ProductVariant variant = em.find(ProductVariant.class, variantId);
@@ -453,12 +489,12 @@ public class StockAlertService {
             // Determine which thresholds need alerts
             if (currentStock <= criticalThreshold && currentStock > 0) {
                 // Critical alert
-                sendAlertIfNeeded(em, variantId, productName, size, currentStock, criticalThreshold, targetUserId);
+                pending.add(new PendingStockAlert(variantId, productName, size, currentStock, criticalThreshold));
             }
             
             if (currentStock <= warningThreshold && currentStock > criticalThreshold) {
                 // Warning alert
-                sendAlertIfNeeded(em, variantId, productName, size, currentStock, warningThreshold, targetUserId);
+                pending.add(new PendingStockAlert(variantId, productName, size, currentStock, warningThreshold));
             }
             
             // Reset notification state if stock increased above threshold
@@ -476,10 +512,16 @@ public class StockAlertService {
     }
     
     /**
-     * Send alert if notification hasn't been sent for this threshold yet
+     * Variant vượt ngưỡng trong một lần kiểm tra, chờ gửi
      */
-    private void sendAlertIfNeeded(EntityManager em, UUID variantId, String productName, String size, 
-                                   int currentStock, int threshold, UUID targetUserId) {
+    private record PendingStockAlert(UUID variantId, String productName, String size, int currentStock, int threshold) {
+    }
+    
+    /**
+     * Gửi các cảnh báo tồn kho của một lần kiểm tra: mỗi người dùng nhận một tin Telegram duy nhất
+     * (digest khi có nhiều sản phẩm), bỏ qua các variant + ngưỡng đã báo cho người đó
+     */
+    private void sendStockAlerts(List<PendingStockAlert> alerts, UUID targetUserId) {
         
         // Check if Telegram notifications are enabled globally
         if (!isTelegramNotificationsEnabled()) {
@@ -495,16 +537,19 @@ public class StockAlertService {
             return;
         }
         
+        // Get Telegram bot token
+        String telegramToken = getTelegramBotToken();
+        if (telegramToken == null) {
+            System.err.println("❌ [StockAlert] Telegram bot token not configured. Cannot send notification.");
+            System.err.println("❌ [StockAlert] Checked .env file and system environment variable TELEGRAM_BOT_TOKEN");
+            return;
+        }
+        
+        int criticalThreshold = getCriticalThreshold();
+        
         for (UUID userId : userIdsToNotify) {
             EntityManager notificationEm = null;
             try {
-                // Check if notification has already been sent for this user + variant + threshold
-                if (notificationDAO.hasNotificationBeenSent(userId, variantId, threshold)) {
-                    System.out.println("⏭️ Notification already sent for User " + userId + 
-                                     " | Variant " + variantId + " | Threshold " + threshold);
-                    continue;
-                }
-                
                 // Get user's Telegram Chat ID
                 UserAlertPreference preference = userAlertPreferenceDAO.getByUserId(userId);
                 if (preference == null || preference.getTelegramUserID() == null || 
@@ -518,54 +563,61 @@ public class StockAlertService {
                     continue;
                 }
                 
+                // Check if notification has already been sent for this user + variant + threshold
+                List<PendingStockAlert> toSend = new ArrayList<>();
+                for (PendingStockAlert alert : alerts) {
+                    if (notificationDAO.hasNotificationBeenSent(userId, alert.variantId(), alert.threshold())) {
+                        System.out.println("⏭️ Notification already sent for User " + userId + 
+                                         " | Variant " + alert.variantId() + " | Threshold " + alert.threshold());
+                    } else {
+                        toSend.add(alert);
+                    }
+                }
+                if (toSend.isEmpty()) {
+                    continue;
+                }
+                
                 String chatId = preference.getTelegramUserID();
+                boolean anyCritical = toSend.stream().anyMatch(a -> a.threshold() == criticalThreshold);
                 
                 // Build message (không thêm emoji vào title vì sendTelegramToUser đã thêm rồi)
-                String title;
+                String title = anyCritical ? "NGUY HIỂM TỒN KHO" : "CẢNH BÁO TỒN KHO";
+                String priority = anyCritical ? "CRITICAL" : "HIGH";
                 String message;
-                String priority;
                 
-                int criticalThreshold = getCriticalThreshold();
-                if (threshold == criticalThreshold) {
-                    title = "NGUY HIỂM TỒN KHO";
-                    message = String.format(
-                        "Sản phẩm <b>%s</b> (Size: <b>%s</b>) chỉ còn <b>%d</b> đơn vị trong kho.\n\n" +
-                        "Cần nhập hàng ngay để tránh thiếu hụt!",
-                        escapeHtmlForTelegram(productName), escapeHtmlForTelegram(size), currentStock
-                    );
-                    priority = "CRITICAL";
+                if (toSend.size() == 1) {
+                    PendingStockAlert alert = toSend.get(0);
+                    if (anyCritical) {
+                        message = String.format(
+                            "Sản phẩm <b>%s</b> (Size: <b>%s</b>) chỉ còn <b>%d</b> đơn vị trong kho.\n\n" +
+                            "Cần nhập hàng ngay để tránh thiếu hụt!",
+                            escapeHtmlForTelegram(alert.productName()), escapeHtmlForTelegram(alert.size()), alert.currentStock()
+                        );
+                    } else {
+                        message = String.format(
+                            "Sản phẩm <b>%s</b> (Size: <b>%s</b>) còn <b>%d</b> đơn vị trong kho.\n\n" +
+                            "Nên nhập hàng sớm để đảm bảo cung ứng.",
+                            escapeHtmlForTelegram(alert.productName()), escapeHtmlForTelegram(alert.size()), alert.currentStock()
+                        );
+                    }
                 } else {
-                    title = "CẢNH BÁO TỒN KHO";
-                    message = String.format(
-                        "Sản phẩm <b>%s</b> (Size: <b>%s</b>) còn <b>%d</b> đơn vị trong kho.\n\n" +
-                        "Nên nhập hàng sớm để đảm bảo cung ứng.",
-                        escapeHtmlForTelegram(productName), escapeHtmlForTelegram(size), currentStock
-                    );
-                    priority = "HIGH";
-                }
-                
-                // Get Telegram bot token
-                System.out.println("🔍 [StockAlert] Loading Telegram bot token...");
-                String telegramToken = getTelegramBotToken();
-                if (telegramToken == null) {
-                    System.err.println("❌ [StockAlert] Telegram bot token not configured. Cannot send notification.");
-                    System.err.println("❌ [StockAlert] Checked .env file and system environment variable TELEGRAM_BOT_TOKEN");
-                    continue;
+                    // Nhiều sản phẩm trong cùng một lần thanh toán: gộp thành một tin
+                    StringBuilder digest = new StringBuilder();
+                    digest.append("Có <b>").append(toSend.size()).append("</b> sản phẩm sắp hết hàng:\n\n");
+                    for (PendingStockAlert alert : toSend) {
+                        digest.append(alert.threshold() == criticalThreshold ? "🔴 " : "🟡 ")
+                              .append("<b>").append(escapeHtmlForTelegram(alert.productName())).append("</b>")
+                              .append(" (Size: ").append(escapeHtmlForTelegram(alert.size())).append("): còn <b>")
+                              .append(alert.currentStock()).append("</b>\n");
+                    }
+                    digest.append("\n").append(anyCritical
+                            ? "Cần nhập hàng ngay để tránh thiếu hụt!"
+                            : "Nên nhập hàng sớm để đảm bảo cung ứng.");
+                    message = digest.toString();
                 }
-                System.out.println("✅ [StockAlert] Telegram bot token loaded (length: " + telegramToken.length() + " characters)");
-                System.out.println("🔍 [StockAlert] Token format check: " + (telegramToken.contains(":") ? "Valid format (contains ':')" : "Warning: May be invalid (no ':')"));
                 
                 // Send Telegram message
-                System.out.println("🔍 [StockAlert] Attempting to send Telegram notification to Chat ID: " + chatId);
-                System.out.println("🔍 [StockAlert] Title: " + title);
-                System.out.println("🔍 [StockAlert] Message length: " + (message != null ? message.length() : 0) + " characters");
-                System.out.println("🔍 [StockAlert] Priority: " + priority);
-                System.out.println("🔍 [StockAlert] Calling sendTelegramToUser with:");
-                System.out.println("  - Chat ID: " + chatId);
-                System.out.println("  - Title: " + title);
-                System.out.println("  - Message length: " + (message != null ? message.length() : 0));
-                System.out.println("  - Priority: " + priority);
-                System.out.println("  - Token length: " + (telegramToken != null ? telegramToken.length() : 0));
+                System.out.println("🔍 [StockAlert] Sending " + toSend.size() + " stock alert(s) to Chat ID: " + chatId);
                 
                 boolean sent = false;
                 try {
@@ -579,22 +631,22 @@ public class StockAlertService {
                 
                 if (sent) {
                     // Mark notification as sent (use separate EntityManager for transaction)
-                    notificationEm = emf.createEntityManager();
+                    notificationEm = BaseDAO.emf.createEntityManager();
                     notificationEm.getTransaction().begin();
                     
-                    StockAlertNotification notification = new StockAlertNotification();
-                    notification.setProductVariant(notificationEm.getReference(ProductVariant.class, variantId));
-                    notification.setUserId(userId);
-                    notification.setAlertThreshold(threshold);
-                    notification.setStockLevel(currentStock);
-                    notification.setMessageSent(message);
+                    for (PendingStockAlert alert : toSend) {
+                        StockAlertNotification notification = new StockAlertNotification();
+                        notification.setProductVariant(notificationEm.getReference(ProductVariant.class, alert.variantId()));
+                        notification.setUserId(userId);
+                        notification.setAlertThreshold(alert.threshold());
+                        notification.setStockLevel(alert.currentStock());
+                        notification.setMessageSent(message);
+                        notificationEm.persist(notification);
+                    }
                     
-                    notificationEm.persist(notification);
                     notificationEm.getTransaction().commit();
                     
-                    System.out.println("✅ Stock alert sent to User " + userId + 
-                                     " | Product: " + productName + " | Stock: " + currentStock + 
-                                     " | Threshold: " + threshold);
+                    System.out.println("✅ Stock alert sent to User " + userId + " | " + toSend.size() + " product(s)");
                 } else {
                     System.err.println("❌ Failed to send stock alert to User " + userId);
                 }
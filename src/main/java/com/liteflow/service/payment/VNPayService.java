@@ -1,8 +1,12 @@
 package com.liteflow.service.payment;
 
 import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.inventory.LiveOrderBoard;
+import com.liteflow.dao.report.SalesRollup;
 import com.liteflow.model.inventory.*;
 import com.liteflow.model.auth.User;
+import com.liteflow.service.inventory.KitchenEventBus;
+import com.liteflow.service.report.ReportCache;
 import com.liteflow.util.VNPayUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -388,12 +392,13 @@ public class VNPayService {
             }
             
             // Determine payment status
+            List<UUID> servedKitchenOrders = Collections.emptyList();
             if (VNPayUtil.isSuccessResponse(responseCode)) {
                 transaction.setPaymentStatus("Completed");
                 transaction.setProcessedAt(LocalDateTime.now());
                 
                 // Update session and orders if payment is successful
-                updateSessionAndOrders(em, transaction);
+                servedKitchenOrders = updateSessionAndOrders(em, transaction);
                 
             } else if ("07".equals(responseCode)) {
                 // Transaction suspected of fraud
@@ -435,6 +440,11 @@ public class VNPayService {
             
             em.merge(transaction);
             em.getTransaction().commit();
+            if ("Completed".equals(transaction.getPaymentStatus()) && transaction.getSession() != null) {
+                LiveOrderBoard.sessionClosed(transaction.getSession().getSessionId());
+                KitchenEventBus.publishStatus(servedKitchenOrders, "Served");
+                ReportCache.daysChanged(SalesRollup.sessionPaid(transaction.getSession().getSessionId()));
+            }
             
             System.out.println("✅ Updated payment transaction status: " + transactionId + ", Status: " + transaction.getPaymentStatus());
             
@@ -469,8 +479,10 @@ public class VNPayService {
      * 
      * @param em EntityManager
      * @param transaction PaymentTransaction
+     * @return ID các order vừa rời màn hình bếp (Pending / Preparing / Ready trước khi thanh toán)
      */
-    private void updateSessionAndOrders(EntityManager em, PaymentTransaction transaction) {
+    private List<UUID> updateSessionAndOrders(EntityManager em, PaymentTransaction transaction) {
+        List<UUID> kitchenOrderIds = Collections.emptyList();
         try {
             TableSession session = transaction.getSession();
             if (session != null) {
@@ -488,7 +500,12 @@ public class VNPayService {
                 em.merge(session);
                 
                 // Update all orders in session
-                String updateOrdersQuery = "UPDATE Order o SET o.status = 'Served', o.paymentStatus = 'Paid', o.paymentMethod = 'VNPay' WHERE o.session.sessionId = :sessionId";
+                kitchenOrderIds = em.createQuery(
+                        "SELECT o.orderId FROM Order o WHERE o.session.sessionId = :sessionId " +
+                        "AND o.status IN ('Pending', 'Preparing', 'Ready')", UUID.class)
+                    .setParameter("sessionId", session.getSessionId())
+                    .getResultList();
+                String updateOrdersQuery = "UPDATE Order o SET o.status = 'Served', o.paymentStatus = 'Paid', o.paymentMethod = 'VNPay' WHERE o.session.sessionId = :sessionId AND o.status <> 'Cancelled'";
                 Query updateQuery = em.createQuery(updateOrdersQuery);
                 updateQuery.setParameter("sessionId", session.getSessionId());
                 int updatedOrders = updateQuery.executeUpdate();
@@ -507,6 +524,7 @@ public class VNPayService {
             e.printStackTrace();
             // Don't fail the transaction if session update fails
         }
+        return kitchenOrderIds;
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.liteflow.service.payroll;
 
+import com.liteflow.dao.BatchResult;
 import com.liteflow.dao.employee.EmployeeDAO;
 import com.liteflow.dao.payroll.PayrollEntryDAO;
 import com.liteflow.dao.payroll.PayPeriodDAO;
@@ -275,6 +276,8 @@ public class PayrollService {
         PayrollRun payrollRun = getOrCreatePayrollRun(payPeriod);
         System.out.println("PayrollRun: " + payrollRun.getPayrollRunId());
         
+        // Tính lương cho từng nhân viên trước, sau đó insert tất cả bằng một batch
+        List<PayrollEntry> newEntries = new ArrayList<>();
         for (Employee employee : employees) {
             try {
                 System.out.println("Processing employee: " + employee.getEmployeeCode() + " - " + employee.getFullName());
@@ -289,15 +292,14 @@ public class PayrollService {
                     continue;
                 }
                 
-                // Create new payroll entry
-                System.out.println("  -> Creating new payroll entry...");
-                PayrollEntry entry = createPayrollEntryForRun(
+                // Build new payroll entry
+                System.out.println("  -> Building new payroll entry...");
+                PayrollEntry entry = buildPayrollEntryForRun(
                     employee.getEmployeeID(), month, year, payrollRun);
                 if (entry != null) {
-                    System.out.println("  -> Successfully created payroll entry: " + entry.getPayrollEntryId());
-                    createdCount++;
+                    newEntries.add(entry);
                 } else {
-                    System.out.println("  -> Failed to create payroll entry (returned null)");
+                    System.out.println("  -> Failed to build payroll entry (returned null)");
                     errorCount++;
                 }
             } catch (Exception e) {
@@ -308,6 +310,15 @@ public class PayrollService {
             }
         }
         
+        BatchResult batch = payrollEntryDAO.insertAll(newEntries);
+        createdCount += batch.getSucceeded();
+        for (BatchResult.RowFailure failure : batch.getFailures()) {
+            PayrollEntry failed = newEntries.get(failure.getIndex());
+            System.err.println("Error inserting payroll entry for employee " +
+                failed.getEmployee().getEmployeeCode() + ": " + failure.getMessage());
+            errorCount++;
+        }
+        
         System.out.println("=== Payroll generation completed ===");
         System.out.println("Total employees: " + employees.size());
         System.out.println("Created: " + createdCount + ", Skipped: " + skippedCount + ", Errors: " + errorCount);
@@ -326,6 +337,23 @@ public class PayrollService {
      * Create payroll entry for a specific employee and payroll run
      */
     private PayrollEntry createPayrollEntryForRun(UUID employeeId, int month, int year, PayrollRun payrollRun) {
+        PayrollEntry entry = buildPayrollEntryForRun(employeeId, month, year, payrollRun);
+        if (entry == null) {
+            return null;
+        }
+        System.out.println("    -> Inserting payroll entry...");
+        if (!payrollEntryDAO.insert(entry)) {
+            System.err.println("    -> Failed to insert payroll entry for employee: " + employeeId);
+            return null;
+        }
+        System.out.println("    -> Payroll entry inserted successfully: " + entry.getPayrollEntryId());
+        return entry;
+    }
+
+    /**
+     * Build (chưa insert) payroll entry for a specific employee and payroll run
+     */
+    private PayrollEntry buildPayrollEntryForRun(UUID employeeId, int month, int year, PayrollRun payrollRun) {
         try {
             System.out.println("    -> Calculating salary for employee: " + employeeId);
             
@@ -409,11 +437,8 @@ public class PayrollService {
                 entry.setPaidInCurrency("VND");
             }
             
-            System.out.println("    -> Inserting payroll entry...");
             System.out.println("    -> Entry details: GrossPay=" + entry.getGrossPay() + 
                 ", NetPay=" + entry.getNetPay() + ", CompensationType=" + entry.getCompensationType());
-            payrollEntryDAO.insert(entry);
-            System.out.println("    -> Payroll entry inserted successfully: " + entry.getPayrollEntryId());
             
             return entry;
         } catch (Exception e) {
@@ -1,5 +1,6 @@
 package com.liteflow.service.procurement;
 
+import com.liteflow.dao.BaseDAO;
 import com.liteflow.dao.alert.UserAlertPreferenceDAO;
 import com.liteflow.dao.procurement.POAlertNotificationDAO;
 import com.liteflow.dao.procurement.PurchaseOrderDAO;
@@ -11,8 +12,6 @@ import com.liteflow.service.alert.NotificationService;
 import com.liteflow.service.ai.AIAgentConfigService;
 import io.github.cdimascio.dotenv.Dotenv;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import java.io.File;
 import java.util.List;
 import java.util.UUID;
@@ -26,8 +25,6 @@ import java.util.Locale;
  */
 public class POAlertService {
     
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("LiteFlowPU");
-    
     private final POAlertNotificationDAO notificationDAO;
     private final PurchaseOrderDAO poDAO;
     private final SupplierDAO supplierDAO;
@@ -369,7 +366,7 @@ public class POAlertService {
         CompletableFuture.runAsync(() -> {
             EntityManager em = null;
             try {
-                em = emf.createEntityManager();
+                em = BaseDAO.emf.createEntityManager();
                 
                 System.out.println("🔔 [Async] Checking PO notification for POID: " + poid);
                 
@@ -528,7 +525,7 @@ public class POAlertService {
                         
                         if (sent) {
                             // Mark notification as sent (use separate EntityManager for transaction)
-                            notificationEm = emf.createEntityManager();
+                            notificationEm = BaseDAO.emf.createEntityManager();
                             notificationEm.getTransaction().begin();
                             
                             POAlertNotification notification = new POAlertNotification();
@@ -604,7 +601,7 @@ public class POAlertService {
         CompletableFuture.runAsync(() -> {
             EntityManager em = null;
             try {
-                em = emf.createEntityManager();
+                em = BaseDAO.emf.createEntityManager();
                 
                 System.out.println("🔔 Sending PO status update notification for POID: " + poid + " | Status: " + newStatus);
                 
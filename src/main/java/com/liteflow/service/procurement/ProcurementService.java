@@ -2,6 +2,7 @@ package com.liteflow.service.procurement;
 
 import com.liteflow.dao.procurement.*;
 import com.liteflow.model.procurement.*;
+import com.liteflow.service.event.DomainEventBus;
 import com.liteflow.util.MailUtil;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -11,6 +12,7 @@ import java.util.*;
  * Dịch vụ nghiệp vụ Procurement:
  * - Quản lý nhà cung cấp & SLA
  * - Lập / duyệt / nhận hàng / đối chiếu hóa đơn
+ * Mỗi lần tạo / duyệt / từ chối / nhận hàng PO phát PurchaseOrderEvent lên DomainEventBus
  */
 public class ProcurementService {
 
@@ -261,6 +263,7 @@ public class ProcurementService {
         }
         
         System.out.println("✅ Total amount updated successfully");
+        publish(PurchaseOrderEvent.of(PurchaseOrderEvent.Type.CREATED, po, createdBy));
         
         // Send Telegram notification for new PO (async) - notify all users with Telegram enabled
         try {
@@ -275,6 +278,21 @@ public class ProcurementService {
         return po.getPoid();
     }
 
+    /**
+     * Phát sự kiện PO (bỏ qua nếu bus chưa khởi động); lỗi của subscriber không ảnh hưởng nghiệp vụ
+     */
+    private void publish(PurchaseOrderEvent event) {
+        DomainEventBus bus = DomainEventBus.current();
+        if (bus == null) {
+            return;
+        }
+        try {
+            bus.publish(event);
+        } catch (Exception e) {
+            System.err.println("⚠️ Warning: Failed to publish " + event.type() + " event for PO " + event.poid() + ": " + e.getMessage());
+        }
+    }
+
     public List<PurchaseOrder> getAllPOs() { return poDAO.getAll(); }
     
     public List<PurchaseOrderItem> getPOItems(UUID poid) {
@@ -408,6 +426,7 @@ public class ProcurementService {
         
         // Send Telegram notification for status update (async)
         if (updated) {
+            publish(PurchaseOrderEvent.of(PurchaseOrderEvent.Type.APPROVED, po, approver));
             try {
                 POAlertService poAlertService = new POAlertService();
                 poAlertService.sendPOStatusUpdateNotification(poid, "APPROVED", approver);
@@ -479,6 +498,7 @@ public class ProcurementService {
         
         // Send Telegram notification for status update (async)
         if (updated) {
+            publish(PurchaseOrderEvent.of(PurchaseOrderEvent.Type.REJECTED, po, approver));
             try {
                 POAlertService poAlertService = new POAlertService();
                 poAlertService.sendPOStatusUpdateNotification(poid, "REJECTED", approver);
@@ -505,7 +525,9 @@ public class ProcurementService {
         gr.setStatus("PARTIAL");
         grDAO.insert(gr);
         po.setStatus("RECEIVING");
-        poDAO.update(po);
+        if (poDAO.update(po)) {
+            publish(PurchaseOrderEvent.of(PurchaseOrderEvent.Type.RECEIVED, po, receivedBy));
+        }
         return gr.getReceiptID();
     }
 
@@ -782,6 +804,7 @@ public class ProcurementService {
             em.flush(); // Force flush to database
             
             em.getTransaction().commit();
+            publish(PurchaseOrderEvent.of(PurchaseOrderEvent.Type.RECEIVED, po, receivedBy));
             
             // Send email notification if there are missing items
             if (!missingItems.isEmpty()) {
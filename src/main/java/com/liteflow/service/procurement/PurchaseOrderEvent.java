@@ -0,0 +1,29 @@
+package com.liteflow.service.procurement;
+
+import com.liteflow.model.procurement.PurchaseOrder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sự kiện thay đổi trạng thái PO do ProcurementService phát lên DomainEventBus sau khi đã lưu DB
+ *
+ * @param status           trạng thái PO sau thay đổi (PENDING, APPROVED, REJECTED, RECEIVING, COMPLETED)
+ * @param expectedDelivery ngày giao dự kiến tại thời điểm phát
+ * @param actor            người thực hiện (null nếu không rõ)
+ */
+public record PurchaseOrderEvent(Type type, UUID poid, String status, LocalDateTime expectedDelivery, UUID actor,
+                                 LocalDateTime occurredAt) {
+
+    public enum Type {
+        CREATED,
+        APPROVED,
+        REJECTED,
+        RECEIVED
+    }
+
+    public static PurchaseOrderEvent of(Type type, PurchaseOrder po, UUID actor) {
+        return new PurchaseOrderEvent(type, po.getPoid(), po.getStatus(), po.getExpectedDelivery(), actor,
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,212 @@
+package com.liteflow.service.report;
+
+import com.liteflow.dao.report.RevenueReportDAO;
+import com.liteflow.util.EnvConfigUtil;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Cache kết quả báo cáo theo (loại báo cáo, khoảng ngày, độ chi tiết), LRU tối đa
+ * LITEFLOW_REPORT_CACHE_MAX_ENTRIES entry (mặc định 500).
+ *
+ * Khoảng đã đóng (kết thúc trước hôm nay) được giữ cho tới khi bị đẩy ra khỏi LRU: ngày đã qua không tính lại,
+ * trừ khi thanh toán một phiên có order thuộc ngày đó (phiên qua đêm) - daysChanged() xóa các khoảng chứa ngày này.
+ * Khoảng có hôm nay thuộc bucket "live": mỗi lần thanh toán (daysChanged) tăng thế hệ live nên mọi entry live
+ * tính lại ở lần đọc sau; qua ngày mới entry live cũng hết hạn. getSplit() tách phần đã đóng khỏi hôm nay cho các
+ * số liệu cộng dồn được, để thanh toán chỉ làm tính lại phần hôm nay.
+ * Kết quả tính trong lúc RevenueReportDAO có query lỗi (trả giá trị mặc định) không được lưu.
+ * List / Map / Object[] được lưu và trả ra dưới dạng bản sao chỉ đọc, nên các request dùng chung một entry
+ * không sửa được dữ liệu của nhau.
+ */
+public final class ReportCache {
+
+    private static final int MAX_ENTRIES = Math.max(1, EnvConfigUtil.getInt("LITEFLOW_REPORT_CACHE_MAX_ENTRIES", 500));
+
+    private record Key(String type, LocalDate start, LocalDate end, String granularity) {
+    }
+
+    private record Entry(Object value, boolean closed, LocalDate computedOn, long generation) {
+    }
+
+    private static final AtomicLong closedHits = new AtomicLong();
+    private static final AtomicLong liveHits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+    private static final AtomicLong invalidations = new AtomicLong();
+    private static final AtomicLong skippedOnError = new AtomicLong();
+
+    private static final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // guarded by entries
+    private static long liveGeneration;
+    private static long closedGeneration;
+
+    private ReportCache() {
+    }
+
+    /**
+     * Lấy kết quả từ cache, chưa có / hết hạn thì gọi loader và lưu lại
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String type, LocalDate start, LocalDate end, String granularity, Supplier<T> loader) {
+        LocalDate today = LocalDate.now();
+        boolean closed = end.isBefore(today);
+        Key key = new Key(type, start, end, granularity);
+        long live;
+        long closedGen;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.closed()) {
+                closedHits.incrementAndGet();
+                return (T) detach(entry.value());
+            }
+            if (entry != null && entry.computedOn().equals(today) && entry.generation() == liveGeneration) {
+                liveHits.incrementAndGet();
+                return (T) detach(entry.value());
+            }
+            live = liveGeneration;
+            closedGen = closedGeneration;
+        }
+
+        misses.incrementAndGet();
+        long failedBefore = RevenueReportDAO.getFailedQueriesOnThread();
+        T value = loader.get();
+        if (value == null || RevenueReportDAO.getFailedQueriesOnThread() != failedBefore) {
+            skippedOnError.incrementAndGet();
+            return value;
+        }
+        synchronized (entries) {
+            // Có thanh toán trong lúc tính thì kết quả có thể đã cũ, không lưu
+            if (closed ? closedGen == closedGeneration : live == liveGeneration) {
+                entries.put(key, new Entry(detach(value), closed, today, live));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Bản sao chỉ đọc của List / Map (đệ quy), Object[] được clone; giá trị khác (record, số, chuỗi) giữ nguyên
+     */
+    private static Object detach(Object value) {
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object item : list) {
+                copy.add(detach(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                copy.put(e.getKey(), detach(e.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Object[] row) {
+            Object[] copy = row.clone();
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = detach(copy[i]);
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Như get() nhưng khoảng có cả ngày đã qua và hôm nay được tách làm hai entry (đã đóng / live) rồi gộp lại,
+     * dùng cho số liệu cộng dồn theo ngày
+     */
+    public static <T> T getSplit(String type, LocalDate start, LocalDate end, String granularity,
+            BiFunction<LocalDate, LocalDate, T> loader, BinaryOperator<T> merge) {
+        LocalDate today = LocalDate.now();
+        if (!start.isBefore(today) || end.isBefore(today)) {
+            return get(type, start, end, granularity, () -> loader.apply(start, end));
+        }
+        LocalDate yesterday = today.minusDays(1);
+        T past = get(type, start, yesterday, granularity, () -> loader.apply(start, yesterday));
+        T current = get(type, today, end, granularity, () -> loader.apply(today, end));
+        return merge.apply(past, current);
+    }
+
+    /**
+     * Dữ liệu các ngày này vừa thay đổi (thanh toán phiên): hôm nay thì bỏ toàn bộ bucket live,
+     * ngày đã qua thì xóa các khoảng đã đóng chứa ngày đó
+     */
+    public static void daysChanged(Collection<LocalDate> days) {
+        LocalDate today = LocalDate.now();
+        synchronized (entries) {
+            liveGeneration++;
+            invalidations.incrementAndGet();
+            List<LocalDate> pastDays = new ArrayList<>();
+            for (LocalDate day : days) {
+                if (day.isBefore(today)) {
+                    pastDays.add(day);
+                }
+            }
+            if (pastDays.isEmpty()) {
+                return;
+            }
+            closedGeneration++;
+            entries.entrySet().removeIf(e -> e.getValue().closed() && pastDays.stream()
+                    .anyMatch(day -> !day.isBefore(e.getKey().start()) && !day.isAfter(e.getKey().end())));
+        }
+    }
+
+    /**
+     * Xóa toàn bộ (sau khi dựng lại rollup / sửa dữ liệu cũ trực tiếp trong DB)
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            liveGeneration++;
+            closedGeneration++;
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Nối hai danh sách (merge cho getSplit)
+     */
+    public static <E> List<E> concat(List<E> first, List<E> second) {
+        List<E> merged = new ArrayList<>(first);
+        merged.addAll(second);
+        return merged;
+    }
+
+    public static Map<String, Object> getMetrics() {
+        long hits = closedHits.get() + liveHits.get();
+        long total = hits + misses.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (entries) {
+            metrics.put("size", entries.size());
+        }
+        metrics.put("maxEntries", MAX_ENTRIES);
+        metrics.put("closedHits", closedHits.get());
+        metrics.put("liveHits", liveHits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("hitRate", total == 0 ? 0.0 : Math.round(hits * 1000.0 / total) / 10.0);
+        metrics.put("evictions", evictions.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("skippedOnError", skippedOnError.get());
+        return metrics;
+    }
+}
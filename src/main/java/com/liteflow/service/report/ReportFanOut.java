@@ -0,0 +1,165 @@
+package com.liteflow.service.report;
+
+import com.liteflow.dao.report.RevenueReportDAO;
+import com.liteflow.util.EnvConfigUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Chạy song song các query độc lập của một báo cáo.
+ *
+ * Pool dùng chung giới hạn LITEFLOW_REPORT_THREADS thread (mặc định 4) và hàng đợi LITEFLOW_REPORT_QUEUE_SIZE
+ * (mặc định 64, đầy thì thread gọi tự chạy query). Mỗi query chờ tối đa LITEFLOW_REPORT_QUERY_TIMEOUT_MS
+ * (mặc định 10000) tính từ lúc gửi; quá hạn hoặc lỗi thì dùng giá trị mặc định và ghi tên vào timedOut / failed.
+ * Phần thời gian còn lại được truyền xuống từng query (jakarta.persistence.query.timeout) để DB tự hủy query quá hạn,
+ * không giữ kết nối và thread của pool.
+ * Thời gian chạy từng metric được giữ lại để trả về cùng báo cáo (timings).
+ */
+public final class ReportFanOut {
+
+    private static final int THREADS = Math.max(1, EnvConfigUtil.getInt("LITEFLOW_REPORT_THREADS", 4));
+    private static final int QUEUE_SIZE = Math.max(1, EnvConfigUtil.getInt("LITEFLOW_REPORT_QUEUE_SIZE", 64));
+    private static final long TIMEOUT_MS = Math.max(1, EnvConfigUtil.getLong("LITEFLOW_REPORT_QUERY_TIMEOUT_MS", 10_000L));
+
+    private static final AtomicInteger threadIds = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            THREADS, THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+            r -> {
+                Thread t = new Thread(r, "report-query-" + threadIds.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private static final AtomicLong queries = new AtomicLong();
+    private static final AtomicLong timeouts = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+    private static final AtomicLong slowestMillis = new AtomicLong();
+    private static volatile String slowestMetric;
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final String report;
+    private final long startedAt = System.nanoTime();
+    private final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final List<String> timedOut = new ArrayList<>();
+    private final List<String> failed = new ArrayList<>();
+
+    ReportFanOut(String report) {
+        this.report = report;
+    }
+
+    /**
+     * Gửi một query vào pool, thời gian chạy được ghi dưới tên metric
+     */
+    <T> Pending<T> submit(String metric, Supplier<T> query) {
+        queries.incrementAndGet();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        Future<T> future = EXECUTOR.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                return RevenueReportDAO.withDeadline(deadline, query);
+            } finally {
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                timings.put(metric, millis);
+                if (millis > slowestMillis.getAndAccumulate(millis, Math::max)) {
+                    slowestMetric = report + "." + metric;
+                }
+            }
+        });
+        return new Pending<>(metric, future, deadline);
+    }
+
+    /**
+     * Thời gian từng metric (ms), tổng thời gian báo cáo, các metric quá hạn / lỗi
+     */
+    JSONObject timings() {
+        JSONObject result = new JSONObject();
+        synchronized (timings) {
+            for (Map.Entry<String, Long> entry : timings.entrySet()) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        result.put("totalMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        if (!timedOut.isEmpty()) {
+            result.put("timedOut", new JSONArray(timedOut));
+        }
+        if (!failed.isEmpty()) {
+            result.put("failed", new JSONArray(failed));
+        }
+        return result;
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threads", THREADS);
+        metrics.put("queueSize", QUEUE_SIZE);
+        metrics.put("timeoutMs", TIMEOUT_MS);
+        metrics.put("active", EXECUTOR.getActiveCount());
+        metrics.put("queued", EXECUTOR.getQueue().size());
+        metrics.put("queries", queries.get());
+        metrics.put("timeouts", timeouts.get());
+        metrics.put("failures", failures.get());
+        metrics.put("slowestMetric", slowestMetric);
+        metrics.put("slowestMs", slowestMillis.get());
+        return metrics;
+    }
+
+    /**
+     * Kết quả đang chờ của một query
+     */
+    final class Pending<T> {
+
+        private final String metric;
+        private final Future<T> future;
+        private final long deadline;
+
+        private Pending(String metric, Future<T> future, long deadline) {
+            this.metric = metric;
+            this.future = future;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Chờ kết quả tới hạn của query
+         *
+         * @return kết quả, hoặc fallback nếu quá hạn / lỗi
+         */
+        T get(T fallback) {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timeouts.incrementAndGet();
+                timedOut.add(metric);
+                System.err.println("⚠️ Report " + report + ": " + metric + " timed out after " + TIMEOUT_MS + " ms");
+            } catch (ExecutionException e) {
+                failures.incrementAndGet();
+                failed.add(metric);
+                System.err.println("❌ Report " + report + ": " + metric + " failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                failed.add(metric);
+            }
+            return fallback;
+        }
+    }
+}
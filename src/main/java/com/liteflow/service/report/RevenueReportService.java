@@ -32,9 +32,36 @@ public class RevenueReportService {
         try {
             System.out.println("📊 Generating revenue report from " + startDate + " to " + endDate);
             
-            // Get basic statistics
-            BigDecimal totalRevenue = reportDAO.getTotalRevenue(startDate, endDate);
-            long totalOrders = reportDAO.getTotalOrders(startDate, endDate);
+            // Các query độc lập chạy song song, mỗi query có hạn chờ riêng
+            ReportFanOut fanOut = new ReportFanOut("revenue");
+            // Doanh thu, số đơn, giờ cao điểm, giá vốn kỳ này và kỳ trước: một query gom theo giờ
+            ReportFanOut.Pending<RevenueReportDAO.PeriodFinancials> financialsQuery =
+                fanOut.submit("financials", () -> cachedFinancials(startDate, endDate));
+            ReportFanOut.Pending<Long> newCustomersQuery =
+                fanOut.submit("newCustomers", () -> cachedNewCustomers(startDate, endDate));
+            ReportFanOut.Pending<Long> returningCustomersQuery =
+                fanOut.submit("returningCustomers", () -> reportDAO.getReturningCustomers(startDate, endDate));
+            ReportFanOut.Pending<JSONArray> categoryMarginsQuery =
+                fanOut.submit("categoryMargins", () -> generateCategoryMargins(startDate, endDate));
+            ReportFanOut.Pending<JSONObject> trendQuery =
+                fanOut.submit("trendData", () -> generateTrendData(startDate, endDate));
+            // Get hourly data (use today or last day of range)
+            ReportFanOut.Pending<JSONObject> hourlyQuery =
+                fanOut.submit("hourlyData", () -> generateHourlyData(endDate));
+            ReportFanOut.Pending<JSONObject> weekdayQuery =
+                fanOut.submit("weekdayData", () -> generateWeekdayData(startDate, endDate));
+            ReportFanOut.Pending<JSONObject> categoryQuery =
+                fanOut.submit("productData", () -> generateCategoryData(startDate, endDate));
+            ReportFanOut.Pending<JSONArray> topProductsQuery =
+                fanOut.submit("topProducts", () -> generateTopProducts(startDate, endDate, 10));
+            // 🆕 Get monthly revenue (last 12 months)
+            ReportFanOut.Pending<JSONObject> monthlyQuery =
+                fanOut.submit("monthlyData", this::generateMonthlyRevenue);
+            
+            RevenueReportDAO.PeriodFinancials financials =
+                financialsQuery.get(RevenueReportDAO.PeriodFinancials.empty(startDate, endDate));
+            BigDecimal totalRevenue = financials.current().revenue();
+            long totalOrders = financials.current().orders();
             
             // Calculate average order value
             BigDecimal avgOrderValue = totalOrders > 0 ? 
@@ -42,36 +69,19 @@ public class RevenueReportService {
                 BigDecimal.ZERO;
             
             // Get previous period for comparison
-            BigDecimal prevRevenue = reportDAO.getPreviousPeriodRevenue(startDate, endDate);
+            BigDecimal prevRevenue = financials.previous().revenue();
             double growthRate = calculateGrowthRate(totalRevenue, prevRevenue);
             
             // Get customer statistics
-            long newCustomers = reportDAO.getNewCustomers(startDate, endDate);
-            long returningCustomers = reportDAO.getReturningCustomers(startDate, endDate);
+            long newCustomers = newCustomersQuery.get(0L);
+            long returningCustomers = returningCustomersQuery.get(0L);
             
-            // Get total cost of goods sold (COGS) - with error handling
-            BigDecimal totalCOGS = BigDecimal.ZERO;
-            BigDecimal totalProfit = totalRevenue; // Default to revenue if COGS fails
-            double profitGrowthRate = 0.0;
+            // Calculate total profit = Revenue - COGS
+            BigDecimal totalCOGS = financials.current().cogs();
+            BigDecimal totalProfit = financials.current().grossProfit();
+            double profitGrowthRate = calculateGrowthRate(totalProfit, financials.previous().grossProfit());
             
-            try {
-                totalCOGS = reportDAO.getTotalCostOfGoodsSold(startDate, endDate);
-                
-                // Calculate total profit = Revenue - COGS
-                totalProfit = totalRevenue.subtract(totalCOGS);
-                
-                // Get previous period COGS for profit comparison
-                BigDecimal prevCOGS = reportDAO.getPreviousPeriodCOGS(startDate, endDate);
-                BigDecimal prevProfit = prevRevenue.subtract(prevCOGS);
-                profitGrowthRate = calculateGrowthRate(totalProfit, prevProfit);
-            } catch (Exception e) {
-                System.err.println("❌ Error calculating COGS/Profit: " + e.getMessage());
-                e.printStackTrace();
-                // Use default values already set above
-            }
-            
-            // Get peak hour
-            Integer peakHour = reportDAO.getPeakHour(startDate, endDate);
+            Integer peakHour = financials.current().peakHour();
             
             // Build summary
             report.put("totalRevenue", totalRevenue.doubleValue());
@@ -83,29 +93,23 @@ public class RevenueReportService {
             report.put("returningCustomers", returningCustomers);
             
             // Always set COGS and Profit values (even if 0)
-            report.put("totalCOGS", totalCOGS != null ? totalCOGS.doubleValue() : 0.0);
-            report.put("totalProfit", totalProfit != null ? totalProfit.doubleValue() : totalRevenue.doubleValue());
+            report.put("totalCOGS", totalCOGS.doubleValue());
+            report.put("totalProfit", totalProfit.doubleValue());
             report.put("profitGrowth", profitGrowthRate);
+            report.put("grossMargin", financials.current().grossMargin());
+            report.put("categoryMargins", categoryMarginsQuery.get(new JSONArray()));
             
             report.put("peakHour", peakHour != null ? peakHour + ":00" : "N/A");
             
-            // Get trend data
-            report.put("trendData", generateTrendData(startDate, endDate));
-            
-            // Get hourly data (use today or last day of range)
-            report.put("hourlyData", generateHourlyData(endDate));
-            
-            // Get weekday data
-            report.put("weekdayData", generateWeekdayData(startDate, endDate));
-            
-            // Get category data
-            report.put("productData", generateCategoryData(startDate, endDate));
+            report.put("trendData", trendQuery.get(new JSONObject()));
+            report.put("hourlyData", hourlyQuery.get(new JSONObject()));
+            report.put("weekdayData", weekdayQuery.get(new JSONObject()));
+            report.put("productData", categoryQuery.get(new JSONObject()));
+            report.put("topProducts", topProductsQuery.get(new JSONArray()));
+            report.put("monthlyData", monthlyQuery.get(new JSONObject()));
             
-            // Get top products
-            report.put("topProducts", generateTopProducts(startDate, endDate, 10));
-            
-            // 🆕 Get monthly revenue (last 12 months)
-            report.put("monthlyData", generateMonthlyRevenue());
+            // Thời gian từng metric để thấy query chậm
+            report.put("timings", fanOut.timings());
             
             System.out.println("✅ Report generated successfully");
             System.out.println("   Total Revenue: " + formatCurrency(totalRevenue.doubleValue()));
@@ -158,6 +162,27 @@ public class RevenueReportService {
         return report;
     }
     
+    private RevenueReportDAO.PeriodFinancials cachedFinancials(LocalDate startDate, LocalDate endDate) {
+        return ReportCache.get("financials", startDate, endDate, "period",
+            () -> reportDAO.getPeriodFinancials(startDate, endDate));
+    }
+    
+    private long cachedNewCustomers(LocalDate startDate, LocalDate endDate) {
+        return ReportCache.get("newCustomers", startDate, endDate, "session",
+            () -> reportDAO.getNewCustomers(startDate, endDate));
+    }
+    
+    /**
+     * Chuỗi số liệu rỗng (mỗi key một JSONArray) khi query của bản in quá hạn / lỗi
+     */
+    private static JSONObject emptySeries(String... keys) {
+        JSONObject series = new JSONObject();
+        for (String key : keys) {
+            series.put(key, new JSONArray());
+        }
+        return series;
+    }
+    
     /**
      * Generate trend data (daily revenue)
      */
@@ -168,7 +193,9 @@ public class RevenueReportService {
         JSONArray orders = new JSONArray();
         
         try {
-            List<Object[]> trendData = reportDAO.getDailyRevenueTrend(startDate, endDate);
+            // Ngày đã qua và hôm nay cache riêng: thanh toán chỉ làm tính lại phần hôm nay
+            List<Object[]> trendData = ReportCache.getSplit("dailyTrend", startDate, endDate, "day",
+                reportDAO::getDailyRevenueTrend, ReportCache::concat);
             
             // Create map for easy lookup
             Map<LocalDate, Object[]> dataMap = new HashMap<>();
@@ -219,7 +246,8 @@ public class RevenueReportService {
         JSONArray revenues = new JSONArray();
         
         try {
-            List<Object[]> hourlyData = reportDAO.getHourlyRevenue(date);
+            List<Object[]> hourlyData = ReportCache.get("hourlyRevenue", date, date, "hour",
+                () -> reportDAO.getHourlyRevenue(date));
             
             // Create map for easy lookup
             Map<Integer, Double> revenueMap = new HashMap<>();
@@ -257,7 +285,8 @@ public class RevenueReportService {
         JSONArray orders = new JSONArray();
         
         try {
-            List<Object[]> weekdayData = reportDAO.getRevenueByWeekday(startDate, endDate);
+            List<Object[]> weekdayData = ReportCache.get("weekdayRevenue", startDate, endDate, "weekday",
+                () -> reportDAO.getRevenueByWeekday(startDate, endDate));
             
             // Create map for easy lookup
             Map<Integer, Object[]> dataMap = new HashMap<>();
@@ -309,7 +338,8 @@ public class RevenueReportService {
         JSONArray colors = new JSONArray();
         
         try {
-            List<Object[]> categoryData = reportDAO.getRevenueByCategory(startDate, endDate);
+            List<Object[]> categoryData = ReportCache.get("categoryRevenue", startDate, endDate, "category",
+                () -> reportDAO.getRevenueByCategory(startDate, endDate));
             
             // Predefined colors for categories
             String[] colorPalette = {
@@ -352,7 +382,33 @@ public class RevenueReportService {
         
         return data;
     }
-    
+
+    /**
+     * Generate gross margin per category
+     */
+    private JSONArray generateCategoryMargins(LocalDate startDate, LocalDate endDate) {
+        JSONArray margins = new JSONArray();
+
+        try {
+            List<RevenueReportDAO.CategoryMargin> categoryMargins = ReportCache.get("categoryMargins", startDate, endDate,
+                "category", () -> reportDAO.getCategoryMargins(startDate, endDate));
+            for (RevenueReportDAO.CategoryMargin row : categoryMargins) {
+                JSONObject margin = new JSONObject();
+                margin.put("category", row.category());
+                margin.put("revenue", row.revenue().doubleValue());
+                margin.put("cogs", row.cogs().doubleValue());
+                margin.put("profit", row.grossProfit().doubleValue());
+                margin.put("margin", row.grossMargin());
+                margins.put(margin);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error generating category margins: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return margins;
+    }
+
     /**
      * Generate top products list
      */
@@ -362,7 +418,8 @@ public class RevenueReportService {
         try {
             System.out.println("🏆 generateTopProducts START - Date range: " + startDate + " to " + endDate);
             
-            List<Object[]> topProducts = reportDAO.getTopProducts(startDate, endDate, limit);
+            List<Object[]> topProducts = ReportCache.get("topProducts", startDate, endDate, "top" + limit,
+                () -> reportDAO.getTopProducts(startDate, endDate, limit));
             System.out.println("   DAO returned " + topProducts.size() + " products");
             
             if (topProducts.isEmpty()) {
@@ -371,7 +428,7 @@ public class RevenueReportService {
             }
             
             // Calculate total revenue for percentage
-            BigDecimal totalRevenue = reportDAO.getTotalRevenue(startDate, endDate);
+            BigDecimal totalRevenue = cachedFinancials(startDate, endDate).current().revenue();
             System.out.println("   Total revenue: " + totalRevenue);
             
             int index = 0;
@@ -437,7 +494,9 @@ public class RevenueReportService {
             System.out.println("📊 Generating monthly revenue data...");
             
             // Get last 12 months data from DAO
-            List<Object[]> monthlyData = reportDAO.getMonthlyRevenue(12);
+            LocalDate today = LocalDate.now();
+            List<Object[]> monthlyData = ReportCache.get("monthlyRevenue", today.minusMonths(11).withDayOfMonth(1), today,
+                "month", () -> reportDAO.getMonthlyRevenue(12));
             
             // Create a map for easy lookup
             Map<String, BigDecimal> dataMap = new HashMap<>();
@@ -452,7 +511,7 @@ public class RevenueReportService {
             }
             
             // Fill in all 12 months (even if no data)
-            LocalDate endDate = LocalDate.now();
+            LocalDate endDate = today;
             LocalDate startDate = endDate.minusMonths(11).withDayOfMonth(1);
             
             LocalDate current = startDate;
@@ -517,8 +576,14 @@ public class RevenueReportService {
         try {
             System.out.println("📊 Generating TODAY's revenue dashboard...");
             
-            // Get all metrics from DAO
-            Map<String, Object> metrics = reportDAO.getTodayMetrics();
+            // Get all metrics from DAO (một query gom theo giờ cho hôm nay và hôm qua)
+            ReportFanOut fanOut = new ReportFanOut("today");
+            LocalDate today = LocalDate.now();
+            Map<String, Object> metrics = fanOut.submit("todayMetrics", () -> ReportCache.get("todayMetrics",
+                today.minusDays(1), today, "hour", reportDAO::getTodayMetrics)).get(null);
+            if (metrics == null) {
+                throw new IllegalStateException("Today's metrics unavailable");
+            }
             
             // Extract values
             BigDecimal todayRevenue = (BigDecimal) metrics.get("todayRevenue");
@@ -567,6 +632,7 @@ public class RevenueReportService {
             else if (revenueGrowth < 0) status = "warning";
             else if (revenueGrowth > 10) status = "excellent";
             todayReport.put("status", status);
+            todayReport.put("timings", fanOut.timings());
             
             System.out.println("✅ Today's report: Revenue=" + todayRevenue + 
                              ", Growth=" + String.format("%.1f%%", revenueGrowth) +
@@ -592,9 +658,30 @@ public class RevenueReportService {
         try {
             System.out.println("📊 Getting report data for print from " + startDate + " to " + endDate);
             
-            // Get basic statistics
-            BigDecimal totalRevenue = reportDAO.getTotalRevenue(startDate, endDate);
-            long totalOrders = reportDAO.getTotalOrders(startDate, endDate);
+            boolean isSingleDay = startDate.equals(endDate);
+            
+            // Các query độc lập chạy song song như generateReport
+            ReportFanOut fanOut = new ReportFanOut("print");
+            // Doanh thu, số đơn, giá vốn kỳ này và kỳ trước: một lần gọi DB
+            ReportFanOut.Pending<RevenueReportDAO.PeriodFinancials> financialsQuery =
+                fanOut.submit("financials", () -> cachedFinancials(startDate, endDate));
+            ReportFanOut.Pending<Long> newCustomersQuery =
+                fanOut.submit("newCustomers", () -> cachedNewCustomers(startDate, endDate));
+            ReportFanOut.Pending<Long> returningCustomersQuery =
+                fanOut.submit("returningCustomers", () -> reportDAO.getReturningCustomers(startDate, endDate));
+            ReportFanOut.Pending<JSONObject> hourlyQuery = isSingleDay
+                ? fanOut.submit("hourlyData", () -> generateHourlyData(startDate)) : null;
+            ReportFanOut.Pending<JSONObject> trendQuery = isSingleDay
+                ? null : fanOut.submit("trendData", () -> generateTrendData(startDate, endDate));
+            ReportFanOut.Pending<JSONArray> topProductsQuery =
+                fanOut.submit("topProducts", () -> generateTopProducts(startDate, endDate, 10));
+            ReportFanOut.Pending<JSONObject> categoryQuery =
+                fanOut.submit("productData", () -> generateCategoryData(startDate, endDate));
+            
+            RevenueReportDAO.PeriodFinancials financials =
+                financialsQuery.get(RevenueReportDAO.PeriodFinancials.empty(startDate, endDate));
+            BigDecimal totalRevenue = financials.current().revenue();
+            long totalOrders = financials.current().orders();
             
             // Calculate average order value
             BigDecimal avgOrderValue = totalOrders > 0 ? 
@@ -602,36 +689,22 @@ public class RevenueReportService {
                 BigDecimal.ZERO;
             
             // Get previous period for comparison
-            BigDecimal prevRevenue = reportDAO.getPreviousPeriodRevenue(startDate, endDate);
+            BigDecimal prevRevenue = financials.previous().revenue();
             double growthRate = calculateGrowthRate(totalRevenue, prevRevenue);
             
             // Get customer statistics
-            long newCustomers = reportDAO.getNewCustomers(startDate, endDate);
-            long returningCustomers = reportDAO.getReturningCustomers(startDate, endDate);
+            long newCustomers = newCustomersQuery.get(0L);
+            long returningCustomers = returningCustomersQuery.get(0L);
             
             // Get COGS and profit
-            BigDecimal totalCOGS = BigDecimal.ZERO;
-            BigDecimal totalProfit = totalRevenue;
-            double profitGrowthRate = 0.0;
-            
-            try {
-                totalCOGS = reportDAO.getTotalCostOfGoodsSold(startDate, endDate);
-                totalProfit = totalRevenue.subtract(totalCOGS);
-                
-                BigDecimal prevCOGS = reportDAO.getPreviousPeriodCOGS(startDate, endDate);
-                BigDecimal prevProfit = prevRevenue.subtract(prevCOGS);
-                profitGrowthRate = calculateGrowthRate(totalProfit, prevProfit);
-            } catch (Exception e) {
-                System.err.println("❌ Error calculating COGS/Profit: " + e.getMessage());
-            }
-            
-            // Determine if single day or multiple days
-            boolean isSingleDay = startDate.equals(endDate);
+            BigDecimal totalCOGS = financials.current().cogs();
+            BigDecimal totalProfit = financials.current().grossProfit();
+            double profitGrowthRate = calculateGrowthRate(totalProfit, financials.previous().grossProfit());
             
             // Get hourly data (if single day)
             Map<String, Object> hourlyData = null;
             if (isSingleDay) {
-                JSONObject hourlyJson = generateHourlyData(startDate);
+                JSONObject hourlyJson = hourlyQuery.get(emptySeries("hours", "revenues"));
                 hourlyData = new HashMap<>();
                 // Convert JSONArray to List
                 List<String> hours = new ArrayList<>();
@@ -651,7 +724,7 @@ public class RevenueReportService {
             // Get daily data (if multiple days)
             Map<String, Object> dailyData = null;
             if (!isSingleDay) {
-                JSONObject trendJson = generateTrendData(startDate, endDate);
+                JSONObject trendJson = trendQuery.get(emptySeries("dates", "revenues", "orders"));
                 dailyData = new HashMap<>();
                 // Convert JSONArray to List
                 List<String> dates = new ArrayList<>();
@@ -675,7 +748,7 @@ public class RevenueReportService {
             }
             
             // Get top products
-            JSONArray topProductsJson = generateTopProducts(startDate, endDate, 10);
+            JSONArray topProductsJson = topProductsQuery.get(new JSONArray());
             List<Map<String, Object>> topProducts = new ArrayList<>();
             for (int i = 0; i < topProductsJson.length(); i++) {
                 JSONObject product = topProductsJson.getJSONObject(i);
@@ -688,7 +761,7 @@ public class RevenueReportService {
             }
             
             // Get category revenue
-            JSONObject categoryJson = generateCategoryData(startDate, endDate);
+            JSONObject categoryJson = categoryQuery.get(emptySeries("categories", "revenues"));
             List<Map<String, Object>> categories = new ArrayList<>();
             JSONArray categoryNames = categoryJson.getJSONArray("categories");
             JSONArray categoryRevenues = categoryJson.getJSONArray("revenues");
@@ -717,6 +790,7 @@ public class RevenueReportService {
             reportData.put("avgOrderValue", avgOrderValue);
             reportData.put("totalCOGS", totalCOGS);
             reportData.put("totalProfit", totalProfit);
+            reportData.put("grossMargin", financials.current().grossMargin());
             reportData.put("growthRate", growthRate);
             reportData.put("profitGrowthRate", profitGrowthRate);
             reportData.put("newCustomers", newCustomers);
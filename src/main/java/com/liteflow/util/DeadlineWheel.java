@@ -0,0 +1,110 @@
+package com.liteflow.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Timer wheel (hashed) cho số lượng lớn hạn chót theo khóa, vd ngày giao dự kiến của từng PO.
+ *
+ * Thời gian chia thành tick tickMillis ms; mỗi khóa nằm trong ô (tick hạn chót % wheelSize) nên đặt / hủy / đổi hạn
+ * là O(1) và mỗi tick chỉ duyệt một ô thay vì quét mọi khóa. Khóa hết hạn không sớm hơn deadline và trễ tối đa một
+ * tick. advance() do thread gọi điều khiển (ticker định kỳ, hoặc đồng hồ giả trong test); callback chạy ngoài khóa.
+ */
+public final class DeadlineWheel<K> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Consumer<K> onExpired;
+    /** mỗi ô: khóa -> tick hạn chót */
+    private final List<Map<K, Long>> buckets;
+    private final Map<K, Integer> slotOf = new HashMap<>();
+    private long currentTick;
+
+    public DeadlineWheel(long tickMillis, int wheelSize, long startMillis, Consumer<K> onExpired) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.startMillis = startMillis;
+        this.onExpired = onExpired;
+        this.buckets = new ArrayList<>(Math.max(1, wheelSize));
+        for (int i = 0; i < Math.max(1, wheelSize); i++) {
+            buckets.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Đặt (hoặc đổi) hạn chót của khóa; hạn đã qua hết hạn ở lần advance kế tiếp
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(currentTick, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        int slot = (int) (tick % buckets.size());
+        buckets.get(slot).put(key, tick);
+        slotOf.put(key, slot);
+    }
+
+    /**
+     * @return false nếu khóa không có hạn chót
+     */
+    public synchronized boolean cancel(K key) {
+        Integer slot = slotOf.remove(key);
+        return slot != null && buckets.get(slot).remove(key) != null;
+    }
+
+    public synchronized boolean contains(K key) {
+        return slotOf.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return slotOf.size();
+    }
+
+    /**
+     * Chạy các tick tới nowMillis và gọi onExpired cho mọi khóa đã tới hạn
+     *
+     * @return số khóa hết hạn
+     */
+    public int advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+            if (targetTick < currentTick) {
+                return 0;
+            }
+            if (targetTick - currentTick >= buckets.size()) {
+                // Trễ hơn một vòng (vd máy ngủ): duyệt mọi ô một lần
+                for (Map<K, Long> bucket : buckets) {
+                    collectExpired(bucket, targetTick, expired);
+                }
+            } else {
+                for (long tick = currentTick; tick <= targetTick; tick++) {
+                    collectExpired(buckets.get((int) (tick % buckets.size())), targetTick, expired);
+                }
+            }
+            currentTick = targetTick + 1;
+        }
+        for (K key : expired) {
+            try {
+                onExpired.accept(key);
+            } catch (Exception e) {
+                System.err.println("❌ Deadline handler failed for " + key + ": " + e.getMessage());
+            }
+        }
+        return expired.size();
+    }
+
+    private void collectExpired(Map<K, Long> bucket, long targetTick, List<K> expired) {
+        Iterator<Map.Entry<K, Long>> it = bucket.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Long> entry = it.next();
+            if (entry.getValue() <= targetTick) {
+                it.remove();
+                slotOf.remove(entry.getKey());
+                expired.add(entry.getKey());
+            }
+        }
+    }
+}
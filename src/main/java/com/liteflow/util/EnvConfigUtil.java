@@ -214,5 +214,68 @@ public class EnvConfigUtil {
             return Double.parseDouble(DEFAULT_VAT_RATE);
         }
     }
+    
+    /**
+     * Get a raw configuration value, checking .env first and then the system environment
+     * @param key Key name (e.g. LITEFLOW_DB_POOL_MAX_SIZE)
+     * @param defaultValue Value returned when the key is missing or blank
+     * @return Trimmed value or defaultValue
+     */
+    public static String get(String key, String defaultValue) {
+        try {
+            String value = loadDotenv().get(key);
+            if (value == null || value.trim().isEmpty()) {
+                value = System.getenv(key);
+            }
+            if (value != null && !value.trim().isEmpty()) {
+                return value.trim();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ [EnvConfigUtil] Error loading " + key + ": " + e.getMessage());
+        }
+        return defaultValue;
+    }
+    
+    /**
+     * Get an integer configuration value (.env, then system environment)
+     * @return Parsed value or defaultValue if missing/invalid
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ [EnvConfigUtil] Invalid integer for " + key + ": " + value + ", using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Get a long configuration value (.env, then system environment)
+     * @return Parsed value or defaultValue if missing/invalid
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ [EnvConfigUtil] Invalid number for " + key + ": " + value + ", using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Get a boolean configuration value (.env, then system environment)
+     * @return Parsed value or defaultValue if missing
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
 }
-
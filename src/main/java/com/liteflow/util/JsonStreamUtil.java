@@ -0,0 +1,77 @@
+package com.liteflow.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Ghi JSON trực tiếp ra response bằng Gson JsonWriter, không dựng Map trung gian.
+ * Cấu hình giống new Gson(): bỏ qua giá trị null, escape ký tự HTML (an toàn khi nhúng vào JSP).
+ */
+public final class JsonStreamUtil {
+
+    private static final Gson GSON = new Gson();
+
+    private JsonStreamUtil() {
+    }
+
+    /**
+     * Đối tượng tự ghi được chính nó thành một JSON object
+     */
+    public interface JsonWritable {
+        void writeJson(JsonWriter out) throws IOException;
+    }
+
+    public static JsonWriter open(Writer writer) {
+        JsonWriter out = new JsonWriter(writer);
+        out.setSerializeNulls(false);
+        out.setHtmlSafe(true);
+        return out;
+    }
+
+    /**
+     * JsonWriter trên response (application/json, UTF-8). Gọi flush() sau khi ghi xong.
+     */
+    public static JsonWriter open(HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        return open(response.getWriter());
+    }
+
+    public static void writeArray(JsonWriter out, Collection<? extends JsonWritable> values) throws IOException {
+        out.beginArray();
+        for (JsonWritable value : values) {
+            value.writeJson(out);
+        }
+        out.endArray();
+    }
+
+    /**
+     * JSON đã parse sẵn (vd. cột snapshot lưu dạng JSON trong DB)
+     */
+    public static void writeElement(JsonWriter out, JsonElement element) throws IOException {
+        GSON.toJson(element, out);
+    }
+
+    /**
+     * Mảng JSON dạng chuỗi, dùng để nhúng vào JSP
+     */
+    public static String toJsonArray(Collection<? extends JsonWritable> values) {
+        StringWriter buffer = new StringWriter();
+        try {
+            JsonWriter out = open(buffer);
+            writeArray(out, values);
+            out.flush();
+        } catch (IOException e) {
+            // StringWriter không ném IOException
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+}
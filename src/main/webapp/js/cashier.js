@@ -3622,10 +3622,11 @@ class NotificationManager {
 window.notificationManager = new NotificationManager();
 
 // Notifications
-// ✅ Lịch sử thông báo bếp và thanh toán (từ database)
+// ✅ Lịch sử thông báo bếp và thanh toán (từ database, phân trang theo cursor)
 let notificationHistory = [];
+let notificationNextCursor = null;
 
-// Load lịch sử từ database
+// Load trang đầu lịch sử từ database
 async function loadNotificationHistory() {
   try {
     const response = await fetch(contextPath + '/api/cashier/notification/history?days=7');
@@ -3633,15 +3634,40 @@ async function loadNotificationHistory() {
     
     if (result.success) {
       notificationHistory = result.notifications;
+      notificationNextCursor = result.hasMore ? result.nextCursor : null;
       updateNotificationBadge();
       console.log('✅ Loaded notification history from DB:', result.total);
     } else {
       console.warn('Failed to load notification history:', result.message);
       notificationHistory = [];
+      notificationNextCursor = null;
     }
   } catch (e) {
     console.warn('Failed to load notification history:', e);
     notificationHistory = [];
+    notificationNextCursor = null;
+  }
+}
+
+// Load trang tiếp theo (nối vào cuối danh sách)
+async function loadMoreNotificationHistory() {
+  if (!notificationNextCursor) {
+    return;
+  }
+  try {
+    const response = await fetch(contextPath + '/api/cashier/notification/history?days=7&cursor=' + encodeURIComponent(notificationNextCursor));
+    const result = await response.json();
+    
+    if (result.success) {
+      notificationHistory = notificationHistory.concat(result.notifications);
+      notificationNextCursor = result.hasMore ? result.nextCursor : null;
+      updateNotificationBadge();
+      loadNotifications();
+    } else {
+      console.warn('Failed to load more notification history:', result.message);
+    }
+  } catch (e) {
+    console.warn('Failed to load more notification history:', e);
   }
 }
 
@@ -3651,7 +3677,7 @@ function updateNotificationBadge() {
   if (badge) {
     const count = notificationHistory.length;
     if (count > 0) {
-      badge.textContent = count > 99 ? '99+' : count;
+      badge.textContent = count > 99 || notificationNextCursor ? Math.min(count, 99) + '+' : count;
       badge.style.display = 'block';
     } else {
       badge.style.display = 'none';
@@ -3760,9 +3786,13 @@ function loadNotifications() {
     html += `</div>`;
   });
   
-  // Thêm nút làm mới
+  // Thêm nút xem thêm (nếu còn trang sau) và nút làm mới
+  const loadMoreHtml = notificationNextCursor ? `
+      <button class="refresh-history-btn" onclick="loadMoreNotificationHistory()">
+        <i class='bx bx-chevron-down'></i> Xem thêm
+      </button>` : '';
   html += `
-    <div class="notification-footer">
+    <div class="notification-footer">${loadMoreHtml}
       <button class="refresh-history-btn" onclick="refreshNotificationHistory()">
         <i class='bx bx-refresh'></i> Làm mới
       </button>
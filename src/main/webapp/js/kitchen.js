@@ -7,6 +7,8 @@
 let orders = window.orders || [];
 let currentFilter = 'all';
 let autoRefreshInterval = null;
+let kitchenStream = null;
+let lastStreamEventId = window.kitchenStreamEventId || '';
 let soundEnabled = localStorage.getItem('kitchen_sound_enabled') === 'true' || true;
 let notificationHistory = [];
 
@@ -151,8 +153,12 @@ document.addEventListener('DOMContentLoaded', function() {
   // Update time every second
   setInterval(updateTime, 1000);
   
-  // Auto refresh every 30 seconds
-  autoRefreshInterval = setInterval(refreshOrders, 30000);
+  // Nhận thay đổi order qua Server-Sent Events; chỉ polling 30 giây khi trình duyệt không hỗ trợ
+  if (window.EventSource) {
+    connectKitchenStream();
+  } else {
+    autoRefreshInterval = setInterval(refreshOrders, 30000);
+  }
   
   // Close dropdowns when clicking outside
   document.addEventListener('click', function(e) {
@@ -458,6 +464,78 @@ async function updateStatus(orderId, newStatus) {
   }
 }
 
+/**
+ * Kết nối /api/kitchen/stream: snapshot khi mới kết nối (hoặc không resume được), sau đó chỉ nhận thay đổi.
+ * EventSource tự kết nối lại và gửi Last-Event-ID nên server gửi tiếp các event bị lỡ.
+ */
+function connectKitchenStream() {
+  let url = contextPath + '/api/kitchen/stream';
+  if (lastStreamEventId) {
+    url += '?lastEventId=' + encodeURIComponent(lastStreamEventId);
+  }
+  kitchenStream = new EventSource(url);
+  
+  kitchenStream.addEventListener('snapshot', function(e) {
+    lastStreamEventId = e.lastEventId;
+    const data = JSON.parse(e.data);
+    orders = data.orders || [];
+    renderOrders();
+    updateStats();
+    console.log('📡 Kitchen stream snapshot: ' + orders.length + ' orders');
+  });
+  
+  kitchenStream.addEventListener('order', function(e) {
+    lastStreamEventId = e.lastEventId;
+    applyOrderEvent(JSON.parse(e.data));
+  });
+  
+  kitchenStream.onopen = function() {
+    console.log('📡 Kitchen stream connected');
+  };
+  
+  kitchenStream.onerror = function() {
+    // EventSource tự thử lại (retry do server gửi); chỉ log
+    console.warn('⚠️ Kitchen stream disconnected, reconnecting...');
+  };
+}
+
+/**
+ * Áp dụng một thay đổi order từ stream (áp dụng lại nhiều lần không sao)
+ */
+function applyOrderEvent(event) {
+  const index = orders.findIndex(o => o.orderId === event.orderId);
+  
+  if (event.type === 'created' && event.order) {
+    if (index >= 0) {
+      orders[index] = event.order;
+    } else {
+      orders.push(event.order);
+      showNotification('Có order mới: ' + (event.order.orderNumber || ''), 'info');
+      if (soundEnabled) {
+        playNotificationSound('success');
+      }
+    }
+  } else if (event.type === 'status') {
+    if (index < 0 || orders[index].status === event.status) {
+      return;
+    }
+    if (event.status === 'Served' || event.status === 'Cancelled') {
+      orders.splice(index, 1);
+    } else {
+      const order = orders[index];
+      order.status = event.status;
+      order.items.forEach(item => {
+        item.status = event.status;
+      });
+    }
+  } else {
+    return;
+  }
+  
+  renderOrders();
+  updateStats();
+}
+
 /**
  * Refresh orders from API
  */
@@ -7198,6 +7198,14 @@ function showCheckResults(data) {
             <div class="result-number">${data.totalTables || 0}</div>
             <div class="result-label">Bàn</div>
         </div>
+        <div class="result-item">
+            <div class="result-number">${data.skipped || 0}</div>
+            <div class="result-label">Trùng (bỏ qua)</div>
+        </div>
+        <div class="result-item">
+            <div class="result-number">${data.roomsToCreate || 0}</div>
+            <div class="result-label">Phòng sẽ tạo</div>
+        </div>
         <div class="result-item">
             <div class="result-number">${data.errors ? data.errors.length : 0}</div>
             <div class="result-label">Lỗi</div>
@@ -7244,9 +7252,11 @@ window.startImport = function() {
     formData.append('skipDuplicates', document.getElementById('skipDuplicates').checked);
     formData.append('validateData', document.getElementById('validateData').checked);
     formData.append('createMissingRooms', document.getElementById('createMissingRooms').checked);
+    const importId = Date.now().toString(36) + Math.random().toString(36).slice(2);
+    formData.append('importId', importId);
 
-    // Simulate progress
-    simulateProgress();
+    // Poll real progress from server
+    pollImportProgress(importId);
 
     // Send request
     fetch('roomtable', {
@@ -7306,6 +7316,38 @@ function simulateProgress() {
     window.importProgressInterval = interval;
 }
 
+// Poll Import Progress (số dòng đã đọc / đã ghi do server báo)
+function pollImportProgress(importId) {
+    const progressFill = document.getElementById('progressFill');
+    const progressText = document.getElementById('progressText');
+    if (progressFill) progressFill.style.width = '0%';
+    if (progressText) progressText.textContent = 'Đang tải file lên...';
+    
+    const interval = setInterval(() => {
+        fetch('roomtable', {
+            method: 'POST',
+            body: new URLSearchParams({ action: 'importProgress', importId: importId })
+        })
+        .then(response => response.json())
+        .then(data => {
+            if (!data.success || window.importProgressInterval !== interval) return;
+            
+            if (progressFill) {
+                progressFill.style.width = data.percent + '%';
+            }
+            if (progressText) {
+                const phase = data.phase === 'tables' ? 'bàn' : 'phòng';
+                progressText.textContent = `Đang nhập ${phase}: đã đọc ${data.rowsRead} dòng, ` +
+                    `đã lưu ${data.imported}, lỗi ${data.failed} (${data.percent}%)`;
+            }
+        })
+        .catch(() => {});
+    }, 500);
+
+    // Store interval ID for cleanup
+    window.importProgressInterval = interval;
+}
+
 // Show Progress
 function showProgress() {
     const progressDiv = document.getElementById('importProgress');
@@ -194,6 +194,9 @@
   // Set global orders array BEFORE kitchen.js loads
   window.orders = ordersData || [];
   
+  // Event ID tại thời điểm lấy ordersData - kitchen.js nhận tiếp thay đổi từ đây qua /api/kitchen/stream
+  window.kitchenStreamEventId = '<c:out value="${streamEventId}"/>';
+  
   console.log('📦 Data initialized:', window.orders.length, 'orders');
 </script>
 
@@ -864,4 +864,82 @@ public class CashierAPIServletTest extends UnitTestBase {
         assertTrue((Boolean) result.get("success"));
         assertNotNull(result.get("notifications"));
     }
+
+    /**
+     * Test 22: Notification history is paged with limit + cursor, without duplicates
+     */
+    @Test
+    public void testGetNotificationHistory_Paging() throws Exception {
+        // Arrange - 3 orders in one session
+        beginTransaction();
+        TableSession session = new TableSession();
+        session.setSessionId(UUID.randomUUID());
+        session.setTable(testTable);
+        session.setStatus("Active");
+        entityManager.persist(session);
+        for (int i = 1; i <= 3; i++) {
+            Order order = new Order();
+            order.setOrderId(UUID.randomUUID());
+            order.setSession(session);
+            order.setOrderNumber("HIST-" + i);
+            order.setOrderDate(LocalDateTime.now().minusMinutes(i));
+            entityManager.persist(order);
+        }
+        commitTransaction();
+
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getPathInfo()).thenReturn("/notification/history");
+        when(request.getParameter("limit")).thenReturn("2");
+
+        // Act - walk every page (other tests may have left orders / payments behind)
+        List<String> orderNumbers = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            responseWriter.getBuffer().setLength(0);
+            when(request.getParameter("cursor")).thenReturn(cursor);
+            servlet.service(request, response);
+            Map<String, Object> page = gson.fromJson(responseWriter.toString(), Map.class);
+
+            assertTrue((Boolean) page.get("success"));
+            List<Map<String, Object>> items = (List<Map<String, Object>>) page.get("notifications");
+            assertTrue(items.size() <= 2);
+            for (Map<String, Object> item : items) {
+                if ("kitchen".equals(item.get("type"))) {
+                    orderNumbers.add((String) item.get("orderId"));
+                }
+            }
+            cursor = (String) page.get("nextCursor");
+            assertEquals(cursor != null, page.get("hasMore"));
+        } while (cursor != null && ++pages < 50);
+
+        // Assert - newest first, each order exactly once
+        List<String> ours = new ArrayList<>();
+        for (String orderNumber : orderNumbers) {
+            if (orderNumber.startsWith("HIST-")) {
+                ours.add(orderNumber);
+            }
+        }
+        assertEquals(Arrays.asList("HIST-1", "HIST-2", "HIST-3"), ours);
+        assertEquals(new HashSet<>(orderNumbers).size(), orderNumbers.size());
+    }
+
+    /**
+     * Test 23: Notification history with an invalid cursor
+     */
+    @Test
+    public void testGetNotificationHistory_InvalidCursor() throws Exception {
+        // Arrange
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getPathInfo()).thenReturn("/notification/history");
+        when(request.getParameter("cursor")).thenReturn("not-a-cursor");
+
+        // Act
+        servlet.service(request, response);
+
+        // Assert
+        Map<String, Object> result = gson.fromJson(responseWriter.toString(), Map.class);
+        assertFalse((Boolean) result.get("success"));
+        verify(response).setStatus(400);
+    }
 }
@@ -0,0 +1,411 @@
+package com.liteflow.unit.dao.report;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.report.RevenueReportDAO;
+import com.liteflow.dao.report.SalesRollup;
+import com.liteflow.model.inventory.Category;
+import com.liteflow.model.inventory.Order;
+import com.liteflow.model.inventory.OrderDetail;
+import com.liteflow.model.inventory.Product;
+import com.liteflow.model.inventory.ProductCategory;
+import com.liteflow.model.inventory.ProductVariant;
+import com.liteflow.model.inventory.TableSession;
+import com.liteflow.service.report.ReportCache;
+import com.liteflow.service.report.RevenueReportService;
+import com.liteflow.unit.base.UnitTestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SalesRollup
+ * Tests that RevenueReportDAO returns the same figures from the rollup tables as from Orders/OrderDetails,
+ * and that a payment refreshes the rollup of its day
+ */
+public class SalesRollupTest extends UnitTestBase {
+
+    private final RevenueReportDAO reportDAO = new RevenueReportDAO();
+
+    private LocalDate today;
+    private LocalDate yesterday;
+    private LocalDate twoDaysAgo;
+    private ProductVariant latte;
+    private ProductVariant cake;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        try {
+            // Setup BaseDAO.emf via reflection to use our test EntityManagerFactory
+            Field emfField = BaseDAO.class.getDeclaredField("emf");
+            emfField.setAccessible(true);
+            emfField.set(null, entityManagerFactory);
+            // Mỗi test bắt đầu khi rollup chưa được dựng (báo cáo đọc Orders)
+            Field coverageField = SalesRollup.class.getDeclaredField("coverage");
+            coverageField.setAccessible(true);
+            coverageField.set(null, null);
+            ReportCache.clear();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to setup SalesRollupTest", e);
+        }
+        super.setUp();
+    }
+
+    @Override
+    protected void seedTestData() {
+        today = LocalDate.now();
+        yesterday = today.minusDays(1);
+        twoDaysAgo = today.minusDays(2);
+
+        beginTransaction();
+        Category drinks = new Category();
+        drinks.setCategoryId(UUID.randomUUID());
+        drinks.setName("Drinks");
+        entityManager.persist(drinks);
+        Category bakery = new Category();
+        bakery.setCategoryId(UUID.randomUUID());
+        bakery.setName("Bakery");
+        entityManager.persist(bakery);
+
+        latte = newVariant("Latte", 40000, 15000, drinks);
+        cake = newVariant("Cheesecake", 55000, 30000, bakery, drinks);
+
+        // Hai ngày trước: 2 phiên, 1 đơn chưa thanh toán không được tính
+        TableSession s1 = newSession();
+        newOrder(s1, twoDaysAgo.atTime(9, 15), "Paid", detail(latte, 2), detail(cake, 1));
+        TableSession s2 = newSession();
+        newOrder(s2, twoDaysAgo.atTime(9, 45), "Paid", detail(latte, 1));
+        newOrder(s2, twoDaysAgo.atTime(14, 5), "Unpaid", detail(cake, 3));
+
+        // Phiên qua đêm: chỉ là một khách
+        TableSession overnight = newSession();
+        newOrder(overnight, yesterday.atTime(23, 30), "Paid", detail(cake, 2));
+        newOrder(overnight, today.atTime(0, 10), "Paid", detail(latte, 3));
+
+        TableSession s4 = newSession();
+        newOrder(s4, today.atTime(0, 40), "Paid", detail(latte, 1), detail(cake, 1));
+        commitTransaction();
+        entityManager.clear();
+    }
+
+    @Override
+    protected void cleanupDatabase() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            return;
+        }
+        beginTransaction();
+        for (String entity : new String[] {"SalesDailyRollup", "SalesHourlyRollup", "SalesVariantRollup",
+                "SalesSessionDay", "OrderDetail", "Order", "TableSession", "ProductCategory", "ProductVariant",
+                "Product", "Category"}) {
+            entityManager.createQuery("DELETE FROM " + entity).executeUpdate();
+        }
+        commitTransaction();
+    }
+
+    /**
+     * Test 1: After backfill every report query returns the same result as the raw Orders/OrderDetails query
+     */
+    @Test
+    public void testBackfill_RollupMatchesRawQueries() {
+        LocalDate from = twoDaysAgo;
+        assertFalse(SalesRollup.covers(from, today));
+
+        BigDecimal rawRevenue = reportDAO.getTotalRevenue(from, today);
+        long rawOrders = reportDAO.getTotalOrders(from, today);
+        long rawCustomers = reportDAO.getNewCustomers(from, today);
+        long rawCustomersToday = reportDAO.getNewCustomers(today, today);
+        BigDecimal rawCogs = reportDAO.getTotalCostOfGoodsSold(from, today);
+        List<Object[]> rawTrend = reportDAO.getDailyRevenueTrend(from, today);
+        List<Object[]> rawTop = reportDAO.getTopProducts(from, today, 10);
+        List<Object[]> rawCategories = reportDAO.getRevenueByCategory(from, today);
+        List<Object[]> rawMonthly = reportDAO.getMonthlyRevenue(12);
+        Map<String, Object> rawToday = reportDAO.getTodayMetrics();
+
+        Map<String, Object> run = SalesRollup.backfill();
+        assertEquals(3, run.get("days"));
+        assertTrue(SalesRollup.covers(from, today));
+        assertTrue(SalesRollup.covers(from.minusDays(30), today.plusDays(5)),
+                "Days before the first order and after today have no sales");
+
+        assertEquals(0, rawRevenue.compareTo(reportDAO.getTotalRevenue(from, today)));
+        assertEquals(rawOrders, reportDAO.getTotalOrders(from, today));
+        assertEquals(4, rawCustomers);
+        assertEquals(rawCustomers, reportDAO.getNewCustomers(from, today));
+        assertEquals(rawCustomersToday, reportDAO.getNewCustomers(today, today));
+        assertEquals(0, rawCogs.compareTo(reportDAO.getTotalCostOfGoodsSold(from, today)));
+        assertRowsEqual(rawTrend, reportDAO.getDailyRevenueTrend(from, today));
+        assertRowsEqual(rawTop, reportDAO.getTopProducts(from, today, 10));
+        assertRowsEqual(rawCategories, reportDAO.getRevenueByCategory(from, today));
+        assertRowsEqual(rawMonthly, reportDAO.getMonthlyRevenue(12));
+
+        Map<String, Object> rolledToday = reportDAO.getTodayMetrics();
+        for (String key : new String[] {"todayRevenue", "yesterdayRevenue", "avgOrderValue"}) {
+            assertEquals(0, ((BigDecimal) rawToday.get(key)).compareTo((BigDecimal) rolledToday.get(key)), key);
+        }
+        assertEquals(rawToday.get("todayOrders"), rolledToday.get("todayOrders"));
+        assertEquals(rawToday.get("yesterdayOrders"), rolledToday.get("yesterdayOrders"));
+        assertEquals(rawToday.get("peakHour"), rolledToday.get("peakHour"));
+        List<?> rawHourly = (List<?>) rawToday.get("hourlyRevenues");
+        List<?> rolledHourly = (List<?>) rolledToday.get("hourlyRevenues");
+        for (int i = 0; i < 24; i++) {
+            assertEquals(0, ((BigDecimal) rawHourly.get(i)).compareTo((BigDecimal) rolledHourly.get(i)), "hour " + i);
+        }
+
+        // Các query native (DATEPART) của SQL Server: so với số liệu tính tay
+        List<Object[]> hourly = reportDAO.getHourlyRevenue(twoDaysAgo);
+        assertEquals(1, hourly.size());
+        assertEquals(9, hourly.get(0)[0]);
+        assertEquals(0, new BigDecimal("175000").compareTo((BigDecimal) hourly.get(0)[1]));
+        assertEquals(0, reportDAO.getPeakHour(from, today));
+        List<Object[]> weekdays = reportDAO.getRevenueByWeekday(from, today);
+        assertEquals(3, weekdays.size());
+        Object[] todayWeekday = weekdays.stream()
+                .filter(row -> row[0].equals(today.getDayOfWeek().getValue())).findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("215000").compareTo((BigDecimal) todayWeekday[1]));
+        assertEquals(2L, ((Number) todayWeekday[2]).longValue());
+    }
+
+    /**
+     * Test 2: Paying a session refreshes the rollup of its day so reports stay identical to the raw queries
+     */
+    @Test
+    public void testSessionPaid_RefreshesRollupOfItsDay() {
+        SalesRollup.backfill();
+        long refreshesBefore = (Long) SalesRollup.getMetrics().get("paymentRefreshes");
+        BigDecimal before = reportDAO.getTotalRevenue(twoDaysAgo, twoDaysAgo);
+        assertEquals(0, new BigDecimal("175000").compareTo(before));
+
+        // Thanh toán đơn còn lại của phiên s2 (cập nhật Orders như CashierAPIServlet)
+        beginTransaction();
+        UUID sessionId = entityManager.createQuery(
+                "SELECT o.session.sessionId FROM Order o WHERE o.paymentStatus = 'Unpaid'", UUID.class)
+                .getSingleResult();
+        entityManager.createQuery("UPDATE Order o SET o.paymentStatus = 'Paid' WHERE o.session.sessionId = :sessionId")
+                .setParameter("sessionId", sessionId)
+                .executeUpdate();
+        commitTransaction();
+
+        assertEquals(List.of(twoDaysAgo), SalesRollup.sessionPaid(sessionId));
+
+        assertTrue(SalesRollup.covers(twoDaysAgo, today));
+        assertEquals(0, new BigDecimal("340000").compareTo(reportDAO.getTotalRevenue(twoDaysAgo, twoDaysAgo)));
+        assertEquals(3L, reportDAO.getTotalOrders(twoDaysAgo, twoDaysAgo));
+        List<Object[]> hourly = reportDAO.getHourlyRevenue(twoDaysAgo);
+        assertEquals(2, hourly.size());
+        assertEquals(14, hourly.get(1)[0]);
+
+        // Bỏ rollup: query gốc cho cùng kết quả
+        assertEquals(refreshesBefore + 1, SalesRollup.getMetrics().get("paymentRefreshes"));
+        long rolledOrders = reportDAO.getTotalOrders(twoDaysAgo, today);
+        BigDecimal rolledCogs = reportDAO.getTotalCostOfGoodsSold(twoDaysAgo, today);
+        try {
+            Field coverageField = SalesRollup.class.getDeclaredField("coverage");
+            coverageField.setAccessible(true);
+            coverageField.set(null, null);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        assertEquals(rolledOrders, reportDAO.getTotalOrders(twoDaysAgo, today));
+        assertEquals(0, rolledCogs.compareTo(reportDAO.getTotalCostOfGoodsSold(twoDaysAgo, today)));
+    }
+
+    /**
+     * Test 3: Deleting paid orders (table / room delete) and rebuilding their day keeps the rollup identical to Orders
+     */
+    @Test
+    public void testOrdersDeleted_RebuildsDeletedDays() {
+        SalesRollup.backfill();
+        assertEquals(0, new BigDecimal("175000").compareTo(reportDAO.getTotalRevenue(twoDaysAgo, twoDaysAgo)));
+
+        // Xóa đơn 9:15 hai ngày trước như RoomTableService (đọc ngày trước khi xóa)
+        beginTransaction();
+        UUID orderId = entityManager.createQuery(
+                "SELECT o.orderId FROM Order o WHERE o.orderDate = :orderDate", UUID.class)
+                .setParameter("orderDate", twoDaysAgo.atTime(9, 15))
+                .getSingleResult();
+        entityManager.createQuery("DELETE FROM OrderDetail d WHERE d.order.orderId = :orderId")
+                .setParameter("orderId", orderId).executeUpdate();
+        entityManager.createQuery("DELETE FROM Order o WHERE o.orderId = :orderId")
+                .setParameter("orderId", orderId).executeUpdate();
+        commitTransaction();
+
+        assertEquals(List.of(twoDaysAgo), SalesRollup.ordersDeleted(List.of(twoDaysAgo, twoDaysAgo)));
+        assertTrue(SalesRollup.covers(twoDaysAgo, today));
+        assertEquals(0, new BigDecimal("40000").compareTo(reportDAO.getTotalRevenue(twoDaysAgo, twoDaysAgo)));
+        assertEquals(1L, reportDAO.getTotalOrders(twoDaysAgo, twoDaysAgo));
+        assertTrue(SalesRollup.ordersDeleted(List.of()).isEmpty());
+    }
+
+    /**
+     * Test 4: Period financials return current and previous period in one call, same numbers from Orders and rollup
+     */
+    @Test
+    public void testPeriodFinancials_CurrentAndPreviousPeriod() {
+        RevenueReportDAO.PeriodFinancials raw = reportDAO.getPeriodFinancials(today, today);
+        List<RevenueReportDAO.CategoryMargin> rawMargins = reportDAO.getCategoryMargins(twoDaysAgo, today);
+
+        assertEquals(yesterday, raw.previous().startDate());
+        assertEquals(0, new BigDecimal("215000").compareTo(raw.current().revenue()));
+        assertEquals(2, raw.current().orders());
+        assertEquals(0, new BigDecimal("90000").compareTo(raw.current().cogs()));
+        assertEquals(0, new BigDecimal("110000").compareTo(raw.previous().revenue()));
+        assertEquals(1, raw.previous().orders());
+        assertEquals(0, new BigDecimal("60000").compareTo(raw.previous().cogs()));
+        assertEquals(0, reportDAO.getPreviousPeriodCOGS(today, today).compareTo(raw.previous().cogs()));
+        assertEquals(58.14, raw.current().grossMargin(), 0.001);
+        assertEquals(0, raw.current().peakHour());
+        assertEquals(23, raw.previous().peakHour());
+
+        RevenueReportDAO.CategoryMargin bakery = rawMargins.stream()
+                .filter(m -> m.category().equals("Bakery")).findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("220000").compareTo(bakery.revenue()));
+        assertEquals(0, new BigDecimal("120000").compareTo(bakery.cogs()));
+        assertEquals(45.45, bakery.grossMargin(), 0.001);
+
+        SalesRollup.backfill();
+        assertTrue(SalesRollup.covers(yesterday, today));
+
+        RevenueReportDAO.PeriodFinancials rolled = reportDAO.getPeriodFinancials(today, today);
+        assertEquals(raw.current().orders(), rolled.current().orders());
+        assertEquals(raw.previous().orders(), rolled.previous().orders());
+        assertEquals(raw.current().peakHour(), rolled.current().peakHour());
+        assertEquals(0, raw.current().revenue().compareTo(rolled.current().revenue()));
+        assertEquals(0, raw.current().cogs().compareTo(rolled.current().cogs()));
+        assertEquals(0, raw.previous().revenue().compareTo(rolled.previous().revenue()));
+        assertEquals(0, raw.previous().cogs().compareTo(rolled.previous().cogs()));
+
+        List<RevenueReportDAO.CategoryMargin> rolledMargins = reportDAO.getCategoryMargins(twoDaysAgo, today);
+        assertEquals(rawMargins.size(), rolledMargins.size());
+        for (int i = 0; i < rawMargins.size(); i++) {
+            assertEquals(rawMargins.get(i).category(), rolledMargins.get(i).category());
+            assertEquals(0, rawMargins.get(i).revenue().compareTo(rolledMargins.get(i).revenue()));
+            assertEquals(0, rawMargins.get(i).cogs().compareTo(rolledMargins.get(i).cogs()));
+        }
+    }
+
+    /**
+     * Test 5: The report runs its metric queries in parallel and returns the same totals plus per-metric timings,
+     * a reload is served from ReportCache
+     */
+    @Test
+    public void testGenerateReport_ParallelMetricsWithTimings() {
+        JSONObject report = new RevenueReportService().generateReport(twoDaysAgo, today);
+
+        assertFalse(report.has("error"));
+        assertEquals(reportDAO.getTotalRevenue(twoDaysAgo, today).doubleValue(), report.getDouble("totalRevenue"), 0.001);
+        assertEquals(reportDAO.getTotalOrders(twoDaysAgo, today), report.getLong("totalOrders"));
+        assertEquals(reportDAO.getTotalCostOfGoodsSold(twoDaysAgo, today).doubleValue(), report.getDouble("totalCOGS"), 0.001);
+        assertEquals(reportDAO.getNewCustomers(twoDaysAgo, today), report.getLong("newCustomers"));
+        assertEquals("0:00", report.getString("peakHour"));
+        assertEquals(3, report.getJSONObject("trendData").getJSONArray("dates").length());
+
+        JSONObject timings = report.getJSONObject("timings");
+        for (String metric : new String[] {"financials", "newCustomers", "categoryMargins", "trendData", "hourlyData",
+                "weekdayData", "productData", "topProducts", "monthlyData", "totalMs"}) {
+            assertTrue(timings.has(metric), metric);
+        }
+        assertFalse(timings.has("timedOut"));
+
+        // Lần tải lại: mọi số liệu lấy từ ReportCache, trừ query lỗi (không được lưu; DATEPART không có trên H2)
+        Map<String, Object> cacheBefore = ReportCache.getMetrics();
+        JSONObject reloaded = new RevenueReportService().generateReport(twoDaysAgo, today);
+        assertEquals(report.getDouble("totalRevenue"), reloaded.getDouble("totalRevenue"), 0.001);
+        assertEquals(report.getJSONObject("trendData").toString(), reloaded.getJSONObject("trendData").toString());
+        assertEquals(report.getJSONArray("topProducts").toString(), reloaded.getJSONArray("topProducts").toString());
+        Map<String, Object> cacheAfter = ReportCache.getMetrics();
+        assertEquals((Long) cacheAfter.get("misses") - (Long) cacheBefore.get("misses"),
+                (Long) cacheAfter.get("skippedOnError") - (Long) cacheBefore.get("skippedOnError"));
+        assertTrue((Long) cacheAfter.get("closedHits") > (Long) cacheBefore.get("closedHits"));
+        assertTrue((Long) cacheAfter.get("liveHits") > (Long) cacheBefore.get("liveHits"));
+    }
+
+    private void assertRowsEqual(List<Object[]> expected, List<Object[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Object[] e = expected.get(i);
+            Object[] a = actual.get(i);
+            assertEquals(e.length, a.length);
+            for (int c = 0; c < e.length; c++) {
+                if (e[c] instanceof BigDecimal) {
+                    assertEquals(0, ((BigDecimal) e[c]).compareTo((BigDecimal) a[c]), "row " + i + " col " + c);
+                } else {
+                    assertEquals(e[c], a[c], "row " + i + " col " + c);
+                }
+            }
+        }
+    }
+
+    private ProductVariant newVariant(String name, long price, long originalPrice, Category... categories) {
+        Product product = new Product();
+        product.setProductId(UUID.randomUUID());
+        product.setName(name);
+        product.setIsDeleted(false);
+        entityManager.persist(product);
+
+        ProductVariant variant = new ProductVariant();
+        variant.setProductVariantId(UUID.randomUUID());
+        variant.setSize("Regular");
+        variant.setPrice(BigDecimal.valueOf(price));
+        variant.setOriginalPrice(BigDecimal.valueOf(originalPrice));
+        variant.setIsDeleted(false);
+        variant.setProduct(product);
+        entityManager.persist(variant);
+
+        for (Category category : categories) {
+            ProductCategory pc = new ProductCategory();
+            pc.setProductCategoryId(UUID.randomUUID());
+            pc.setProduct(product);
+            pc.setCategory(category);
+            entityManager.persist(pc);
+        }
+        return variant;
+    }
+
+    private TableSession newSession() {
+        TableSession session = new TableSession();
+        session.setSessionId(UUID.randomUUID());
+        session.setStatus("Completed");
+        entityManager.persist(session);
+        return session;
+    }
+
+    private OrderDetail detail(ProductVariant variant, int quantity) {
+        OrderDetail detail = new OrderDetail();
+        detail.setOrderDetailId(UUID.randomUUID());
+        detail.setProductVariant(variant);
+        detail.setQuantity(quantity);
+        detail.setUnitPrice(variant.getPrice());
+        detail.calculateTotalPrice();
+        return detail;
+    }
+
+    private void newOrder(TableSession session, LocalDateTime orderDate, String paymentStatus, OrderDetail... details) {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID());
+        order.setSession(session);
+        order.setOrderNumber("ORD-" + UUID.randomUUID().toString().substring(0, 8));
+        order.setOrderDate(orderDate);
+        order.setPaymentStatus(paymentStatus);
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderDetail detail : details) {
+            total = total.add(detail.getTotalPrice());
+        }
+        order.setSubTotal(total);
+        order.setTotalAmount(total);
+        entityManager.persist(order);
+        for (OrderDetail detail : details) {
+            detail.setOrder(order);
+            entityManager.persist(detail);
+        }
+    }
+}
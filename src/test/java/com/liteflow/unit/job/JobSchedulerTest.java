@@ -0,0 +1,141 @@
+package com.liteflow.unit.job;
+
+import com.liteflow.job.JobScheduler;
+import com.liteflow.model.alert.AlertConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JobScheduler
+ * Tests per-job metrics, no overlapping runs of one job and enable/cadence changes from AlertConfiguration
+ */
+public class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    @AfterEach
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown(2000);
+        }
+    }
+
+    /**
+     * Test 1: Successful and failing runs are counted per job and the last error is kept
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRun_RecordsSuccessAndFailureMetrics() throws Exception {
+        scheduler = new JobScheduler(2, 0, 1000);
+        scheduler.register("ok-job", "Always succeeds", null, 50, 0, JobScheduler.MisfirePolicy.SKIP, () -> { });
+        scheduler.register("bad-job", "Always fails", null, 50, 0, JobScheduler.MisfirePolicy.SKIP, () -> {
+            throw new IllegalStateException("boom");
+        });
+        scheduler.start();
+
+        await(() -> (Long) jobMetrics("ok-job").get("successes") >= 3);
+        await(() -> (Long) jobMetrics("bad-job").get("failures") >= 2);
+
+        Map<String, Object> ok = jobMetrics("ok-job");
+        assertEquals(0L, ok.get("failures"));
+        assertNotNull(ok.get("lastSuccessAt"));
+        assertEquals("every 50 ms", ok.get("schedule"));
+        Map<String, Object> bad = jobMetrics("bad-job");
+        assertEquals(0L, bad.get("successes"));
+        assertEquals("IllegalStateException: boom", bad.get("lastError"));
+        assertTrue((Long) bad.get("runs") >= 2);
+        assertTrue(((Map<String, Object>) scheduler.getMetrics().get("jobs")).containsKey("bad-job"));
+    }
+
+    /**
+     * Test 2: A job slower than its interval never runs twice at the same time, even when triggered manually
+     */
+    @Test
+    public void testRun_NoOverlapPerJob() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        scheduler = new JobScheduler(4, 0, 1000);
+        scheduler.register("slow-job", "Slower than its interval", null, 20, 0, JobScheduler.MisfirePolicy.SKIP, () -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+        });
+        scheduler.start();
+
+        await(() -> (Boolean) jobMetrics("slow-job").get("running"));
+        assertTrue(scheduler.runNow("slow-job"));
+        assertFalse(scheduler.runNow("missing-job"));
+        await(() -> (Long) jobMetrics("slow-job").get("runs") >= 3);
+
+        assertEquals(1, maxActive.get());
+        assertTrue((Long) jobMetrics("slow-job").get("maxDurationMs") >= 150);
+    }
+
+    /**
+     * Test 3: The bound AlertConfiguration disables the job, and its ScheduleCron replaces the default interval
+     */
+    @Test
+    public void testApplyConfigurations_EnableAndReschedule() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler = new JobScheduler(2, 0, 1000);
+        scheduler.register("config-job", "Bound to JOB_TEST", "JOB_TEST", 3_600_000, 3_600_000,
+                JobScheduler.MisfirePolicy.FIRE_NOW, runs::incrementAndGet);
+        scheduler.start(List.of(config("JOB_TEST", false, null), config("OTHER", true, "*/1 * * * * ?")));
+
+        assertEquals(false, jobMetrics("config-job").get("enabled"));
+        assertNull(jobMetrics("config-job").get("nextFireAt"));
+
+        // Bật và chạy mỗi giây theo cron Quartz
+        assertEquals(2, scheduler.applyConfigurations(List.of(config("JOB_TEST", true, "*/1 * * * * ?"))));
+        assertEquals("cron */1 * * * * ?", jobMetrics("config-job").get("schedule"));
+        await(() -> runs.get() >= 1);
+
+        // Cron 5 trường kiểu Unix (thứ Hai 18h)
+        scheduler.applyConfigurations(List.of(config("JOB_TEST", true, "0 18 * * 1")));
+        assertEquals("cron 0 0 18 ? * 2", jobMetrics("config-job").get("schedule"));
+
+        // Bước nhảy sau "/" giữ nguyên, chỉ đổi số chỉ ngày (thứ Hai, Tư, Sáu)
+        scheduler.applyConfigurations(List.of(config("JOB_TEST", true, "0 18 * * 1-5/2")));
+        assertEquals("cron 0 0 18 ? * 2-6/2", jobMetrics("config-job").get("schedule"));
+        scheduler.applyConfigurations(List.of(config("JOB_TEST", true, "0 18 * * */2")));
+        assertEquals("cron 0 0 18 ? * */2", jobMetrics("config-job").get("schedule"));
+
+        // Cron không hợp lệ hoặc không còn cấu hình: về chu kỳ mặc định
+        scheduler.applyConfigurations(List.of(config("JOB_TEST", true, "not a cron")));
+        assertEquals("every 3600000 ms", jobMetrics("config-job").get("schedule"));
+        assertEquals(0, scheduler.applyConfigurations(List.of()));
+        assertEquals(true, jobMetrics("config-job").get("enabled"));
+    }
+
+    private AlertConfiguration config(String alertType, boolean enabled, String cron) {
+        AlertConfiguration config = new AlertConfiguration();
+        config.setAlertType(alertType);
+        config.setIsEnabled(enabled);
+        config.setScheduleCron(cron);
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> jobMetrics(String name) {
+        return (Map<String, Object>) ((Map<String, Object>) scheduler.getMetrics().get("jobs")).get(name);
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,102 @@
+package com.liteflow.unit.security;
+
+import com.liteflow.security.JwtUtil;
+import com.liteflow.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtUtil
+ * Tests the prebuilt parser (kid header), revocation through TokenRevocationList and rejection of unknown keys
+ */
+public class JwtUtilTest {
+
+    /**
+     * Test 1: Issued token carries jti + kid and parses back to the same user and roles
+     */
+    @Test
+    public void testIssueAndParse() {
+        String userId = UUID.randomUUID().toString();
+        String jwt = JwtUtil.issue(userId, Map.of("email", "jwt@test.com"), List.of("Cashier"), 600);
+
+        JwtUtil.UserContext ctx = JwtUtil.parseToUserContext(jwt);
+        assertEquals(userId, ctx.userId());
+        assertEquals(List.of("Cashier"), ctx.roles());
+        assertNotNull(ctx.claims().getId(), "Token should have a jti");
+        assertNotNull(JwtUtil.parse(jwt).getHeader().getKeyId(), "Token should have a kid header");
+    }
+
+    /**
+     * Test 2: Revoked token is rejected, other tokens are still accepted
+     */
+    @Test
+    public void testRevoke_RejectsToken() {
+        String userId = UUID.randomUUID().toString();
+        String revoked = JwtUtil.issue(userId, null, List.of("Cashier"), 600);
+        String other = JwtUtil.issue(userId, null, List.of("Cashier"), 600);
+
+        JwtUtil.revoke(revoked);
+
+        assertThrows(JwtUtil.RevokedJwtException.class, () -> JwtUtil.parse(revoked));
+        assertDoesNotThrow(() -> JwtUtil.parse(other));
+        // Vẫn đọc được claims (để xóa cache / audit)
+        Claims claims = JwtUtil.readVerifiedClaims(revoked);
+        assertNotNull(claims);
+        assertEquals(userId, claims.getSubject());
+    }
+
+    /**
+     * Test 3: Revocation list survives a reload and drops expired ids on purge
+     */
+    @Test
+    public void testRevocationList_ReplaceAndPurge() {
+        long now = System.currentTimeMillis() / 1000;
+        String active = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+
+        Map<String, Long> entries = new HashMap<>();
+        entries.put(active, now + 600);
+        entries.put(expired, now - 600);
+        TokenRevocationList.replaceAll(entries);
+
+        assertTrue(TokenRevocationList.isRevoked(active));
+        assertTrue(TokenRevocationList.isRevoked(expired));
+        assertFalse(TokenRevocationList.isRevoked(UUID.randomUUID().toString()));
+
+        assertTrue(TokenRevocationList.purgeExpired() >= 1);
+        assertTrue(TokenRevocationList.isRevoked(active));
+        assertFalse(TokenRevocationList.isRevoked(expired));
+
+        TokenRevocationList.replaceAll(Collections.emptyMap());
+    }
+
+    /**
+     * Test 4: Token signed with an unknown key id is rejected
+     */
+    @Test
+    public void testParse_UnknownKeyId() {
+        String jwt = Jwts.builder()
+                .setHeaderParam("kid", "unknown-key")
+                .setSubject(UUID.randomUUID().toString())
+                .setId(UUID.randomUUID().toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 600_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-that-is-at-least-32-characters".getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> JwtUtil.parse(jwt));
+        assertNull(JwtUtil.readVerifiedClaims(jwt));
+    }
+}
@@ -0,0 +1,234 @@
+package com.liteflow.unit.security;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.model.auth.Role;
+import com.liteflow.security.PathAuthorizer;
+import com.liteflow.service.auth.RoleService;
+import com.liteflow.unit.base.UnitTestBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PathAuthorizer
+ * Compares the compiled trie with the previous per-request prefix scan and checks RolePaths reload.
+ * The microbenchmark (legacy scan vs compiled trie vs cache hit) is tagged "benchmark" and excluded from the default run
+ */
+public class PathAuthorizerTest extends UnitTestBase {
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/pos", "/POS/checkout", "/sales/report", "/cart", "/checkout/confirm", "/possible",
+            "/inventory/items", "/products/edit", "/stock", "/purchaseOrders/new", "/purchaseorders",
+            "/suppliers", "/invoices/12", "/employees", "/payroll/run", "/timesheets", "/leaveRequests/3",
+            "/dashboard", "/schedule/week", "/user/profile", "/user/timesheet", "/user/payroll", "/user/settings",
+            "/api/notices", "/api/send-notification", "/procurement", "/procurement/po/7", "/procurement/gr",
+            "/admin/metrics", "/reports", "/api/order/table/5", "/", "/x");
+
+    private static final List<List<String>> ROLE_SETS = Arrays.asList(
+            Collections.singletonList("Cashier"),
+            Collections.singletonList("Inventory Manager"),
+            Collections.singletonList("Procurement Officer"),
+            Collections.singletonList("HR Officer"),
+            Collections.singletonList("Employee"),
+            Arrays.asList("Employee", "Cashier"),
+            Collections.singletonList("Owner"),
+            Collections.singletonList("admin"),
+            Collections.singletonList("Unknown"),
+            Collections.emptyList());
+
+    private RoleService roleService;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        super.setUp();
+
+        try {
+            // Setup BaseDAO.emf via reflection to use our test EntityManagerFactory
+            Field emfField = BaseDAO.class.getDeclaredField("emf");
+            emfField.setAccessible(true);
+            emfField.set(null, entityManagerFactory);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to setup BaseDAO.emf", e);
+        }
+
+        roleService = new RoleService();
+    }
+
+    @AfterEach
+    @Override
+    public void tearDown() {
+        super.tearDown();
+        // Trả lại bộ quy tắc mặc định cho các test khác
+        PathAuthorizer.reload();
+    }
+
+    @Override
+    protected void cleanupDatabase() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            return;
+        }
+        beginTransaction();
+        entityManager.createQuery("DELETE FROM RolePath").executeUpdate();
+        entityManager.createQuery("DELETE FROM Role r WHERE r.name LIKE 'PATH-%'").executeUpdate();
+        commitTransaction();
+        entityManager.clear();
+    }
+
+    /**
+     * Test 1: Trie gives the same decision as the previous per-request prefix scan
+     */
+    @Test
+    public void testIsAuthorized_MatchesLegacyScan() {
+        for (List<String> roles : ROLE_SETS) {
+            for (String path : PATHS) {
+                // Gọi hai lần: lần đầu đi qua trie, lần sau lấy từ cache
+                assertEquals(legacyIsAuthorized(roles, path), PathAuthorizer.isAuthorized(roles, path),
+                        "roles=" + roles + ", path=" + path);
+                assertEquals(legacyIsAuthorized(roles, path), PathAuthorizer.isAuthorized(roles, path),
+                        "cached roles=" + roles + ", path=" + path);
+            }
+        }
+    }
+
+    /**
+     * Test 2: Rules added to RolePaths apply after reload and disappear when removed
+     */
+    @Test
+    public void testReload_AppliesRolePaths() {
+        Role role = new Role();
+        role.setName("PATH-Reporter");
+        persist(role);
+
+        List<String> roles = Collections.singletonList("PATH-Reporter");
+        assertFalse(PathAuthorizer.isAuthorized(roles, "/reports/daily"));
+
+        assertTrue(roleService.addRolePath(role.getRoleID(), "/Reports"));
+        assertFalse(roleService.addRolePath(role.getRoleID(), "/Reports"), "Duplicate rule should be rejected");
+        assertTrue(PathAuthorizer.isAuthorized(roles, "/reports/daily"));
+        assertFalse(PathAuthorizer.isAuthorized(roles, "/pos"));
+        // Quyền mặc định vẫn giữ sau khi nạp từ DB
+        assertTrue(PathAuthorizer.isAuthorized(Collections.singletonList("Cashier"), "/pos"));
+
+        assertTrue(roleService.removeRolePath(role.getRoleID(), "/Reports"));
+        assertFalse(PathAuthorizer.isAuthorized(roles, "/reports/daily"));
+    }
+
+    /**
+     * Benchmark: ns/op của cách quét tiền tố cũ, trie đã biên dịch (path chưa có trong cache) và cache hit.
+     * Chỉ in số liệu, không so sánh thời gian; không chạy mặc định (xem test.excludedGroups trong pom.xml)
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmarkIsAuthorized() {
+        List<String> roles = Arrays.asList("Employee", "Cashier");
+        int iterations = 20_000;
+        long calls = (long) iterations * PATHS.size();
+
+        // Mỗi lượt một bộ path mới để trie luôn phải đi lại (không trùng cache)
+        List<List<String>> freshPaths = new ArrayList<>(iterations);
+        for (int i = 0; i < iterations; i++) {
+            List<String> batch = new ArrayList<>(PATHS.size());
+            for (String path : PATHS) {
+                batch.add(path + "/" + i);
+            }
+            freshPaths.add(batch);
+        }
+
+        // Warm-up cho JIT
+        long sink = run(roles, iterations, true) + run(roles, iterations, false) + runFresh(roles, freshPaths);
+        PathAuthorizer.reload();
+
+        long start = System.nanoTime();
+        sink += run(roles, iterations, true);
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        sink += runFresh(roles, freshPaths);
+        long trieNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        sink += run(roles, iterations, false);
+        long cachedNanos = System.nanoTime() - start;
+
+        System.out.printf("📊 PathAuthorizer (%d calls): legacy scan %.1f ns/op, compiled trie (cache miss) %.1f ns/op, cache hit %.1f ns/op (sink=%d)%n",
+                calls, (double) legacyNanos / calls, (double) trieNanos / calls, (double) cachedNanos / calls, sink);
+        assertTrue(sink > 0);
+    }
+
+    private long runFresh(List<String> roles, List<List<String>> freshPaths) {
+        long allowed = 0;
+        for (List<String> batch : freshPaths) {
+            for (String path : batch) {
+                if (PathAuthorizer.isAuthorized(roles, path)) {
+                    allowed++;
+                }
+            }
+        }
+        return allowed;
+    }
+
+    private long run(List<String> roles, int iterations, boolean legacy) {
+        long allowed = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String path : PATHS) {
+                boolean ok = legacy ? legacyIsAuthorized(roles, path) : PathAuthorizer.isAuthorized(roles, path);
+                if (ok) {
+                    allowed++;
+                }
+            }
+        }
+        return allowed;
+    }
+
+    // ========== Cách kiểm tra trước đây của AuthenticationFilter (để so sánh) ==========
+
+    private static final Map<String, Set<String>> LEGACY_FUNCTIONS = new HashMap<>();
+
+    static {
+        LEGACY_FUNCTIONS.put("Cashier", new HashSet<>(Arrays.asList("/pos", "/sales", "/cart", "/checkout")));
+        LEGACY_FUNCTIONS.put("Inventory Manager", new HashSet<>(Arrays.asList("/inventory", "/products", "/stock", "/purchaseOrders")));
+        LEGACY_FUNCTIONS.put("Procurement Officer", new HashSet<>(Arrays.asList("/purchaseOrders", "/suppliers", "/invoices")));
+        LEGACY_FUNCTIONS.put("HR Officer", new HashSet<>(Arrays.asList("/employees", "/payroll", "/timesheets", "/leaveRequests")));
+        LEGACY_FUNCTIONS.put("Employee", new HashSet<>(Arrays.asList(
+                "/dashboard", "/schedule", "/user/profile", "/user/timesheet", "/user/payroll", "/api/notices")));
+        LEGACY_FUNCTIONS.put("Admin", new HashSet<>(Arrays.asList("/*", "/api/send-notification", "/api/notices")));
+        Set<String> procurementPaths = new HashSet<>(Arrays.asList(
+                "/procurement", "/procurement/dashboard", "/procurement/supplier", "/procurement/po", "/procurement/gr"));
+        for (String role : Arrays.asList("Procurement Officer", "Inventory Manager", "Owner", "Admin")) {
+            Set<String> funcs = new HashSet<>(LEGACY_FUNCTIONS.getOrDefault(role, Collections.emptySet()));
+            funcs.addAll(procurementPaths);
+            LEGACY_FUNCTIONS.put(role, funcs);
+        }
+    }
+
+    private static boolean legacyIsAuthorized(List<String> roles, String path) {
+        if (roles == null || roles.isEmpty()) {
+            return false;
+        }
+        if (roles.stream().anyMatch(r -> r.equalsIgnoreCase("owner") || r.equalsIgnoreCase("admin"))) {
+            return true;
+        }
+        String lowerPath = path.toLowerCase();
+        for (String role : roles) {
+            Set<String> funcs = LEGACY_FUNCTIONS.getOrDefault(role, Collections.emptySet());
+            if (funcs.stream().anyMatch(f -> lowerPath.startsWith(f.toLowerCase()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,125 @@
+package com.liteflow.unit.service.alert;
+
+import com.liteflow.service.alert.AlertCoalescer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AlertCoalescer
+ * Tests merging a burst into one digest, suppression inside the dedup window and the pass-through when stopped
+ */
+public class AlertCoalescerTest {
+
+    private record Emitted(String alertType, String title, String message, JSONObject context, String priority) {
+    }
+
+    private final List<Emitted> emitted = new CopyOnWriteArrayList<>();
+
+    private AlertCoalescer newCoalescer(long delayMillis, long windowMillis) {
+        AlertCoalescer coalescer = new AlertCoalescer(
+                (type, title, message, context, priority) -> emitted.add(new Emitted(type, title, message, context, priority)),
+                delayMillis, windowMillis);
+        coalescer.start();
+        return coalescer;
+    }
+
+    /**
+     * Test 1: A burst of alerts of one type is emitted as a single digest with the highest priority
+     */
+    @Test
+    public void testOffer_BurstMergedIntoDigest() throws Exception {
+        AlertCoalescer coalescer = newCoalescer(100, 60_000);
+
+        assertTrue(offerLowStock(coalescer, "v1", "Cà phê", 5, "MEDIUM"));
+        assertTrue(offerLowStock(coalescer, "v2", "Trà đào", 3, "CRITICAL"));
+        assertTrue(offerLowStock(coalescer, "v3", "Bạc xỉu", 8, "MEDIUM"));
+        // Cùng variant trong đợt: giữ bản mới nhất
+        assertTrue(offerLowStock(coalescer, "v1", "Cà phê", 4, "MEDIUM"));
+
+        awaitEmitted(1);
+        Emitted digest = emitted.get(0);
+        assertEquals("LOW_INVENTORY", digest.alertType());
+        assertEquals("📦 Cảnh báo tồn kho thấp (3 mục)", digest.title());
+        assertEquals("CRITICAL", digest.priority());
+        assertTrue(digest.message().contains("**Cà phê**: còn 4 (+1 lần)"));
+        assertTrue(digest.message().contains("**Trà đào**: còn 3"));
+        assertEquals(3, digest.context().getInt("count"));
+        assertEquals(1, digest.context().getInt("suppressed"));
+
+        Map<String, Object> metrics = coalescer.getMetrics();
+        assertEquals(4L, metrics.get("offered"));
+        assertEquals(1L, metrics.get("merged"));
+        assertEquals(1L, metrics.get("digests"));
+        coalescer.shutdown();
+    }
+
+    /**
+     * Test 2: The same entity is suppressed inside the dedup window and the count is reported with the next alert
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOffer_SuppressedInsideWindow() throws Exception {
+        AlertCoalescer coalescer = newCoalescer(0, 300);
+
+        offerOverdue(coalescer, "PO-1");
+        assertEquals(1, emitted.size(), "Zero delay emits immediately");
+        offerOverdue(coalescer, "PO-1");
+        offerOverdue(coalescer, "PO-1");
+        assertEquals(1, emitted.size());
+        assertEquals(2L, coalescer.getMetrics().get("suppressed"));
+        assertEquals(2L, ((Map<String, Long>) coalescer.getMetrics().get("suppressedByType")).get("PO_OVERDUE"));
+
+        // Entity khác không bị ảnh hưởng
+        offerOverdue(coalescer, "PO-2");
+        assertEquals(2, emitted.size());
+
+        Thread.sleep(350);
+        offerOverdue(coalescer, "PO-1");
+        assertEquals(3, emitted.size());
+        Emitted reminder = emitted.get(2);
+        assertEquals("⏰ Đơn đặt hàng quá hạn giao", reminder.title());
+        assertTrue(reminder.message().endsWith("🔕 Đã gộp 2 cảnh báo trùng"));
+        coalescer.shutdown();
+    }
+
+    /**
+     * Test 3: Pending batches are flushed on shutdown and a stopped coalescer hands alerts back to the caller
+     */
+    @Test
+    public void testShutdown_FlushesAndStopsAccepting() {
+        AlertCoalescer coalescer = newCoalescer(60_000, 60_000);
+        offerLowStock(coalescer, "v1", "Cà phê", 5, "MEDIUM");
+        assertTrue(emitted.isEmpty());
+
+        coalescer.shutdown();
+
+        assertEquals(1, emitted.size());
+        assertFalse(offerLowStock(coalescer, "v9", "Sinh tố", 1, "MEDIUM"));
+    }
+
+    private boolean offerLowStock(AlertCoalescer coalescer, String variantId, String productName, int stock, String priority) {
+        return coalescer.offer("LOW_INVENTORY", variantId, "**" + productName + "**: còn " + stock,
+                "📦 Cảnh báo tồn kho thấp", "Sản phẩm " + productName + " sắp hết hàng!",
+                new JSONObject().put("productName", productName).put("currentStock", stock), priority);
+    }
+
+    private void offerOverdue(AlertCoalescer coalescer, String poId) {
+        assertTrue(coalescer.offer("PO_OVERDUE", poId, "**" + poId + "**: quá hạn 2 ngày",
+                "⏰ Đơn đặt hàng quá hạn giao", "Đơn đặt hàng " + poId + " đã quá hạn giao 2 ngày!",
+                new JSONObject().put("poId", poId), "HIGH"));
+    }
+
+    private void awaitEmitted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (emitted.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, emitted.size());
+    }
+}
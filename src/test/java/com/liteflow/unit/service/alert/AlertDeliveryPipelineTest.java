@@ -0,0 +1,208 @@
+package com.liteflow.unit.service.alert;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.alert.AlertHistoryDAO;
+import com.liteflow.model.alert.AlertConfiguration;
+import com.liteflow.model.alert.AlertHistory;
+import com.liteflow.service.alert.AlertDeliveryPipeline;
+import com.liteflow.service.alert.AlertDeliveryPipeline.Channel;
+import com.liteflow.unit.base.UnitTestBase;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AlertDeliveryPipeline
+ * Tests per-channel retry with backoff, dead letter, per-channel progress, the optional GPT stage and the inline fallback
+ */
+public class AlertDeliveryPipelineTest extends UnitTestBase {
+
+    private final AlertHistoryDAO alertHistoryDAO = new AlertHistoryDAO();
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        super.setUp();
+
+        try {
+            // Setup BaseDAO.emf via reflection to use our test EntityManagerFactory
+            Field emfField = BaseDAO.class.getDeclaredField("emf");
+            emfField.setAccessible(true);
+            emfField.set(null, entityManagerFactory);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to setup AlertDeliveryPipelineTest", e);
+        }
+    }
+
+    @Override
+    protected void cleanupDatabase() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            return;
+        }
+        beginTransaction();
+        entityManager.createQuery("DELETE FROM AlertHistory ah WHERE ah.alertType LIKE 'TEST_%'").executeUpdate();
+        commitTransaction();
+    }
+
+    /**
+     * Test 1: A failing channel is retried until it succeeds while a channel that never succeeds is dead-lettered
+     */
+    @Test
+    public void testSubmit_RetriesThenDeadLettersFailingChannel() throws Exception {
+        AtomicInteger slackCalls = new AtomicInteger();
+        AtomicInteger telegramCalls = new AtomicInteger();
+        AlertDeliveryPipeline pipeline = new AlertDeliveryPipeline((channel, title, message, priority) -> {
+            if (channel == Channel.SLACK) {
+                // Lần đầu lỗi, lần hai thành công
+                return slackCalls.incrementAndGet() >= 2;
+            }
+            telegramCalls.incrementAndGet();
+            throw new IllegalStateException("webhook timeout");
+        }, null, 2, 100, 3, 10, 50);
+        pipeline.start();
+
+        AlertHistory alert = saveAlert("TEST_RETRY");
+        assertTrue(pipeline.submit(AlertDeliveryPipeline.Delivery.of(alert, config(true, true, false), null, true)));
+
+        AlertHistory delivered = awaitDelivered(alert);
+        pipeline.shutdown(5000);
+
+        assertEquals("PARTIAL", delivered.getDeliveryStatus());
+        assertTrue(delivered.getSentToSlack());
+        assertFalse(delivered.getSentToTelegram());
+        assertNotNull(delivered.getSentAt());
+        assertTrue(delivered.getErrorMessage().contains("TELEGRAM"));
+        assertTrue(delivered.getErrorMessage().contains("webhook timeout"));
+        assertEquals(2, slackCalls.get());
+        assertEquals(3, telegramCalls.get(), "Telegram should be tried LITEFLOW_ALERT_MAX_ATTEMPTS times");
+
+        Map<String, Object> metrics = pipeline.getMetrics();
+        assertEquals(1L, metrics.get("partial"));
+        assertEquals(3L, metrics.get("retries"));
+        assertEquals(0L, metrics.get("inFlight"));
+    }
+
+    /**
+     * Test 2: The GPT stage runs before delivery and the enriched message is stored and sent
+     */
+    @Test
+    public void testSubmit_EnrichesBeforeDelivery() throws Exception {
+        StringBuilder sentMessage = new StringBuilder();
+        AlertDeliveryPipeline pipeline = new AlertDeliveryPipeline((channel, title, message, priority) -> {
+            sentMessage.append(message);
+            return true;
+        }, (alertType, context) -> "Tồn kho thấp: " + context.getString("product"), 1, 100, 3, 10, 50);
+        pipeline.start();
+
+        AlertHistory alert = saveAlert("TEST_GPT");
+        JSONObject context = new JSONObject().put("product", "Cà phê sữa");
+        pipeline.submit(AlertDeliveryPipeline.Delivery.of(alert, config(true, false, true), context, true));
+
+        AlertHistory delivered = awaitDelivered(alert);
+        pipeline.shutdown(5000);
+
+        assertEquals("SENT", delivered.getDeliveryStatus());
+        assertEquals("Tồn kho thấp: Cà phê sữa", delivered.getGptSummary());
+        assertTrue(delivered.getMessage().endsWith("📊 AI Analysis:\nTồn kho thấp: Cà phê sữa"));
+        assertEquals(delivered.getMessage(), sentMessage.toString());
+        assertEquals(1L, pipeline.getMetrics().get("enriched"));
+    }
+
+    /**
+     * Test 3: Without a running pipeline each channel is tried once on the caller thread
+     */
+    @Test
+    public void testDeliverInline_AllChannelsFail() {
+        AlertHistory alert = saveAlert("TEST_INLINE");
+        AtomicInteger calls = new AtomicInteger();
+        AlertDeliveryPipeline.deliverInline(AlertDeliveryPipeline.Delivery.of(alert, config(true, true, false), null, false),
+                (channel, title, message, priority) -> {
+                    calls.incrementAndGet();
+                    return false;
+                }, null, alertHistoryDAO);
+
+        entityManager.clear();
+        AlertHistory delivered = entityManager.find(AlertHistory.class, alert.getHistoryID());
+        assertEquals("DEAD_LETTER", delivered.getDeliveryStatus());
+        assertEquals(2, calls.get());
+        // In-app vẫn hiển thị
+        assertTrue(delivered.getSentInApp());
+
+        // Pipeline chưa chạy: AlertService gửi trực tiếp
+        AlertDeliveryPipeline stopped = new AlertDeliveryPipeline((c, t, m, p) -> true, null, 1, 10, 1, 0, 0);
+        assertFalse(stopped.submit(AlertDeliveryPipeline.Delivery.of(alert, null, null, false)));
+    }
+
+    /**
+     * Test 4: A channel that succeeds is persisted right away, before the other channel finishes
+     */
+    @Test
+    public void testSubmit_PersistsChannelSuccessBeforeCompletion() throws Exception {
+        CountDownLatch telegramGate = new CountDownLatch(1);
+        AlertDeliveryPipeline pipeline = new AlertDeliveryPipeline((channel, title, message, priority) -> {
+            if (channel == Channel.TELEGRAM) {
+                telegramGate.await(5, TimeUnit.SECONDS);
+            }
+            return true;
+        }, null, 1, 100, 1, 10, 50);
+        pipeline.start();
+
+        AlertHistory alert = saveAlert("TEST_PARTIAL_PROGRESS");
+        assertTrue(pipeline.submit(AlertDeliveryPipeline.Delivery.of(alert, config(true, true, false), null, false)));
+
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            AlertHistory inFlight = alertHistoryDAO.getById(alert.getHistoryID());
+            while (!Boolean.TRUE.equals(inFlight.getSentToSlack()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                inFlight = alertHistoryDAO.getById(alert.getHistoryID());
+            }
+            assertTrue(inFlight.getSentToSlack(), "Slack success should be stored while Telegram is still sending");
+            assertEquals("PENDING", inFlight.getDeliveryStatus());
+        } finally {
+            telegramGate.countDown();
+        }
+
+        AlertHistory delivered = awaitDelivered(alert);
+        pipeline.shutdown(5000);
+        assertEquals("SENT", delivered.getDeliveryStatus());
+        assertTrue(delivered.getSentToTelegram());
+    }
+
+    private AlertHistory saveAlert(String alertType) {
+        AlertHistory alert = new AlertHistory(alertType, "Test alert", "Nội dung cảnh báo");
+        alert.setDeliveryStatus("PENDING");
+        alert.setSentInApp(true);
+        assertTrue(alertHistoryDAO.insert(alert));
+        return alert;
+    }
+
+    private AlertConfiguration config(boolean slack, boolean telegram, boolean gpt) {
+        AlertConfiguration config = new AlertConfiguration("TEST", "Test");
+        config.setNotifySlack(slack);
+        config.setNotifyTelegram(telegram);
+        config.setUseGPTSummary(gpt);
+        return config;
+    }
+
+    private AlertHistory awaitDelivered(AlertHistory alert) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            AlertHistory current = alertHistoryDAO.getById(alert.getHistoryID());
+            if (!"PENDING".equals(current.getDeliveryStatus())) {
+                return current;
+            }
+            Thread.sleep(20);
+        }
+        fail("Alert was not delivered within 5s");
+        return null;
+    }
+}
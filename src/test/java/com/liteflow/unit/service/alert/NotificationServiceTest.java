@@ -0,0 +1,164 @@
+package com.liteflow.unit.service.alert;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.alert.NotificationChannelDAO;
+import com.liteflow.model.alert.NotificationChannel;
+import com.liteflow.service.alert.ChannelUsageTracker;
+import com.liteflow.service.alert.NotificationService;
+import com.liteflow.unit.base.UnitTestBase;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NotificationService
+ * Tests parallel fan-out over the shared HTTP client, the in-memory rate limit and periodic usage flush
+ */
+public class NotificationServiceTest extends UnitTestBase {
+
+    private static final long WEBHOOK_DELAY_MS = 400;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int responseCode = 200;
+    private NotificationService notificationService;
+    private NotificationChannelDAO channelDAO;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        super.setUp();
+
+        try {
+            // Setup BaseDAO.emf via reflection to use our test EntityManagerFactory
+            Field emfField = BaseDAO.class.getDeclaredField("emf");
+            emfField.setAccessible(true);
+            emfField.set(null, entityManagerFactory);
+
+            // Slack webhook giả: chậm WEBHOOK_DELAY_MS mỗi request
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.createContext("/hook", exchange -> {
+                requests.incrementAndGet();
+                try {
+                    Thread.sleep(WEBHOOK_DELAY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = "ok".getBytes();
+                exchange.sendResponseHeaders(responseCode, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to setup NotificationServiceTest", e);
+        }
+        ChannelUsageTracker.reset();
+        notificationService = new NotificationService();
+        channelDAO = new NotificationChannelDAO();
+    }
+
+    @AfterEach
+    @Override
+    public void tearDown() {
+        ChannelUsageTracker.shutdown();
+        server.stop(0);
+        super.tearDown();
+    }
+
+    @Override
+    protected void cleanupDatabase() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            return;
+        }
+        beginTransaction();
+        entityManager.createQuery("DELETE FROM NotificationChannel c WHERE c.name LIKE 'TEST_%'").executeUpdate();
+        commitTransaction();
+    }
+
+    /**
+     * Test 1: All active channels are sent in parallel and usage is written only when flushed
+     */
+    @Test
+    public void testSendToAllChannels_ParallelAndFlushesUsage() {
+        NotificationChannel first = saveSlackChannel("TEST_SLACK_1", 100);
+        NotificationChannel second = saveSlackChannel("TEST_SLACK_2", 100);
+        NotificationChannel third = saveSlackChannel("TEST_SLACK_3", 100);
+        ChannelUsageTracker.start();
+
+        long start = System.currentTimeMillis();
+        assertTrue(notificationService.sendToAllChannels("Test", "Fan-out", "LOW"));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(3, requests.get());
+        assertTrue(elapsed < WEBHOOK_DELAY_MS * 3, "Channels should be sent in parallel, took " + elapsed + " ms");
+
+        // Chưa flush: DB chưa đổi
+        assertEquals(0, reload(first).getCurrentHourRequests());
+
+        assertTrue(notificationService.sendToChannel(first, "Test", "Again", "LOW"));
+        assertEquals(3, ChannelUsageTracker.flush());
+        assertEquals(2, reload(first).getCurrentHourRequests());
+        assertEquals(1, reload(second).getCurrentHourRequests());
+        assertNotNull(reload(third).getLastUsed());
+        assertEquals(0, ChannelUsageTracker.flush(), "Nothing left to flush");
+    }
+
+    /**
+     * Test 2: The token bucket rejects sends over MaxRequestsPerHour without calling the webhook
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendToChannel_RateLimitedInMemory() {
+        NotificationChannel channel = saveSlackChannel("TEST_LIMITED", 2);
+
+        assertTrue(notificationService.sendToChannel(channel, "Test", "1", "LOW"));
+        assertTrue(notificationService.sendToChannel(channel, "Test", "2", "LOW"));
+        assertFalse(notificationService.sendToChannel(channel, "Test", "3", "LOW"));
+
+        assertEquals(2, requests.get());
+        Map<String, Object> channels = (Map<String, Object>) ChannelUsageTracker.getMetrics().get("channels");
+        Map<String, Object> limited = (Map<String, Object>) channels.get("TEST_LIMITED");
+        assertEquals(2L, limited.get("sent"));
+        assertEquals(1L, limited.get("rateLimited"));
+        // Chưa start(): usage vẫn ghi trực tiếp
+        assertEquals("Rate limit exceeded", reload(channel).getLastError());
+    }
+
+    /**
+     * Test 3: A non-200 webhook response counts as a failure and is kept as the channel's last error
+     */
+    @Test
+    public void testSendToChannel_ErrorResponseRecorded() {
+        NotificationChannel channel = saveSlackChannel("TEST_ERROR", 100);
+        responseCode = 500;
+
+        assertFalse(notificationService.sendToChannel(channel, "Test", "Boom", "HIGH"));
+
+        NotificationChannel stored = reload(channel);
+        assertEquals("Slack returned: 500", stored.getLastError());
+        assertEquals(0, stored.getCurrentHourRequests());
+    }
+
+    private NotificationChannel saveSlackChannel(String name, int maxPerHour) {
+        NotificationChannel channel = new NotificationChannel("SLACK", name);
+        channel.setSlackWebhookURL("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+        channel.setMaxRequestsPerHour(maxPerHour);
+        assertTrue(channelDAO.insert(channel));
+        return channel;
+    }
+
+    private NotificationChannel reload(NotificationChannel channel) {
+        return channelDAO.getById(channel.getChannelID());
+    }
+}
@@ -0,0 +1,128 @@
+package com.liteflow.unit.service.auth;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.model.auth.AuditLog;
+import com.liteflow.service.auth.AuditLogWriter;
+import com.liteflow.unit.base.UnitTestBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditLogWriter
+ * Tests batched asynchronous inserts, flush on shutdown and replay of the spill file
+ */
+public class AuditLogWriterTest extends UnitTestBase {
+
+    private Path spillFile;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        super.setUp();
+
+        try {
+            // Setup BaseDAO.emf via reflection to use our test EntityManagerFactory
+            Field emfField = BaseDAO.class.getDeclaredField("emf");
+            emfField.setAccessible(true);
+            emfField.set(null, entityManagerFactory);
+            spillFile = Files.createTempFile("audit-spill", ".jsonl");
+            Files.delete(spillFile);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to setup AuditLogWriterTest", e);
+        }
+    }
+
+    @AfterEach
+    @Override
+    public void tearDown() {
+        super.tearDown();
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (Exception ignore) {
+        }
+    }
+
+    @Override
+    protected void cleanupDatabase() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            return;
+        }
+        beginTransaction();
+        entityManager.createQuery("DELETE FROM AuditLog a WHERE a.action LIKE 'TEST_%'").executeUpdate();
+        commitTransaction();
+    }
+
+    /**
+     * Test 1: Submitted events are written in batches and the queue is flushed on shutdown
+     */
+    @Test
+    public void testSubmit_WritesInBatchesAndFlushesOnShutdown() {
+        AuditLogWriter writer = new AuditLogWriter(1000, 10, 50, AuditLogWriter.OverflowPolicy.SPILL, 0, spillFile);
+        writer.start();
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(writer.submit(newLog("TEST_BATCH", "event-" + i)));
+        }
+        writer.shutdown(5000);
+
+        assertEquals(25L, countByAction("TEST_BATCH"));
+        Map<String, Object> metrics = writer.getMetrics();
+        assertEquals(25L, metrics.get("written"));
+        assertEquals(0, metrics.get("queueDepth"));
+        assertTrue((Long) metrics.get("batches") >= 3, "25 events with batch size 10 need at least 3 inserts");
+        assertFalse(Files.exists(spillFile), "Nothing should be spilled when the database is available");
+
+        // Writer đã dừng: AuditService tự ghi trực tiếp
+        assertFalse(writer.submit(newLog("TEST_BATCH", "late")));
+    }
+
+    /**
+     * Test 2: Events left in the spill file are inserted on replay and the file is removed
+     */
+    @Test
+    public void testReplaySpillFile() throws Exception {
+        long createdAt = System.currentTimeMillis() - 60_000;
+        Files.write(spillFile, Arrays.asList(
+                "{\"userId\":null,\"action\":\"TEST_SPILL\",\"objectType\":\"OTHER\",\"objectId\":\"/pos\","
+                + "\"details\":\"Access denied: /pos\",\"ip\":\"127.0.0.1\",\"createdAt\":" + createdAt + "}",
+                "{\"action\":\"TEST_SPILL\",\"objectType\":\"USER\",\"details\":\"Login failed\",\"createdAt\":" + createdAt + "}"),
+                StandardCharsets.UTF_8);
+
+        AuditLogWriter writer = new AuditLogWriter(100, 10, 50, AuditLogWriter.OverflowPolicy.SPILL, 0, spillFile);
+        assertEquals(2, writer.replaySpillFile());
+
+        assertEquals(2L, countByAction("TEST_SPILL"));
+        assertFalse(Files.exists(spillFile));
+        AuditLog replayed = entityManager.createQuery(
+                "SELECT a FROM AuditLog a WHERE a.action = 'TEST_SPILL' AND a.objectID = '/pos'", AuditLog.class)
+                .getSingleResult();
+        // Giữ thời điểm phát sinh sự kiện
+        assertEquals(createdAt, replayed.getCreatedAt().getTime());
+    }
+
+    private AuditLog newLog(String action, String details) {
+        AuditLog log = new AuditLog();
+        log.setAction(action);
+        log.setObjectType("OTHER");
+        log.setDetails(details);
+        log.setIpAddress("127.0.0.1");
+        return log;
+    }
+
+    private long countByAction(String action) {
+        entityManager.clear();
+        return entityManager.createQuery("SELECT COUNT(a) FROM AuditLog a WHERE a.action = :a", Long.class)
+                .setParameter("a", action)
+                .getSingleResult();
+    }
+}
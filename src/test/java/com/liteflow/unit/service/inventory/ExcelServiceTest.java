@@ -0,0 +1,317 @@
+package com.liteflow.unit.service.inventory;
+
+import com.liteflow.dao.BaseDAO;
+import com.liteflow.model.inventory.Room;
+import com.liteflow.model.inventory.Table;
+import com.liteflow.service.inventory.ExcelService;
+import com.liteflow.service.inventory.RoomTableService;
+import com.liteflow.unit.base.UnitTestBase;
+import com.liteflow.utils.TestDataBuilder;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExcelService
+ * Tests the streaming export, the event-model .xlsx import (row validation, duplicates, row numbers in errors),
+ * the .xls fallback, dry runs and batched room resolution across chunks
+ */
+public class ExcelServiceTest extends UnitTestBase {
+
+    private ExcelService excelService;
+    private RoomTableService roomTableService;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        super.setUp();
+
+        try {
+            // Setup BaseDAO.emf via reflection to use our test EntityManagerFactory
+            Field emfField = BaseDAO.class.getDeclaredField("emf");
+            emfField.setAccessible(true);
+            emfField.set(null, entityManagerFactory);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to setup BaseDAO.emf", e);
+        }
+
+        excelService = new ExcelService();
+        roomTableService = new RoomTableService();
+        seedTestData();
+    }
+
+    @AfterEach
+    @Override
+    public void tearDown() {
+        super.tearDown();
+    }
+
+    @Override
+    protected void cleanupDatabase() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            return;
+        }
+
+        try {
+            boolean transactionActive = entityManager.getTransaction().isActive();
+            if (!transactionActive) {
+                entityManager.getTransaction().begin();
+            }
+
+            // Delete in correct order to respect foreign key constraints
+            entityManager.createQuery("DELETE FROM OrderDetail").executeUpdate();
+            entityManager.createQuery("DELETE FROM Order").executeUpdate();
+            entityManager.createQuery("DELETE FROM TableSession").executeUpdate();
+            entityManager.createQuery("DELETE FROM Table").executeUpdate();
+            entityManager.createQuery("DELETE FROM Room").executeUpdate();
+
+            if (!transactionActive) {
+                entityManager.getTransaction().commit();
+            }
+            entityManager.clear();
+        } catch (Exception e) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            System.err.println("Error cleaning up database: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void seedTestData() {
+        cleanupDatabase();
+
+        beginTransaction();
+        try {
+            Room room = TestDataBuilder.createTestRoom()
+                    .withName("VIP Room")
+                    .withDescription("VIP room for special guests")
+                    .withTableCount(10)
+                    .withTotalCapacity(40)
+                    .build();
+            entityManager.persist(room);
+
+            Table table = TestDataBuilder.createTestTable()
+                    .withTableNumber("V001")
+                    .withTableName("VIP Table 1")
+                    .withRoom(room)
+                    .withCapacity(4)
+                    .withStatus("Available")
+                    .build();
+            table.setTableId(null);
+            entityManager.persist(table);
+
+            commitTransaction();
+        } catch (Exception e) {
+            rollbackTransaction();
+            throw new RuntimeException("Failed to seed test data", e);
+        }
+    }
+
+    /**
+     * Build an upload file: Rooms rows then Tables rows, header row first
+     */
+    private byte[] workbookBytes(Workbook workbook, Object[][] rooms, Object[][] tables) throws IOException {
+        try (workbook; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            writeSheet(workbook.createSheet("Rooms"), rooms);
+            writeSheet(workbook.createSheet("Tables"), tables);
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private void writeSheet(Sheet sheet, Object[][] rows) {
+        sheet.createRow(0).createCell(0).setCellValue("header");
+        for (int i = 0; i < rows.length; i++) {
+            Row row = sheet.createRow(i + 1);
+            for (int c = 0; c < rows[i].length; c++) {
+                Object value = rows[i][c];
+                if (value instanceof Number) {
+                    row.createCell(c).setCellValue(((Number) value).doubleValue());
+                } else if (value != null) {
+                    row.createCell(c).setCellValue(value.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test 1: Export streams a workbook with the rooms and tables from the database
+     */
+    @Test
+    public void testExportToExcel_StreamsRoomsAndTables() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        excelService.exportToExcel(out);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet rooms = workbook.getSheet("Rooms");
+            Sheet tables = workbook.getSheet("Tables");
+            assertNotNull(rooms);
+            assertNotNull(tables);
+            assertEquals(1, rooms.getLastRowNum());
+            assertEquals("VIP Room", rooms.getRow(1).getCell(0).getStringCellValue());
+            assertEquals(10, (int) rooms.getRow(1).getCell(2).getNumericCellValue());
+            assertEquals("V001", tables.getRow(1).getCell(0).getStringCellValue());
+            assertEquals("VIP Room", tables.getRow(1).getCell(2).getStringCellValue());
+        }
+    }
+
+    /**
+     * Test 2: .xlsx import validates each row, skips blank rows and reports errors with the Excel row number
+     */
+    @Test
+    public void testImportXlsx_ValidRowsPersistedAndErrorsReported() throws Exception {
+        byte[] file = workbookBytes(new XSSFWorkbook(),
+                new Object[][] {
+                    {"Garden", "Outdoor", 5, 20},
+                    {"Bar", null, "8", "32"},
+                    {},
+                    {"Broken", "Bad count", "abc", 10}
+                },
+                new Object[][] {
+                    {"G01", "Garden 1", "Garden", 4},
+                    {"B01", "Bar 1", "Bar", 2},
+                    {"X01", "Too big", "Bar", 50}
+                });
+
+        Map<String, Object> result = excelService.importFromExcel(
+                new ByteArrayInputStream(file), "rooms.xlsx", true, true, false, false, "test-import");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> rooms = (Map<String, Object>) result.get("rooms");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> tables = (Map<String, Object>) result.get("tables");
+        assertEquals(2, rooms.get("success"));
+        assertEquals(1, rooms.get("error"));
+        assertTrue(((List<?>) rooms.get("errors")).get(0).toString().startsWith("Lỗi dòng 5:"));
+        assertEquals(2, tables.get("success"));
+        assertEquals(1, tables.get("error"));
+        assertEquals(false, result.get("success"));
+
+        Room bar = roomTableService.getRoomByName("Bar");
+        assertNotNull(bar);
+        assertEquals(8, bar.getTableCount());
+        Table garden = roomTableService.getTableByNumber("G01");
+        assertNotNull(garden);
+        assertEquals("Garden", garden.getRoom().getName());
+        assertNull(ExcelService.getImportProgress("test-import"), "Progress is dropped once the import finishes");
+    }
+
+    /**
+     * Test 3: Re-importing an exported file with skipDuplicates adds nothing
+     */
+    @Test
+    public void testImportExportedFile_SkipDuplicates() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        excelService.exportToExcel(out);
+
+        Map<String, Object> result = excelService.importFromExcel(
+                new ByteArrayInputStream(out.toByteArray()), "export.xlsx", true, true, false);
+
+        assertEquals(true, result.get("success"));
+        assertEquals("Nhập thành công 0 bản ghi, 0 lỗi", result.get("message"));
+        assertEquals(1, roomTableService.getAllRooms().size());
+        assertEquals(1, roomTableService.getAllTables().size());
+    }
+
+    /**
+     * Test 4: Check and import of a legacy .xls file use the same row rules
+     */
+    @Test
+    public void testCheckAndImportXls() throws Exception {
+        byte[] file = workbookBytes(new HSSFWorkbook(),
+                new Object[][] {{"Terrace", "Roof", 6, 24}, {"VIP Room", "Duplicate", 5, 20}},
+                new Object[][] {{"T01", "Terrace 1", "Terrace", 4}});
+
+        Map<String, Object> check = excelService.checkExcelFile(
+                new ByteArrayInputStream(file), "legacy.xls", false, true, false);
+        assertEquals(true, check.get("success"));
+        assertEquals(1, check.get("totalRooms"));
+        assertEquals(List.of("Rooms - Lỗi dòng 3: Phòng 'VIP Room' đã tồn tại"), check.get("errors"));
+
+        Map<String, Object> result = excelService.importFromExcel(
+                new ByteArrayInputStream(file), "legacy.xls", true, true, false);
+        assertEquals("Nhập thành công 2 bản ghi, 0 lỗi", result.get("message"));
+        assertEquals("Terrace", roomTableService.getTableByNumber("T01").getRoom().getName());
+    }
+
+    /**
+     * Test 5: A dry run reports new, skipped and missing-room counts without writing anything
+     */
+    @Test
+    public void testImportDryRun_ReportsWithoutWriting() throws Exception {
+        byte[] file = workbookBytes(new XSSFWorkbook(),
+                new Object[][] {{"Lounge", "New room", 4, 16}},
+                new Object[][] {
+                    {"L01", "Lounge 1", "Lounge", 4},
+                    {"P01", "Patio 1", "Patio", 2},
+                    {"P02", "Patio 2", "patio", 2},
+                    {"v001", "Duplicate", "VIP Room", 4}
+                });
+
+        Map<String, Object> result = excelService.importFromExcel(
+                new ByteArrayInputStream(file), "plan.xlsx", true, true, true, true, null);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> tables = (Map<String, Object>) result.get("tables");
+        assertEquals(true, result.get("dryRun"));
+        assertEquals("Kiểm tra: sẽ nhập 4 bản ghi, 0 lỗi", result.get("message"));
+        assertEquals(3, tables.get("success"));
+        assertEquals(1, tables.get("skipped"));
+        assertEquals(1, tables.get("roomsCreated"), "Only Patio is missing, Lounge comes from the Rooms sheet");
+
+        assertEquals(1, roomTableService.getAllRooms().size());
+        assertEquals(1, roomTableService.getAllTables().size());
+    }
+
+    /**
+     * Test 6: Tables spanning several chunks resolve and create each missing room once
+     */
+    @Test
+    public void testImportTables_ManyRowsCreateMissingRoomsOnce() throws Exception {
+        String[] roomNames = {"Hall A", "Hall B", "VIP Room"};
+        Object[][] tables = new Object[1200][];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new Object[] {"H" + i, "Hall table " + i, roomNames[i % roomNames.length], 4};
+        }
+        byte[] file = workbookBytes(new XSSFWorkbook(), new Object[0][], tables);
+
+        Map<String, Object> result = excelService.importFromExcel(
+                new ByteArrayInputStream(file), "halls.xlsx", true, true, true);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> tablesResult = (Map<String, Object>) result.get("tables");
+        assertEquals(1200, tablesResult.get("success"));
+        assertEquals(0, tablesResult.get("error"));
+        assertEquals(2, tablesResult.get("roomsCreated"));
+        assertEquals(3, roomTableService.getAllRooms().size());
+        assertEquals("Hall B", roomTableService.getTableByNumber("H1").getRoom().getName());
+        assertEquals("VIP Room", roomTableService.getTableByNumber("H1199").getRoom().getName());
+    }
+
+    /**
+     * Test 7: Unsupported file types are rejected
+     */
+    @Test
+    public void testImport_UnsupportedFormat() {
+        Map<String, Object> result = excelService.importFromExcel(
+                new ByteArrayInputStream(new byte[0]), "rooms.csv", true, true, false);
+
+        assertEquals(false, result.get("success"));
+        assertTrue(result.get("message").toString().contains("Unsupported file format"));
+    }
+}
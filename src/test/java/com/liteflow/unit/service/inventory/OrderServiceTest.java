@@ -2,6 +2,7 @@ package com.liteflow.unit.service.inventory;
 
 import com.google.gson.Gson;
 import com.liteflow.dao.BaseDAO;
+import com.liteflow.dao.inventory.OrderNumberAllocator;
 import com.liteflow.model.inventory.*;
 import com.liteflow.service.inventory.OrderService;
 import com.liteflow.unit.base.UnitTestBase;
@@ -12,7 +13,9 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -559,4 +562,47 @@ public class OrderServiceTest extends UnitTestBase {
         );
         assertTrue(exception.getMessage().contains("Trạng thái không hợp lệ"));
     }
+
+    /**
+     * Test: The first order number block of a day continues after the highest number already used,
+     * even when earlier orders of the day were deleted (COUNT is lower than the last number)
+     */
+    @Test
+    public void testCreateOrder_OrderNumberContinuesAfterHighestUsed() throws Exception {
+        // Arrange - Hôm nay còn một đơn ORD...007 (các đơn trước đã bị xóa), chưa có block của ngày
+        String prefix = "ORD" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+        beginTransaction();
+        entityManager.createQuery("DELETE FROM OrderNumberBlock").executeUpdate();
+        TableSession session = new TableSession();
+        session.setSessionId(UUID.randomUUID());
+        session.setTable(testTable);
+        session.setStatus("Active");
+        entityManager.persist(session);
+        for (String number : new String[] {prefix + "007", prefix + "-X"}) {
+            Order order = new Order();
+            order.setOrderId(UUID.randomUUID());
+            order.setSession(session);
+            order.setOrderNumber(number);
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus("Pending");
+            order.setTotalAmount(BigDecimal.valueOf(45000));
+            entityManager.persist(order);
+        }
+        commitTransaction();
+        Field currentDate = OrderNumberAllocator.class.getDeclaredField("currentDate");
+        currentDate.setAccessible(true);
+        currentDate.set(null, null);
+
+        // Act
+        List<Map<String, Object>> items = new ArrayList<>();
+        Map<String, Object> item = new HashMap<>();
+        item.put("variantId", testVariant.getProductVariantId().toString());
+        item.put("quantity", 1);
+        items.add(item);
+        Map<String, Object> result = orderService.createOrderAndNotifyKitchen(
+                testTable.getTableId(), items, null, "Table 1 - Invoice 1", null);
+
+        // Assert
+        assertEquals(prefix + "008", result.get("orderNumber"));
+    }
 }
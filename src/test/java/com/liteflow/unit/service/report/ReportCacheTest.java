@@ -0,0 +1,152 @@
+package com.liteflow.unit.service.report;
+
+import com.liteflow.service.report.ReportCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReportCache
+ * Tests that closed ranges are never recomputed, today's bucket is recomputed after a payment,
+ * split ranges only reload today and hit-rate metrics are reported
+ */
+public class ReportCacheTest {
+
+    private final LocalDate today = LocalDate.now();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        ReportCache.clear();
+        loads.set(0);
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    /**
+     * Test 1: A closed range is computed once, a payment today does not touch it
+     */
+    @Test
+    public void testClosedRange_NotRecomputedOnPaymentToday() {
+        LocalDate from = today.minusDays(7);
+        LocalDate to = today.minusDays(1);
+
+        assertEquals("v1", ReportCache.get("revenue", from, to, "day", this::load));
+        assertEquals("v1", ReportCache.get("revenue", from, to, "day", this::load));
+        ReportCache.daysChanged(List.of(today));
+        assertEquals("v1", ReportCache.get("revenue", from, to, "day", this::load));
+        assertEquals("v2", ReportCache.get("revenue", from, to, "week", this::load), "Granularity is part of the key");
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Test 2: Today's bucket is served from cache until a session is paid
+     */
+    @Test
+    public void testLiveRange_InvalidatedOnPayment() {
+        LocalDate from = today.minusDays(3);
+
+        assertEquals("v1", ReportCache.get("revenue", from, today, "day", this::load));
+        assertEquals("v1", ReportCache.get("revenue", from, today, "day", this::load));
+        ReportCache.daysChanged(List.of(today));
+        assertEquals("v2", ReportCache.get("revenue", from, today, "day", this::load));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Test 3: Paying an overnight session drops the closed ranges containing its earlier day only
+     */
+    @Test
+    public void testPastDayChanged_DropsClosedRangesContainingIt() {
+        LocalDate yesterday = today.minusDays(1);
+        ReportCache.get("revenue", yesterday, yesterday, "day", this::load);
+        ReportCache.get("revenue", today.minusDays(10), today.minusDays(5), "day", this::load);
+
+        ReportCache.daysChanged(List.of(yesterday, today));
+
+        assertEquals("v3", ReportCache.get("revenue", yesterday, yesterday, "day", this::load));
+        assertEquals("v2", ReportCache.get("revenue", today.minusDays(10), today.minusDays(5), "day", this::load));
+    }
+
+    /**
+     * Test 4: A range spanning past days and today reloads only today's part after a payment
+     */
+    @Test
+    public void testSplitRange_ReloadsOnlyToday() {
+        List<LocalDate[]> ranges = new ArrayList<>();
+        LocalDate from = today.minusDays(6);
+
+        List<String> first = ReportCache.getSplit("trend", from, today, "day", (start, end) -> {
+            ranges.add(new LocalDate[] {start, end});
+            return List.of(start + ".." + end);
+        }, ReportCache::concat);
+        assertEquals(List.of(from + ".." + today.minusDays(1), today + ".." + today), first);
+
+        ReportCache.daysChanged(List.of(today));
+        ranges.clear();
+        List<String> second = ReportCache.getSplit("trend", from, today, "day", (start, end) -> {
+            ranges.add(new LocalDate[] {start, end});
+            return List.of(start + ".." + end);
+        }, ReportCache::concat);
+
+        assertEquals(first, second);
+        assertEquals(1, ranges.size());
+        assertEquals(today, ranges.get(0)[0]);
+    }
+
+    /**
+     * Test 5: Hit rate counts closed and live hits
+     */
+    @Test
+    public void testMetrics_HitRate() {
+        Map<String, Object> before = ReportCache.getMetrics();
+        LocalDate day = today.minusDays(2);
+        ReportCache.get("orders", day, day, "day", this::load);
+        ReportCache.get("orders", day, day, "day", this::load);
+        ReportCache.get("orders", day, today, "day", this::load);
+        ReportCache.get("orders", day, today, "day", this::load);
+
+        Map<String, Object> after = ReportCache.getMetrics();
+        assertEquals(2, after.get("size"));
+        assertEquals(1L, (long) after.get("closedHits") - (long) before.get("closedHits"));
+        assertEquals(1L, (long) after.get("liveHits") - (long) before.get("liveHits"));
+        assertEquals(2L, (long) after.get("misses") - (long) before.get("misses"));
+    }
+
+    /**
+     * Test 6: Cached lists / maps are handed out as read-only copies, a caller cannot change another caller's result
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCachedValue_IsReadOnlyCopy() {
+        LocalDate day = today.minusDays(1);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"Cafe", 10});
+
+        List<Object[]> first = ReportCache.get("top", day, day, "top5", () -> rows);
+        rows.get(0)[1] = 99;
+        List<Object[]> second = ReportCache.get("top", day, day, "top5", () -> rows);
+        assertEquals(10, second.get(0)[1], "Loader's list must not alias the cached entry");
+        assertThrows(UnsupportedOperationException.class, () -> second.add(new Object[0]));
+        second.get(0)[1] = 42;
+        assertEquals(10, ReportCache.<List<Object[]>>get("top", day, day, "top5", () -> rows).get(0)[1]);
+        assertSame(rows, first, "The computing caller keeps its own result");
+
+        Map<String, Object> metrics = ReportCache.get("metrics", day, day, "hour",
+                () -> new HashMap<>(Map.of("hourlyLabels", new ArrayList<>(List.of("08:00")))));
+        Map<String, Object> cached = ReportCache.get("metrics", day, day, "hour", () -> null);
+        assertThrows(UnsupportedOperationException.class, () -> cached.put("todayOrders", 1L));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<String>) cached.get("hourlyLabels")).clear());
+        assertEquals(metrics, cached);
+    }
+}
@@ -0,0 +1,93 @@
+package com.liteflow.unit.util;
+
+import com.liteflow.util.DeadlineWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeadlineWheel
+ * Tests expiry timing, cancel / reschedule by key and deadlines more than one wheel rotation away
+ */
+public class DeadlineWheelTest {
+
+    private static final long START = 1_000_000L;
+    private static final long TICK = 100L;
+
+    private final List<String> expired = new ArrayList<>();
+
+    private DeadlineWheel<String> newWheel(int wheelSize) {
+        return new DeadlineWheel<>(TICK, wheelSize, START, expired::add);
+    }
+
+    /**
+     * Test 1: A key expires at its deadline, never before, and past deadlines expire on the next advance
+     */
+    @Test
+    public void testAdvance_ExpiresAtDeadline() {
+        DeadlineWheel<String> wheel = newWheel(8);
+        wheel.schedule("po-1", START + 250);
+        wheel.schedule("po-2", START + 500);
+        wheel.schedule("late", START - 10_000);
+
+        assertEquals(1, wheel.advance(START));
+        assertEquals(List.of("late"), expired);
+
+        assertEquals(0, wheel.advance(START + 249));
+        assertEquals(1, wheel.advance(START + 300));
+        assertEquals(List.of("late", "po-1"), expired);
+
+        assertEquals(1, wheel.advance(START + 500));
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.advance(START + 100_000), "Nothing left to expire");
+    }
+
+    /**
+     * Test 2: Cancelling removes the key and scheduling an existing key moves its deadline
+     */
+    @Test
+    public void testScheduleAndCancel_ByKey() {
+        DeadlineWheel<String> wheel = newWheel(8);
+        wheel.schedule("po-1", START + 200);
+        wheel.schedule("po-2", START + 200);
+        wheel.schedule("po-1", START + 700);
+        assertEquals(2, wheel.size());
+
+        assertTrue(wheel.cancel("po-2"));
+        assertFalse(wheel.cancel("po-2"));
+        assertFalse(wheel.contains("po-2"));
+
+        wheel.advance(START + 600);
+        assertTrue(expired.isEmpty(), "po-1 was moved to a later deadline");
+        wheel.advance(START + 700);
+        assertEquals(List.of("po-1"), expired);
+    }
+
+    /**
+     * Test 3: Deadlines several rotations away wait for their round, and a late advance expires everything due
+     */
+    @Test
+    public void testAdvance_MultipleRotations() {
+        DeadlineWheel<String> wheel = newWheel(4);
+        // Cùng ô (tick 2 và tick 10 với wheel 4 ô) nhưng khác vòng
+        wheel.schedule("near", START + 2 * TICK);
+        wheel.schedule("far", START + 10 * TICK);
+        wheel.schedule("farther", START + 30 * TICK);
+
+        wheel.advance(START + 2 * TICK);
+        assertEquals(List.of("near"), expired);
+        wheel.advance(START + 9 * TICK);
+        assertEquals(List.of("near"), expired);
+
+        // Trễ hơn một vòng: duyệt mọi ô
+        assertEquals(1, wheel.advance(START + 20 * TICK));
+        assertEquals(List.of("near", "far"), expired);
+        assertTrue(wheel.contains("farther"));
+
+        wheel.advance(START + 30 * TICK);
+        assertEquals(List.of("near", "far", "farther"), expired);
+    }
+}